@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2026 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BatchCompilerTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void testManifest() throws Exception {
+        writeFile(new File(tempDir, "main.spin2"), ""
+            + "CON\n"
+            + "#ifdef LED\n"
+            + "    PIN = LED\n"
+            + "#else\n"
+            + "    PIN = 56\n"
+            + "#endif\n"
+            + "\n"
+            + "OBJ\n"
+            + "    o : \"child\"\n"
+            + "\n"
+            + "PUB main()\n"
+            + "    o.toggle(PIN)\n"
+            + "");
+        writeFile(new File(tempDir, "child.spin2"), ""
+            + "PUB toggle(pin)\n"
+            + "    pintoggle(pin)\n"
+            + "");
+        writeFile(new File(tempDir, "error.spin2"), ""
+            + "PUB main()\n"
+            + "    undefined_method()\n"
+            + "");
+        writeFile(new File(tempDir, "manifest.json"), ""
+            + "{\n"
+            + "  \"jobs\": [\n"
+            + "    { \"name\": \"default\", \"file\": \"main.spin2\", \"output\": \"main.binary\", \"listing\": \"main.lst\" },\n"
+            + "    { \"name\": \"led\", \"file\": \"main.spin2\", \"defines\": { \"LED\": \"38\" }, \"output\": \"main-led.binary\" },\n"
+            + "    { \"name\": \"error\", \"file\": \"error.spin2\" }\n"
+            + "  ]\n"
+            + "}\n");
+
+        BatchCompiler subject = new BatchCompiler(BatchCompiler.readManifest(new File(tempDir, "manifest.json")), tempDir);
+        subject.setThreads(2);
+
+        BatchCompiler.Summary summary = subject.run();
+        Assertions.assertEquals(3, summary.jobs);
+        Assertions.assertEquals(1, summary.failed);
+
+        BatchCompiler.JobResult result = summary.results.get(0);
+        Assertions.assertEquals("default", result.name);
+        Assertions.assertTrue(result.success);
+        Assertions.assertEquals(result.size, new File(tempDir, "main.binary").length());
+        Assertions.assertTrue(new File(tempDir, "main.lst").exists());
+
+        result = summary.results.get(1);
+        Assertions.assertEquals("led", result.name);
+        Assertions.assertTrue(result.success);
+        Assertions.assertEquals(result.size, new File(tempDir, "main-led.binary").length());
+
+        result = summary.results.get(2);
+        Assertions.assertEquals("error", result.name);
+        Assertions.assertFalse(result.success);
+        Assertions.assertNotEquals(0, result.errors);
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        BatchCompiler.writeSummary(summary, os);
+        Assertions.assertTrue(os.toString().contains("\"failed\" : 1"));
+    }
+
+    @Test
+    void testMissingFile() throws Exception {
+        BatchCompiler.Job job = new BatchCompiler.Job();
+        job.file = "missing.spin2";
+
+        BatchCompiler.Manifest manifest = new BatchCompiler.Manifest();
+        manifest.jobs = Collections.singletonList(job).toArray(new BatchCompiler.Job[0]);
+
+        BatchCompiler.Summary summary = new BatchCompiler(manifest, tempDir).run();
+        Assertions.assertEquals(1, summary.failed);
+        Assertions.assertEquals(1, summary.results.get(0).errors);
+    }
+
+    void writeFile(File file, String text) throws Exception {
+        FileOutputStream os = new FileOutputStream(file);
+        os.write(text.getBytes());
+        os.close();
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2026 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CompileSchedulerTest {
+
+    @Test
+    void testCoalesceRequests() throws Exception {
+        CompileScheduler subject = new CompileScheduler(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+
+        CompileScheduler.Job first = subject.schedule("tab", null, (job) -> {
+            started.countDown();
+            await(release);
+            log.add("1" + (job.isCancelled() ? " cancelled" : ""));
+        });
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        subject.schedule("tab", null, (job) -> log.add("2"));
+        subject.schedule("tab", null, (job) -> log.add("3"));
+        Assertions.assertTrue(first.isCancelled());
+
+        release.countDown();
+        Assertions.assertTrue(subject.waitFor("tab", 5000));
+        Assertions.assertEquals("[1 cancelled, 3]", log.toString());
+    }
+
+    @Test
+    void testSameGroupNotParallel() throws Exception {
+        CompileScheduler subject = new CompileScheduler(2);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+
+        CompileScheduler.Task task = (job) -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            sleep(50);
+            active.decrementAndGet();
+        };
+        subject.schedule("tab1", "top", task);
+        subject.schedule("tab2", "top", task);
+
+        Assertions.assertTrue(subject.waitFor("tab1", 5000));
+        Assertions.assertTrue(subject.waitFor("tab2", 5000));
+        Assertions.assertEquals(1, maxActive.get());
+    }
+
+    @Test
+    void testFocusedFirst() throws Exception {
+        CompileScheduler subject = new CompileScheduler(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+
+        subject.schedule("busy", null, (job) -> {
+            started.countDown();
+            await(release);
+        });
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        subject.schedule("tab1", null, (job) -> log.add("tab1"));
+        subject.schedule("tab2", null, (job) -> log.add("tab2"));
+        subject.setFocused("tab2");
+
+        release.countDown();
+        Assertions.assertTrue(subject.waitFor("tab1", 5000));
+        Assertions.assertTrue(subject.waitFor("tab2", 5000));
+        Assertions.assertEquals("[tab2, tab1]", log.toString());
+    }
+
+    @Test
+    void testCancel() throws Exception {
+        CompileScheduler subject = new CompileScheduler(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+
+        subject.schedule("busy", null, (job) -> {
+            started.countDown();
+            await(release);
+        });
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        subject.schedule("tab", null, (job) -> log.add("tab"));
+        Assertions.assertTrue(subject.isBusy("tab"));
+        subject.cancel("tab");
+        Assertions.assertFalse(subject.isBusy("tab"));
+
+        release.countDown();
+        Assertions.assertTrue(subject.waitFor("busy", 5000));
+        Assertions.assertEquals("[]", log.toString());
+    }
+
+    static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            // Do nothing
+        }
+    }
+
+    static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            // Do nothing
+        }
+    }
+
+}
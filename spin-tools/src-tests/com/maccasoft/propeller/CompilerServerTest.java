@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2026 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CompilerServerTest {
+
+    @TempDir
+    File tempDir;
+
+    CompilerServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new CompilerServer(new File(tempDir, "spinc.socket").toPath());
+        server.start();
+
+        Thread thread = new Thread(() -> server.run());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void testCompile() throws Exception {
+        writeFile(new File(tempDir, "main.spin2"), ""
+            + "PUB main()\n"
+            + "    pintoggle(56)\n"
+            + "");
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        int code = CompilerServer.forward(server.socketPath, new String[] {
+            "-b", new File(tempDir, "main.spin2").getAbsolutePath()
+        }, new PrintStream(os));
+
+        Assertions.assertEquals(0, code);
+        Assertions.assertTrue(os.toString().contains("Program size is"));
+        Assertions.assertTrue(new File(tempDir, "main.binary").exists());
+    }
+
+    @Test
+    void testCompileErrors() throws Exception {
+        writeFile(new File(tempDir, "main.spin2"), ""
+            + "PUB main()\n"
+            + "    undefined_method()\n"
+            + "");
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        int code = CompilerServer.forward(server.socketPath, new String[] {
+            new File(tempDir, "main.spin2").getAbsolutePath()
+        }, new PrintStream(os));
+
+        Assertions.assertEquals(0, code);
+        Assertions.assertTrue(os.toString().contains("undefined_method"));
+        Assertions.assertFalse(os.toString().contains("Program size is"));
+    }
+
+    @Test
+    void testRejectNestedServer() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        int code = CompilerServer.forward(server.socketPath, new String[] {
+            "--server"
+        }, new PrintStream(os));
+
+        Assertions.assertEquals(1, code);
+    }
+
+    void writeFile(File file, String text) throws Exception {
+        FileOutputStream os = new FileOutputStream(file);
+        os.write(text.getBytes());
+        os.close();
+    }
+
+}
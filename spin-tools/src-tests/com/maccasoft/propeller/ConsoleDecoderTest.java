@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2026 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ConsoleDecoderTest {
+
+    @Test
+    void testLines() throws Exception {
+        ConsoleDecoder subject = new ConsoleDecoder();
+
+        byte[] b = "Line 1\r\nLine 2\n\nLine".getBytes();
+        Assertions.assertEquals(b.length, subject.decode(b, 0, b.length));
+
+        ConsoleDecoder.Batch batch = subject.takeBatch();
+        Assertions.assertEquals(2, batch.lines.size());
+        Assertions.assertEquals("Line 1", batch.lines.get(0).text);
+        Assertions.assertEquals("Line 2", batch.lines.get(1).text);
+        Assertions.assertEquals("Line 1\r\nLine 2\n\nLine", new String(batch.log));
+        Assertions.assertFalse(subject.hasPending());
+
+        b = " 3\n".getBytes();
+        subject.decode(b, 0, b.length);
+
+        batch = subject.takeBatch();
+        Assertions.assertEquals(1, batch.lines.size());
+        Assertions.assertEquals("Line 3", batch.lines.get(0).text);
+    }
+
+    @Test
+    void testUTF8() throws Exception {
+        ConsoleDecoder subject = new ConsoleDecoder();
+
+        byte[] b = "Temp 25°C €\n".getBytes(StandardCharsets.UTF_8);
+        subject.decode(b, 0, 7);
+        subject.decode(b, 7, b.length - 7);
+
+        ConsoleDecoder.Batch batch = subject.takeBatch();
+        Assertions.assertEquals("Temp 25°C €", batch.lines.get(0).text);
+    }
+
+    @Test
+    void testTruncatedUTF8() throws Exception {
+        ConsoleDecoder subject = new ConsoleDecoder();
+
+        byte[] b = new byte[] {
+            'A', (byte) 0xE2, (byte) 0x82, '\n', 'B', '\n'
+        };
+        subject.decode(b, 0, b.length);
+
+        ConsoleDecoder.Batch batch = subject.takeBatch();
+        Assertions.assertEquals(2, batch.lines.size());
+        Assertions.assertEquals("A", batch.lines.get(0).text);
+        Assertions.assertEquals("B", batch.lines.get(1).text);
+    }
+
+    @Test
+    void testCommand() throws Exception {
+        ConsoleDecoder subject = new ConsoleDecoder();
+
+        byte[] b = "Cog0  INIT $0000_0000 $0000_0000 load\nCog0  `term t1 size 40 10\n".getBytes();
+        subject.decode(b, 0, b.length);
+
+        ConsoleDecoder.Batch batch = subject.takeBatch();
+        Assertions.assertFalse(batch.lines.get(0).isCommand());
+        Assertions.assertTrue(batch.lines.get(1).isCommand());
+        Assertions.assertEquals("`term t1 size 40 10", batch.lines.get(1).getCommand());
+    }
+
+    @Test
+    void testBreakpoint() throws Exception {
+        ConsoleDecoder subject = new ConsoleDecoder();
+
+        byte[] b = new byte[] {
+            'A', '\n', 0x03, 0x00, 0x00, 0x00, 0x12, 0x34
+        };
+        Assertions.assertEquals(6, subject.decode(b, 0, b.length));
+        Assertions.assertEquals(3, subject.getBreakpoint());
+
+        ConsoleDecoder.Batch batch = subject.takeBatch();
+        Assertions.assertEquals("A", batch.lines.get(0).text);
+        Assertions.assertEquals("A\n", new String(batch.log));
+    }
+
+    @Test
+    void testSplitBreakpoint() throws Exception {
+        ConsoleDecoder subject = new ConsoleDecoder();
+
+        byte[] b = new byte[] {
+            0x01, 0x00, 0x05, 0x00
+        };
+        Assertions.assertEquals(4, subject.decode(b, 0, b.length));
+        Assertions.assertEquals(ConsoleDecoder.NO_BREAKPOINT, subject.getBreakpoint());
+
+        b = new byte[] {
+            0x00, 0x00, 'A'
+        };
+        Assertions.assertEquals(2, subject.decode(b, 0, b.length));
+        Assertions.assertEquals(5, subject.getBreakpoint());
+    }
+
+    @Test
+    void testEndSession() throws Exception {
+        ConsoleDecoder subject = new ConsoleDecoder();
+        subject.setEndSessionEnabled(true);
+
+        byte[] b = "Done\u001B\nNext\n".getBytes();
+        Assertions.assertEquals(6, subject.decode(b, 0, b.length));
+
+        ConsoleDecoder.Batch batch = subject.takeBatch();
+        Assertions.assertEquals(1, batch.lines.size());
+        Assertions.assertEquals("Done", batch.lines.get(0).text);
+        Assertions.assertTrue(batch.lines.get(0).endSession);
+        Assertions.assertEquals("Done\n", new String(batch.log));
+    }
+
+    @Test
+    void testEscapeWithoutSession() throws Exception {
+        ConsoleDecoder subject = new ConsoleDecoder();
+
+        byte[] b = "\u001B[1mBold\n".getBytes();
+        Assertions.assertEquals(b.length, subject.decode(b, 0, b.length));
+
+        ConsoleDecoder.Batch batch = subject.takeBatch();
+        Assertions.assertEquals("\u001B[1mBold", batch.lines.get(0).text);
+        Assertions.assertFalse(batch.lines.get(0).endSession);
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2026 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller;
+
+import java.io.File;
+import java.util.List;
+
+import org.eclipse.jface.fieldassist.IContentProposal;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class EditorHelpTest {
+
+    @Test
+    void testGetString() {
+        EditorHelp subject = new EditorHelp("Spin2Instructions.xml", new File(""), ".spin2");
+
+        Assertions.assertTrue(subject.getString("StatementNode", "elseifnot").contains("IF / IFNOT"));
+        Assertions.assertTrue(subject.getString("StatementNode", "IFNOT").contains("IF / IFNOT"));
+        Assertions.assertNull(subject.getString("StatementNode", "ifn"));
+        Assertions.assertNull(subject.getString("Root", "ifnot"));
+        Assertions.assertNull(subject.getString(null, "ifnot"));
+    }
+
+    @Test
+    void testFillProposals() {
+        EditorHelp subject = new EditorHelp("Spin2Instructions.xml", new File(""), ".spin2");
+
+        List<IContentProposal> list = subject.fillProposals("Root", "p");
+        Assertions.assertEquals(2, list.size());
+        Assertions.assertEquals("PRI", list.get(0).getLabel());
+        Assertions.assertEquals("PUB", list.get(1).getLabel());
+
+        list = subject.fillProposals("StatementNode", "ElseIf");
+        Assertions.assertEquals(2, list.size());
+        Assertions.assertEquals("elseif", list.get(0).getContent());
+        Assertions.assertEquals("elseifnot", list.get(1).getContent());
+    }
+
+    @Test
+    void testFillProposalsInsert() {
+        EditorHelp subject = new EditorHelp("Spin2Instructions.xml", new File(""), ".spin2");
+
+        List<IContentProposal> list = subject.fillProposals("StatementNode", "cogst");
+        Assertions.assertEquals(1, list.size());
+        Assertions.assertEquals("cogstop", list.get(0).getLabel());
+        Assertions.assertEquals("cogstop(cognum)", list.get(0).getContent());
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2026 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileMonitorTest {
+
+    @TempDir
+    File tempDir;
+
+    FileMonitor subject;
+    BlockingQueue<Set<File>> events;
+    BlockingQueue<Set<File>> lostEvents;
+
+    @BeforeEach
+    void setUp() {
+        subject = new FileMonitor();
+        Assertions.assertTrue(subject.start());
+
+        events = new ArrayBlockingQueue<>(16);
+        lostEvents = new ArrayBlockingQueue<>(16);
+        subject.addListener((files, lostFolders) -> {
+            lostEvents.add(new HashSet<>(lostFolders));
+            events.add(new HashSet<>(files));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        subject.stop();
+    }
+
+    @Test
+    void testWatch() throws Exception {
+        subject.watch(tempDir);
+        Assertions.assertTrue(subject.isWatched(tempDir));
+
+        File file = new File(tempDir, "test.spin2");
+        write(file, "CON  A = 1\n");
+
+        Set<File> files = events.poll(10, TimeUnit.SECONDS);
+        Assertions.assertNotNull(files);
+        Assertions.assertTrue(files.contains(file.getAbsoluteFile()));
+    }
+
+    @Test
+    void testDebounce() throws Exception {
+        subject.watch(tempDir);
+
+        File file1 = new File(tempDir, "test1.spin2");
+        File file2 = new File(tempDir, "test2.spin2");
+        for (int i = 0; i < 5; i++) {
+            write(file1, "CON  A = " + i + "\n");
+            write(file2, "CON  A = " + i + "\n");
+        }
+
+        Set<File> files = events.poll(10, TimeUnit.SECONDS);
+        Assertions.assertNotNull(files);
+        Assertions.assertTrue(files.contains(file1.getAbsoluteFile()));
+        Assertions.assertTrue(files.contains(file2.getAbsoluteFile()));
+        Assertions.assertNull(events.poll(FileMonitor.DEBOUNCE_DELAY * 2, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testCreateFolder() throws Exception {
+        subject.watch(tempDir);
+
+        File folder = new File(tempDir, "folder");
+        Assertions.assertTrue(folder.mkdir());
+
+        Set<File> files = events.poll(10, TimeUnit.SECONDS);
+        Assertions.assertNotNull(files);
+        Assertions.assertTrue(files.contains(folder.getAbsoluteFile()));
+        Assertions.assertTrue(lostEvents.poll().isEmpty());
+    }
+
+    @Test
+    void testMissingFolder() {
+        File folder = new File(tempDir, "missing");
+
+        subject.watch(folder);
+        Assertions.assertFalse(subject.isWatched(folder));
+    }
+
+    void write(File file, String text) throws Exception {
+        try (FileOutputStream os = new FileOutputStream(file)) {
+            os.write(text.getBytes());
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2026 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.maccasoft.propeller.devices.ComPort;
+import com.maccasoft.propeller.devices.ComPortException;
+import com.maccasoft.propeller.devices.SerialComPort;
+
+class GangProgrammerTest {
+
+    static class TestLoader extends PropellerLoader {
+
+        final Runnable action;
+
+        TestLoader(Runnable action) {
+            super(ComPort.Control.DtrRts);
+            this.action = action;
+        }
+
+        @Override
+        public ComPort upload(byte[] binaryImage, int type, boolean discoverDevice) throws ComPortException {
+            action.run();
+            return null;
+        }
+
+        @Override
+        protected Map<String, Integer> getChipVersions() {
+            return new ConcurrentHashMap<>();
+        }
+
+        @Override
+        protected int probe(ComPort comPort) throws ComPortException {
+            return 0;
+        }
+
+    }
+
+    @Test
+    void testParallelUpload() throws Exception {
+        List<ComPort> ports = Arrays.asList(new SerialComPort("test0"), new SerialComPort("test1"), new SerialComPort("test2"));
+        CountDownLatch latch = new CountDownLatch(ports.size());
+
+        GangProgrammer subject = new GangProgrammer() {
+
+            @Override
+            protected PropellerLoader createLoader(ComPort comPort) {
+                return new TestLoader(() -> {
+                    latch.countDown();
+                    try {
+                        // All workers must be running at the same time
+                        if (!latch.await(5, TimeUnit.SECONDS)) {
+                            throw new RuntimeException("Timeout");
+                        }
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+            }
+
+        };
+
+        List<GangProgrammer.Result> results = subject.upload(ports, new byte[16], 0);
+        Assertions.assertEquals(3, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            Assertions.assertEquals(ports.get(i).getPortName(), results.get(i).portName);
+            Assertions.assertTrue(results.get(i).success);
+            Assertions.assertEquals(1, results.get(i).attempts);
+        }
+    }
+
+    @Test
+    void testRetry() throws Exception {
+        List<ComPort> ports = Arrays.asList(new SerialComPort("test0"), new SerialComPort("test1"));
+        AtomicInteger count = new AtomicInteger();
+
+        GangProgrammer subject = new GangProgrammer() {
+
+            @Override
+            protected PropellerLoader createLoader(ComPort comPort) {
+                return new TestLoader(() -> {
+                    if (comPort.getPortName().equals("test1") && count.getAndIncrement() == 0) {
+                        throw new RuntimeException("Checksum error");
+                    }
+                });
+            }
+
+        };
+
+        List<GangProgrammer.Result> results = subject.upload(ports, new byte[16], 0);
+        Assertions.assertTrue(results.get(0).success);
+        Assertions.assertEquals(1, results.get(0).attempts);
+        Assertions.assertTrue(results.get(1).success);
+        Assertions.assertEquals(2, results.get(1).attempts);
+    }
+
+    @Test
+    void testFailure() throws Exception {
+        List<ComPort> ports = Arrays.asList(new SerialComPort("test0"));
+
+        GangProgrammer subject = new GangProgrammer() {
+
+            @Override
+            protected PropellerLoader createLoader(ComPort comPort) {
+                return new TestLoader(() -> {
+                    throw new RuntimeException("Checksum error");
+                });
+            }
+
+        };
+        subject.setRetries(2);
+
+        List<GangProgrammer.Result> results = subject.upload(ports, new byte[16], 0);
+        Assertions.assertFalse(results.get(0).success);
+        Assertions.assertEquals(3, results.get(0).attempts);
+        Assertions.assertEquals("java.lang.RuntimeException: Checksum error", results.get(0).message);
+    }
+
+}
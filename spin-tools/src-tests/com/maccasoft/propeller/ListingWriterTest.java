@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2026 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.maccasoft.propeller.SpinObject.DataObject;
+import com.maccasoft.propeller.SpinObject.ListingRange;
+import com.maccasoft.propeller.SpinObject.MethodDataObject;
+import com.maccasoft.propeller.SpinObject.ObjectDataObject;
+import com.maccasoft.propeller.spin2.Spin2Object;
+
+class ListingWriterTest {
+
+    @Test
+    void testHex() {
+        StringBuilder sb = new StringBuilder();
+        ListingWriter subject = new ListingWriter(sb);
+
+        Random random = new Random(1234);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            int value = (i % 4) == 0 ? random.nextInt() : random.nextInt(1 << random.nextInt(24));
+            int digits = 1 + random.nextInt(5);
+            subject.hex(value, digits).print(' ');
+            expected.append(String.format("%0" + digits + "X", value)).append(' ');
+        }
+        subject.flush();
+
+        Assertions.assertEquals(expected.toString(), sb.toString());
+    }
+
+    @Test
+    void testFlush() {
+        StringBuilder sb = new StringBuilder();
+        ListingWriter subject = new ListingWriter(sb);
+
+        subject.print("' text").spaces(2).println();
+        Assertions.assertEquals(0, sb.length());
+
+        subject.flush();
+        Assertions.assertEquals("' text  " + System.lineSeparator(), sb.toString());
+    }
+
+    @Test
+    void testListingRanges() {
+        Spin2Object child = new Spin2Object();
+        child.writeComment("Object \"child.spin2\" header");
+        child.write(new DataObject(new byte[4]));
+        child.write(new MethodDataObject("start", "PUB start()"));
+        child.write(new DataObject(new byte[8]));
+
+        Spin2Object root = new Spin2Object();
+        root.writeComment("Object header");
+        root.write(new DataObject(new byte[2]));
+        root.write(new MethodDataObject("main", "PUB main()"));
+        root.write(new DataObject(new byte[6]));
+        root.write(new ObjectDataObject(child));
+        root.write(new MethodDataObject("loop", null));
+        root.write(new DataObject(new byte[4]));
+        root.write(new ObjectDataObject(child));
+
+        List<ListingRange> ranges = root.getListingRanges(0x10);
+        Assertions.assertEquals(3, ranges.size());
+
+        Assertions.assertSame(root, ranges.get(0).object);
+        Assertions.assertEquals("Object header", ranges.get(0).text);
+        Assertions.assertEquals(0, ranges.get(0).depth);
+        Assertions.assertEquals(0x10, ranges.get(0).address);
+        Assertions.assertEquals(36, ranges.get(0).size);
+
+        Assertions.assertEquals(2, ranges.get(0).methods.size());
+        Assertions.assertEquals("main", ranges.get(0).methods.get(0).name);
+        Assertions.assertEquals("PUB main()", ranges.get(0).methods.get(0).text);
+        Assertions.assertEquals(0x12, ranges.get(0).methods.get(0).address);
+        Assertions.assertEquals(6, ranges.get(0).methods.get(0).size);
+        Assertions.assertEquals("loop", ranges.get(0).methods.get(1).name);
+        Assertions.assertNull(ranges.get(0).methods.get(1).text);
+        Assertions.assertEquals(0x24, ranges.get(0).methods.get(1).address);
+        Assertions.assertEquals(4, ranges.get(0).methods.get(1).size);
+
+        Assertions.assertSame(child, ranges.get(1).object);
+        Assertions.assertEquals(1, ranges.get(1).depth);
+        Assertions.assertEquals(0x18, ranges.get(1).address);
+        Assertions.assertEquals(12, ranges.get(1).size);
+        Assertions.assertEquals(1, ranges.get(1).methods.size());
+        Assertions.assertEquals(0x1C, ranges.get(1).methods.get(0).address);
+        Assertions.assertEquals(8, ranges.get(1).methods.get(0).size);
+
+        Assertions.assertSame(child, ranges.get(2).object);
+        Assertions.assertEquals(0x28, ranges.get(2).address);
+        Assertions.assertEquals(0x2C, ranges.get(2).methods.get(0).address);
+    }
+
+}
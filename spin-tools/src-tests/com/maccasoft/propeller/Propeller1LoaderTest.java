@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2026 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.maccasoft.propeller.devices.ComPort;
+import com.maccasoft.propeller.devices.ComPortEventListener;
+
+class Propeller1LoaderTest {
+
+    static class FakeComPort extends ComPort {
+
+        int writeCount;
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+
+        @Override
+        public String getName() {
+            return "FAKE";
+        }
+
+        @Override
+        public String getDescription() {
+            return "FAKE";
+        }
+
+        @Override
+        public String getPortName() {
+            return "FAKE";
+        }
+
+        @Override
+        public boolean isOpened() {
+            return true;
+        }
+
+        @Override
+        public boolean openPort() {
+            return true;
+        }
+
+        @Override
+        public boolean setParams(int baudRate, int dataBits, int stopBits, int parity) {
+            return true;
+        }
+
+        @Override
+        public void closePort() {
+
+        }
+
+        @Override
+        public void hwreset(Control control, int delay) {
+
+        }
+
+        @Override
+        public int readByteWithTimeout(int timeout) {
+            // Checksum ok
+            return 0;
+        }
+
+        @Override
+        public boolean writeInt(int singleInt) {
+            return true;
+        }
+
+        @Override
+        public boolean writeByte(byte singleByte) {
+            return writeBytes(new byte[] {
+                singleByte
+            });
+        }
+
+        @Override
+        public boolean writeBytes(byte[] buffer) {
+            return writeBytes(buffer, 0, buffer.length);
+        }
+
+        @Override
+        public boolean writeBytes(byte[] buffer, int offs, int count) {
+            writeCount++;
+            written.write(buffer, offs, count);
+            return true;
+        }
+
+        @Override
+        public boolean writeString(String string) {
+            return writeBytes(string.getBytes());
+        }
+
+        @Override
+        public byte[] readBytes() {
+            return new byte[0];
+        }
+
+        @Override
+        public void setEventListener(ComPortEventListener listener) {
+
+        }
+
+        @Override
+        public void removeEventListener() {
+
+        }
+
+        @Override
+        public void setRTS(boolean enable) {
+
+        }
+
+        @Override
+        public void setDTR(boolean enable) {
+
+        }
+
+        @Override
+        public boolean isCTS() {
+            return false;
+        }
+
+        @Override
+        public boolean isDSR() {
+            return false;
+        }
+
+    }
+
+    @Test
+    void testMakelong() {
+        Assertions.assertArrayEquals(new byte[] {
+            (byte) 0x92, (byte) 0x92, (byte) 0x92, (byte) 0x92, (byte) 0x92, (byte) 0x92, (byte) 0x92, (byte) 0x92, (byte) 0x92, (byte) 0x92, (byte) 0xF2
+        }, Propeller1Loader.makelong(0));
+        Assertions.assertArrayEquals(new byte[] {
+            (byte) 0xDB, (byte) 0xDB, (byte) 0xDB, (byte) 0xDB, (byte) 0xDB, (byte) 0xDB, (byte) 0xDB, (byte) 0xDB, (byte) 0xDB, (byte) 0xDB, (byte) 0xFB
+        }, Propeller1Loader.makelong(0xFFFFFFFF));
+    }
+
+    @Test
+    void testEncodeLongs() throws Exception {
+        byte[] binaryImage = new byte[256];
+        new Random(1234).nextBytes(binaryImage);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (int n = 16; n < 16 + 128; n += 4) {
+            int data = (binaryImage[n] & 0xFF) |
+                ((binaryImage[n + 1] << 8) & 0xFF00) |
+                ((binaryImage[n + 2] << 16) & 0xFF0000) |
+                ((binaryImage[n + 3] << 24) & 0xFF000000);
+            expected.write(Propeller1Loader.makelong(data));
+        }
+
+        byte[] buffer = new byte[128 / 4 * 11];
+        Assertions.assertEquals(buffer.length, Propeller1Loader.encodeLongs(binaryImage, 16, 128, buffer));
+        Assertions.assertArrayEquals(expected.toByteArray(), buffer);
+    }
+
+    @Test
+    void testBufferUploadWritesChunks() throws Exception {
+        byte[] binaryImage = new byte[Propeller1Loader.UPLOAD_CHUNK_SIZE * 2 + 452];
+        new Random(1234).nextBytes(binaryImage);
+
+        FakeComPort comPort = new FakeComPort();
+        Propeller1Loader subject = new Propeller1Loader(comPort, null, false);
+        subject.bufferUpload(Propeller1Loader.DOWNLOAD_RUN_BINARY, binaryImage, "binary image");
+
+        // Type and count, then one write for each chunk
+        Assertions.assertEquals(2 + 3, comPort.writeCount);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(Propeller1Loader.makelong(Propeller1Loader.DOWNLOAD_RUN_BINARY));
+        expected.write(Propeller1Loader.makelong(binaryImage.length / 4));
+        byte[] buffer = new byte[binaryImage.length / 4 * 11];
+        expected.write(buffer, 0, Propeller1Loader.encodeLongs(binaryImage, 0, binaryImage.length, buffer));
+        Assertions.assertArrayEquals(expected.toByteArray(), comPort.written.toByteArray());
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2026 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.maccasoft.propeller.devices.ComPort;
+import com.maccasoft.propeller.devices.SerialComPort;
+
+class PropellerLoaderTest {
+
+    static class FakeLoader extends PropellerLoader {
+
+        final String[] portNames;
+        final String preferredPortName;
+        final String chipPortName;
+
+        final Map<String, Integer> chipVersions = new HashMap<>();
+        final List<String> probed = Collections.synchronizedList(new ArrayList<>());
+
+        FakeLoader(String[] portNames, String preferredPortName, String chipPortName) {
+            super((ComPort.Control) null);
+            this.portNames = portNames;
+            this.preferredPortName = preferredPortName;
+            this.chipPortName = chipPortName;
+        }
+
+        @Override
+        public ComPort upload(byte[] binaryImage, int type, boolean discoverDevice) {
+            return null;
+        }
+
+        @Override
+        protected Map<String, Integer> getChipVersions() {
+            return chipVersions;
+        }
+
+        @Override
+        protected int probe(ComPort comPort) {
+            return 0;
+        }
+
+        @Override
+        protected String getPreferredPortName() {
+            return preferredPortName;
+        }
+
+        @Override
+        String[] getPortNames() {
+            return portNames;
+        }
+
+        @Override
+        SerialComPort probe(String portName) {
+            probed.add(portName);
+            return portName.equals(chipPortName) ? new SerialComPort(portName) : null;
+        }
+
+    }
+
+    @Test
+    void testDiscoverProbesPreferredPortFirst() {
+        FakeLoader subject = new FakeLoader(new String[] {
+            "COM1", "COM2", "COM3", "COM4"
+        }, "COM3", null);
+        subject.getChipVersions().put("COM2", 1);
+        subject.setBlacklistedPorts(Arrays.asList("COM4"));
+
+        Assertions.assertNull(subject.discover());
+        Assertions.assertEquals(Arrays.asList("COM3", "COM2", "COM1"), subject.probed);
+    }
+
+    @Test
+    void testDiscoverStopsAtPreferredPort() {
+        FakeLoader subject = new FakeLoader(new String[] {
+            "COM1", "COM2", "COM3"
+        }, "COM3", "COM3");
+        subject.getChipVersions().put("COM2", 1);
+
+        SerialComPort result = subject.discover();
+        Assertions.assertEquals("COM3", result.getPortName());
+        Assertions.assertEquals(Arrays.asList("COM3"), subject.probed);
+    }
+
+    @Test
+    void testDiscoverProbesBlacklistedPreferredPort() {
+        FakeLoader subject = new FakeLoader(new String[] {
+            "COM1", "COM2"
+        }, "COM2", "COM1");
+        subject.setBlacklistedPorts(Arrays.asList("COM2"));
+
+        SerialComPort result = subject.discover();
+        Assertions.assertEquals("COM1", result.getPortName());
+        Assertions.assertEquals(Arrays.asList("COM2", "COM1"), subject.probed);
+    }
+
+    @Test
+    void testDiscoverSkipsMissingPreferredPort() {
+        FakeLoader subject = new FakeLoader(new String[] {
+            "COM1"
+        }, "COM9", null);
+
+        Assertions.assertNull(subject.discover());
+        Assertions.assertEquals(Arrays.asList("COM1"), subject.probed);
+    }
+
+}
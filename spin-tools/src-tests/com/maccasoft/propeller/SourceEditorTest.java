@@ -410,6 +410,11 @@ public class SourceEditorTest {
                     return new Node();
                 }
 
+                @Override
+                protected RootNode parseSection(String text) {
+                    return new RootNode();
+                }
+
             });
         }
 
@@ -1,10 +1,15 @@
 package com.maccasoft.propeller;
 
+import java.io.ByteArrayOutputStream;
 import java.util.regex.Pattern;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import com.maccasoft.propeller.SpinObject.DataObject;
+import com.maccasoft.propeller.SpinObject.MethodDataObject;
+import com.maccasoft.propeller.spin2.Spin2Object;
+
 class SpinCompilerTest {
 
     @Test
@@ -37,4 +42,18 @@ class SpinCompilerTest {
         Assertions.assertFalse(Pattern.matches(SpinCompiler.macAddressPattern, "/dev/tty.usbserial-P8fl2in6"));
     }
 
+    @Test
+    void testWriteListingRanges() throws Exception {
+        Spin2Object object = new Spin2Object();
+        object.write(new MethodDataObject("main", "PUB main()"));
+        object.write(new DataObject(new byte[4]));
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        SpinCompiler.writeListingRanges(object.getListingRanges(), os);
+
+        String text = os.toString().replaceAll("\\s+", "");
+        Assertions.assertEquals("[{\"depth\":0,\"address\":0,\"size\":4,\"methods\":["
+            + "{\"name\":\"main\",\"text\":\"PUBmain()\",\"depth\":0,\"address\":0,\"size\":4}]}]", text);
+    }
+
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2026 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.maccasoft.propeller.SourceTokenMarker.TokenId;
+import com.maccasoft.propeller.SourceTokenMarker.TokenMarker;
+import com.maccasoft.propeller.SourceTokenMarker.TokenMarkerSet;
+
+class TokenMarkerIndexTest {
+
+    @Test
+    void testVisitLineTokens() {
+        TokenMarkerSet set = new TokenMarkerSet();
+        set.add(new TokenMarker(0, 2, TokenId.SECTION));
+        set.add(new TokenMarker(4, 8, TokenId.METHOD_PUB));
+        set.add(new TokenMarker(10, 40, TokenId.COMMENT));
+        set.add(new TokenMarker(12, 14, TokenId.KEYWORD));
+
+        StringBuilder sb = new StringBuilder();
+        set.getIndex().visitLineTokens(0, 20, (start, stop, id) -> sb.append(start + "-" + stop + " " + id + "\n"));
+        Assertions.assertEquals(""
+            + "0-2 SECTION\n"
+            + "4-8 METHOD_PUB\n"
+            + "10-20 COMMENT\n"
+            + "", sb.toString());
+
+        sb.setLength(0);
+        set.getIndex().visitLineTokens(3, 9, (start, stop, id) -> sb.append(start + "-" + stop + " " + id + "\n"));
+        Assertions.assertEquals(""
+            + "4-8 METHOD_PUB\n"
+            + "", sb.toString());
+    }
+
+    @Test
+    void testGetMarkerAt() {
+        TokenMarkerSet set = new TokenMarkerSet();
+        set.add(new TokenMarker(0, 2, TokenId.SECTION));
+        set.add(new TokenMarker(4, 40, TokenId.COMMENT));
+        set.add(new TokenMarker(12, 14, TokenId.KEYWORD));
+        set.add(new TokenMarker(50, 52, TokenId.NUMBER));
+
+        Assertions.assertEquals(TokenId.SECTION, set.getIndex().getMarkerAt(1).getId());
+        Assertions.assertNull(set.getIndex().getMarkerAt(3));
+        Assertions.assertEquals(TokenId.COMMENT, set.getIndex().getMarkerAt(13).getId());
+        Assertions.assertEquals(TokenId.NUMBER, set.getIndex().getMarkerAt(52).getId());
+        Assertions.assertNull(set.getIndex().getMarkerAt(53));
+    }
+
+    @Test
+    void testIndexUpdate() {
+        TokenMarkerSet set = new TokenMarkerSet();
+        set.add(new TokenMarker(0, 2, TokenId.SECTION));
+
+        TokenMarkerIndex index = set.getIndex();
+        Assertions.assertSame(index, set.getIndex());
+
+        set.add(new TokenMarker(4, 8, TokenId.METHOD_PUB));
+        Assertions.assertNotSame(index, set.getIndex());
+        Assertions.assertEquals(2, set.getIndex().size());
+
+        set.clear();
+        Assertions.assertEquals(0, set.getIndex().size());
+    }
+
+    @Test
+    void testChangedRange() {
+        TokenMarkerSet set = new TokenMarkerSet();
+        set.add(new TokenMarker(0, 2, TokenId.SECTION));
+        set.add(new TokenMarker(10, 14, TokenId.KEYWORD));
+        set.add(new TokenMarker(20, 24, TokenId.CONSTANT));
+        set.add(new TokenMarker(30, 34, TokenId.NUMBER));
+        TokenMarkerIndex previous = set.getIndex();
+
+        set.clear();
+        set.add(new TokenMarker(0, 2, TokenId.SECTION));
+        set.add(new TokenMarker(10, 16, TokenId.KEYWORD));
+        set.add(new TokenMarker(22, 26, TokenId.CONSTANT));
+        set.add(new TokenMarker(32, 36, TokenId.NUMBER));
+
+        Assertions.assertEquals("[10, 16]", Arrays.toString(set.getIndex().getChangedRange(previous, 12, 0, 2)));
+
+        set.clear();
+        set.add(new TokenMarker(0, 2, TokenId.SECTION));
+        set.add(new TokenMarker(10, 14, TokenId.KEYWORD));
+        set.add(new TokenMarker(20, 24, TokenId.VARIABLE));
+        set.add(new TokenMarker(30, 34, TokenId.NUMBER));
+
+        Assertions.assertEquals("[20, 24]", Arrays.toString(set.getIndex().getChangedRange(previous)));
+        Assertions.assertNull(previous.getChangedRange(previous));
+    }
+
+}
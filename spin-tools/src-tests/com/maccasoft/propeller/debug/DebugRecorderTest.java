@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2026 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller.debug;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class DebugRecorderTest {
+
+    @Test
+    void testRecordAndPlayback() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+        DebugRecorder recorder = new DebugRecorder(os, 0L);
+        Assertions.assertTrue(recorder.process("`scope s1 size 256 128 samples 64", 0L));
+        Assertions.assertTrue(recorder.process("`term t1 SIZE 40 10", 1_000_000_000L));
+        Assertions.assertTrue(recorder.process("`s1 10,20 'text, here'", 1_500_000_000L));
+        Assertions.assertTrue(recorder.process("`S1 T1 clear", 1_502_000_000L));
+        Assertions.assertFalse(recorder.process("`unknown 1 2 3", 1_600_000_000L));
+        Assertions.assertFalse(recorder.process("`", 1_700_000_000L));
+        recorder.close();
+
+        Assertions.assertEquals(4, recorder.getCommandCount());
+        Assertions.assertEquals(2, recorder.getWindowCount());
+
+        DebugPlayback playback = new DebugPlayback(new ByteArrayInputStream(os.toByteArray()));
+
+        DebugPlayback.Entry entry = playback.next();
+        Assertions.assertEquals("`scope s1 size 256 128 samples 64", entry.command);
+
+        entry = playback.next();
+        Assertions.assertEquals(1_000_000L, entry.time);
+        Assertions.assertEquals("`term t1 SIZE 40 10", entry.command);
+
+        entry = playback.next();
+        Assertions.assertEquals(1_500_000L, entry.time);
+        Assertions.assertEquals("`s1 10 20 'text, here'", entry.command);
+
+        entry = playback.next();
+        Assertions.assertEquals(1_502_000L, entry.time);
+        Assertions.assertEquals("`s1 t1 clear", entry.command);
+
+        Assertions.assertNull(playback.next());
+    }
+
+    @Test
+    void testPlaybackCommandsMatchOriginal() throws Exception {
+        String[] commands = new String[] {
+            "`plot p1 size 200 200",
+            "`p1 set 10 20 'label' text",
+            "`p1",
+        };
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        DebugRecorder recorder = new DebugRecorder(os, 0L);
+        for (String s : commands) {
+            recorder.process(s, 0L);
+        }
+        recorder.close();
+
+        List<String> result = new ArrayList<>();
+        DebugPlayback playback = new DebugPlayback(new ByteArrayInputStream(os.toByteArray()));
+        playback.play(result::add, 0);
+
+        Assertions.assertEquals(commands.length, result.size());
+        for (int i = 0; i < commands.length; i++) {
+            KeywordIterator expected = new KeywordIterator(commands[i]);
+            KeywordIterator actual = new KeywordIterator(result.get(i));
+            while (expected.hasNext()) {
+                Assertions.assertTrue(actual.hasNext());
+                Assertions.assertEquals(expected.next(), actual.next());
+            }
+            Assertions.assertFalse(actual.hasNext());
+        }
+    }
+
+    @Test
+    void testInvalidFile() throws Exception {
+        Assertions.assertThrows(java.io.IOException.class, () -> new DebugPlayback(new ByteArrayInputStream("ABCDE".getBytes())));
+    }
+
+}
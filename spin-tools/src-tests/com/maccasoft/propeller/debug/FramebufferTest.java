@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2026 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller.debug;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class FramebufferTest {
+
+    @Test
+    void testSetPixel() {
+        Framebuffer subject = new Framebuffer(4, 3);
+        Assertions.assertFalse(subject.isDirty());
+
+        subject.setPixel(1, 2, 0x123456);
+        Assertions.assertEquals(0x123456, subject.getPixel(1, 2));
+        Assertions.assertTrue(subject.isDirty());
+    }
+
+    @Test
+    void testSetRow() {
+        Framebuffer subject = new Framebuffer(4, 3);
+
+        subject.setRow(1, 1, new int[] {
+            9, 1, 2, 3
+        }, 1, 3);
+
+        Assertions.assertEquals(0, subject.getPixel(0, 1));
+        Assertions.assertEquals(1, subject.getPixel(1, 1));
+        Assertions.assertEquals(2, subject.getPixel(2, 1));
+        Assertions.assertEquals(3, subject.getPixel(3, 1));
+    }
+
+    @Test
+    void testCopyDirtyRectangle() {
+        Framebuffer subject = new Framebuffer(4, 3);
+        int bytesPerLine = 12;
+        byte[] data = new byte[bytesPerLine * 3];
+
+        subject.setPixel(2, 1, 0xAABBCC);
+        Assertions.assertTrue(subject.copyTo(data, bytesPerLine));
+        Assertions.assertFalse(subject.isDirty());
+        Assertions.assertFalse(subject.copyTo(data, bytesPerLine));
+
+        Assertions.assertEquals((byte) 0xAA, data[1 * bytesPerLine + 2 * 3 + 0]);
+        Assertions.assertEquals((byte) 0xBB, data[1 * bytesPerLine + 2 * 3 + 1]);
+        Assertions.assertEquals((byte) 0xCC, data[1 * bytesPerLine + 2 * 3 + 2]);
+
+        subject.setPixel(0, 0, 0x010203);
+        data[2 * bytesPerLine] = 0x55;
+        subject.copyTo(data, bytesPerLine);
+        Assertions.assertEquals(0x01, data[0]);
+        Assertions.assertEquals(0x55, data[2 * bytesPerLine]);
+    }
+
+    @Test
+    void testShiftUp() {
+        Framebuffer subject = createPattern();
+
+        subject.shift(0, 1);
+
+        Assertions.assertEquals(0x10, subject.getPixel(0, 0));
+        Assertions.assertEquals(0x23, subject.getPixel(3, 1));
+        Assertions.assertEquals(0x20, subject.getPixel(0, 2));
+    }
+
+    @Test
+    void testShiftDown() {
+        Framebuffer subject = createPattern();
+
+        subject.shift(0, -1);
+
+        Assertions.assertEquals(0x00, subject.getPixel(0, 0));
+        Assertions.assertEquals(0x03, subject.getPixel(3, 1));
+        Assertions.assertEquals(0x10, subject.getPixel(0, 2));
+    }
+
+    @Test
+    void testShiftLeftRight() {
+        Framebuffer subject = createPattern();
+
+        subject.shift(1, 0);
+        Assertions.assertEquals(0x11, subject.getPixel(0, 1));
+        Assertions.assertEquals(0x13, subject.getPixel(2, 1));
+        Assertions.assertEquals(0x13, subject.getPixel(3, 1));
+
+        subject = createPattern();
+        subject.shift(-1, 0);
+        Assertions.assertEquals(0x10, subject.getPixel(0, 1));
+        Assertions.assertEquals(0x10, subject.getPixel(1, 1));
+        Assertions.assertEquals(0x12, subject.getPixel(3, 1));
+    }
+
+    @Test
+    void testScroll() {
+        Framebuffer subject = createPattern();
+
+        subject.scroll(-1, 1, 0xFF);
+
+        Assertions.assertEquals(0xFF, subject.getPixel(0, 0));
+        Assertions.assertEquals(0x10, subject.getPixel(1, 0));
+        Assertions.assertEquals(0x22, subject.getPixel(3, 1));
+        Assertions.assertEquals(0xFF, subject.getPixel(1, 2));
+    }
+
+    Framebuffer createPattern() {
+        Framebuffer subject = new Framebuffer(4, 3);
+        for (int y = 0; y < 3; y++) {
+            for (int x = 0; x < 4; x++) {
+                subject.setPixel(x, y, (y << 4) | x);
+            }
+        }
+        return subject;
+    }
+
+}
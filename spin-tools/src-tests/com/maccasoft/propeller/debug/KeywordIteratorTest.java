@@ -18,21 +18,21 @@ class KeywordIteratorTest {
     @Test
     void testTokenizer() {
         KeywordIterator subject = new KeywordIterator("POS 0 1 SIZE 2 3");
-        Assertions.assertEquals(6, subject.ar.length);
-        Assertions.assertEquals("POS", subject.ar[0]);
-        Assertions.assertEquals("0", subject.ar[1]);
-        Assertions.assertEquals("1", subject.ar[2]);
-        Assertions.assertEquals("SIZE", subject.ar[3]);
-        Assertions.assertEquals("2", subject.ar[4]);
-        Assertions.assertEquals("3", subject.ar[5]);
+        Assertions.assertEquals("POS", subject.next());
+        Assertions.assertEquals("0", subject.next());
+        Assertions.assertEquals("1", subject.next());
+        Assertions.assertEquals("SIZE", subject.next());
+        Assertions.assertEquals("2", subject.next());
+        Assertions.assertEquals("3", subject.next());
+        Assertions.assertFalse(subject.hasNext());
     }
 
     @Test
     void testStringTokenizer() {
         KeywordIterator subject = new KeywordIterator("TITLE 'My Window Title'");
-        Assertions.assertEquals(2, subject.ar.length);
-        Assertions.assertEquals("TITLE", subject.ar[0]);
-        Assertions.assertEquals("'My Window Title'", subject.ar[1]);
+        Assertions.assertEquals("TITLE", subject.next());
+        Assertions.assertEquals("'My Window Title'", subject.next());
+        Assertions.assertFalse(subject.hasNext());
     }
 
     @Test
@@ -46,11 +46,92 @@ class KeywordIteratorTest {
     @Test
     void testNumberList() {
         KeywordIterator subject = new KeywordIterator("1 2 3, 4");
-        Assertions.assertEquals(4, subject.ar.length);
-        Assertions.assertEquals("1", subject.ar[0]);
-        Assertions.assertEquals("2", subject.ar[1]);
-        Assertions.assertEquals("3", subject.ar[2]);
-        Assertions.assertEquals("4", subject.ar[3]);
+        Assertions.assertEquals("1", subject.next());
+        Assertions.assertEquals("2", subject.next());
+        Assertions.assertEquals("3", subject.next());
+        Assertions.assertEquals("4", subject.next());
+        Assertions.assertFalse(subject.hasNext());
+    }
+
+    @Test
+    void testNumbers() {
+        KeywordIterator subject = new KeywordIterator("`10 -20 +30 $1F %1010 %%123 1_000 $FFFF_FFFF");
+        Assertions.assertEquals(10, subject.nextNumber());
+        Assertions.assertEquals(-20, subject.nextNumber());
+        Assertions.assertEquals(30, subject.nextNumber());
+        Assertions.assertEquals(0x1F, subject.nextNumber());
+        Assertions.assertEquals(0b1010, subject.nextNumber());
+        Assertions.assertEquals(27, subject.nextNumber());
+        Assertions.assertEquals(1000, subject.nextNumber());
+        Assertions.assertEquals(-1, subject.nextNumber());
+        Assertions.assertFalse(subject.hasNext());
+        Assertions.assertEquals(0, subject.nextNumber());
+    }
+
+    @Test
+    void testHasNextNumber() {
+        KeywordIterator subject = new KeywordIterator("12 $ - %2 'text' abc $1G 99999999999999999999 _5");
+        Assertions.assertTrue(subject.hasNextNumber());
+        Assertions.assertEquals(12, subject.nextNumber());
+        for (String s : new String[] {
+            "$", "-", "%2", "'text'", "abc", "$1G", "99999999999999999999"
+        }) {
+            Assertions.assertFalse(subject.hasNextNumber(), s);
+            Assertions.assertEquals(s, subject.next());
+        }
+        Assertions.assertTrue(subject.hasNextNumber());
+        Assertions.assertEquals(5, subject.nextNumber());
+    }
+
+    @Test
+    void testNonNumberAfterNumber() {
+        KeywordIterator subject = new KeywordIterator("10 ABC 20");
+        Assertions.assertEquals(10, subject.nextNumber());
+        Assertions.assertFalse(subject.hasNextNumber());
+        Assertions.assertEquals(0, subject.nextNumber());
+        Assertions.assertEquals("ABC", subject.next());
+        Assertions.assertEquals(20, subject.nextNumber());
+        Assertions.assertFalse(subject.hasNext());
+    }
+
+    @Test
+    void testUnderscores() {
+        KeywordIterator subject = new KeywordIterator("_-5 $_-5 %_%1 -9223372036854775808");
+        Assertions.assertEquals(-5, subject.nextNumber());
+        Assertions.assertEquals(-5, subject.nextNumber());
+        Assertions.assertEquals(1, subject.nextNumber());
+        Assertions.assertTrue(subject.hasNextNumber());
+        Assertions.assertEquals(0, subject.nextNumber());
+        Assertions.assertFalse(subject.hasNext());
+    }
+
+    @Test
+    void testNextNumeric() {
+        KeywordIterator subject = new KeywordIterator("$1F %_%1 abc -7 '");
+        Assertions.assertTrue(subject.hasNextNumeric());
+        Assertions.assertEquals(0x1F, subject.nextNumeric());
+        Assertions.assertTrue(subject.hasNextNumeric());
+        Assertions.assertThrows(NumberFormatException.class, () -> subject.nextNumeric());
+        Assertions.assertFalse(subject.hasNextNumeric());
+        Assertions.assertEquals("abc", subject.next());
+        Assertions.assertEquals(-7, subject.nextNumeric());
+        Assertions.assertFalse(subject.hasNextString());
+        Assertions.assertEquals("'", subject.next());
+    }
+
+    @Test
+    void testPeekAndIndex() {
+        KeywordIterator subject = new KeywordIterator("A B C");
+        Assertions.assertEquals("A", subject.peekNext());
+        Assertions.assertEquals("A", subject.next());
+        int index = subject.getIndex();
+        Assertions.assertEquals("B", subject.next());
+        subject.setIndex(index);
+        Assertions.assertEquals("B", subject.next());
+        subject.back();
+        subject.skip();
+        Assertions.assertEquals("C", subject.next());
+        Assertions.assertFalse(subject.hasNext());
     }
 
 }
@@ -1316,6 +1316,22 @@ class P2DisassemblerTest {
             + "", compileAndDisassemble(text));
     }
 
+    @Test
+    void testCache() throws Exception {
+        P2Disassembler.Cache cache = new P2Disassembler.Cache(2);
+
+        String line = cache.disassemble(0, 0xF0000202);
+        Assertions.assertEquals("             ror     $001, $002", line);
+        Assertions.assertSame(line, cache.disassemble(1, 0xF0000202));
+
+        Assertions.assertEquals("             rol     $001, $002 wc", cache.disassemble(0, 0xF0300202));
+        Assertions.assertEquals("             shr     $001, $002 wz", cache.disassemble(0, 0xF0480202));
+        Assertions.assertEquals("             ror     $001, $002", cache.disassemble(0, 0xF0000202));
+
+        cache.clear();
+        Assertions.assertEquals("             nop", cache.disassemble(0, 0x00000000));
+    }
+
     String compileAndDisassemble(String text) throws Exception {
         Spin2Parser parser = new Spin2Parser(text);
         RootNode root = parser.parse();
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2026 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller.debug;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SampleRangeTest {
+
+    @Test
+    void testRange() {
+        SampleRange subject = new SampleRange(200);
+        for (int i = 0; i < 100; i++) {
+            subject.set(i, i - 50);
+        }
+
+        subject.update(0, 100);
+        Assertions.assertEquals(-50, subject.getMin());
+        Assertions.assertEquals(49, subject.getMax());
+
+        subject.update(10, 20);
+        Assertions.assertEquals(-40, subject.getMin());
+        Assertions.assertEquals(-21, subject.getMax());
+    }
+
+    @Test
+    void testRangeWrapAround() {
+        Random random = new Random(1234);
+        SampleRange subject = new SampleRange(300);
+
+        int index = 0;
+        int count = 0;
+        for (int n = 0; n < 5000; n++) {
+            subject.set(index, random.nextInt(2000) - 1000);
+            index = (index + 1) % subject.size();
+            if (count < subject.size()) {
+                count++;
+            }
+
+            int first = index - count;
+            if (first < 0) {
+                first += subject.size();
+            }
+            subject.update(first, count);
+
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int i = 0, ptr = first; i < count; i++, ptr = (ptr + 1) % subject.size()) {
+                min = Math.min(min, subject.get(ptr));
+                max = Math.max(max, subject.get(ptr));
+            }
+            Assertions.assertEquals(min, subject.getMin());
+            Assertions.assertEquals(max, subject.getMax());
+        }
+    }
+
+    @Test
+    void testOutOfSequence() {
+        SampleRange subject = new SampleRange(128);
+        for (int i = 0; i < 128; i++) {
+            subject.set(i, 0);
+        }
+        subject.set(10, 99);
+        subject.set(100, -99);
+
+        subject.update(0, 128);
+        Assertions.assertEquals(-99, subject.getMin());
+        Assertions.assertEquals(99, subject.getMax());
+    }
+
+    @Test
+    void testDecimate() {
+        SampleRange subject = new SampleRange(8);
+        int[] data = new int[] {
+            1, 5, 3, 2, -4, 0, 7, 6
+        };
+        for (int i = 0; i < data.length; i++) {
+            subject.set(i, data[i]);
+        }
+
+        int[] points = new int[4 * 2];
+        Assertions.assertEquals(4, subject.decimate(0, 8, 4, points));
+        Assertions.assertArrayEquals(new int[] {
+            0, 1, 2, 3, 4, 5, 6, 7
+        }, points);
+
+        points = new int[2 * 2];
+        Assertions.assertEquals(2, subject.decimate(0, 8, 2, points));
+        Assertions.assertArrayEquals(new int[] {
+            0, 1, 4, 6
+        }, points);
+    }
+
+    @Test
+    void testDecimateWrapAround() {
+        SampleRange subject = new SampleRange(6);
+        int[] data = new int[] {
+            9, -9, 0, 0, 0, 0
+        };
+        for (int i = 0; i < data.length; i++) {
+            subject.set(i, data[i]);
+        }
+
+        int[] points = new int[3 * 2];
+        Assertions.assertEquals(3, subject.decimate(4, 6, 3, points));
+        Assertions.assertArrayEquals(new int[] {
+            0, 0, 2, 3, 4, 4
+        }, points);
+
+        points = new int[1 * 2];
+        Assertions.assertEquals(1, subject.decimate(4, 6, 1, points));
+        Assertions.assertArrayEquals(new int[] {
+            2, 3
+        }, points);
+    }
+
+}
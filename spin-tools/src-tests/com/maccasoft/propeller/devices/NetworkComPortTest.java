@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2026 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller.devices;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class NetworkComPortTest {
+
+    ServerSocket serverSocket;
+    Thread serverThread;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        serverThread = new Thread(() -> {
+            try (Socket socket = serverSocket.accept()) {
+                InputStream is = socket.getInputStream();
+                OutputStream os = socket.getOutputStream();
+                byte[] buffer = new byte[1024];
+                int count;
+                while ((count = is.read(buffer)) != -1) {
+                    os.write(buffer, 0, count);
+                }
+            } catch (Exception e) {
+                // Do nothing
+            }
+        });
+        serverThread.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        serverSocket.close();
+        serverThread.join(1000);
+    }
+
+    @Test
+    void testReadLong() throws Exception {
+        NetworkComPort subject = new NetworkComPort(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+        subject.openPort();
+        try {
+            subject.writeBytes(new byte[] {
+                0x78, 0x56, 0x34, 0x12, 0x55
+            });
+            Assertions.assertEquals(0x12345678, subject.readLong(1000));
+            Assertions.assertEquals(0x55, subject.readByteWithTimeout(1000));
+        } finally {
+            subject.closePort();
+        }
+        Assertions.assertFalse(subject.isOpened());
+    }
+
+    @Test
+    void testReadTimeout() throws Exception {
+        NetworkComPort subject = new NetworkComPort(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+        subject.openPort();
+        try {
+            long start = System.nanoTime();
+            Assertions.assertEquals(-1, subject.readByteWithTimeout(200));
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            Assertions.assertTrue(elapsed >= 190 && elapsed < 1000, "elapsed " + elapsed);
+
+            Assertions.assertThrows(InterruptedException.class, () -> subject.readLong(100));
+        } finally {
+            subject.closePort();
+        }
+    }
+
+    @Test
+    void testEvents() throws Exception {
+        NetworkComPort subject = new NetworkComPort(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+        subject.openPort();
+        try {
+            byte[] data = new byte[200000];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = (byte) i;
+            }
+
+            ByteArrayOutputStream received = new ByteArrayOutputStream();
+            CountDownLatch done = new CountDownLatch(1);
+            subject.setEventListener(new ComPortEventListener() {
+
+                final byte[] buffer = new byte[4096];
+
+                @Override
+                public void serialEvent(ComPortEvent event) {
+                    Assertions.assertTrue(event.isRXCHAR());
+                    int count;
+                    while ((count = subject.readBytes(buffer, 0, buffer.length)) != 0) {
+                        received.write(buffer, 0, count);
+                    }
+                    if (received.size() >= data.length) {
+                        done.countDown();
+                    }
+                }
+
+            });
+
+            subject.writeBytes(data);
+
+            Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+            Assertions.assertArrayEquals(data, received.toByteArray());
+        } finally {
+            subject.closePort();
+        }
+    }
+
+    @Test
+    void testReceiveBufferFull() throws Exception {
+        NetworkComPort subject = new NetworkComPort(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+        subject.openPort();
+        try {
+            byte[] data = new byte[NetworkComPort.RECEIVE_BUFFER_SIZE * 3];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = (byte) (i * 7);
+            }
+
+            Thread writer = new Thread(() -> {
+                try {
+                    subject.writeBytes(data);
+                } catch (Exception e) {
+                    // Do nothing
+                }
+            });
+            writer.start();
+
+            ByteArrayOutputStream received = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1000];
+            long deadline = System.currentTimeMillis() + 5000;
+            while (received.size() < data.length && System.currentTimeMillis() < deadline) {
+                Thread.sleep(received.size() == 0 ? 200 : 1);
+                int count = subject.readBytes(buffer, 0, buffer.length);
+                received.write(buffer, 0, count);
+            }
+            writer.join(1000);
+
+            Assertions.assertArrayEquals(data, received.toByteArray());
+        } finally {
+            subject.closePort();
+        }
+    }
+
+}
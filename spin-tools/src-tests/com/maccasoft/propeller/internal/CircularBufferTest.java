@@ -82,4 +82,133 @@ class CircularBufferTest {
         Assertions.assertEquals(6, subject.available());
     }
 
+    @Test
+    void testPeekAndSkip() throws Exception {
+        CircularBuffer subject = new CircularBuffer(10);
+        subject.head = subject.tail = 8;
+        subject.write("ABCDEF".getBytes());
+
+        byte[] rc = new byte[100];
+        int size = subject.peek(rc, 0, 4);
+        Assertions.assertEquals("ABCD", new String(rc, 0, size));
+        Assertions.assertEquals(6, subject.available());
+
+        Assertions.assertEquals(3, subject.skip(3));
+        size = subject.read(rc);
+        Assertions.assertEquals("DEF", new String(rc, 0, size));
+    }
+
+    @Test
+    void testFree() throws Exception {
+        CircularBuffer subject = new CircularBuffer(10);
+        Assertions.assertEquals(9, subject.free());
+
+        subject.head = subject.tail = 8;
+        subject.write("ABCDEF".getBytes());
+
+        Assertions.assertEquals(3, subject.free());
+    }
+
+    @Test
+    void testWriteFull() throws Exception {
+        CircularBuffer subject = new CircularBuffer(10);
+
+        Assertions.assertEquals(9, subject.write("ABCDEFGHIJKL".getBytes(), 0, 12));
+        Assertions.assertEquals(3, subject.getOverflow());
+
+        subject.write('M');
+        Assertions.assertEquals(4, subject.getOverflow());
+
+        byte[] rc = new byte[100];
+        int size = subject.read(rc);
+        Assertions.assertEquals("ABCDEFGHI", new String(rc, 0, size));
+    }
+
+    @Test
+    void testWriteLongFull() throws Exception {
+        CircularBuffer subject = new CircularBuffer(10);
+        subject.write("ABCDEF".getBytes());
+
+        Assertions.assertFalse(subject.writeLong(0x44332211));
+        Assertions.assertEquals(4, subject.getOverflow());
+        Assertions.assertEquals(6, subject.available());
+
+        Assertions.assertTrue(subject.writeWord(0x2211));
+        Assertions.assertFalse(subject.writeWord(0x4433));
+        Assertions.assertEquals(6, subject.getOverflow());
+
+        subject.skip(6);
+        Assertions.assertEquals(0x2211, subject.readWord());
+        Assertions.assertTrue(subject.writeLong(0x44332211));
+        Assertions.assertEquals(0x44332211, subject.readLong());
+    }
+
+    @Test
+    void testReadTimeout() throws Exception {
+        CircularBuffer subject = new CircularBuffer(10);
+        subject.write(0x12);
+
+        long start = System.nanoTime();
+        Assertions.assertThrows(InterruptedException.class, () -> subject.readWord());
+        Assertions.assertTrue(System.nanoTime() - start >= CircularBuffer.TIMEOUT * 1_000_000L);
+        Assertions.assertEquals(1, subject.available());
+    }
+
+    @Test
+    void testBlockingReadLong() throws Exception {
+        CircularBuffer subject = new CircularBuffer(10);
+
+        Thread thread = new Thread(() -> {
+            for (int i = 0; i < 4; i++) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                subject.write(0x11 * (i + 1));
+            }
+        });
+        thread.start();
+
+        Assertions.assertEquals(0x44332211, subject.readLong());
+        thread.join();
+    }
+
+    @Test
+    void testProducerConsumer() throws Exception {
+        CircularBuffer subject = new CircularBuffer(1000);
+        int total = 1024 * 1024;
+
+        Thread thread = new Thread(() -> {
+            byte[] b = new byte[333];
+            int count = 0;
+            try {
+                while (count < total) {
+                    int len = Math.min(b.length, total - count);
+                    for (int i = 0; i < len; i++) {
+                        b[i] = (byte) (count + i);
+                    }
+                    count += subject.write(b, 0, len, 1000);
+                }
+            } catch (InterruptedException e) {
+                // Do nothing
+            }
+        });
+        thread.start();
+
+        byte[] rc = new byte[256];
+        int count = 0;
+        while (count < total) {
+            Assertions.assertTrue(subject.waitAvailable(1, 1000));
+            int size = subject.read(rc);
+            for (int i = 0; i < size; i++) {
+                Assertions.assertEquals((byte) (count + i), rc[i]);
+            }
+            count += size;
+        }
+        thread.join();
+
+        Assertions.assertEquals(0, subject.getOverflow());
+    }
+
 }
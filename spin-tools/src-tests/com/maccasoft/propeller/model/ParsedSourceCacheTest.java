@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2026 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller.model;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ParsedSourceCacheTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void testSameContent() {
+        ParsedSourceCache subject = new ParsedSourceCache(8);
+
+        RootNode root1 = subject.getParsedSource(new File("a.spin2"), ".spin2", "CON  A = 1\n");
+        RootNode root2 = subject.getParsedSource(new File("b.spin2"), ".spin2", "CON  A = 1\n");
+
+        Assertions.assertNotNull(root1);
+        Assertions.assertSame(root1, root2);
+        Assertions.assertEquals(1, subject.size());
+        Assertions.assertEquals(1, subject.getHits());
+        Assertions.assertEquals(1, subject.getMisses());
+    }
+
+    @Test
+    void testDifferentSuffix() {
+        ParsedSourceCache subject = new ParsedSourceCache(8);
+
+        RootNode root1 = subject.getParsedSource(new File("a.spin"), ".spin", "CON  A = 1\n");
+        RootNode root2 = subject.getParsedSource(new File("a.spin2"), ".spin2", "CON  A = 1\n");
+
+        Assertions.assertNotSame(root1, root2);
+        Assertions.assertEquals(2, subject.size());
+    }
+
+    @Test
+    void testChangedContentReplacesEntry() {
+        ParsedSourceCache subject = new ParsedSourceCache(8);
+
+        RootNode root1 = subject.getParsedSource(new File("a.spin2"), ".spin2", "CON  A = 1\n");
+        RootNode root2 = subject.getParsedSource(new File("a.spin2"), ".spin2", "CON  A = 2\n");
+
+        Assertions.assertNotSame(root1, root2);
+        Assertions.assertEquals(1, subject.size());
+    }
+
+    @Test
+    void testFileStatusValidation() throws Exception {
+        ParsedSourceCache subject = new ParsedSourceCache(8);
+
+        File file = new File(tempDir, "test.spin2");
+        writeFile(file, "CON  A = 1\n");
+
+        RootNode root1 = subject.getParsedSource(file, ".spin2");
+        RootNode root2 = subject.getParsedSource(file, ".spin2");
+        Assertions.assertSame(root1, root2);
+        Assertions.assertEquals(1, subject.getHits());
+
+        writeFile(file, "CON  A = 10\n");
+        file.setLastModified(file.lastModified() + 2000);
+
+        RootNode root3 = subject.getParsedSource(file, ".spin2");
+        Assertions.assertNotSame(root1, root3);
+        Assertions.assertEquals(1, subject.size());
+    }
+
+    @Test
+    void testLeastRecentlyUsedEviction() {
+        ParsedSourceCache subject = new ParsedSourceCache(2);
+
+        RootNode root1 = subject.getParsedSource(new File("a.spin2"), ".spin2", "CON  A = 1\n");
+        subject.getParsedSource(new File("b.spin2"), ".spin2", "CON  B = 1\n");
+        Assertions.assertSame(root1, subject.getParsedSource(new File("a.spin2"), ".spin2", "CON  A = 1\n"));
+
+        subject.getParsedSource(new File("c.spin2"), ".spin2", "CON  C = 1\n");
+        Assertions.assertEquals(2, subject.size());
+
+        Assertions.assertSame(root1, subject.getParsedSource(new File("a.spin2"), ".spin2", "CON  A = 1\n"));
+        Assertions.assertEquals(2, subject.getHits());
+    }
+
+    @Test
+    void testCheckout() {
+        ParsedSourceCache subject = new ParsedSourceCache(8);
+        Object owner1 = new Object();
+        Object owner2 = new Object();
+
+        RootNode root = subject.getParsedSource(new File("a.spin2"), ".spin2", "CON  A = 1\n");
+
+        RootNode root1 = subject.checkout(root, owner1);
+        Assertions.assertNotSame(root, root1);
+        Assertions.assertEquals(root.getChildCount(), root1.getChildCount());
+        Assertions.assertSame(root1, subject.checkout(root, owner1));
+
+        RootNode root2 = subject.checkout(root, owner2);
+        Assertions.assertNotSame(root, root2);
+        Assertions.assertNotSame(root1, root2);
+        Assertions.assertEquals(root1.getChildCount(), root2.getChildCount());
+
+        Assertions.assertSame(root, subject.getParsedSource(new File("a.spin2"), ".spin2", "CON  A = 1\n"));
+
+        subject.release(owner1);
+        Assertions.assertSame(root1, subject.checkout(root, owner2));
+    }
+
+    @Test
+    void testCheckoutUnmanagedRoot() {
+        ParsedSourceCache subject = new ParsedSourceCache(8);
+
+        RootNode root = new RootNode();
+        Assertions.assertSame(root, subject.checkout(root, new Object()));
+    }
+
+    void writeFile(File file, String text) throws Exception {
+        FileOutputStream os = new FileOutputStream(file);
+        os.write(text.getBytes());
+        os.close();
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2026 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller.model;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SymbolIndexTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void testSymbols() {
+        ParsedSourceCache cache = new ParsedSourceCache(4);
+        SymbolIndex subject = new SymbolIndex(cache);
+        RootNode root = cache.getParsedSource(new File(tempDir, "a.spin2"), ".spin2", ""
+            + "CON  A = 1\n"
+            + "     B = 2\n"
+            + "\n"
+            + "PUB start(a, b)\n"
+            + "\n"
+            + "PRI private()\n"
+            + "\n"
+            + "PUB stop()\n"
+            + "\n");
+
+        SymbolIndex.Symbols symbols = subject.getSymbols(root);
+
+        List<Node> methods = symbols.getMethods();
+        Assertions.assertEquals(2, methods.size());
+        Assertions.assertEquals("start", ((MethodNode) methods.get(0)).getName().getText());
+        Assertions.assertEquals("stop", ((MethodNode) methods.get(1)).getName().getText());
+
+        List<Node> constants = symbols.getConstants();
+        Assertions.assertEquals(2, constants.size());
+        Assertions.assertEquals("A", ((ConstantNode) constants.get(0)).getIdentifier().getText());
+        Assertions.assertEquals("B", ((ConstantNode) constants.get(1)).getIdentifier().getText());
+
+        Assertions.assertSame(symbols, subject.getSymbols(root));
+    }
+
+    @Test
+    void testSymbolsEvictedWithTree() {
+        ParsedSourceCache cache = new ParsedSourceCache(1);
+        SymbolIndex subject = new SymbolIndex(cache);
+        RootNode root = cache.getParsedSource(new File(tempDir, "a.spin2"), ".spin2", "PUB start()\n");
+
+        SymbolIndex.Symbols symbols = subject.getSymbols(root);
+        Assertions.assertSame(symbols, subject.getSymbols(root));
+
+        cache.getParsedSource(new File(tempDir, "b.spin2"), ".spin2", "PUB stop()\n");
+        Assertions.assertNull(cache.entries.get(new ParsedSourceCache.Key(".spin2", "PUB start()\n")));
+        Assertions.assertNotSame(symbols, subject.getSymbols(root));
+    }
+
+    @Test
+    void testUnmanagedSymbols() {
+        SymbolIndex subject = new SymbolIndex(new ParsedSourceCache(4));
+        RootNode root = Parser.parse(".spin2", "PUB start()\n");
+
+        SymbolIndex.Symbols symbols = subject.getSymbols(root);
+        Assertions.assertEquals(1, symbols.getMethods().size());
+        Assertions.assertNotSame(symbols, subject.getSymbols(root));
+    }
+
+    @Test
+    void testFiles() throws Exception {
+        SymbolIndex subject = new SymbolIndex();
+
+        new File(tempDir, "a.spin2").createNewFile();
+        File[] files = subject.getFiles(tempDir);
+        Assertions.assertEquals(1, files.length);
+        Assertions.assertSame(files, subject.getFiles(tempDir));
+
+        File file = new File(tempDir, "b.spin2");
+        file.createNewFile();
+        subject.invalidate(file);
+        Assertions.assertEquals(2, subject.getFiles(tempDir).length);
+    }
+
+    @Test
+    void testMissingFolder() {
+        SymbolIndex subject = new SymbolIndex();
+
+        Assertions.assertNull(subject.getFiles(new File(tempDir, "missing")));
+    }
+
+}
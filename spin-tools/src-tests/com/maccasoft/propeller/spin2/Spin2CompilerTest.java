@@ -15,6 +15,7 @@ import java.io.File;
 import java.io.PrintStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -2675,6 +2676,84 @@ class Spin2CompilerTest {
             + "", compile("main.spin2", sources));
     }
 
+    @Test
+    void testPreloadObjects() throws Exception {
+        Map<String, String> sources = new HashMap<String, String>();
+        sources.put("main.spin2", ""
+            + "OBJ\n"
+            + "    o1 : \"text1\"\n"
+            + "    o2 : \"text2\"\n"
+            + "\n"
+            + "PUB main()\n"
+            + "    o1.start()\n"
+            + "    o2.start()\n"
+            + "");
+        sources.put("text1.spin2", ""
+            + "OBJ\n"
+            + "    o : \"text3\"\n"
+            + "\n"
+            + "PUB start()\n"
+            + "    o.start()\n"
+            + "");
+        sources.put("text2.spin2", ""
+            + "OBJ\n"
+            + "    o : \"text3\"\n"
+            + "\n"
+            + "PUB start()\n"
+            + "    o.start()\n"
+            + "");
+        sources.put("text3.spin2", ""
+            + "PUB start() | a\n"
+            + "    a := 1\n"
+            + "");
+
+        Map<String, Integer> count = new ConcurrentHashMap<>();
+        SourceProvider sourceProvider = new SourceProvider() {
+
+            @Override
+            public File getFile(String name) {
+                if (sources.containsKey(name)) {
+                    return new File(name);
+                }
+                return null;
+            }
+
+            @Override
+            public RootNode getParsedSource(File file) {
+                String text = sources.get(file.getName());
+                if (text == null) {
+                    return null;
+                }
+                count.merge(file.getName(), 1, Integer::sum);
+                return Parser.parse(".spin2", text);
+            }
+
+        };
+
+        Spin2Compiler compiler = new Spin2Compiler();
+        compiler.setSourceProvider(sourceProvider);
+        compiler.setParallel(false);
+        Spin2Object obj1 = compiler.compile(new File("main.spin2"), Parser.parse(".spin2", sources.get("main.spin2")));
+        Assertions.assertEquals(2, count.get("text3.spin2"));
+
+        count.clear();
+
+        compiler = new Spin2Compiler();
+        compiler.setSourceProvider(sourceProvider);
+        Spin2Object obj2 = compiler.compile(new File("main.spin2"), Parser.parse(".spin2", sources.get("main.spin2")));
+        Assertions.assertEquals(1, count.get("text1.spin2"));
+        Assertions.assertEquals(1, count.get("text2.spin2"));
+        Assertions.assertEquals(1, count.get("text3.spin2"));
+
+        Assertions.assertEquals(getListing(obj1), getListing(obj2));
+    }
+
+    String getListing(Spin2Object obj) {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        obj.generateListing(new PrintStream(os));
+        return os.toString().replaceAll("\\r\\n", "\n");
+    }
+
     String compile(String rootFile, Map<String, String> sources) throws Exception {
         return compile(rootFile, sources, false, false);
     }
@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2026 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller.spin2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.maccasoft.propeller.CompilerException;
+import com.maccasoft.propeller.model.ParsedSourceCache;
+import com.maccasoft.propeller.model.RootNode;
+import com.maccasoft.propeller.model.SourceProvider;
+
+class Spin2ObjectCacheTest {
+
+    @Test
+    void testReuseUnchangedObjects() throws Exception {
+        Map<String, String> sources = new HashMap<String, String>();
+        sources.put("main.spin2", ""
+            + "OBJ\n"
+            + "    o : \"child\"\n"
+            + "\n"
+            + "PUB main() | a\n"
+            + "    a := o.start(1, 2)\n"
+            + "");
+        sources.put("child.spin2", ""
+            + "OBJ\n"
+            + "    g : \"grandchild\"\n"
+            + "\n"
+            + "PUB start(a, b) : c\n"
+            + "    c := g.add(a, b)\n"
+            + "");
+        sources.put("grandchild.spin2", ""
+            + "PUB add(a, b) : c\n"
+            + "    c := a + b\n"
+            + "");
+
+        Spin2ObjectCache cache = new Spin2ObjectCache();
+
+        String expected = compile("main.spin2", sources, null, false, false);
+        Assertions.assertEquals(expected, compile("main.spin2", sources, cache, false, false));
+        Assertions.assertEquals(0, cache.getHits());
+
+        Assertions.assertEquals(expected, compile("main.spin2", sources, cache, false, false));
+        Assertions.assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void testChangedTopObject() throws Exception {
+        Map<String, String> sources = new HashMap<String, String>();
+        sources.put("main.spin2", ""
+            + "OBJ\n"
+            + "    o : \"child\"\n"
+            + "\n"
+            + "PUB main() | a\n"
+            + "    a := o.first()\n"
+            + "");
+        sources.put("child.spin2", ""
+            + "PUB first() : r\n"
+            + "    r := 1\n"
+            + "\n"
+            + "PUB second() : r\n"
+            + "    r := second_helper()\n"
+            + "\n"
+            + "PRI second_helper() : r\n"
+            + "    r := 2\n"
+            + "");
+
+        Spin2ObjectCache cache = new Spin2ObjectCache();
+        Assertions.assertEquals(compile("main.spin2", sources, null, true, false), compile("main.spin2", sources, cache, true, false));
+
+        sources.put("main.spin2", ""
+            + "OBJ\n"
+            + "    o : \"child\"\n"
+            + "\n"
+            + "PUB main() | a\n"
+            + "    a := o.second()\n"
+            + "");
+
+        Assertions.assertEquals(compile("main.spin2", sources, null, true, false), compile("main.spin2", sources, cache, true, false));
+        Assertions.assertEquals(1, cache.getHits());
+
+        sources.put("main.spin2", ""
+            + "OBJ\n"
+            + "    o : \"child\"\n"
+            + "\n"
+            + "PUB main() | a\n"
+            + "    a := o.first() + o.second()\n"
+            + "");
+
+        Assertions.assertEquals(compile("main.spin2", sources, null, true, false), compile("main.spin2", sources, cache, true, false));
+        Assertions.assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    void testChangedChildObject() throws Exception {
+        Map<String, String> sources = new HashMap<String, String>();
+        sources.put("main.spin2", ""
+            + "OBJ\n"
+            + "    o : \"child\"\n"
+            + "\n"
+            + "PUB main() | a\n"
+            + "    a := o.value()\n"
+            + "");
+        sources.put("child.spin2", ""
+            + "PUB value() : r\n"
+            + "    r := 1\n"
+            + "");
+
+        Spin2ObjectCache cache = new Spin2ObjectCache();
+        Assertions.assertEquals(compile("main.spin2", sources, null, false, false), compile("main.spin2", sources, cache, false, false));
+
+        sources.put("child.spin2", ""
+            + "PUB value() : r\n"
+            + "    r := 12345\n"
+            + "");
+
+        Assertions.assertEquals(compile("main.spin2", sources, null, false, false), compile("main.spin2", sources, cache, false, false));
+        Assertions.assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    void testObjectParameters() throws Exception {
+        Map<String, String> sources = new HashMap<String, String>();
+        sources.put("main.spin2", ""
+            + "OBJ\n"
+            + "    o0 : \"child\"\n"
+            + "    o1 : \"child\" | PAR1 = 3\n"
+            + "    o2 : \"child\"\n"
+            + "\n"
+            + "PUB main()\n"
+            + "    o0.setup()\n"
+            + "    o1.setup()\n"
+            + "    o2.setup()\n"
+            + "");
+        sources.put("child.spin2", ""
+            + "CON\n"
+            + "    #1, PAR1, PAR2\n"
+            + "\n"
+            + "PUB setup() | a, b\n"
+            + "    a := PAR1\n"
+            + "    b := PAR2\n"
+            + "");
+
+        Spin2ObjectCache cache = new Spin2ObjectCache();
+        Assertions.assertEquals(compile("main.spin2", sources, null, false, false), compile("main.spin2", sources, cache, false, false));
+
+        sources.put("main.spin2", ""
+            + "OBJ\n"
+            + "    o0 : \"child\"\n"
+            + "    o1 : \"child\" | PAR1 = 4\n"
+            + "    o2 : \"child\"\n"
+            + "\n"
+            + "PUB main()\n"
+            + "    o0.setup()\n"
+            + "    o1.setup()\n"
+            + "    o2.setup()\n"
+            + "");
+
+        Assertions.assertEquals(compile("main.spin2", sources, null, false, false), compile("main.spin2", sources, cache, false, false));
+        Assertions.assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void testDebugStatements() throws Exception {
+        Map<String, String> sources = new HashMap<String, String>();
+        sources.put("main.spin2", ""
+            + "OBJ\n"
+            + "    o : \"child\"\n"
+            + "\n"
+            + "PUB main() | a\n"
+            + "    debug(\"main\")\n"
+            + "    a := o.value()\n"
+            + "");
+        sources.put("child.spin2", ""
+            + "PUB value() : r\n"
+            + "    debug(\"child\", udec(r))\n"
+            + "    r := 1\n"
+            + "");
+
+        Spin2ObjectCache cache = new Spin2ObjectCache();
+        Assertions.assertEquals(compile("main.spin2", sources, null, false, true), compile("main.spin2", sources, cache, false, true));
+
+        sources.put("main.spin2", ""
+            + "OBJ\n"
+            + "    o : \"child\"\n"
+            + "\n"
+            + "PUB main() | a\n"
+            + "    debug(\"main\", udec(a))\n"
+            + "    a := o.value()\n"
+            + "    debug(\"end\")\n"
+            + "");
+
+        Assertions.assertEquals(compile("main.spin2", sources, null, false, true), compile("main.spin2", sources, cache, false, true));
+        Assertions.assertEquals(1, cache.getHits());
+    }
+
+    String compile(String rootFile, Map<String, String> sources, Spin2ObjectCache cache, boolean removeUnused, boolean debugEnabled) throws Exception {
+        Spin2Parser subject = new Spin2Parser(sources.get(rootFile));
+        RootNode root = subject.parse();
+
+        Spin2Compiler compiler = new Spin2Compiler();
+        compiler.setSourceProvider(new SourceProvider() {
+
+            @Override
+            public File getFile(String name) {
+                if (sources.containsKey(name)) {
+                    return new File(name);
+                }
+                return null;
+            }
+
+            @Override
+            public RootNode getParsedSource(File file) {
+                String text = sources.get(file.getName());
+                if (text == null) {
+                    return null;
+                }
+                return ParsedSourceCache.getInstance().getParsedSource(file, ".spin2", text);
+            }
+
+        });
+        compiler.setRemoveUnusedMethods(removeUnused);
+        compiler.setDebugEnabled(debugEnabled);
+        compiler.setObjectCache(cache);
+        Spin2Object obj = compiler.compile(new File(rootFile), root);
+
+        for (CompilerException msg : compiler.getMessages()) {
+            if (msg.type == CompilerException.ERROR) {
+                throw msg;
+            }
+        }
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        obj.generateListing(new PrintStream(os));
+
+        return os.toString().replaceAll("\\r\\n", "\n");
+    }
+
+}
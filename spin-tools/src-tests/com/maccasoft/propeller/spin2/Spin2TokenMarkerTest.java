@@ -18,6 +18,8 @@ import org.junit.jupiter.api.Test;
 
 import com.maccasoft.propeller.SourceTokenMarker.TokenId;
 import com.maccasoft.propeller.SourceTokenMarker.TokenMarker;
+import com.maccasoft.propeller.model.ConstantsNode;
+import com.maccasoft.propeller.model.Node;
 import com.maccasoft.propeller.model.SourceProvider;
 
 class Spin2TokenMarkerTest {
@@ -170,4 +172,86 @@ class Spin2TokenMarkerTest {
         Assertions.assertEquals(0, result.size());
     }
 
+    @Test
+    void testIncrementalRefresh() {
+        String text = ""
+            + "CON\n"
+            + "    PIN = 56\n"
+            + "\n"
+            + "VAR\n"
+            + "    long count\n"
+            + "\n"
+            + "PUB main()\n"
+            + "    toggle(PIN)\n"
+            + "\n"
+            + "PRI toggle(pin) | a\n"
+            + "    a := count\n"
+            + "    pintoggle(pin)\n"
+            + "\n"
+            + "DAT            org   $000\n"
+            + "start          mov   a, #1\n"
+            + "a              long  0\n"
+            + "";
+
+        Spin2TokenMarker subject = new Spin2TokenMarker(SourceProvider.NULL);
+        subject.refreshTokens(text);
+
+        Node con = subject.getRoot().getChild(0);
+        Node main = subject.getRoot().getChild(2);
+        Node dat = subject.getRoot().getChild(4);
+
+        text = text.replace("    a := count\n", "    a := count + PIN\n    waitms(100)\n");
+        subject.refreshTokens(text);
+
+        Assertions.assertSame(con, subject.getRoot().getChild(0));
+        Assertions.assertSame(main, subject.getRoot().getChild(2));
+        Assertions.assertSame(dat, subject.getRoot().getChild(4));
+        Assertions.assertEquals(14, dat.getStartToken().line);
+        Assertions.assertEquals(text.indexOf("DAT"), dat.getStartToken().start);
+        Assertions.assertEquals("start          mov   a, #1", dat.getChild(1).getText());
+
+        Spin2TokenMarker expected = new Spin2TokenMarker(SourceProvider.NULL);
+        expected.refreshTokens(text);
+
+        Assertions.assertEquals(dumpTokens(expected), dumpTokens(subject));
+    }
+
+    @Test
+    void testIncrementalRefreshNewSection() {
+        String text = ""
+            + "PUB main() | a\n"
+            + "    a := 1\n"
+            + "\n"
+            + "DAT\n"
+            + "a              long  0\n"
+            + "";
+
+        Spin2TokenMarker subject = new Spin2TokenMarker(SourceProvider.NULL);
+        subject.refreshTokens(text);
+
+        text = text.replace("    a := 1\n", "    a := 1\nCON\n    A = 2\n");
+        subject.refreshTokens(text);
+
+        Assertions.assertEquals(3, subject.getRoot().getChilds().size());
+        Assertions.assertTrue(subject.getRoot().getChild(1) instanceof ConstantsNode);
+
+        Spin2TokenMarker expected = new Spin2TokenMarker(SourceProvider.NULL);
+        expected.refreshTokens(text);
+
+        Assertions.assertEquals(dumpTokens(expected), dumpTokens(subject));
+    }
+
+    String dumpTokens(Spin2TokenMarker marker) {
+        StringBuilder sb = new StringBuilder();
+        for (TokenMarker entry : marker.getTokens()) {
+            sb.append(entry.getStart());
+            sb.append("-");
+            sb.append(entry.getStop());
+            sb.append(" ");
+            sb.append(entry.getId());
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+
 }
@@ -16,6 +16,7 @@ import com.maccasoft.propeller.model.Token;
 import com.maccasoft.propeller.model.TokenStream.Position;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 class Spin2TokenStreamTest {
 
@@ -974,4 +975,36 @@ class Spin2TokenStreamTest {
         assertEquals(Token.NL, subject.nextToken().type);
     }
 
+    @Test
+    void testPeekAndNextReturnSameToken() {
+        Spin2TokenStream subject = new Spin2TokenStream("a := b");
+
+        Token token = subject.peekNext();
+        assertSame(token, subject.nextToken());
+        assertEquals(":=", subject.nextToken().getText());
+        assertEquals("b", subject.peekNext().getText());
+    }
+
+    @Test
+    void testInternedText() {
+        Spin2TokenStream subject = new Spin2TokenStream(""
+            + "        long    $1234, 1\n"
+            + "        long    $1234, 2\n"
+            + "");
+
+        Token long1 = subject.nextToken();
+        Token number1 = subject.nextToken();
+        subject.nextToken();
+        subject.nextToken();
+        subject.nextToken();
+
+        Token long2 = subject.nextToken();
+        Token number2 = subject.nextToken();
+
+        assertEquals("long", long2.getText());
+        assertSame(long1.getText(), long2.getText());
+        assertEquals("$1234", number2.getText());
+        assertSame(number1.getText(), number2.getText());
+    }
+
 }
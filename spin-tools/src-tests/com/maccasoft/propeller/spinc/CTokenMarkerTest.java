@@ -17,6 +17,7 @@ import org.junit.jupiter.api.Test;
 
 import com.maccasoft.propeller.SourceTokenMarker.TokenId;
 import com.maccasoft.propeller.SourceTokenMarker.TokenMarker;
+import com.maccasoft.propeller.model.Node;
 
 class CTokenMarkerTest {
 
@@ -37,4 +38,49 @@ class CTokenMarkerTest {
         Assertions.assertEquals(TokenId.COMMENT, entry.getId());
     }
 
+    @Test
+    void testIncrementalRefresh() {
+        String text = ""
+            + "#define PIN 56\n"
+            + "\n"
+            + "int count;\n"
+            + "\n"
+            + "void toggle(int pin)\n"
+            + "{\n"
+            + "    count++;\n"
+            + "}\n"
+            + "\n"
+            + "void main()\n"
+            + "{\n"
+            + "    toggle(PIN);\n"
+            + "}\n"
+            + "";
+
+        CTokenMarker subject = new CTokenMarker();
+        subject.refreshTokens(text);
+
+        Node define = subject.getRoot().getChild(0);
+        Node main = subject.getRoot().getChild(3);
+
+        text = text.replace("    count++;\n", "    int a = pin;\n    count += a;\n");
+        subject.refreshTokens(text);
+
+        Assertions.assertSame(define, subject.getRoot().getChild(0));
+        Assertions.assertSame(main, subject.getRoot().getChild(3));
+        Assertions.assertEquals(text.indexOf("void main"), main.getStartToken().start);
+
+        CTokenMarker expected = new CTokenMarker();
+        expected.refreshTokens(text);
+
+        StringBuilder sb1 = new StringBuilder();
+        for (TokenMarker entry : subject.getTokens()) {
+            sb1.append(entry.getStart() + "-" + entry.getStop() + " " + entry.getId() + "\n");
+        }
+        StringBuilder sb2 = new StringBuilder();
+        for (TokenMarker entry : expected.getTokens()) {
+            sb2.append(entry.getStart() + "-" + entry.getStop() + " " + entry.getId() + "\n");
+        }
+        Assertions.assertEquals(sb2.toString(), sb1.toString());
+    }
+
 }
@@ -0,0 +1,378 @@
+/*
+ * Copyright (c) 2021-26 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.maccasoft.propeller.model.ParsedSourceCache;
+import com.maccasoft.propeller.spin1.Spin1Compiler;
+import com.maccasoft.propeller.spin2.Spin2Compiler;
+
+public class BatchCompiler {
+
+    public static class Manifest {
+
+        public String[] libraryPath;
+        public Map<String, String> defines;
+        public Job[] jobs;
+
+    }
+
+    public static class Job {
+
+        public String name;
+        public String file;
+        public String target;
+        public Map<String, String> defines;
+        public String output;
+        public String format;
+        public String listing;
+
+        public Boolean debug;
+        public Boolean compress;
+        public Boolean removeUnusedMethods;
+        public Boolean caseSensitive;
+
+    }
+
+    @JsonInclude(Include.NON_NULL)
+    public static class JobResult {
+
+        public String name;
+        public String file;
+        public String compiler;
+        public boolean success;
+        public int size;
+        public int errors;
+        public int warnings;
+        public List<String> messages = new ArrayList<>();
+        public String output;
+        public String listing;
+        public long compileTime;
+        public long totalTime;
+
+    }
+
+    public static class Summary {
+
+        public int jobs;
+        public int failed;
+        public int threads;
+        public long totalTime;
+        public int parsedSourceHits;
+        public int parsedSourceMisses;
+        public List<JobResult> results = new ArrayList<>();
+
+    }
+
+    final Manifest manifest;
+    final File baseDir;
+
+    List<File> libraryPaths = new ArrayList<>();
+    List<String> defines = new ArrayList<>();
+
+    int threads = Runtime.getRuntime().availableProcessors();
+
+    boolean caseSensitive;
+    boolean debug;
+    boolean compress;
+    boolean removeUnusedMethods;
+    boolean fastByteConstants;
+    boolean foldConstants;
+    boolean warnUnusedMethods = true;
+    boolean warnUnusedMethodVariables = true;
+    boolean warnUnusedVariables = true;
+
+    public static Manifest readManifest(File file) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        return mapper.readValue(file, Manifest.class);
+    }
+
+    public static void writeSummary(Summary summary, OutputStream os) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.configure(SerializationFeature.INDENT_OUTPUT, true);
+        mapper.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        mapper.writeValue(os, summary);
+    }
+
+    public BatchCompiler(Manifest manifest, File baseDir) {
+        this.manifest = manifest;
+        this.baseDir = baseDir;
+    }
+
+    public void addLibraryPath(File path) {
+        libraryPaths.add(path);
+    }
+
+    public void addDefine(String define) {
+        defines.add(define);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    public void setCaseSensitive(boolean caseSensitive) {
+        this.caseSensitive = caseSensitive;
+    }
+
+    public void setDebugEnabled(boolean debug) {
+        this.debug = debug;
+    }
+
+    public void setCompress(boolean compress) {
+        this.compress = compress;
+    }
+
+    public void setRemoveUnusedMethods(boolean removeUnusedMethods) {
+        this.removeUnusedMethods = removeUnusedMethods;
+    }
+
+    public void setFastByteConstants(boolean fastByteConstants) {
+        this.fastByteConstants = fastByteConstants;
+    }
+
+    public void setFoldConstants(boolean foldConstants) {
+        this.foldConstants = foldConstants;
+    }
+
+    public void setWarnUnusedMethods(boolean warnUnusedMethods) {
+        this.warnUnusedMethods = warnUnusedMethods;
+    }
+
+    public void setWarnUnusedMethodVariables(boolean warnUnusedMethodVariables) {
+        this.warnUnusedMethodVariables = warnUnusedMethodVariables;
+    }
+
+    public void setWarnUnusedVariables(boolean warnUnusedVariables) {
+        this.warnUnusedVariables = warnUnusedVariables;
+    }
+
+    public Summary run() throws InterruptedException {
+        Summary summary = new Summary();
+        long start = System.nanoTime();
+        int hits = ParsedSourceCache.getInstance().getHits();
+        int misses = ParsedSourceCache.getInstance().getMisses();
+
+        Job[] jobs = manifest.jobs != null ? manifest.jobs : new Job[0];
+        summary.jobs = jobs.length;
+        summary.threads = threads;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<JobResult>> futures = new ArrayList<>();
+            for (Job job : jobs) {
+                futures.add(executor.submit(() -> compile(job)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                JobResult result;
+                try {
+                    result = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    result = new JobResult();
+                    result.name = jobs[i].name;
+                    result.file = jobs[i].file;
+                    result.messages.add(String.valueOf(e.getCause()));
+                    result.errors++;
+                }
+                if (!result.success) {
+                    summary.failed++;
+                }
+                summary.results.add(result);
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        summary.totalTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        summary.parsedSourceHits = ParsedSourceCache.getInstance().getHits() - hits;
+        summary.parsedSourceMisses = ParsedSourceCache.getInstance().getMisses() - misses;
+
+        return summary;
+    }
+
+    JobResult compile(Job job) {
+        JobResult result = new JobResult();
+        long start = System.nanoTime();
+
+        File fileToCompile = resolve(job.file);
+        if (fileToCompile != null) {
+            String name = fileToCompile.getName().toLowerCase();
+            if (!name.endsWith(".spin") && !name.endsWith(".spin2") && !name.endsWith(".c")) {
+                fileToCompile = new File(fileToCompile.getParentFile(), fileToCompile.getName() + ".spin");
+            }
+        }
+        result.name = job.name != null ? job.name : job.file;
+        result.file = job.file;
+
+        try {
+            if (fileToCompile == null || !fileToCompile.exists()) {
+                throw new CompilerException("file " + job.file + " not found", (Object) null);
+            }
+
+            Compiler compiler = createCompiler(job, fileToCompile);
+            result.compiler = compiler.getClass().getSimpleName();
+
+            SpinObject object = null;
+            long compileStart = System.nanoTime();
+            try {
+                object = compiler.compile(fileToCompile);
+            } catch (CompilerException e) {
+                // Messages are collected below
+            }
+            result.compileTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - compileStart);
+
+            for (CompilerException msg : compiler.getMessages()) {
+                if (msg.type == CompilerException.ERROR) {
+                    result.errors++;
+                }
+                else if (msg.type == CompilerException.WARNING) {
+                    result.warnings++;
+                }
+                result.messages.add(msg.toString());
+            }
+
+            if (object != null && !compiler.hasErrors()) {
+                byte[] binaryData;
+                if ("eeprom".equalsIgnoreCase(job.format)) {
+                    binaryData = object.getEEPromBinary();
+                }
+                else if ("dat".equalsIgnoreCase(job.format)) {
+                    binaryData = object.getDatBinary();
+                }
+                else {
+                    binaryData = object.getBinary();
+                }
+                result.size = binaryData.length;
+
+                if (job.output != null) {
+                    File outputFile = resolve(job.output);
+                    FileOutputStream os = new FileOutputStream(outputFile);
+                    try {
+                        os.write(binaryData);
+                    } finally {
+                        os.close();
+                    }
+                    result.output = outputFile.getPath();
+                }
+
+                if (job.listing != null) {
+                    File listingFile = resolve(job.listing);
+                    PrintStream os = new PrintStream(new FileOutputStream(listingFile));
+                    try {
+                        object.generateListing(os);
+                    } finally {
+                        os.close();
+                    }
+                    result.listing = listingFile.getPath();
+                }
+
+                result.success = true;
+            }
+
+        } catch (CompilerException e) {
+            result.errors++;
+            result.messages.add(e.toString());
+        } catch (Exception e) {
+            result.errors++;
+            result.messages.add(String.valueOf(e));
+        }
+
+        result.totalTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        return result;
+    }
+
+    Compiler createCompiler(Job job, File fileToCompile) throws Exception {
+        Compiler compiler = SpinCompiler.createCompiler(fileToCompile, job.target);
+
+        List<File> paths = new ArrayList<>();
+        paths.add(fileToCompile.getAbsoluteFile().getParentFile());
+        if (manifest.libraryPath != null) {
+            for (String s : manifest.libraryPath) {
+                paths.add(resolve(s));
+            }
+        }
+        paths.addAll(libraryPaths);
+
+        compiler.setCaseSensitive(job.caseSensitive != null ? job.caseSensitive : caseSensitive);
+        compiler.setSourceProvider(new Compiler.FileSourceProvider(paths.toArray(new File[paths.size()])));
+        compiler.setDebugEnabled(job.debug != null ? job.debug : debug);
+        compiler.setRemoveUnusedMethods(job.removeUnusedMethods != null ? job.removeUnusedMethods : removeUnusedMethods);
+
+        if (compiler instanceof Spin1Compiler) {
+            ((Spin1Compiler) compiler).setFastByteConstants(fastByteConstants);
+            ((Spin1Compiler) compiler).setFoldConstants(foldConstants);
+        }
+
+        compiler.setWarnUnusedMethods(warnUnusedMethods);
+        compiler.setWarnUnusedMethodVariables(warnUnusedMethodVariables);
+        compiler.setWarnUnusedVariables(warnUnusedVariables);
+
+        if (compiler instanceof Spin2Compiler) {
+            ((Spin2Compiler) compiler).setCompress(job.compress != null ? job.compress : compress);
+        }
+
+        for (String s : defines) {
+            if (!SpinCompiler.addDefine(compiler, s)) {
+                throw new CompilerException("invalid define " + s, (Object) null);
+            }
+        }
+        if (manifest.defines != null) {
+            for (Entry<String, String> entry : manifest.defines.entrySet()) {
+                compiler.addDefine(entry.getKey(), entry.getValue() != null ? entry.getValue() : "");
+            }
+        }
+        if (job.defines != null) {
+            for (Entry<String, String> entry : job.defines.entrySet()) {
+                compiler.addDefine(entry.getKey(), entry.getValue() != null ? entry.getValue() : "");
+            }
+        }
+
+        return compiler;
+    }
+
+    File resolve(String name) {
+        if (name == null) {
+            return null;
+        }
+        File file = new File(name);
+        if (!file.isAbsolute() && baseDir != null) {
+            file = new File(baseDir, name);
+        }
+        return file;
+    }
+
+}
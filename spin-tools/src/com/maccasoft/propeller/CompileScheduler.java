@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2021-26 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Runs the background compiles of the editor tabs on a small set of worker threads.
+ * Each key (usually a tab) has at most one queued job, a newer request replaces the
+ * queued one and marks the running one as cancelled so its results can be dropped.
+ * Jobs of the same group (the object tree they belong to) never run in parallel, and
+ * the jobs of the focused key are started first.
+ */
+public class CompileScheduler {
+
+    public static final int DEFAULT_THREADS = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() / 2));
+
+    static final CompileScheduler instance = new CompileScheduler(DEFAULT_THREADS);
+
+    public static CompileScheduler getInstance() {
+        return instance;
+    }
+
+    public interface Task {
+
+        void run(Job job);
+
+    }
+
+    public static class Job {
+
+        final Object key;
+        final Object group;
+        final Task task;
+
+        volatile boolean cancelled;
+
+        Job(Object key, Object group, Task task) {
+            this.key = key;
+            this.group = group;
+            this.task = task;
+        }
+
+        public Object getKey() {
+            return key;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+    }
+
+    final int threads;
+
+    final List<Job> pending = new ArrayList<>();
+    final Map<Object, Job> running = new HashMap<>();
+    final Set<Object> runningGroups = new HashSet<>();
+
+    Object focused;
+    int workers;
+    int idleWorkers;
+
+    public CompileScheduler(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Queues a job for the given key, replacing any queued job for the same key and
+     * cancelling the one currently running.
+     *
+     * @param key the requester key
+     * @param group the object tree the job compiles, jobs of the same group are serialized,
+     *            if null the job is serialized only with the jobs of the same key
+     * @param task the job to run
+     * @return the queued job
+     */
+    public synchronized Job schedule(Object key, Object group, Task task) {
+        cancel(key);
+
+        Job job = new Job(key, group != null ? group : key, task);
+        pending.add(job);
+
+        if (idleWorkers == 0 && workers < threads) {
+            Thread thread = new Thread(this::runWorker, "Compiler " + (workers + 1));
+            thread.setDaemon(true);
+            thread.start();
+            workers++;
+        }
+        else {
+            notifyAll();
+        }
+
+        return job;
+    }
+
+    /**
+     * Removes the queued job for the given key and cancels the one currently running.
+     *
+     * @param key the requester key
+     */
+    public synchronized void cancel(Object key) {
+        Iterator<Job> iter = pending.iterator();
+        while (iter.hasNext()) {
+            Job job = iter.next();
+            if (job.key == key) {
+                job.cancel();
+                iter.remove();
+            }
+        }
+        Job job = running.get(key);
+        if (job != null) {
+            job.cancel();
+        }
+        notifyAll();
+    }
+
+    public synchronized void setFocused(Object key) {
+        this.focused = key;
+    }
+
+    public synchronized boolean isBusy(Object key) {
+        if (running.containsKey(key)) {
+            return true;
+        }
+        for (Job job : pending) {
+            if (job.key == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Waits until the given key has no queued or running jobs.
+     *
+     * @param key the requester key
+     * @param timeout the maximum time to wait in milliseconds
+     * @return true if the jobs completed, false if the timeout elapsed
+     */
+    public synchronized boolean waitFor(Object key, long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        while (isBusy(key)) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+
+    /*
+     * Returns the next job that can be started, the focused key first, then the oldest.
+     */
+    Job nextJob() {
+        Job result = null;
+        for (Job job : pending) {
+            if (running.containsKey(job.key) || runningGroups.contains(job.group)) {
+                continue;
+            }
+            if (result == null || (job.key == focused && result.key != focused)) {
+                result = job;
+            }
+        }
+        return result;
+    }
+
+    void runWorker() {
+        while (true) {
+            Job job;
+            synchronized (this) {
+                while ((job = nextJob()) == null) {
+                    idleWorkers++;
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    } finally {
+                        idleWorkers--;
+                    }
+                }
+                pending.remove(job);
+                running.put(job.key, job);
+                runningGroups.add(job.group);
+            }
+
+            try {
+                job.task.run(job);
+            } catch (Throwable e) {
+                e.printStackTrace();
+            } finally {
+                synchronized (this) {
+                    running.remove(job.key);
+                    runningGroups.remove(job.group);
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+}
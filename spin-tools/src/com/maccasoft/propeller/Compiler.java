@@ -11,15 +11,23 @@ package com.maccasoft.propeller;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import com.maccasoft.propeller.expressions.Context;
 import com.maccasoft.propeller.expressions.Expression;
 import com.maccasoft.propeller.internal.FileUtils;
+import com.maccasoft.propeller.model.ParsedSourceCache;
 import com.maccasoft.propeller.model.RootNode;
 import com.maccasoft.propeller.model.SourceProvider;
 import com.maccasoft.propeller.model.Token;
@@ -94,11 +102,19 @@ public abstract class Compiler {
 
         @Override
         public File getFile(String name) {
+            return findFile(name, true);
+        }
+
+        @Override
+        public File findFile(String name) {
+            return findFile(name, false);
+        }
+
+        File findFile(String name, boolean collect) {
             File localFile = new File(name);
             if (localFile.exists()) {
-                File parent = localFile.getParentFile();
-                if (!collectedSearchPaths.contains(parent)) {
-                    collectedSearchPaths.add(parent);
+                if (collect) {
+                    collectSearchPath(localFile.getParentFile());
                 }
                 return localFile;
             }
@@ -106,9 +122,8 @@ public abstract class Compiler {
             for (File file : collectedSearchPaths) {
                 localFile = new File(file, name);
                 if (localFile.exists()) {
-                    File parent = localFile.getParentFile();
-                    if (!collectedSearchPaths.contains(parent)) {
-                        collectedSearchPaths.add(parent);
+                    if (collect) {
+                        collectSearchPath(localFile.getParentFile());
                     }
                     return localFile;
                 }
@@ -124,6 +139,12 @@ public abstract class Compiler {
             return null;
         }
 
+        void collectSearchPath(File parent) {
+            if (!collectedSearchPaths.contains(parent)) {
+                collectedSearchPaths.add(parent);
+            }
+        }
+
     }
 
     protected ObjectTree tree;
@@ -140,6 +161,9 @@ public abstract class Compiler {
     boolean warnUnusedVariables;
     boolean warnRemovedUnusedMethods;
 
+    boolean parallel = true;
+    Map<File, RootNode> preloadedSources = new HashMap<>();
+
     public Compiler() {
 
     }
@@ -152,6 +176,14 @@ public abstract class Compiler {
         this.sourceProvider = sourceProvider;
     }
 
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
     public boolean removeUnusedMethods() {
         return removeUnusedMethods;
     }
@@ -242,10 +274,91 @@ public abstract class Compiler {
 
     public RootNode getParsedSource(File file) {
         if (sourceProvider != null) {
-            RootNode node = sourceProvider.getParsedSource(file);
+            RootNode node = preloadedSources.get(file);
+            if (node == null) {
+                node = sourceProvider.getParsedSource(file);
+            }
             if (node != null) {
-                return node;
+                return ParsedSourceCache.getInstance().checkout(node, this);
+            }
+        }
+        return null;
+    }
+
+    protected RootNode getParsedSource(File file, String suffix, String text) {
+        RootNode root = ParsedSourceCache.getInstance().getParsedSource(file, suffix, text);
+        if (root != null) {
+            return ParsedSourceCache.getInstance().checkout(root, this);
+        }
+        return null;
+    }
+
+    protected void releaseParsedSources() {
+        ParsedSourceCache.getInstance().release(this);
+        preloadedSources.clear();
+    }
+
+    /*
+     * Parses the sources of the objects referenced by the given root, and recursively by
+     * their childs, in parallel. The compile steps still run sequentially because objects
+     * share the methods call graph, the debug statements and the memory layout, the parsed
+     * sources are returned by getParsedSource when the compiler reaches the objects.
+     */
+    protected void preloadObjects(RootNode root) {
+        if (!parallel || sourceProvider == null || root == null) {
+            return;
+        }
+
+        Set<File> visited = new HashSet<>();
+        List<RootNode> roots = Collections.singletonList(root);
+
+        while (!roots.isEmpty()) {
+            List<File> files = new ArrayList<>();
+            List<Callable<RootNode>> tasks = new ArrayList<>();
+            for (RootNode node : roots) {
+                Set<File> set = new LinkedHashSet<>();
+                collectObjectFiles(node, set);
+                for (File file : set) {
+                    if (visited.add(file)) {
+                        files.add(file);
+                        tasks.add(() -> sourceProvider.getParsedSource(file));
+                    }
+                }
+            }
+
+            roots = new ArrayList<>();
+            if (tasks.isEmpty()) {
+                break;
+            }
+
+            List<Future<RootNode>> results = ForkJoinPool.commonPool().invokeAll(tasks);
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    RootNode node = results.get(i).get();
+                    if (node != null) {
+                        preloadedSources.put(files.get(i), node);
+                        roots.add(node);
+                    }
+                } catch (Exception e) {
+                    // Do nothing, errors are reported by the compiler
+                }
+            }
+        }
+    }
+
+    protected void collectObjectFiles(RootNode root, Collection<File> files) {
+
+    }
+
+    protected File findFile(String name, String... extensions) {
+        if (sourceProvider != null) {
+            for (String suffix : extensions) {
+                File file = sourceProvider.findFile(name + suffix);
+                if (file != null) {
+                    return file;
+                }
             }
+            return sourceProvider.findFile(name);
         }
         return null;
     }
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2021-26 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maccasoft.propeller.model.Parser;
+import com.maccasoft.propeller.model.SourceProvider;
+import com.maccasoft.propeller.spin1.Spin1Compiler;
+import com.maccasoft.propeller.spin2.Spin2Compiler;
+
+/*
+ * Keeps a compiler JVM running and accepts spinc command lines over a local socket, so
+ * that each compile doesn't pay for the JVM startup and can reuse the parsed library
+ * sources. Requests and replies are JSON objects, one per line. Requests are executed
+ * one at a time because the command line output and options are global.
+ */
+public class CompilerServer {
+
+    public static final String SOCKET_NAME = ".spin-tools-spinc.socket";
+
+    public static class Request {
+
+        public String[] args;
+
+    }
+
+    @JsonInclude(Include.NON_NULL)
+    public static class Reply {
+
+        public String type;
+        public String text;
+        public Integer code;
+
+        public Reply() {
+
+        }
+
+        public Reply(String type, String text, Integer code) {
+            this.type = type;
+            this.text = text;
+            this.code = code;
+        }
+
+    }
+
+    class ReplyOutputStream extends OutputStream {
+
+        final OutputStream os;
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        ReplyOutputStream(OutputStream os) {
+            this.os = os;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (b == '\n') {
+                flushLine();
+            }
+            else if (b != '\r') {
+                line.write(b);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            os.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (line.size() != 0) {
+                flushLine();
+            }
+            os.flush();
+        }
+
+        void flushLine() throws IOException {
+            reply(os, new Reply("output", line.toString(StandardCharsets.UTF_8), null));
+            line.reset();
+        }
+
+    }
+
+    final Path socketPath;
+    final ObjectMapper mapper;
+
+    ServerSocketChannel serverChannel;
+
+    public static File getDefaultSocketFile() {
+        return new File(System.getProperty("user.home"), SOCKET_NAME);
+    }
+
+    public static int serve(Path socketPath) throws IOException {
+        CompilerServer server = new CompilerServer(socketPath);
+        server.warmUp();
+        server.start();
+        SpinCompiler.println("Compile server listening on " + socketPath);
+        server.run();
+        return 0;
+    }
+
+    public static int forward(Path socketPath, String[] args, PrintStream out) throws IOException {
+        ObjectMapper mapper = createMapper();
+
+        SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            channel.connect(UnixDomainSocketAddress.of(socketPath));
+
+            OutputStream os = Channels.newOutputStream(channel);
+            Request request = new Request();
+            request.args = args;
+            os.write(mapper.writeValueAsBytes(request));
+            os.write('\n');
+            os.flush();
+
+            String line;
+            BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            while ((line = reader.readLine()) != null) {
+                Reply reply = mapper.readValue(line, Reply.class);
+                if ("output".equals(reply.type)) {
+                    out.println(reply.text);
+                }
+                else if ("exit".equals(reply.type)) {
+                    out.flush();
+                    return reply.code != null ? reply.code : 0;
+                }
+            }
+        } finally {
+            channel.close();
+        }
+
+        throw new IOException("connection closed");
+    }
+
+    static ObjectMapper createMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        mapper.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        return mapper;
+    }
+
+    public CompilerServer(Path socketPath) {
+        this.socketPath = socketPath;
+        this.mapper = createMapper();
+    }
+
+    public void start() throws IOException {
+        Files.deleteIfExists(socketPath);
+        serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        serverChannel.bind(UnixDomainSocketAddress.of(socketPath));
+        socketPath.toFile().deleteOnExit();
+    }
+
+    public void run() {
+        while (serverChannel.isOpen()) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                Thread thread = new Thread(() -> handle(channel), "Compile server connection");
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                if (serverChannel.isOpen()) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    public void stop() {
+        try {
+            serverChannel.close();
+            Files.deleteIfExists(socketPath);
+        } catch (IOException e) {
+            // Do nothing
+        }
+    }
+
+    /*
+     * Compiles small programs to load the compiler classes and build the instruction
+     * and keyword tables before the first request.
+     */
+    void warmUp() {
+        try {
+            Spin1Compiler spin1Compiler = new Spin1Compiler();
+            spin1Compiler.setSourceProvider(SourceProvider.NULL);
+            spin1Compiler.compile(new File("warmup.spin"), Parser.parse(".spin", ""
+                + "PUB main | a\n"
+                + "    a := 1\n"
+                + "DAT    mov a, #1\n"
+                + "a      long 0\n"));
+
+            Spin2Compiler spin2Compiler = new Spin2Compiler();
+            spin2Compiler.setSourceProvider(SourceProvider.NULL);
+            spin2Compiler.compile(new File("warmup.spin2"), Parser.parse(".spin2", ""
+                + "PUB main() | a\n"
+                + "    a := 1\n"
+                + "DAT    mov a, #1\n"
+                + "a      long 0\n"));
+        } catch (Exception e) {
+            // Do nothing
+        }
+    }
+
+    void handle(SocketChannel channel) {
+        try {
+            String line;
+            OutputStream os = Channels.newOutputStream(channel);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            while ((line = reader.readLine()) != null) {
+                Request request = mapper.readValue(line, Request.class);
+                int code = execute(request.args != null ? request.args : new String[0], os);
+                reply(os, new Reply("exit", null, code));
+            }
+        } catch (IOException e) {
+            // Client disconnected
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Do nothing
+            }
+        }
+    }
+
+    int execute(String[] args, OutputStream os) throws IOException {
+        for (String arg : args) {
+            if ("--server".equals(arg) || "--connect".equals(arg)) {
+                reply(os, new Reply("output", "invalid option " + arg, null));
+                return 1;
+            }
+        }
+
+        synchronized (SpinCompiler.class) {
+            PrintStream out = new PrintStream(new ReplyOutputStream(os), true, StandardCharsets.UTF_8);
+            PrintStream oldOut = SpinCompiler.out;
+            try {
+                SpinCompiler.out = out;
+                return SpinCompiler.run(args);
+            } finally {
+                SpinCompiler.out = oldOut;
+                out.close();
+            }
+        }
+    }
+
+    synchronized void reply(OutputStream os, Reply reply) throws IOException {
+        os.write(mapper.writeValueAsBytes(reply));
+        os.write('\n');
+        os.flush();
+    }
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2021-26 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Splits the console byte stream into lines outside of the UI thread. Lines are decoded
+ * as UTF-8, the position of the backtick debug command, if any, is recorded with the line.
+ * Bytes below 8 are control codes, a cog number followed by three zero bytes marks a
+ * debugger breakpoint, decoding stops right after it so the caller can read the breakpoint
+ * data from the stream.
+ */
+public class ConsoleDecoder {
+
+    public static final int NO_BREAKPOINT = -1;
+
+    static final int ESC = 0x1B;
+
+    public static class Line {
+
+        public final String text;
+        public final int commandIndex;
+        public final boolean endSession;
+
+        Line(String text, int commandIndex, boolean endSession) {
+            this.text = text;
+            this.commandIndex = commandIndex;
+            this.endSession = endSession;
+        }
+
+        public boolean isCommand() {
+            return commandIndex != -1;
+        }
+
+        public String getCommand() {
+            return text.substring(commandIndex);
+        }
+
+    }
+
+    public static class Batch {
+
+        public final List<Line> lines;
+        public final byte[] log;
+
+        Batch(List<Line> lines, byte[] log) {
+            this.lines = lines;
+            this.log = log;
+        }
+
+    }
+
+    volatile boolean endSessionEnabled;
+    boolean pendingEndSession;
+
+    int utfCount;
+    int utfRemaining;
+
+    int breakpointCog = NO_BREAKPOINT;
+    int breakpointZeros;
+    int breakpoint = NO_BREAKPOINT;
+
+    byte[] line = new byte[256];
+    int lineLength;
+
+    List<Line> lines = new ArrayList<>();
+    final ByteArrayOutputStream log = new ByteArrayOutputStream();
+
+    public ConsoleDecoder() {
+
+    }
+
+    /*
+     * When enabled, the ESC character ends the session at the next line end instead of
+     * being part of the text.
+     */
+    public void setEndSessionEnabled(boolean endSessionEnabled) {
+        this.endSessionEnabled = endSessionEnabled;
+    }
+
+    /**
+     * Decodes the given bytes, stopping after a breakpoint marker or a line that ends the session.
+     *
+     * @param b the bytes
+     * @param off the start offset
+     * @param len the number of bytes
+     * @return the number of bytes consumed
+     */
+    public int decode(byte[] b, int off, int len) {
+        int i = off;
+        int end = off + len;
+
+        breakpoint = NO_BREAKPOINT;
+
+        while (i < end) {
+            int c = b[i++] & 0xFF;
+
+            if (breakpointCog != NO_BREAKPOINT) {
+                if (c == 0) {
+                    if (++breakpointZeros == 3) {
+                        breakpoint = breakpointCog;
+                        breakpointCog = NO_BREAKPOINT;
+                        break;
+                    }
+                    continue;
+                }
+                breakpointCog = NO_BREAKPOINT;
+            }
+            if (c < 8) {
+                breakpointCog = c;
+                breakpointZeros = 0;
+                continue;
+            }
+
+            if (utfRemaining != 0) {
+                if ((c & 0b11_000000) == 0b10_000000) {
+                    append(c);
+                    log.write(c);
+                    utfRemaining--;
+                    continue;
+                }
+                lineLength -= utfCount - utfRemaining;
+                utfRemaining = 0;
+            }
+
+            if ((c & 0b111_00000) == 0b110_00000) {
+                startSequence(c, 2);
+            }
+            else if ((c & 0b1111_0000) == 0b1110_0000) {
+                startSequence(c, 3);
+            }
+            else if ((c & 0b11111_000) == 0b11110_000) {
+                startSequence(c, 4);
+            }
+            else if (c == '\n') {
+                log.write(c);
+                if (endOfLine()) {
+                    break;
+                }
+            }
+            else if (c == ESC) {
+                if (endSessionEnabled) {
+                    pendingEndSession = true;
+                }
+                else {
+                    append(c);
+                }
+            }
+            else {
+                log.write(c);
+                if (c >= ' ' && c < 0x80) {
+                    append(c);
+                }
+            }
+        }
+
+        return i - off;
+    }
+
+    void startSequence(int c, int count) {
+        append(c);
+        log.write(c);
+        utfCount = count;
+        utfRemaining = count - 1;
+    }
+
+    boolean endOfLine() {
+        if (utfRemaining != 0) {
+            lineLength -= utfCount - utfRemaining;
+            utfRemaining = 0;
+        }
+
+        String text = null;
+        int commandIndex = -1;
+        if (lineLength != 0) {
+            text = new String(line, 0, lineLength, StandardCharsets.UTF_8);
+            commandIndex = text.indexOf('`');
+            lineLength = 0;
+        }
+
+        boolean endSession = pendingEndSession;
+        pendingEndSession = false;
+
+        if (text != null || endSession) {
+            lines.add(new Line(text, commandIndex, endSession));
+        }
+
+        return endSession;
+    }
+
+    void append(int c) {
+        if (lineLength >= line.length) {
+            byte[] newLine = new byte[line.length * 2];
+            System.arraycopy(line, 0, newLine, 0, lineLength);
+            line = newLine;
+        }
+        line[lineLength++] = (byte) c;
+    }
+
+    /*
+     * Returns the cog number of the breakpoint marker that stopped the last decode call,
+     * or NO_BREAKPOINT.
+     */
+    public int getBreakpoint() {
+        return breakpoint;
+    }
+
+    public boolean hasPending() {
+        return !lines.isEmpty() || log.size() != 0;
+    }
+
+    /*
+     * Returns the lines and the log bytes decoded since the last call.
+     */
+    public Batch takeBatch() {
+        Batch batch = new Batch(lines, log.toByteArray());
+        lines = new ArrayList<>();
+        log.reset();
+        return batch;
+    }
+
+}
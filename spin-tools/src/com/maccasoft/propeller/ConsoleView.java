@@ -12,13 +12,15 @@ package com.maccasoft.propeller;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.BufferedOutputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 
@@ -44,6 +46,7 @@ import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Shell;
 
 import com.maccasoft.propeller.debug.DebugPAsmWindow;
+import com.maccasoft.propeller.debug.DebugPlayback;
 import com.maccasoft.propeller.debug.DebugWindow;
 import com.maccasoft.propeller.debug.KeywordIterator;
 import com.maccasoft.propeller.devices.ComPort;
@@ -55,6 +58,10 @@ import jssc.SerialPort;
 
 public class ConsoleView {
 
+    static final int RECEIVE_TIMEOUT = 1000;
+    static final int TRANSMIT_TIMEOUT = 500;
+    static final int MAX_PENDING_BATCHES = 64;
+
     Display display;
     StyledText console;
 
@@ -72,10 +79,11 @@ public class ConsoleView {
 
     final CircularBuffer receiveBuffer;
     final CircularBuffer transmitBuffer;
-    boolean consoleThreadRun;
-    boolean pendingEndSession;
+    final ConsoleDecoder decoder;
+    final Deque<ConsoleDecoder.Batch> pendingBatches;
+    volatile boolean consoleThreadRun;
+    long reportedDroppedBytes;
 
-    StringBuilder pendingText;
     File topObjectFile;
     OutputStream os;
 
@@ -83,6 +91,7 @@ public class ConsoleView {
     DebugPAsmWindow[] debugger = new DebugPAsmWindow[8];
 
     Process process;
+    DebugPlayback playback;
 
     final PropertyChangeListener preferencesChangeListener = new PropertyChangeListener() {
 
@@ -123,10 +132,7 @@ public class ConsoleView {
                 try {
                     byte[] rx = serialPort.readBytes();
                     if (rx != null) {
-                        synchronized (receiveBuffer) {
-                            receiveBuffer.write(rx);
-                            receiveBuffer.notify();
-                        }
+                        receive(rx, 0, rx.length);
                     }
                 } catch (Exception e) {
                     e.printStackTrace();
@@ -140,96 +146,44 @@ public class ConsoleView {
 
         @Override
         public void write(int b) throws IOException {
-            synchronized (receiveBuffer) {
-                receiveBuffer.write(b);
-                receiveBuffer.notify();
-            }
+            receive(new byte[] {
+                (byte) b
+            }, 0, 1);
         }
 
         @Override
         public void write(byte[] b) throws IOException {
-            synchronized (receiveBuffer) {
-                receiveBuffer.write(b);
-                receiveBuffer.notify();
-            }
+            receive(b, 0, b.length);
         }
 
         @Override
         public void write(byte[] b, int off, int len) throws IOException {
-            synchronized (receiveBuffer) {
-                receiveBuffer.write(b, off, len);
-                receiveBuffer.notify();
-            }
+            receive(b, off, len);
         }
 
     };
 
     Runnable receiveThread = new Runnable() {
 
-        int utf_buf_index = 0, utf_ch_count = 0;
-        int backtickIndex = -1;
-
-        final byte[] utf_buf = new byte[4];
-        final StringBuilder lineBuilder = new StringBuilder(128);
-
         @Override
         public void run() {
-            int count, b = 0;
-            int cogn = -1;
-            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            int count, cogn;
+            byte[] buf = new byte[8192];
 
             while (consoleThreadRun) {
                 try {
-                    cogn = -1;
-
-                    while ((count = receiveBuffer.available()) == 0) {
-                        synchronized (receiveBuffer) {
-                            receiveBuffer.wait();
-                            if (!consoleThreadRun) {
-                                break;
-                            }
-                        }
+                    if (!receiveBuffer.waitAvailable(1, RECEIVE_TIMEOUT)) {
+                        continue;
                     }
 
-                    while (count > 0) {
-                        b = receiveBuffer.read();
-                        count--;
-
-                        if (b < 8) {
-                            cogn = b;
-                            if ((b = receiveBuffer.read()) == 0) {
-                                if ((b = receiveBuffer.read()) == 0) {
-                                    if ((b = receiveBuffer.read()) == 0) {
-                                        break;
-                                    }
-                                }
-                            }
-                            cogn = -1;
-                            count = receiveBuffer.available();
-                        }
+                    count = receiveBuffer.peek(buf, 0, buf.length);
+                    receiveBuffer.skip(decoder.decode(buf, 0, count));
 
-                        os.write(b);
+                    if (decoder.hasPending()) {
+                        postBatch(decoder.takeBatch());
                     }
 
-                    if (os.size() > 0) {
-                        byte[] rx = os.toByteArray();
-                        display.asyncExec(new Runnable() {
-
-                            @Override
-                            public void run() {
-                                if (console.isDisposed()) {
-                                    return;
-                                }
-                                for (int i = 0; i < rx.length; i++) {
-                                    writeByte(rx[i]);
-                                }
-                            }
-
-                        });
-                        os.reset();
-                    }
-
-                    if (cogn != -1) {
+                    if ((cogn = decoder.getBreakpoint()) != ConsoleDecoder.NO_BREAKPOINT) {
                         DebugPAsmWindow window = debugger[cogn];
                         if (window != null) {
                             try {
@@ -277,109 +231,6 @@ public class ConsoleView {
             }
         }
 
-        void writeByte(byte b) {
-            if (!writeLogFile && os != null) {
-                closeLogFile();
-            }
-
-            if (utf_buf_index == 0) {
-                if ((b & 0b111_00000) == 0b110_00000) {
-                    utf_buf[utf_buf_index++] = b;
-                    utf_ch_count = 2;
-                    if (writeLogFile) {
-                        writeToLog(b);
-                    }
-                }
-                else if ((b & 0b1111_0000) == 0b1110_0000) {
-                    utf_buf[utf_buf_index++] = b;
-                    utf_ch_count = 3;
-                    if (writeLogFile) {
-                        writeToLog(b);
-                    }
-                }
-                else if ((b & 0b11111_000) == 0b11110_000) {
-                    utf_buf[utf_buf_index++] = b;
-                    utf_ch_count = 4;
-                    if (writeLogFile) {
-                        writeToLog(b);
-                    }
-                }
-                else if (b == '\n') {
-                    if (!lineBuilder.isEmpty()) {
-                        boolean doDisplay = true;
-                        String text = lineBuilder.toString();
-
-                        if (backtickIndex != -1) {
-                            handleDebugWindowCommand(text.substring(backtickIndex));
-                            doDisplay = !preferences.getConsoleHideBacktickCommands();
-                            backtickIndex = -1;
-                        }
-
-                        if (doDisplay) {
-                            if (pendingText.isEmpty()) {
-                                display.asyncExec(textUpdateRunnable);
-                            }
-                            pendingText.append(text);
-                            pendingText.append(System.lineSeparator());
-                        }
-
-                        lineBuilder.setLength(0);
-                    }
-                    if (writeLogFile) {
-                        writeToLog(b);
-                    }
-                    if (pendingEndSession) {
-                        endSession();
-                    }
-                }
-                else if (b == 0x1B) {
-                    if (serialPort != null) {
-                        pendingEndSession = true;
-                    }
-                    else {
-                        lineBuilder.append((char) b);
-                    }
-                }
-                else {
-                    if (writeLogFile) {
-                        writeToLog(b);
-                    }
-                    if (b == '`' && backtickIndex == -1) {
-                        backtickIndex = lineBuilder.length();
-                    }
-                    if (b >= ' ') {
-                        lineBuilder.append((char) b);
-                    }
-                }
-            }
-            else {
-                utf_buf[utf_buf_index++] = b;
-                if (utf_buf_index >= utf_ch_count) {
-                    lineBuilder.append(new String(utf_buf, 0, utf_ch_count));
-                    utf_buf_index = 0;
-                }
-                if (writeLogFile) {
-                    writeToLog(b);
-                }
-            }
-        }
-
-        void writeToLog(byte b) {
-            try {
-                if (os == null) {
-                    String name = topObjectFile.getName();
-                    if (name.lastIndexOf('.') != -1) {
-                        name = name.substring(0, name.lastIndexOf('.'));
-                    }
-                    File logFile = new File(topObjectFile.getParentFile(), name + ".log");
-                    os = new BufferedOutputStream(new FileOutputStream(logFile));
-                }
-                os.write(b);
-            } catch (Exception e) {
-                // Do nothing
-            }
-        }
-
     };
 
     Runnable transmitThread = new Runnable() {
@@ -392,13 +243,11 @@ public class ConsoleView {
             while (consoleThreadRun) {
                 try {
                     while (serialPort != null && serialPort.isOpened() && transmitBuffer.available() != 0) {
-                        if ((count = transmitBuffer.read(b)) > 0) {
+                        if ((count = read(b)) > 0) {
                             serialPort.writeBytes(b, 0, count);
                         }
                     }
-                    synchronized (transmitBuffer) {
-                        transmitBuffer.wait();
-                    }
+                    transmitBuffer.waitAvailable(transmitBuffer.available() + 1, TRANSMIT_TIMEOUT);
                 } catch (InterruptedException e) {
                     // Do nothing
                 } catch (Exception e) {
@@ -409,20 +258,68 @@ public class ConsoleView {
 
     };
 
-    Runnable textUpdateRunnable = new Runnable() {
+    Runnable batchUpdateRunnable = new Runnable() {
 
         @Override
         public void run() {
+            List<ConsoleDecoder.Batch> list;
+            synchronized (pendingBatches) {
+                list = new ArrayList<>(pendingBatches);
+                pendingBatches.clear();
+                pendingBatches.notifyAll();
+            }
             if (console.isDisposed()) {
                 return;
             }
-            console.append(pendingText.toString());
+
+            StringBuilder text = new StringBuilder();
+            boolean hideCommands = preferences.getConsoleHideBacktickCommands();
+
+            for (ConsoleDecoder.Batch batch : list) {
+                if (!writeLogFile && os != null) {
+                    closeLogFile();
+                }
+                if (writeLogFile && batch.log.length != 0) {
+                    writeToLog(batch.log);
+                }
+                for (ConsoleDecoder.Line line : batch.lines) {
+                    if (line.text != null) {
+                        boolean doDisplay = true;
+                        if (line.isCommand()) {
+                            try {
+                                handleDebugWindowCommand(line.getCommand());
+                            } catch (Exception e) {
+                                e.printStackTrace();
+                            }
+                            doDisplay = !hideCommands;
+                        }
+                        if (doDisplay) {
+                            text.append(line.text);
+                            text.append(System.lineSeparator());
+                        }
+                    }
+                    if (line.endSession) {
+                        endSession();
+                    }
+                }
+            }
+
+            long dropped = getDroppedBytes();
+            if (dropped != reportedDroppedBytes) {
+                text.append(String.format("*** %d bytes lost ***", dropped - reportedDroppedBytes));
+                text.append(System.lineSeparator());
+                reportedDroppedBytes = dropped;
+            }
+
+            if (text.isEmpty()) {
+                return;
+            }
+            console.append(text.toString());
             if (console.getLineCount() > maxLines) {
                 int length = console.getOffsetAtLine(console.getLineCount() - maxLines);
                 console.replaceTextRange(0, length, "");
             }
             console.invokeAction(ST.TEXT_END);
-            pendingText.setLength(0);
         }
 
     };
@@ -433,7 +330,8 @@ public class ConsoleView {
 
         receiveBuffer = new CircularBuffer(1 * 1024 * 1024);
         transmitBuffer = new CircularBuffer(4096);
-        pendingText = new StringBuilder();
+        decoder = new ConsoleDecoder();
+        pendingBatches = new ArrayDeque<>();
 
         enabled = false;
 
@@ -487,13 +385,11 @@ public class ConsoleView {
             @Override
             public void widgetDisposed(DisposeEvent event) {
                 endSession();
+                stopReplay();
 
                 consoleThreadRun = false;
-                synchronized (receiveBuffer) {
-                    receiveBuffer.notify();
-                }
-                synchronized (transmitBuffer) {
-                    transmitBuffer.notify();
+                synchronized (pendingBatches) {
+                    pendingBatches.notifyAll();
                 }
 
                 preferences.removePropertyChangeListener(preferencesChangeListener);
@@ -549,8 +445,12 @@ public class ConsoleView {
 
     public void clear() {
         receiveBuffer.flush();
-        pendingText = new StringBuilder();
+        synchronized (pendingBatches) {
+            pendingBatches.clear();
+            pendingBatches.notifyAll();
+        }
 
+        stopReplay();
         closeLogFile();
         closeAllWindows();
 
@@ -589,7 +489,7 @@ public class ConsoleView {
 
         this.serialPort = serialPort;
         this.writeLogFile = preferences.getConsoleWriteLogFile();
-        this.pendingEndSession = false;
+        this.decoder.setEndSessionEnabled(serialPort != null);
     }
 
     public void setSerialBaudRate(int serialBaudRate) {
@@ -638,7 +538,8 @@ public class ConsoleView {
                 if (iter.hasNext()) {
                     String id = iter.next();
 
-                    window.setCurrentDirectory(topObjectFile.getParentFile());
+                    window.setCurrentDirectory(topObjectFile != null ? topObjectFile.getParentFile() : null);
+                    window.setFrameRate(preferences.getConsoleDebugFrameRate());
                     window.create();
                     window.setText(id);
                     window.addDisposeListener(e -> map.remove(id));
@@ -678,7 +579,6 @@ public class ConsoleView {
         } catch (Exception e) {
             e.printStackTrace();
         }
-        pendingEndSession = false;
     }
 
     public void closeAllWindows() {
@@ -695,19 +595,71 @@ public class ConsoleView {
     }
 
     void write(byte[] b) throws IOException {
-        synchronized (receiveBuffer) {
-            receiveBuffer.write(b);
-            receiveBuffer.notify();
-        }
+        receive(b, 0, b.length);
     }
 
     void write(byte[] b, int off, int len) throws IOException {
+        receive(b, off, len);
+    }
+
+    /*
+     * Queues the received bytes for the decoder. If the buffer is full, waits for the
+     * decoder to make room, bytes that don't fit within the timeout are counted as lost.
+     * Writers are serialized because the buffer allows a single producer.
+     */
+    void receive(byte[] b, int off, int len) {
         synchronized (receiveBuffer) {
-            receiveBuffer.write(b, off, len);
-            receiveBuffer.notify();
+            try {
+                receiveBuffer.write(b, off, len, RECEIVE_TIMEOUT);
+            } catch (InterruptedException e) {
+                // Do nothing
+            }
+        }
+    }
+
+    /*
+     * Hands the decoded lines to the UI thread, waits if the UI is lagging behind so that
+     * the receive buffer fills up and slows down the producers.
+     */
+    void postBatch(ConsoleDecoder.Batch batch) throws InterruptedException {
+        synchronized (pendingBatches) {
+            while (pendingBatches.size() >= MAX_PENDING_BATCHES) {
+                if (!consoleThreadRun) {
+                    return;
+                }
+                pendingBatches.wait(100);
+            }
+            if (pendingBatches.isEmpty()) {
+                display.asyncExec(batchUpdateRunnable);
+            }
+            pendingBatches.add(batch);
+        }
+    }
+
+    public long getDroppedBytes() {
+        return receiveBuffer.getOverflow();
+    }
+
+    void writeToLog(byte[] b) {
+        try {
+            if (os == null) {
+                String name = topObjectFile.getName();
+                if (name.lastIndexOf('.') != -1) {
+                    name = name.substring(0, name.lastIndexOf('.'));
+                }
+                File logFile = new File(topObjectFile.getParentFile(), name + ".log");
+                os = new BufferedOutputStream(new FileOutputStream(logFile));
+            }
+            os.write(b);
+        } catch (Exception e) {
+            // Do nothing
         }
     }
 
+    /*
+     * Reads the bytes to transmit. The buffer allows a single consumer, the transmit thread
+     * and the external command thread are serialized by the buffer monitor like the writers.
+     */
     int read(byte[] b) throws IOException {
         synchronized (transmitBuffer) {
             return transmitBuffer.read(b);
@@ -781,6 +733,48 @@ public class ConsoleView {
         ioThread.start();
     }
 
+    /**
+     * Replays a debug log recorded by the command line compiler into the debug windows.
+     *
+     * @param file the log file
+     * @param speed the playback speed multiplier, 0 to replay without delays
+     */
+    public void replayDebugLog(File file, double speed) throws IOException {
+        stopReplay();
+        closeAllWindows();
+
+        DebugPlayback newPlayback = new DebugPlayback(new FileInputStream(file));
+
+        Thread thread = new Thread(() -> {
+            try {
+                newPlayback.play(command -> display.syncExec(() -> {
+                    if (!console.isDisposed()) {
+                        handleDebugWindowCommand(command);
+                    }
+                }), speed);
+            } catch (Exception e) {
+                e.printStackTrace();
+            } finally {
+                try {
+                    newPlayback.close();
+                } catch (IOException e) {
+                    // Do nothing
+                }
+            }
+        }, "Debug Replay");
+        thread.setDaemon(true);
+        thread.start();
+
+        playback = newPlayback;
+    }
+
+    public void stopReplay() {
+        if (playback != null) {
+            playback.stop();
+            playback = null;
+        }
+    }
+
     public Process getProcess() {
         return process;
     }
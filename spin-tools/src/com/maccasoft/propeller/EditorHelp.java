@@ -12,14 +12,17 @@
 package com.maccasoft.propeller;
 
 import java.io.File;
-import java.io.FilenameFilter;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -31,8 +34,117 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
+import com.maccasoft.propeller.model.SymbolIndex;
+
 public class EditorHelp {
 
+    static final Map<String, HelpIndex> indexCache = new ConcurrentHashMap<>();
+
+    static class Entry {
+
+        final String name;
+        final String lowerName;
+        final String insert;
+        final String text;
+        final int group;
+        final int order;
+
+        Entry(String name, String insert, String text, int group, int order) {
+            this.name = name;
+            this.lowerName = name.toLowerCase();
+            this.insert = insert;
+            this.text = text;
+            this.group = group;
+            this.order = order;
+        }
+
+    }
+
+    static class Section {
+
+        final String classes;
+        final Entry[] entries;
+
+        Section(String classes, List<Entry> list) {
+            this.classes = classes;
+            this.entries = list.toArray(new Entry[0]);
+            Arrays.sort(this.entries, new Comparator<Entry>() {
+
+                @Override
+                public int compare(Entry o1, Entry o2) {
+                    int rc = o1.lowerName.compareTo(o2.lowerName);
+                    return rc != 0 ? rc : Integer.compare(o1.order, o2.order);
+                }
+
+            });
+        }
+
+        int indexOf(String lowerName) {
+            int low = 0;
+            int high = entries.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (entries[mid].lowerName.compareTo(lowerName) < 0) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+    }
+
+    /*
+     * Sections of a help file, parsed once and shared by all editors. The entry names of
+     * each section are kept sorted in lower case so lookups are binary searches.
+     */
+    static class HelpIndex {
+
+        final List<Section> sections = new ArrayList<>();
+
+        HelpIndex(InputStream is) throws Exception {
+            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+            DocumentBuilder db = dbf.newDocumentBuilder();
+            Document doc = db.parse(is);
+
+            NodeList rootNodeList = doc.getChildNodes().item(0).getChildNodes();
+            for (int i = 0; i < rootNodeList.getLength(); i++) {
+                if (!(rootNodeList.item(i) instanceof Element)) {
+                    continue;
+                }
+                Element node = (Element) rootNodeList.item(i);
+                if ("section".equals(node.getTagName())) {
+                    List<Entry> list = new ArrayList<>();
+
+                    NodeList childList = node.getChildNodes();
+                    for (int ii = 0; ii < childList.getLength(); ii++) {
+                        if (!(childList.item(ii) instanceof Element)) {
+                            continue;
+                        }
+                        Element element = (Element) childList.item(ii);
+                        if ("entry".equals(element.getTagName())) {
+                            String insert = element.getAttribute("insert");
+                            String text = element.getTextContent();
+                            String[] key = element.getAttribute("name").split(",");
+                            for (int n = 0; n < key.length; n++) {
+                                list.add(new Entry(key[n], "".equals(insert) ? null : insert, text, ii, list.size()));
+                            }
+                        }
+                    }
+
+                    sections.add(new Section(node.getAttribute("class"), list));
+                }
+            }
+        }
+
+        HelpIndex() {
+
+        }
+
+    }
+
     final String helpFile;
     final File sourceFolder;
     final String sourceFilter;
@@ -43,111 +155,69 @@ public class EditorHelp {
         this.sourceFilter = sourceFilter.toLowerCase();
     }
 
+    HelpIndex getIndex() {
+        return indexCache.computeIfAbsent(helpFile, (name) -> {
+            try (InputStream is = EditorHelp.class.getResourceAsStream(name)) {
+                return new HelpIndex(is);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            return new HelpIndex();
+        });
+    }
+
     public String getString(String context, String key) {
-        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-        try {
-            InputStream is = EditorHelp.class.getResourceAsStream(helpFile);
-            try {
-                DocumentBuilder db = dbf.newDocumentBuilder();
-                Document doc = db.parse(is);
-
-                NodeList rootNodeList = doc.getChildNodes().item(0).getChildNodes();
-                for (int i = 0; i < rootNodeList.getLength(); i++) {
-                    if (!(rootNodeList.item(i) instanceof Element)) {
-                        continue;
-                    }
-                    Element node = (Element) rootNodeList.item(i);
-                    if ("section".equals(node.getTagName())) {
-                        if (context != null && node.getAttribute("class").contains(context)) {
-                            NodeList childList = node.getChildNodes();
-                            for (int ii = 0; ii < childList.getLength(); ii++) {
-                                if (!(childList.item(ii) instanceof Element)) {
-                                    continue;
-                                }
-                                Element element = (Element) childList.item(ii);
-                                if ("entry".equals(element.getTagName())) {
-                                    String[] s = element.getAttribute("name").split(",");
-                                    for (int n = 0; n < s.length; n++) {
-                                        if (key.equalsIgnoreCase(s[n])) {
-                                            return element.getTextContent();
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    }
+        if (context == null || key == null) {
+            return null;
+        }
+
+        String lowerKey = key.toLowerCase();
+        for (Section section : getIndex().sections) {
+            if (section.classes.contains(context)) {
+                int index = section.indexOf(lowerKey);
+                if (index < section.entries.length && section.entries[index].lowerName.equals(lowerKey)) {
+                    return section.entries[index].text;
                 }
-            } finally {
-                is.close();
             }
-
-        } catch (Exception e) {
-            e.printStackTrace();
         }
+
         return null;
     }
 
     public List<IContentProposal> fillProposals(String context, String token) {
         List<IContentProposal> proposals = new ArrayList<IContentProposal>();
+        if (context == null) {
+            return proposals;
+        }
 
-        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-        try {
-            InputStream is = EditorHelp.class.getResourceAsStream(helpFile);
-            try {
-                DocumentBuilder db = dbf.newDocumentBuilder();
-                Document doc = db.parse(is);
-
-                NodeList rootNodeList = doc.getChildNodes().item(0).getChildNodes();
-                for (int i = 0; i < rootNodeList.getLength(); i++) {
-                    if (!(rootNodeList.item(i) instanceof Element)) {
-                        continue;
-                    }
-                    Element node = (Element) rootNodeList.item(i);
-                    if ("section".equals(node.getTagName())) {
-                        if (context != null && node.getAttribute("class").contains(context)) {
-                            List<IContentProposal> list = new ArrayList<>();
-
-                            NodeList childList = node.getChildNodes();
-                            for (int ii = 0; ii < childList.getLength(); ii++) {
-                                if (!(childList.item(ii) instanceof Element)) {
-                                    continue;
-                                }
-                                Element element = (Element) childList.item(ii);
-                                if ("entry".equals(element.getTagName())) {
-                                    String[] key = element.getAttribute("name").split(",");
-                                    for (int n = 0; n < key.length; n++) {
-                                        if (StringUtils.startsWithIgnoreCase(key[n], token)) {
-                                            String insert = element.getAttribute("insert");
-                                            if (insert != null && !"".equals(insert)) {
-                                                list.add(new ContentProposal(insert, key[n], element.getTextContent()));
-                                                break;
-                                            }
-                                            else {
-                                                list.add(new ContentProposal(key[n], key[n], element.getTextContent()));
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-
-                            Collections.sort(list, new Comparator<IContentProposal>() {
+        String lowerToken = token.toLowerCase();
+        for (Section section : getIndex().sections) {
+            if (section.classes.contains(context)) {
+                int first = section.indexOf(lowerToken);
+                int last = first;
+                while (last < section.entries.length && section.entries[last].lowerName.startsWith(lowerToken)) {
+                    last++;
+                }
 
-                                @Override
-                                public int compare(IContentProposal o1, IContentProposal o2) {
-                                    return o1.getLabel().compareToIgnoreCase(o2.getLabel());
-                                }
+                // Entries with an insert text are proposed once, with the first matching name
+                Map<Integer, Integer> firstMatch = new HashMap<>();
+                for (int i = first; i < last; i++) {
+                    Entry entry = section.entries[i];
+                    if (entry.insert != null) {
+                        firstMatch.merge(entry.group, entry.order, Math::min);
+                    }
+                }
 
-                            });
-                            proposals.addAll(list);
-                        }
+                for (int i = first; i < last; i++) {
+                    Entry entry = section.entries[i];
+                    if (entry.insert == null) {
+                        proposals.add(new ContentProposal(entry.name, entry.name, entry.text));
+                    }
+                    else if (firstMatch.get(entry.group) == entry.order) {
+                        proposals.add(new ContentProposal(entry.insert, entry.name, entry.text));
                     }
                 }
-            } finally {
-                is.close();
             }
-
-        } catch (Exception e) {
-            e.printStackTrace();
         }
 
         return proposals;
@@ -171,29 +241,28 @@ public class EditorHelp {
         List<IContentProposal> containsProposal = new ArrayList<IContentProposal>();
         Set<File> included = new HashSet<File>();
 
-        File[] list = folder.listFiles(new FilenameFilter() {
-
-            @Override
-            public boolean accept(File dir, String name) {
-                return StringUtils.endsWithIgnoreCase(name, sourceFilter);
+        File[] files = SymbolIndex.getInstance().getFiles(folder);
+        if (files != null) {
+            List<File> list = new ArrayList<>();
+            for (int i = 0; i < files.length; i++) {
+                if (StringUtils.endsWithIgnoreCase(files[i].getName(), sourceFilter)) {
+                    list.add(files[i]);
+                }
             }
-
-        });
-        if (list != null) {
-            for (int i = 0; i < list.length; i++) {
-                String name = list[i].getName();
+            for (File file : list) {
+                String name = file.getName();
                 name = name.substring(0, name.indexOf(sourceFilter));
                 if (StringUtils.startsWithIgnoreCase(name, prefix)) {
                     prefixProposals.add(new ContentProposal(name, name, null));
-                    included.add(list[i]);
+                    included.add(file);
                 }
             }
-            for (int i = 0; i < list.length; i++) {
-                String name = list[i].getName();
+            for (File file : list) {
+                String name = file.getName();
                 name = name.substring(0, name.indexOf(sourceFilter));
-                if (StringUtils.containsIgnoreCase(name, prefix) && !included.contains(list[i])) {
+                if (StringUtils.containsIgnoreCase(name, prefix) && !included.contains(file)) {
                     containsProposal.add(new ContentProposal(name, name, null));
-                    included.add(list[i]);
+                    included.add(file);
                 }
             }
         }
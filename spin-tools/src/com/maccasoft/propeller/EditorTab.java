@@ -24,7 +24,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -64,6 +64,7 @@ import com.maccasoft.propeller.model.FunctionNode;
 import com.maccasoft.propeller.model.MethodNode;
 import com.maccasoft.propeller.model.Node;
 import com.maccasoft.propeller.model.ObjectsNode;
+import com.maccasoft.propeller.model.ParsedSourceCache;
 import com.maccasoft.propeller.model.RootNode;
 import com.maccasoft.propeller.model.SourceProvider;
 import com.maccasoft.propeller.model.Token;
@@ -75,6 +76,7 @@ import com.maccasoft.propeller.spin1.Spin1Formatter;
 import com.maccasoft.propeller.spin1.Spin1TokenMarker;
 import com.maccasoft.propeller.spin1.Spin1TokenStream;
 import com.maccasoft.propeller.spin2.Spin2Compiler;
+import com.maccasoft.propeller.spin2.Spin2ObjectCache;
 import com.maccasoft.propeller.spin2.Spin2Formatter;
 import com.maccasoft.propeller.spin2.Spin2TokenMarker;
 import com.maccasoft.propeller.spin2.Spin2TokenStream;
@@ -103,17 +105,18 @@ public class EditorTab implements FindReplaceTarget {
     boolean dirty;
     long lastModified;
 
-    AtomicBoolean threadRunning = new AtomicBoolean(false);
-    AtomicBoolean pendingCompile = new AtomicBoolean(false);
+    boolean compileScheduled;
+    volatile boolean externalUpdate;
 
-    Map<File, Long> dependencies = new HashMap<>();
-    Set<File> missingDependencies = new HashSet<>();
+    Map<File, Long> dependencies = new ConcurrentHashMap<>();
+    Set<File> missingDependencies = ConcurrentHashMap.newKeySet();
 
     boolean errors;
     List<CompilerException> messages = new ArrayList<CompilerException>();
 
     SpinObject object;
     ObjectTree objectTree;
+    Spin2ObjectCache objectCache = new Spin2ObjectCache();
 
     Preferences preferences;
 
@@ -197,6 +200,29 @@ public class EditorTab implements FindReplaceTarget {
 
     };
 
+    final FileMonitor.Listener fileMonitorListener = new FileMonitor.Listener() {
+
+        @Override
+        public void filesChanged(Set<File> files, Set<File> lostFolders) {
+            File localFile = file != null ? file : new File(tabItemText).getAbsoluteFile();
+            if (files.contains(localFile) || lostFolders.contains(localFile.getParentFile())) {
+                externalUpdate = true;
+            }
+
+            // The files are checked here, the UI thread only applies the changes
+            Map<File, Long> changes = getDependencyChanges(files, lostFolders);
+            if (changes.isEmpty()) {
+                return;
+            }
+            Display.getDefault().asyncExec(() -> {
+                if (!tabItem.isDisposed()) {
+                    dependenciesChanged(changes);
+                }
+            });
+        }
+
+    };
+
     final ISelectionChangedListener outlineSelectionChangeListener = new ISelectionChangedListener() {
 
         @Override
@@ -385,8 +411,15 @@ public class EditorTab implements FindReplaceTarget {
                 @Override
                 public void run() {
                     if (!e.widget.isDisposed()) {
-                        checkExternalContentUpdate();
-                        scheduleExternalUpdateCompile();
+                        CompileScheduler.getInstance().setFocused(EditorTab.this);
+                        if (!FileMonitor.getInstance().isRunning()) {
+                            checkExternalContentUpdate();
+                            scheduleExternalUpdateCompile();
+                        }
+                        else if (externalUpdate) {
+                            externalUpdate = false;
+                            checkExternalContentUpdate();
+                        }
                     }
                 }
 
@@ -404,12 +437,12 @@ public class EditorTab implements FindReplaceTarget {
         }
 
         @Override
-        public String getSource(File file) {
+        public RootNode getParsedSource(File file) {
             String source = sourcePool.getSource(file);
             if (source != null) {
-                return source;
+                return getParsedSource(file, source);
             }
-            return super.getSource(file);
+            return super.getParsedSource(file);
         }
 
         @Override
@@ -421,8 +454,11 @@ public class EditorTab implements FindReplaceTarget {
                 return localFile;
             }
 
+            FileMonitor monitor = FileMonitor.getInstance();
+
             if (localFile.exists()) {
                 dependencies.put(localFile, localFile.lastModified());
+                monitor.watch(localFile.getParentFile());
                 return localFile;
             }
 
@@ -430,11 +466,30 @@ public class EditorTab implements FindReplaceTarget {
                 File searchPathFile = new File(searchPath, name);
                 if (searchPathFile.exists()) {
                     dependencies.put(searchPathFile.getAbsoluteFile(), searchPathFile.lastModified());
+                    monitor.watch(searchPathFile.getAbsoluteFile().getParentFile());
                     return searchPathFile;
                 }
             }
 
             missingDependencies.add(localFile);
+            monitor.watch(localFile.getParentFile());
+
+            return null;
+        }
+
+        @Override
+        public File findFile(String name) {
+            File localFile = file != null ? new File(file.getParentFile(), name) : new File(name).getAbsoluteFile();
+            if (sourcePool.containsSource(localFile) || localFile.exists()) {
+                return localFile;
+            }
+
+            for (File searchPath : searchPaths) {
+                File searchPathFile = new File(searchPath, name);
+                if (searchPathFile.exists()) {
+                    return searchPathFile;
+                }
+            }
 
             return null;
         }
@@ -611,6 +666,7 @@ public class EditorTab implements FindReplaceTarget {
             }
 
             ((Spin2Compiler) compiler).setCompress(preferences.getSpin2Compress());
+            ((Spin2Compiler) compiler).setObjectCache(objectCache);
 
             removeUnusedMethods = preferences.getSpin2RemoveUnusedMethods();
             warnUnusedMethods = preferences.getSpin2WarnUnusedMethods();
@@ -663,83 +719,119 @@ public class EditorTab implements FindReplaceTarget {
         return compiler;
     }
 
-    final Runnable compilerRunnable = new Runnable() {
+    final CompileScheduler.Task compileTask = new CompileScheduler.Task() {
 
         @Override
-        public void run() {
-            if (editor.getControl().isDisposed()) {
+        public void run(CompileScheduler.Job job) {
+            String suffix = tabItemText.substring(tabItemText.lastIndexOf('.')).toLowerCase();
+            File localFile = file != null ? file : new File(tabItemText).getAbsoluteFile();
+
+            // The token marker tree is updated in place while editing, compile a private instance
+            // of the shared parsed source, held by the job until the excluded code is marked
+            String text = sourcePool.getSource(localFile);
+            RootNode source = ParsedSourceCache.getInstance().getParsedSource(localFile, suffix, text != null ? text : "");
+            if (source == null) {
                 return;
             }
-            if (!threadRunning.getAndSet(true)) {
-                pendingCompile.set(false);
+            RootNode root = ParsedSourceCache.getInstance().checkout(source, job);
+
+            boolean published = false;
+            try {
+                published = compile(job, suffix, localFile, root);
+            } finally {
+                if (!published) {
+                    ParsedSourceCache.getInstance().release(job);
+                }
+            }
+        }
 
-                Thread thread = new Thread(new Runnable() {
+        /*
+         * Compiles the root and, if the job was not cancelled, publishes the results to the
+         * editor. Returns true if the root was handed to the editor, that releases it.
+         */
+        boolean compile(CompileScheduler.Job job, String suffix, File localFile, RootNode root) {
+            dependencies.clear();
+            missingDependencies.clear();
 
-                    @Override
-                    public void run() {
-                        String suffix = tabItemText.substring(tabItemText.lastIndexOf('.')).toLowerCase();
-                        File localFile = file != null ? file : new File(tabItemText).getAbsoluteFile();
-                        RootNode root = tokenMarker.getRoot();
-
-                        dependencies.clear();
-                        missingDependencies.clear();
-
-                        Compiler compiler = createCompiler(suffix, root);
-                        if (compiler != null) {
-                            try {
-                                object = compiler.compile(localFile, root);
-                                objectTree = compiler.getObjectTree();
-                                errors = compiler.hasErrors();
-
-                            } catch (Exception e) {
-                                errors = true;
-                                e.printStackTrace();
-                            }
+            Compiler compiler = createCompiler(suffix, root);
+            if (compiler == null) {
+                return false;
+            }
 
-                            if (!pendingCompile.get()) {
-                                messages.clear();
-                                messages.addAll(compiler.getMessages());
+            SpinObject compiledObject = null;
+            ObjectTree compiledObjectTree = objectTree;
+            boolean compileErrors;
+            try {
+                compiledObject = compiler.compile(localFile, root);
+                compiledObjectTree = compiler.getObjectTree();
+                compileErrors = compiler.hasErrors();
+
+            } catch (Exception e) {
+                compileErrors = true;
+                e.printStackTrace();
+            }
 
-                                List<CompilerException> list = new ArrayList<CompilerException>();
-                                for (CompilerException msg : messages) {
-                                    if (localFile.equals(msg.getFile())) {
-                                        list.add(msg);
-                                    }
-                                }
+            if (job.isCancelled()) {
+                return false;
+            }
 
-                                Display.getDefault().asyncExec(new Runnable() {
+            object = compiledObject;
+            objectTree = compiledObjectTree;
+            errors = compileErrors;
 
-                                    @Override
-                                    public void run() {
-                                        if (editor == null || editor.isDisposed() || tabItem.isDisposed()) {
-                                            return;
-                                        }
-                                        changeSupport.firePropertyChange(OBJECT_TREE, null, objectTree);
-                                        editor.setCompilerMessages(list);
-                                        editor.redraw();
+            messages.clear();
+            messages.addAll(compiler.getMessages());
 
-                                        if (outlineView != null && !outlineView.getControl().isDisposed()) {
-                                            outlineView.setInput(root, compiler.getContext());
-                                        }
-                                        tokenMarker.setContext(compiler.getContext());
+            List<CompilerException> list = new ArrayList<CompilerException>();
+            for (CompilerException msg : messages) {
+                if (localFile.equals(msg.getFile())) {
+                    list.add(msg);
+                }
+            }
 
-                                        tabItem.setFont(localFile.equals(preferences.getTopObject()) ? boldFont : null);
-                                        updateTabItemText();
-                                    }
-                                });
-                            }
-                        }
+            Display.getDefault().asyncExec(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        update();
+                    } finally {
+                        ParsedSourceCache.getInstance().release(job);
+                    }
+                }
 
-                        threadRunning.set(false);
+                void update() {
+                    if (editor == null || editor.isDisposed() || tabItem.isDisposed()) {
+                        return;
                     }
+                    changeSupport.firePropertyChange(OBJECT_TREE, null, objectTree);
+                    editor.setCompilerMessages(list, root);
+                    editor.redraw();
 
-                });
-                thread.start();
-            }
-            else {
-                pendingCompile.set(true);
-                Display.getDefault().timerExec(250, this);
+                    if (outlineView != null && !outlineView.getControl().isDisposed()) {
+                        outlineView.setInput(tokenMarker.getRoot(), compiler.getContext());
+                    }
+                    tokenMarker.setContext(compiler.getContext());
+
+                    tabItem.setFont(localFile.equals(preferences.getTopObject()) ? boldFont : null);
+                    updateTabItemText();
+                }
+            });
+
+            return true;
+        }
+
+    };
+
+    final Runnable compilerRunnable = new Runnable() {
+
+        @Override
+        public void run() {
+            compileScheduled = false;
+            if (editor.getControl().isDisposed()) {
+                return;
             }
+            CompileScheduler.getInstance().schedule(EditorTab.this, getCompileGroup(), compileTask);
         }
 
     };
@@ -824,11 +916,16 @@ public class EditorTab implements FindReplaceTarget {
         sourcePool.addPropertyChangeListener(sourcePoolChangeListener);
         preferences.addPropertyChangeListener(preferencesChangeListener);
 
+        FileMonitor.getInstance().addListener(fileMonitorListener);
+        FileMonitor.getInstance().watch(localFile.getParentFile());
+
         tabItem.addDisposeListener(new DisposeListener() {
 
             @Override
             public void widgetDisposed(DisposeEvent e) {
                 Display.getDefault().timerExec(-1, outlineUpdateRunnable);
+                Display.getDefault().timerExec(-1, compilerRunnable);
+                CompileScheduler.getInstance().cancel(EditorTab.this);
 
                 File localFile = file != null ? file : new File(tabItemText).getAbsoluteFile();
                 sourcePool.removeSource(localFile);
@@ -842,6 +939,7 @@ public class EditorTab implements FindReplaceTarget {
 
                 preferences.removePropertyChangeListener(preferencesChangeListener);
                 sourcePool.removePropertyChangeListener(sourcePoolChangeListener);
+                FileMonitor.getInstance().removeListener(fileMonitorListener);
 
                 editor.dispose();
 
@@ -1274,7 +1372,8 @@ public class EditorTab implements FindReplaceTarget {
     }
 
     void scheduleCompile() {
-        pendingCompile.set(true);
+        CompileScheduler.getInstance().cancel(this);
+        compileScheduled = true;
         object = null;
 
         File localFile = file != null ? file : new File(tabItemText).getAbsoluteFile();
@@ -1286,8 +1385,8 @@ public class EditorTab implements FindReplaceTarget {
     void runCompile(boolean debug) {
         this.debug = debug;
         try {
-            pendingCompile.set(true);
             object = null;
+            Display.getDefault().timerExec(-1, compilerRunnable);
             compilerRunnable.run();
             waitCompile();
         } finally {
@@ -1295,6 +1394,18 @@ public class EditorTab implements FindReplaceTarget {
         }
     }
 
+    /*
+     * Tabs compiled while a top object is set are assumed to be part of its object tree
+     * and are not compiled in parallel.
+     */
+    Object getCompileGroup() {
+        File topObject = preferences.getTopObject();
+        if (topObject != null) {
+            return topObject;
+        }
+        return file != null ? file : new File(tabItemText).getAbsoluteFile();
+    }
+
     public void formatSource() {
         Formatter formatter = null;
 
@@ -1336,31 +1447,15 @@ public class EditorTab implements FindReplaceTarget {
     }
 
     public void waitCompile() {
-        AtomicBoolean stop = new AtomicBoolean();
-        Thread waitThread = new Thread(new Runnable() {
-
-            @Override
-            public void run() {
-                try {
-                    while (threadRunning.get() || pendingCompile.get()) {
-                        if (stop.get()) {
-                            break;
-                        }
-                        Thread.sleep(100);
-                    }
-                } catch (Exception e) {
-                    // Do nothing
-                }
-            }
-
-        });
-        waitThread.start();
+        if (compileScheduled) {
+            Display.getDefault().timerExec(-1, compilerRunnable);
+            compilerRunnable.run();
+        }
         try {
-            waitThread.join(5000);
-        } catch (Exception e) {
+            CompileScheduler.getInstance().waitFor(this, 5000);
+        } catch (InterruptedException e) {
             // Do nothing
         }
-        stop.set(true);
     }
 
     public boolean isBlockSelection() {
@@ -1418,6 +1513,71 @@ public class EditorTab implements FindReplaceTarget {
         }
     }
 
+    /*
+     * Returns the last modified time of the dependencies that were changed, or -1 if
+     * deleted. The dependencies in the lost folders are returned only if they differ from
+     * the recorded state. Called from the file monitor thread.
+     */
+    Map<File, Long> getDependencyChanges(Set<File> files, Set<File> lostFolders) {
+        Map<File, Long> changes = new HashMap<>();
+
+        for (Entry<File, Long> entry : dependencies.entrySet()) {
+            File file = entry.getKey();
+            if (files.contains(file)) {
+                changes.put(file, file.exists() ? file.lastModified() : -1L);
+            }
+            else if (lostFolders.contains(file.getParentFile())) {
+                if (!file.exists()) {
+                    changes.put(file, -1L);
+                }
+                else if (file.lastModified() > entry.getValue()) {
+                    changes.put(file, file.lastModified());
+                }
+            }
+        }
+
+        for (File file : missingDependencies) {
+            if (files.contains(file) || lostFolders.contains(file.getParentFile())) {
+                if (file.exists()) {
+                    changes.put(file, file.lastModified());
+                }
+            }
+        }
+
+        return changes;
+    }
+
+    void dependenciesChanged(Map<File, Long> changes) {
+        boolean wasUpdated = false;
+
+        for (Entry<File, Long> entry : changes.entrySet()) {
+            File file = entry.getKey();
+            long lastModified = entry.getValue();
+            if (sourcePool.containsSource(file)) {
+                continue;
+            }
+            if (dependencies.containsKey(file)) {
+                if (lastModified != -1) {
+                    dependencies.put(file, lastModified);
+                }
+                else {
+                    dependencies.remove(file);
+                    missingDependencies.add(file);
+                }
+                wasUpdated = true;
+            }
+            else if (missingDependencies.contains(file) && lastModified != -1) {
+                dependencies.put(file, lastModified);
+                missingDependencies.remove(file);
+                wasUpdated = true;
+            }
+        }
+
+        if (wasUpdated) {
+            scheduleCompile();
+        }
+    }
+
     void scheduleExternalUpdateCompile() {
         boolean wasUpdated = false;
 
@@ -99,6 +99,7 @@ public class FileBrowser {
 
         @Override
         public Object[] getChildren(Object parentElement) {
+            FileMonitor.getInstance().watch((File) parentElement);
             return ((File) parentElement).listFiles(visibleExtensionsFilter);
         }
 
@@ -206,6 +207,33 @@ public class FileBrowser {
 
     };
 
+    final FileMonitor.Listener fileMonitorListener = new FileMonitor.Listener() {
+
+        @Override
+        public void filesChanged(Set<File> files, Set<File> lostFolders) {
+            Set<File> folders = new HashSet<>(lostFolders);
+            for (File file : files) {
+                if (file.getParentFile() != null) {
+                    folders.add(file.getParentFile());
+                }
+            }
+            for (File folder : lostFolders) {
+                if (folder.getParentFile() != null) {
+                    folders.add(folder.getParentFile());
+                }
+            }
+            display.asyncExec(() -> {
+                if (viewer == null || viewer.getControl().isDisposed()) {
+                    return;
+                }
+                for (File folder : folders) {
+                    viewer.refresh(folder);
+                }
+            });
+        }
+
+    };
+
     public FileBrowser(Composite parent) {
         display = parent.getDisplay();
 
@@ -259,6 +287,9 @@ public class FileBrowser {
             @Override
             public void treeExpanded(TreeExpansionEvent event) {
                 final Object element = event.getElement();
+                if (FileMonitor.getInstance().isWatched((File) element)) {
+                    return;
+                }
                 display.asyncExec(new Runnable() {
 
                     @Override
@@ -285,7 +316,10 @@ public class FileBrowser {
             updateFontsFrom(fontData);
         }
 
+        FileMonitor.getInstance().addListener(fileMonitorListener);
+
         viewer.getControl().addDisposeListener((e) -> {
+            FileMonitor.getInstance().removeListener(fileMonitorListener);
             if (font != null) {
                 font.dispose();
             }
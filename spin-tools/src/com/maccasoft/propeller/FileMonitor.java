@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2021-26 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import com.maccasoft.propeller.model.SymbolIndex;
+
+/*
+ * Watches the folders of the open sources, their dependencies and the file browser.
+ * Changes are collected until no events arrive for DEBOUNCE_DELAY milliseconds (or
+ * MAX_DELAY milliseconds passed since the first one), then the shared caches are
+ * invalidated and the listeners notified from the monitor thread.
+ */
+public class FileMonitor {
+
+    public static final int DEBOUNCE_DELAY = 250;
+    public static final int MAX_DELAY = 2000;
+
+    static FileMonitor instance;
+
+    public static synchronized FileMonitor getInstance() {
+        if (instance == null) {
+            instance = new FileMonitor();
+            instance.start();
+        }
+        return instance;
+    }
+
+    public interface Listener {
+
+        /**
+         * Called from the monitor thread with the files created, changed or deleted, and the
+         * folders whose events were lost or that can't be watched anymore. Any file in the
+         * lost folders may have changed.
+         *
+         * @param files the changed files
+         * @param lostFolders the folders with lost events
+         */
+        void filesChanged(Set<File> files, Set<File> lostFolders);
+
+    }
+
+    final Map<Path, WatchKey> keys = new HashMap<>();
+    final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    WatchService watchService;
+    Thread thread;
+
+    public FileMonitor() {
+
+    }
+
+    public synchronized boolean start() {
+        if (watchService != null) {
+            return true;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+
+        WatchService service = watchService;
+        thread = new Thread(() -> run(service), "File Monitor");
+        thread.setDaemon(true);
+        thread.start();
+
+        return true;
+    }
+
+    public synchronized void stop() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            // Do nothing
+        }
+        thread.interrupt();
+        watchService = null;
+        thread = null;
+        keys.clear();
+    }
+
+    public synchronized boolean isRunning() {
+        return watchService != null;
+    }
+
+    /**
+     * Adds a folder to the watched folders, does nothing if the folder is already watched
+     * or doesn't exist.
+     *
+     * @param folder the folder
+     */
+    public synchronized void watch(File folder) {
+        if (watchService == null || folder == null) {
+            return;
+        }
+        Path path = folder.getAbsoluteFile().toPath();
+        if (keys.containsKey(path)) {
+            return;
+        }
+        try {
+            keys.put(path, path.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY));
+        } catch (Exception e) {
+            // Do nothing
+        }
+    }
+
+    public synchronized boolean isWatched(File folder) {
+        return keys.containsKey(folder.getAbsoluteFile().toPath());
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    void run(WatchService service) {
+        Set<File> pending = new HashSet<>();
+        Set<File> lost = new HashSet<>();
+        long deadline = 0;
+
+        try {
+            while (true) {
+                WatchKey key;
+                if (pending.isEmpty() && lost.isEmpty()) {
+                    key = service.take();
+                    deadline = System.currentTimeMillis() + MAX_DELAY;
+                }
+                else {
+                    long timeout = Math.min(DEBOUNCE_DELAY, deadline - System.currentTimeMillis());
+                    key = timeout > 0 ? service.poll(timeout, TimeUnit.MILLISECONDS) : null;
+                }
+
+                if (key == null) {
+                    fireFilesChanged(pending, lost);
+                    pending = new HashSet<>();
+                    lost = new HashSet<>();
+                    continue;
+                }
+
+                Path folder = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW) {
+                        lost.add(folder.toFile());
+                    }
+                    else {
+                        pending.add(folder.resolve((Path) event.context()).toFile());
+                    }
+                }
+                if (!key.reset()) {
+                    synchronized (this) {
+                        keys.remove(folder);
+                    }
+                    lost.add(folder.toFile());
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Do nothing
+        }
+    }
+
+    void fireFilesChanged(Set<File> files, Set<File> lostFolders) {
+        for (File file : files) {
+            SymbolIndex.getInstance().invalidate(file);
+        }
+        for (File folder : lostFolders) {
+            SymbolIndex.getInstance().invalidate(folder);
+        }
+
+        Set<File> set = Collections.unmodifiableSet(files);
+        Set<File> lostSet = Collections.unmodifiableSet(lostFolders);
+        for (Listener listener : listeners) {
+            try {
+                listener.filesChanged(set, lostSet);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+}
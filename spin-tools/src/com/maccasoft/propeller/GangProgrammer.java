@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2021-26 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.maccasoft.propeller.devices.ComPort;
+import com.maccasoft.propeller.devices.ComPortException;
+
+/*
+ * Uploads the same binary image to several devices at once, with a worker thread for each
+ * port. The image is shared by all workers and never modified, failed uploads are retried
+ * up to the configured number of times.
+ */
+public abstract class GangProgrammer {
+
+    public static final int DEFAULT_RETRIES = 1;
+    public static final int RETRY_DELAY = 500;
+
+    public static class Result {
+
+        public final String portName;
+        public final boolean success;
+        public final int attempts;
+        public final String message;
+        public final long elapsed;
+
+        Result(String portName, boolean success, int attempts, String message, long elapsed) {
+            this.portName = portName;
+            this.success = success;
+            this.attempts = attempts;
+            this.message = message;
+            this.elapsed = elapsed;
+        }
+
+    }
+
+    int retries = DEFAULT_RETRIES;
+
+    public GangProgrammer() {
+
+    }
+
+    public int getRetries() {
+        return retries;
+    }
+
+    public void setRetries(int retries) {
+        this.retries = retries;
+    }
+
+    /**
+     * Creates the loader for a port, the loader should not share the port so it is closed
+     * after each attempt. Loaders can report the upload progress with uploadProgress.
+     *
+     * @param comPort the port
+     * @return the loader
+     */
+    protected abstract PropellerLoader createLoader(ComPort comPort);
+
+    protected void uploadStarted(ComPort comPort, int attempt) {
+        // Do nothing
+    }
+
+    protected void uploadProgress(ComPort comPort, int sent, int total) {
+        // Do nothing
+    }
+
+    protected void uploadFinished(Result result) {
+        // Do nothing
+    }
+
+    /**
+     * Uploads the image to all ports and waits for the uploads to complete.
+     *
+     * @param ports the ports
+     * @param binaryImage the image
+     * @param type the loader upload type
+     * @return the results, in the same order of the ports
+     */
+    public List<Result> upload(List<ComPort> ports, byte[] binaryImage, int type) throws InterruptedException {
+        List<Result> results = new ArrayList<>();
+        if (ports.isEmpty()) {
+            return results;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(ports.size());
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (ComPort comPort : ports) {
+                futures.add(executor.submit(() -> upload(comPort, binaryImage, type)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                Result result;
+                try {
+                    result = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    result = new Result(ports.get(i).getPortName(), false, 0, String.valueOf(e.getCause()), 0);
+                }
+                results.add(result);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return results;
+    }
+
+    Result upload(ComPort comPort, byte[] binaryImage, int type) throws InterruptedException {
+        String message = null;
+        long start = System.currentTimeMillis();
+
+        int attempt = 1;
+        while (true) {
+            uploadStarted(comPort, attempt);
+            try {
+                createLoader(comPort).upload(binaryImage, type, false);
+                message = null;
+                break;
+            } catch (ComPortException e) {
+                message = e.getMessage();
+            } catch (Exception e) {
+                message = e.toString();
+            }
+            if (attempt > retries) {
+                break;
+            }
+            attempt++;
+            Thread.sleep(RETRY_DELAY);
+        }
+
+        Result result = new Result(comPort.getPortName(), message == null, attempt, message, System.currentTimeMillis() - start);
+        uploadFinished(result);
+
+        return result;
+    }
+
+}
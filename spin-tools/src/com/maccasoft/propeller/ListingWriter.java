@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2021-26 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/*
+ * Formats the listing lines into a reusable buffer that is written to the output
+ * in large chunks, hex numbers are encoded directly into the buffer.
+ */
+public class ListingWriter {
+
+    static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    public static final int FLUSH_SIZE = 16384;
+
+    final Appendable out;
+    final StringBuilder sb = new StringBuilder(FLUSH_SIZE + 256);
+    final String lineSeparator = System.lineSeparator();
+
+    public ListingWriter(Appendable out) {
+        this.out = out;
+    }
+
+    /**
+     * Appends an hex number with at least the given number of digits, like the %0nX format.
+     *
+     * @param value the value
+     * @param digits the minimum number of digits
+     * @return this
+     */
+    public ListingWriter hex(int value, int digits) {
+        while (digits < 8 && (value >>> (digits * 4)) != 0) {
+            digits++;
+        }
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            sb.append(HEX[(value >>> shift) & 0xF]);
+        }
+        return this;
+    }
+
+    public ListingWriter print(char c) {
+        sb.append(c);
+        return this;
+    }
+
+    public ListingWriter print(String s) {
+        sb.append(s);
+        return this;
+    }
+
+    public ListingWriter spaces(int count) {
+        while (count-- > 0) {
+            sb.append(' ');
+        }
+        return this;
+    }
+
+    public void println() {
+        sb.append(lineSeparator);
+        if (sb.length() >= FLUSH_SIZE) {
+            flush();
+        }
+    }
+
+    public void flush() {
+        try {
+            out.append(sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        sb.setLength(0);
+    }
+
+}
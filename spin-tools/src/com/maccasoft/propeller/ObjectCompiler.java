@@ -54,6 +54,16 @@ public abstract class ObjectCompiler {
         return parent;
     }
 
+    public void setParent(ObjectCompiler parent) {
+        if (this.parent != null) {
+            this.parent.childs.remove(this);
+        }
+        this.parent = parent;
+        if (parent != null) {
+            parent.childs.add(this);
+        }
+    }
+
     public File getFile() {
         return file;
     }
@@ -382,4 +392,16 @@ public abstract class ObjectCompiler {
         return messages;
     }
 
+    public void setMessages(List<CompilerException> list) {
+        messages.clear();
+        messages.addAll(list);
+
+        errors = false;
+        for (CompilerException message : list) {
+            if (message.type == CompilerException.ERROR) {
+                errors = true;
+            }
+        }
+    }
+
 }
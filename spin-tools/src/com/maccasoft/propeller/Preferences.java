@@ -69,6 +69,7 @@ public class Preferences {
     public static final String PROP_CONSOLE_FONT = "consoleFont";
     public static final String PROP_CONSOLE_MAX_LINES = "consoleMaxLines";
     public static final String PROP_CONSOLE_WRITE_LOG_FILE = "consoleWriteLogFile";
+    public static final String PROP_CONSOLE_DEBUG_FRAME_RATE = "consoleDebugFrameRate";
     public static final String PROP_THEME = "theme";
     public static final String PROP_EXTERNAL_TOOLS = "externalTools";
     public static final String PROP_WINDOW_FONT = "windowFont";
@@ -507,6 +508,7 @@ public class Preferences {
         public ConsolePreferences() {
             maxLines = 500;
             writeLogFile = true;
+            debugFrameRate = 60;
         }
 
         public String font;
@@ -514,10 +516,11 @@ public class Preferences {
         public boolean writeLogFile;
         public boolean resetDeviceOnClose;
         public boolean hideBacktickCommands;
+        public int debugFrameRate;
 
         @Override
         public int hashCode() {
-            return Objects.hash(font, maxLines, writeLogFile, resetDeviceOnClose);
+            return Objects.hash(font, maxLines, writeLogFile, resetDeviceOnClose, debugFrameRate);
         }
 
         @Override
@@ -532,7 +535,8 @@ public class Preferences {
                 return false;
             }
             ConsolePreferences other = (ConsolePreferences) obj;
-            return Objects.equals(font, other.font) && maxLines == other.maxLines && writeLogFile == other.writeLogFile && resetDeviceOnClose == other.resetDeviceOnClose;
+            return Objects.equals(font, other.font) && maxLines == other.maxLines && writeLogFile == other.writeLogFile && resetDeviceOnClose == other.resetDeviceOnClose
+                && debugFrameRate == other.debugFrameRate;
         }
 
     }
@@ -1494,6 +1498,14 @@ public class Preferences {
         preferences.console.resetDeviceOnClose = resetDeviceOnClose;
     }
 
+    public int getConsoleDebugFrameRate() {
+        return preferences.console.debugFrameRate;
+    }
+
+    public void setConsoleDebugFrameRate(int debugFrameRate) {
+        changeSupport.firePropertyChange(PROP_CONSOLE_DEBUG_FRAME_RATE, preferences.console.debugFrameRate, preferences.console.debugFrameRate = debugFrameRate);
+    }
+
     public boolean getConsoleHideBacktickCommands() {
         return preferences.console.hideBacktickCommands;
     }
@@ -157,6 +157,7 @@ public class PreferencesDialog extends Dialog {
     Spinner consoleFontSize;
     Button consoleFontBrowse;
     Spinner consoleMaxLines;
+    Spinner consoleDebugFrameRate;
     Button consoleWriteLogFile;
     Button consoleResetDeviceOnClose;
     Button consoleHideBacktickCommands;
@@ -1607,6 +1608,11 @@ public class PreferencesDialog extends Dialog {
         consoleMaxLines = new Spinner(composite, SWT.NONE);
         consoleMaxLines.setValues(preferences.getConsoleMaxLines(), 1, 999999, 0, 1, 10);
 
+        label = new Label(composite, SWT.NONE);
+        label.setText("Debug Windows FPS");
+        consoleDebugFrameRate = new Spinner(composite, SWT.NONE);
+        consoleDebugFrameRate.setValues(preferences.getConsoleDebugFrameRate(), 0, 1000, 0, 1, 10);
+
         new Label(composite, SWT.NONE);
 
         Composite group = new Composite(composite, SWT.NONE);
@@ -2302,6 +2308,7 @@ public class PreferencesDialog extends Dialog {
         preferences.setSpin2ObjectTemplate(spin2ObjectTemplate.getSelection());
 
         preferences.setConsoleMaxLines(consoleMaxLines.getSelection());
+        preferences.setConsoleDebugFrameRate(consoleDebugFrameRate.getSelection());
         preferences.setConsoleWriteLogFile(consoleWriteLogFile.getSelection());
         preferences.setConsoleResetDeviceOnClose(consoleResetDeviceOnClose.getSelection());
         preferences.setConsoleHideBacktickCommands(consoleHideBacktickCommands.getSelection());
@@ -19,6 +19,8 @@ import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandlers;
 import java.time.Duration;
 import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.maccasoft.propeller.devices.ComPort;
 import com.maccasoft.propeller.devices.ComPortException;
@@ -28,7 +30,6 @@ import com.maccasoft.propeller.devices.NetworkUtils;
 import com.maccasoft.propeller.devices.SerialComPort;
 
 import jssc.SerialPort;
-import jssc.SerialPortList;
 
 public class Propeller1Loader extends PropellerLoader {
 
@@ -50,10 +51,18 @@ public class Propeller1Loader extends PropellerLoader {
     static final int DEF_LOADER_BAUDRATE = 115200;
     static final int DEF_FAST_LOADER_BAUDRATE = 921600;
 
+    // Image bytes encoded and written at once, 11 serial bytes for each long
+    static final int UPLOAD_CHUNK_SIZE = 1024;
+
     static final double SSSHTime = 0.0000006;
     static final double SCLHighTime = 0.0000006;
     static final double SCLLowTime = 0.0000013;
 
+    static final Map<String, Integer> chipVersions = new ConcurrentHashMap<>();
+
+    // Bits sent to the chip followed by the bits the chip sends back on reset
+    static final int[] LFSR_SEQUENCE = lfsrSequence(500);
+
     static final int initCallFrame[] = {
         0xFF, 0xFF, 0xF9, 0xFF, 0xFF, 0xFF, 0xF9, 0xFF
     };
@@ -65,8 +74,6 @@ public class Propeller1Loader extends PropellerLoader {
     ComPort comPort;
     boolean shared;
 
-    byte LFSR;
-
     public Propeller1Loader(ComPort serialPort, ComPort.Control resetControl, boolean shared) {
         super(resetControl);
         this.comPort = serialPort;
@@ -216,75 +223,31 @@ public class Propeller1Loader extends PropellerLoader {
         return valid;
     }
 
-    protected SerialComPort discover() {
-        String[] portNames = SerialPortList.getPortNames();
-
-        if (comPort != null) {
-            String currentPortName = comPort.getPortName();
-            for (String portName : portNames) {
-                if (portName.equals(currentPortName)) {
-                    SerialComPort serialComPort = new SerialComPort(portName);
-                    try {
-                        serialComPort.openPort();
-                        serialComPort.setParams(
-                            SerialPort.BAUDRATE_115200,
-                            SerialPort.DATABITS_8,
-                            SerialPort.STOPBITS_1,
-                            SerialPort.PARITY_NONE);
-
-                        try {
-                            serialComPort.hwreset(getResetControl(), ComPort.P1_RESET_DELAY);
-                            if (hwfind(serialComPort) != 0) {
-                                return serialComPort;
-                            }
-                            serialComPort.hwreset(getResetControl(), ComPort.P1_RESET_DELAY);
-                            if (hwfind(serialComPort) != 0) {
-                                return serialComPort;
-                            }
-                        } catch (Exception e) {
-                            // Do nothing
-                        }
-                        serialComPort.closePort();
-                    } catch (Exception e) {
-                        // Do nothing
-                    }
-                    break;
-                }
-            }
-        }
-
-        for (String portName : portNames) {
-            if (isBlacklisted(portName)) {
-                continue;
-            }
-            SerialComPort serialComPort = new SerialComPort(portName);
-            try {
-                serialComPort.openPort();
-                serialComPort.setParams(
-                    SerialPort.BAUDRATE_115200,
-                    SerialPort.DATABITS_8,
-                    SerialPort.STOPBITS_1,
-                    SerialPort.PARITY_NONE);
+    @Override
+    protected String getPreferredPortName() {
+        return comPort != null ? comPort.getPortName() : null;
+    }
 
-                try {
-                    serialComPort.hwreset(getResetControl(), ComPort.P1_RESET_DELAY);
-                    if (hwfind(serialComPort) != 0) {
-                        return serialComPort;
-                    }
-                    serialComPort.hwreset(getResetControl(), ComPort.P1_RESET_DELAY);
-                    if (hwfind(serialComPort) != 0) {
-                        return serialComPort;
-                    }
-                } catch (Exception e) {
-                    // Do nothing
-                }
-                serialComPort.closePort();
-            } catch (Exception e) {
-                // Do nothing
-            }
-        }
+    @Override
+    protected Map<String, Integer> getChipVersions() {
+        return chipVersions;
+    }
 
-        return null;
+    @Override
+    protected int probe(ComPort comPort) throws ComPortException {
+        comPort.setParams(
+            SerialPort.BAUDRATE_115200,
+            SerialPort.DATABITS_8,
+            SerialPort.STOPBITS_1,
+            SerialPort.PARITY_NONE);
+
+        comPort.hwreset(getResetControl(), ComPort.P1_RESET_DELAY);
+        int version = hwfind(comPort);
+        if (version == 0) {
+            comPort.hwreset(getResetControl(), ComPort.P1_RESET_DELAY);
+            version = hwfind(comPort);
+        }
+        return version;
     }
 
     private void msleep(int msec) {
@@ -303,10 +266,9 @@ public class Propeller1Loader extends PropellerLoader {
         comPort.writeInt(0xF9);
 
         // send the magic propeller LFSR byte stream.
-        LFSR = 'P';
         buffer = new byte[250];
         for (n = 0; n < 250; n++) {
-            buffer[n] = (byte) (iterate() | 0xFE);
+            buffer[n] = (byte) (LFSR_SEQUENCE[n] | 0xFE);
         }
         comPort.writeBytes(buffer);
 
@@ -327,7 +289,7 @@ public class Propeller1Loader extends PropellerLoader {
 
         // wait for response so we know we have a Propeller
         for (n = 1; n < 250; n++) {
-            jj = iterate();
+            jj = LFSR_SEQUENCE[249 + n];
 
             if (ii != jj) {
                 for (n = 0; n < 300; n++) {
@@ -361,10 +323,16 @@ public class Propeller1Loader extends PropellerLoader {
         return rc;
     }
 
-    int iterate() {
-        int bit = LFSR & 1;
-        LFSR = (byte) ((LFSR << 1) | (((LFSR >> 7) ^ (LFSR >> 5) ^ (LFSR >> 4) ^ (LFSR >> 1)) & 1));
-        return bit;
+    static int[] lfsrSequence(int count) {
+        int[] sequence = new int[count];
+
+        byte LFSR = 'P';
+        for (int n = 0; n < count; n++) {
+            sequence[n] = LFSR & 1;
+            LFSR = (byte) ((LFSR << 1) | (((LFSR >> 7) ^ (LFSR >> 5) ^ (LFSR >> 4) ^ (LFSR >> 1)) & 1));
+        }
+
+        return sequence;
     }
 
     private int getBit(ComPort comPort, int timeout) throws ComPortException {
@@ -388,15 +356,13 @@ public class Propeller1Loader extends PropellerLoader {
         // send count
         comPort.writeBytes(makelong(longcount));
 
-        for (n = 0; n < binaryImage.length; n += 4) {
-            if ((n % 1024) == 0) {
-                notifyProgress(n, binaryImage.length);
-            }
-            int data = (binaryImage[n] & 0xFF) |
-                ((binaryImage[n + 1] << 8) & 0xFF00) |
-                ((binaryImage[n + 2] << 16) & 0xFF0000) |
-                ((binaryImage[n + 3] << 24) & 0xFF000000);
-            comPort.writeBytes(makelong(data));
+        byte[] buffer = new byte[UPLOAD_CHUNK_SIZE / 4 * 11];
+        for (n = 0; n < binaryImage.length;) {
+            notifyProgress(n, binaryImage.length);
+            int count = Math.min(UPLOAD_CHUNK_SIZE, binaryImage.length - n);
+            int length = encodeLongs(binaryImage, n, count, buffer);
+            comPort.writeBytes(buffer, 0, length);
+            n += count;
         }
         notifyProgress(n, binaryImage.length);
 
@@ -412,16 +378,42 @@ public class Propeller1Loader extends PropellerLoader {
     }
 
     static byte[] makelong(int data) {
-        int n = 0;
         byte[] buff = new byte[11];
+        makelong(data, buff, 0);
+        return buff;
+    }
 
-        for (; n < 10; n++) {
-            buff[n] = (byte) (0x92 | (data & 1) | ((data & 2) << 2) | ((data & 4) << 4));
+    static int makelong(int data, byte[] buff, int ofs) {
+        for (int n = 0; n < 10; n++) {
+            buff[ofs++] = (byte) (0x92 | (data & 1) | ((data & 2) << 2) | ((data & 4) << 4));
             data >>= 3;
         }
-        buff[n] = (byte) (0xf2 | (data & 1) | ((data & 2) << 2));
+        buff[ofs++] = (byte) (0xf2 | (data & 1) | ((data & 2) << 2));
 
-        return buff;
+        return ofs;
+    }
+
+    /**
+     * Encodes count bytes of the image, a multiple of 4, as 11 bytes for each long.
+     *
+     * @param binaryImage the image
+     * @param offset the offset of the first byte
+     * @param count the number of bytes
+     * @param buffer the encoded bytes
+     * @return the number of encoded bytes
+     */
+    static int encodeLongs(byte[] binaryImage, int offset, int count, byte[] buffer) {
+        int ofs = 0;
+
+        for (int n = offset; n < offset + count; n += 4) {
+            int data = (binaryImage[n] & 0xFF) |
+                ((binaryImage[n + 1] << 8) & 0xFF00) |
+                ((binaryImage[n + 2] << 16) & 0xFF0000) |
+                ((binaryImage[n + 3] << 24) & 0xFF000000);
+            ofs = makelong(data, buffer, ofs);
+        }
+
+        return ofs;
     }
 
     protected void notifyProgress(int sent, int total) {
@@ -15,16 +15,16 @@ import java.io.InputStream;
 import java.util.Base64;
 import java.util.Base64.Encoder;
 import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.maccasoft.propeller.devices.ComPort;
 import com.maccasoft.propeller.devices.ComPortException;
 import com.maccasoft.propeller.devices.DeviceDescriptor;
 import com.maccasoft.propeller.devices.NetworkComPort;
 import com.maccasoft.propeller.devices.NetworkUtils;
-import com.maccasoft.propeller.devices.SerialComPort;
 
 import jssc.SerialPort;
-import jssc.SerialPortList;
 
 public class Propeller2Loader extends PropellerLoader {
 
@@ -34,6 +34,11 @@ public class Propeller2Loader extends PropellerLoader {
     static final String PROP_CHK = "> Prop_Chk 0 0 0 0  ";
     static final String PROP_VER = "\r\nProp_Ver ";
 
+    static final int BASE64_LINE_LENGTH = 64;
+    static final int BASE64_LINES_PER_WRITE = 32;
+
+    static final Map<String, Integer> chipVersions = new ConcurrentHashMap<>();
+
     ComPort comPort;
     boolean shared;
 
@@ -150,76 +155,29 @@ public class Propeller2Loader extends PropellerLoader {
         return valid;
     }
 
-    protected SerialComPort discover() {
-        String[] portNames = SerialPortList.getPortNames();
-
-        if (comPort != null) {
-            String currentPortName = comPort.getPortName();
-            for (String portName : portNames) {
-                if (portName.equals(currentPortName)) {
-                    SerialComPort serialComPort = new SerialComPort(portName);
-                    try {
-                        serialComPort.openPort();
-                        try {
-                            serialComPort.setParams(
-                                2000000,
-                                SerialPort.DATABITS_8,
-                                SerialPort.STOPBITS_1,
-                                SerialPort.PARITY_NONE);
-
-                            if (hwfind(serialComPort) != 0) {
-                                return serialComPort;
-                            }
-                            if (hwfind(serialComPort) != 0) {
-                                return serialComPort;
-                            }
-
-                        } catch (Exception e) {
-                            // Do nothing
-                        }
-                        serialComPort.closePort();
-                    } catch (Exception e) {
-                        // Do nothing
-                    }
-                    break;
-                }
-            }
-        }
-
-        for (String portName : portNames) {
-            if (comPort != null && portName.equals(comPort.getPortName())) {
-                continue;
-            }
-            if (isBlacklisted(portName)) {
-                continue;
-            }
-            SerialComPort serialComPort = new SerialComPort(portName);
-            try {
-                serialComPort.openPort();
-                try {
-                    serialComPort.setParams(
-                        2000000,
-                        SerialPort.DATABITS_8,
-                        SerialPort.STOPBITS_1,
-                        SerialPort.PARITY_NONE);
+    @Override
+    protected String getPreferredPortName() {
+        return comPort != null ? comPort.getPortName() : null;
+    }
 
-                    if (hwfind(serialComPort) != 0) {
-                        return serialComPort;
-                    }
-                    if (hwfind(serialComPort) != 0) {
-                        return serialComPort;
-                    }
+    @Override
+    protected Map<String, Integer> getChipVersions() {
+        return chipVersions;
+    }
 
-                } catch (Exception e) {
-                    // Do nothing
-                }
-                serialComPort.closePort();
-            } catch (Exception e) {
-                // Do nothing
-            }
+    @Override
+    protected int probe(ComPort comPort) throws ComPortException {
+        comPort.setParams(
+            2000000,
+            SerialPort.DATABITS_8,
+            SerialPort.STOPBITS_1,
+            SerialPort.PARITY_NONE);
+
+        int version = hwfind(comPort);
+        if (version == 0) {
+            version = hwfind(comPort);
         }
-
-        return null;
+        return version;
     }
 
     protected int hwfind(ComPort comPort) throws ComPortException {
@@ -376,10 +334,20 @@ public class Propeller2Loader extends PropellerLoader {
 
         comPort.writeString("> Prop_Txt 0 0 0 0 ");
 
-        String encodedImage = encoder.encodeToString(binaryImage);
-        for (n = 0, sent = 0; n < encodedImage.length(); n += 64, sent += 48) {
-            comPort.writeString(">" + encodedImage.substring(n, n + Math.min(64, encodedImage.length() - n)));
+        byte[] encodedImage = encoder.encode(binaryImage);
+        byte[] buffer = new byte[BASE64_LINES_PER_WRITE * (BASE64_LINE_LENGTH + 1)];
+        for (n = 0, sent = 0; n < encodedImage.length;) {
             notifyProgress(sent, binaryImage.length);
+            int length = 0;
+            for (int lines = 0; lines < BASE64_LINES_PER_WRITE && n < encodedImage.length; lines++) {
+                int count = Math.min(BASE64_LINE_LENGTH, encodedImage.length - n);
+                buffer[length++] = '>';
+                System.arraycopy(encodedImage, n, buffer, length, count);
+                length += count;
+                n += count;
+                sent += BASE64_LINE_LENGTH / 4 * 3;
+            }
+            comPort.writeBytes(buffer, 0, length);
         }
         notifyProgress(sent, binaryImage.length);
 
@@ -11,15 +11,31 @@
 
 package com.maccasoft.propeller;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import com.maccasoft.propeller.devices.ComPort;
 import com.maccasoft.propeller.devices.ComPortException;
+import com.maccasoft.propeller.devices.SerialComPort;
+
+import jssc.SerialPortList;
 
 public abstract class PropellerLoader {
 
+    public static final int DISCOVER_TIMEOUT = 5000;
+
     protected PropellerLoaderListener listener;
 
     ComPort.Control resetControl;
@@ -59,4 +75,168 @@ public abstract class PropellerLoader {
         return blacklistedPorts.contains(portName);
     }
 
+    /*
+     * Returns the map of the ports where a chip was last found by discovery, with the
+     * chip version, shared by all loaders of the same type.
+     */
+    protected abstract Map<String, Integer> getChipVersions();
+
+    /**
+     * Resets the chip on the given open port and checks for its presence.
+     *
+     * @param comPort the port
+     * @return the chip version, or 0 if no chip answered
+     */
+    protected abstract int probe(ComPort comPort) throws ComPortException;
+
+    /*
+     * Returns the first port where a chip answers, or null.
+     */
+    protected SerialComPort discover() {
+        List<SerialComPort> list = discover(false);
+        return list.isEmpty() ? null : list.get(0);
+    }
+
+    /*
+     * Returns the open ports of all chips that answered before DISCOVER_TIMEOUT elapsed.
+     */
+    public List<SerialComPort> discoverAll() {
+        return discover(true);
+    }
+
+    /*
+     * Returns the name of the port configured by the user, or null.
+     */
+    protected String getPreferredPortName() {
+        return null;
+    }
+
+    /**
+     * Probes the serial ports that are not blacklisted. The configured port is probed
+     * first, then the ports where a chip was last found, if there is no chip there all
+     * other ports are probed in parallel, up to DISCOVER_TIMEOUT milliseconds.
+     *
+     * @param all true to return all chips, false to return the first that answers
+     * @return the open ports of the chips found
+     */
+    protected List<SerialComPort> discover(boolean all) {
+        List<SerialComPort> result = new ArrayList<>();
+
+        String[] availablePortNames = getPortNames();
+
+        List<String> portNames = new ArrayList<>();
+        for (String portName : availablePortNames) {
+            if (!isBlacklisted(portName)) {
+                portNames.add(portName);
+            }
+        }
+
+        if (!all) {
+            List<String> candidates = new ArrayList<>();
+
+            String preferredPortName = getPreferredPortName();
+            if (preferredPortName != null && Arrays.asList(availablePortNames).contains(preferredPortName)) {
+                candidates.add(preferredPortName);
+            }
+            for (String portName : getChipVersions().keySet()) {
+                if (portNames.contains(portName) && !candidates.contains(portName)) {
+                    candidates.add(portName);
+                }
+            }
+
+            for (String portName : candidates) {
+                portNames.remove(portName);
+                SerialComPort serialComPort = probe(portName);
+                if (serialComPort != null) {
+                    result.add(serialComPort);
+                    return result;
+                }
+            }
+        }
+        if (portNames.isEmpty()) {
+            return result;
+        }
+
+        ExecutorService executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "Discover");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletionService<SerialComPort> completionService = new ExecutorCompletionService<>(executor);
+        try {
+            for (String portName : portNames) {
+                completionService.submit(() -> probe(portName));
+            }
+
+            int pending = portNames.size();
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DISCOVER_TIMEOUT);
+            try {
+                while (pending > 0) {
+                    Future<SerialComPort> future = completionService.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (future == null) {
+                        break;
+                    }
+                    pending--;
+                    SerialComPort serialComPort = future.get();
+                    if (serialComPort != null) {
+                        result.add(serialComPort);
+                        if (!all) {
+                            break;
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // Do nothing
+            }
+
+            // Ports found after the result is complete are closed as soon as their probe ends
+            int remaining = pending;
+            if (remaining > 0) {
+                executor.execute(() -> {
+                    for (int i = 0; i < remaining; i++) {
+                        try {
+                            SerialComPort serialComPort = completionService.take().get();
+                            if (serialComPort != null) {
+                                serialComPort.closePort();
+                            }
+                        } catch (Exception e) {
+                            // Do nothing
+                        }
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        return result;
+    }
+
+    String[] getPortNames() {
+        return SerialPortList.getPortNames();
+    }
+
+    SerialComPort probe(String portName) {
+        SerialComPort serialComPort = new SerialComPort(portName);
+        try {
+            serialComPort.openPort();
+            try {
+                int version = probe(serialComPort);
+                if (version != 0) {
+                    getChipVersions().put(portName, version);
+                    return serialComPort;
+                }
+            } catch (Exception e) {
+                // Do nothing
+            }
+            serialComPort.closePort();
+        } catch (Exception e) {
+            // Do nothing
+        }
+        getChipVersions().remove(portName);
+        return null;
+    }
+
 }
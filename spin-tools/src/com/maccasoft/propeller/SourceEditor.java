@@ -16,6 +16,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Stack;
 
 import org.apache.commons.lang3.StringUtils;
@@ -38,6 +39,7 @@ import org.eclipse.swt.custom.LineStyleListener;
 import org.eclipse.swt.custom.ST;
 import org.eclipse.swt.custom.StyleRange;
 import org.eclipse.swt.custom.StyledText;
+import org.eclipse.swt.custom.StyledTextContent;
 import org.eclipse.swt.custom.TextChangeListener;
 import org.eclipse.swt.custom.TextChangedEvent;
 import org.eclipse.swt.custom.TextChangingEvent;
@@ -106,6 +108,7 @@ import com.maccasoft.propeller.model.MethodNode;
 import com.maccasoft.propeller.model.Node;
 import com.maccasoft.propeller.model.ObjectNode;
 import com.maccasoft.propeller.model.ObjectsNode;
+import com.maccasoft.propeller.model.RootNode;
 import com.maccasoft.propeller.model.StatementNode;
 import com.maccasoft.propeller.model.Token;
 import com.maccasoft.propeller.model.VariableNode;
@@ -150,6 +153,10 @@ public class SourceEditor {
     SourceTokenMarker tokenMarker;
     Map<TokenId, TextStyle> styleMap = new HashMap<TokenId, TextStyle>();
     Map<Integer, StyleRange[]> lineStylesCache = new HashMap<>();
+    TokenMarkerIndex changingTokens;
+    int changingStart;
+    int changingReplaceCharCount;
+    int changingNewCharCount;
 
     EditorHelp helpProvider;
     ContentProposalAdapter proposalAdapter;
@@ -543,6 +550,11 @@ public class SourceEditor {
 
             @Override
             public void textChanging(TextChangingEvent event) {
+                changingTokens = tokenMarker.getTokensIndex();
+                changingStart = event.start;
+                changingReplaceCharCount = event.replaceCharCount;
+                changingNewCharCount = event.newCharCount;
+
                 fixupTokens(event, tokenMarker.getCompilerTokens());
                 fixupTokens(event, tokenMarker.getExcludedNodes());
             }
@@ -590,7 +602,14 @@ public class SourceEditor {
                 try {
                     if (tokenMarker != null) {
                         tokenMarker.refreshTokens(styledText.getText());
-                        lineStylesCache.clear();
+                        if (changingTokens != null) {
+                            int[] range = tokenMarker.getTokensIndex().getChangedRange(changingTokens, changingStart, changingReplaceCharCount, changingNewCharCount);
+                            updateLineStylesCache(range, changingStart + changingReplaceCharCount, changingNewCharCount - changingReplaceCharCount);
+                        }
+                        else {
+                            lineStylesCache.clear();
+                        }
+                        changingTokens = null;
                     }
                 } catch (Exception e) {
                     e.printStackTrace();
@@ -609,15 +628,15 @@ public class SourceEditor {
                 if (event.styles == null && tokenMarker != null) {
                     try {
                         List<StyleRange> ranges = new ArrayList<StyleRange>();
-                        for (TokenMarker entry : tokenMarker.getLineTokens(event.lineOffset, event.lineText)) {
-                            TextStyle style = styleMap.get(entry.getId());
+                        tokenMarker.visitLineTokens(event.lineOffset, event.lineOffset + event.lineText.length(), (start, stop, id) -> {
+                            TextStyle style = styleMap.get(id);
                             if (style != null) {
                                 StyleRange range = new StyleRange(style);
-                                range.start = entry.getStart();
-                                range.length = entry.getStop() - range.start + 1;
+                                range.start = start;
+                                range.length = stop - start + 1;
                                 ranges.add(range);
                             }
-                        }
+                        });
                         event.styles = ranges.toArray(new StyleRange[ranges.size()]);
                         lineStylesCache.put(event.lineOffset, event.styles);
                     } catch (Exception e) {
@@ -2338,9 +2357,43 @@ public class SourceEditor {
         return name;
     }
 
-    public void setCompilerMessages(List<CompilerException> messages) {
-        tokenMarker.refreshCompilerTokens(messages);
-        lineStylesCache.clear();
+    /*
+     * Drops the cached styles of the lines that overlap the given changed range and moves
+     * the lines that follow the changed text by the length difference.
+     */
+    void updateLineStylesCache(int[] range, int changeStop, int delta) {
+        if (range == null) {
+            return;
+        }
+
+        StyledTextContent content = styledText.getContent();
+        int charCount = content.getCharCount();
+        int firstOffset = content.getOffsetAtLine(content.getLineAtOffset(Math.min(range[0], charCount)));
+        int nextLine = content.getLineAtOffset(Math.min(range[1], charCount)) + 1;
+        int nextOffset = nextLine < content.getLineCount() ? content.getOffsetAtLine(nextLine) : Integer.MAX_VALUE;
+
+        Map<Integer, StyleRange[]> cache = new HashMap<>();
+        for (Entry<Integer, StyleRange[]> entry : lineStylesCache.entrySet()) {
+            int offset = entry.getKey();
+            if (offset < firstOffset) {
+                cache.put(offset, entry.getValue());
+            }
+            else if (offset > changeStop && offset + delta >= nextOffset) {
+                StyleRange[] styles = new StyleRange[entry.getValue().length];
+                for (int i = 0; i < styles.length; i++) {
+                    styles[i] = (StyleRange) entry.getValue()[i].clone();
+                    styles[i].start += delta;
+                }
+                cache.put(offset + delta, styles);
+            }
+        }
+        lineStylesCache = cache;
+    }
+
+    public void setCompilerMessages(List<CompilerException> messages, RootNode compiledRoot) {
+        TokenMarkerIndex previousTokens = tokenMarker.getTokensIndex();
+        tokenMarker.refreshCompilerTokens(messages, compiledRoot);
+        updateLineStylesCache(tokenMarker.getTokensIndex().getChangedRange(previousTokens), 0, 0);
 
         ruler.clearHighlights();
         overview.clearHighlights();
@@ -10,13 +10,18 @@
 package com.maccasoft.propeller;
 
 import java.io.File;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicReference;
@@ -42,13 +47,19 @@ import com.maccasoft.propeller.model.ObjectsNode;
 import com.maccasoft.propeller.model.RootNode;
 import com.maccasoft.propeller.model.SourceProvider;
 import com.maccasoft.propeller.model.StatementNode;
+import com.maccasoft.propeller.model.SymbolIndex;
 import com.maccasoft.propeller.model.Token;
+import com.maccasoft.propeller.model.TokenStream;
 import com.maccasoft.propeller.model.TypeDefinitionNode;
 import com.maccasoft.propeller.model.VariableNode;
 import com.maccasoft.propeller.model.VariablesNode;
 
 public abstract class SourceTokenMarker {
 
+    static final Set<String> SECTIONS = new HashSet<String>(Arrays.asList(new String[] {
+        "CON", "VAR", "OBJ", "PUB", "PRI", "DAT"
+    }));
+
     public static enum TokenId {
         NULL,
         COMMENT,
@@ -169,10 +180,179 @@ public abstract class SourceTokenMarker {
 
     }
 
+    /*
+     * Marker set that keeps a packed copy of its contents for the line styling lookups,
+     * the copy is rebuilt on first use after a change.
+     */
+    public static class TokenMarkerSet extends TreeSet<TokenMarker> {
+
+        private static final long serialVersionUID = 1L;
+
+        transient TokenMarkerIndex index;
+
+        @Override
+        public boolean add(TokenMarker e) {
+            index = null;
+            return super.add(e);
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends TokenMarker> c) {
+            index = null;
+            return super.addAll(c);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            index = null;
+            return super.remove(o);
+        }
+
+        @Override
+        public void clear() {
+            index = null;
+            super.clear();
+        }
+
+        public TokenMarkerIndex getIndex() {
+            if (index == null) {
+                index = new TokenMarkerIndex(this);
+            }
+            return index;
+        }
+
+    }
+
+    /*
+     * A run of top-level nodes that can be parsed on its own, the parser state at its
+     * start is the same it would have when parsing the whole source.
+     */
+    protected static class Section {
+
+        int start;
+        int stop;
+        int line;
+        int lines;
+        int index;
+
+        final List<Node> nodes = new ArrayList<>();
+        final List<Token> comments = new ArrayList<>();
+
+        List<TokenMarker> commentTokens;
+
+        List<TokenMarker> keywordTokens;
+        List<Entry<String, TokenId>> keywordSymbols;
+        int keywordsGeneration;
+        String keywordsLabel;
+        String keywordsExitLabel;
+
+        List<TokenMarker> referenceTokens;
+        int referencesGeneration;
+        int referencesVersion;
+        String referencesLabel;
+        String referencesExitLabel;
+        Map<String, TokenId> referencesLocals;
+        Map<String, TokenId> referencesExitLocals;
+
+        Section(int start) {
+            this.start = start;
+        }
+
+        void relocate(TokenStream stream, int offset, int lines) {
+            Set<Token> set = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Node node : nodes) {
+                relocate(node, set);
+            }
+            set.addAll(comments);
+            for (Token token : set) {
+                token.relocate(stream, offset, token.type != Token.EOF ? lines : 0);
+            }
+            this.start += offset;
+            this.stop += offset;
+            this.line += lines;
+            relocate(commentTokens, offset);
+            relocate(keywordTokens, offset);
+            relocate(referenceTokens, offset);
+        }
+
+        void relocate(Node node, Set<Token> set) {
+            set.addAll(node.getTokens());
+            set.addAll(node.getDocument());
+            for (Node child : node.getChilds()) {
+                relocate(child, set);
+            }
+        }
+
+        void relocate(List<TokenMarker> list, int offset) {
+            if (list != null && offset != 0) {
+                for (TokenMarker marker : list) {
+                    marker.start += offset;
+                    marker.stop += offset;
+                }
+            }
+        }
+
+    }
+
+    /*
+     * Node visitor with the local labels scope that carries from one section to the next.
+     */
+    public static class SectionVisitor extends NodeVisitor {
+
+        protected String lastLabel = "";
+
+    }
+
+    static class SourceStream extends TokenStream {
+
+        String source = "";
+
+        public SourceStream() {
+            super("");
+        }
+
+        @Override
+        public Token nextToken() {
+            return new Token(this, source.length(), Token.EOF);
+        }
+
+        @Override
+        public String getSource(int start, int stop) {
+            return source.substring(start, stop + 1);
+        }
+
+    }
+
+    class SymbolsMap extends CaseInsensitiveMap<String, TokenId> {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public TokenId put(String key, TokenId value) {
+            TokenId old = super.put(key, value);
+            recordSymbol(key, value, old);
+            return old;
+        }
+
+    }
+
+    class CaseSensitiveSymbolsMap extends HashMap<String, TokenId> {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public TokenId put(String key, TokenId value) {
+            TokenId old = super.put(key, value);
+            recordSymbol(key, value, old);
+            return old;
+        }
+
+    }
+
     protected SourceProvider sourceProvider;
 
     protected RootNode root;
-    protected TreeSet<TokenMarker> tokens = new TreeSet<>();
+    protected TokenMarkerSet tokens = new TokenMarkerSet();
     protected TreeSet<TokenMarker> compilerTokens = new TreeSet<>();
     protected TreeSet<TokenMarker> excludedNodes = new TreeSet<>();
 
@@ -181,7 +361,7 @@ public abstract class SourceTokenMarker {
     protected String localLabelPrefix;
 
     protected Map<String, TokenId> externals = new CaseInsensitiveMap<>();
-    protected Map<String, TokenId> symbols = new CaseInsensitiveMap<>();
+    protected Map<String, TokenId> symbols = new SymbolsMap();
     protected Map<String, TokenId> locals = new CaseInsensitiveMap<>();
 
     protected Map<File, RootNode> cache = new HashMap<>();
@@ -189,6 +369,15 @@ public abstract class SourceTokenMarker {
 
     protected Context context;
 
+    protected List<Section> sections = new ArrayList<>();
+    protected String sectionsText;
+    final SourceStream sourceStream = new SourceStream();
+
+    int generation;
+    int symbolsVersion;
+    List<Entry<String, TokenId>> symbolsLog;
+    Map<String, TokenId> symbolsOriginal;
+
     public SourceTokenMarker(SourceProvider sourceProvider) {
         this.sourceProvider = sourceProvider;
     }
@@ -199,8 +388,9 @@ public abstract class SourceTokenMarker {
 
     public void setCaseSensitive(boolean caseSensitive) {
         this.caseSensitive = caseSensitive;
-        symbols = caseSensitive ? new HashMap<>() : new CaseInsensitiveMap<>();
+        symbols = caseSensitive ? new CaseSensitiveSymbolsMap() : new SymbolsMap();
         locals = caseSensitive ? new HashMap<>() : new CaseInsensitiveMap<>();
+        generation++;
     }
 
     public abstract void refreshTokens(String text);
@@ -209,12 +399,357 @@ public abstract class SourceTokenMarker {
         this.context = context;
     }
 
+    /**
+     * Returns the parsed source. Unchanged sections are reused by the next refresh, so the
+     * nodes and tokens are updated in place and must be used only from the editor thread.
+     *
+     * @return the root node
+     */
     public RootNode getRoot() {
         return root;
     }
 
-    public void refreshCompilerTokens(List<CompilerException> messages) {
+    /**
+     * Parses the given text reusing the sections not touched since the previous call.
+     * Only the changed sections, extended to the nearest points where the parser
+     * state is known to be the same as a full parse, are parsed again, the other
+     * sections are moved to their new position and added to a new root node.
+     *
+     * @param text the source text
+     * @return the root node
+     */
+    protected RootNode parseSections(String text) {
+        String oldText = sectionsText;
+        List<Section> old = sections;
+
+        if (oldText == null || old.isEmpty() || root == null) {
+            oldText = "";
+            old = Collections.emptyList();
+        }
+        else if (oldText.equals(text)) {
+            return root;
+        }
+
+        int delta = text.length() - oldText.length();
+
+        int first = 0;
+        while (first < old.size()) {
+            Section section = old.get(first);
+            if (section.stop == oldText.length() && delta != 0) {
+                break;
+            }
+            if (section.stop > text.length() || !text.regionMatches(section.start, oldText, section.start, section.stop - section.start)) {
+                break;
+            }
+            first++;
+        }
+
+        int last = old.size();
+        int start = first != 0 ? old.get(first - 1).stop : 0;
+        while (last > first && last > 1) {
+            Section section = old.get(last - 1);
+            if (section.start + delta < start || !text.regionMatches(section.start + delta, oldText, section.start, section.stop - section.start)) {
+                break;
+            }
+            last--;
+        }
+
+        RootNode region = null;
+        String regionText = "";
+        String sentinel = getSectionSentinel();
+
+        for (;;) {
+            start = first != 0 ? old.get(first - 1).stop : 0;
+            int stop = last < old.size() ? old.get(last).start + delta : text.length();
+            if (start == stop) {
+                region = null;
+                break;
+            }
+            regionText = text.substring(start, stop);
+            if (last < old.size()) {
+                region = parseSection(regionText + sentinel);
+                int index = region.getChildCount() - 1;
+                if (index < 0 || getSectionStart(region, index, regionText + sentinel) != regionText.length()) {
+                    last++;
+                    continue;
+                }
+                region.getChilds().remove(index);
+            }
+            else {
+                region = parseSection(regionText);
+            }
+            if (first != 0 && !isSectionStart(region, regionText)) {
+                first--;
+                continue;
+            }
+            break;
+        }
+
+        List<Section> list = new ArrayList<>();
+        list.addAll(old.subList(0, first));
+
+        int line = first != 0 ? old.get(first - 1).line + old.get(first - 1).lines : 0;
+        if (region != null) {
+            int regionLine = line;
+            for (Section section : splitSections(region, regionText)) {
+                section.relocate(sourceStream, start, regionLine);
+                section.line = line;
+                line += section.lines;
+                list.add(section);
+            }
+        }
+
+        if (last < old.size()) {
+            int lines = line - old.get(last).line;
+            for (Section section : old.subList(last, old.size())) {
+                section.relocate(sourceStream, delta, lines);
+                list.add(section);
+            }
+        }
+
+        sourceStream.source = text;
+
+        RootNode result = new RootNode();
+        for (Section section : list) {
+            if (section.index != result.getChildCount() && !excludedPaths.isEmpty()) {
+                section.keywordTokens = section.referenceTokens = null;
+            }
+            section.index = result.getChildCount();
+            for (Node node : section.nodes) {
+                result.adoptChild(node);
+            }
+            result.addAllComments(section.comments);
+        }
+
+        sections = list;
+        sectionsText = text;
+
+        return result;
+    }
+
+    List<Section> splitSections(RootNode region, String text) {
+        List<Section> list = new ArrayList<>();
+
+        Section section = new Section(0);
+        for (int i = 0; i < region.getChildCount(); i++) {
+            int index = i != 0 ? getSectionStart(region, i, text) : -1;
+            if (index > section.start) {
+                section.stop = index;
+                list.add(section);
+                section = new Section(index);
+            }
+            section.nodes.add(region.getChild(i));
+        }
+        section.stop = text.length();
+        list.add(section);
+
+        int i = 0;
+        for (Token token : region.getComments()) {
+            while (i > 0 && token.start < list.get(i).start) {
+                i--;
+            }
+            while (i < list.size() - 1 && token.start >= list.get(i).stop) {
+                i++;
+            }
+            list.get(i).comments.add(token);
+        }
+
+        for (Section s : list) {
+            s.lines = countLines(text, s.start, s.stop);
+        }
+
+        return list;
+    }
+
+    static int countLines(String text, int start, int stop) {
+        int lines = 0;
+        for (int i = start; i < stop; i++) {
+            char ch = text.charAt(i);
+            if (ch == '\n') {
+                lines++;
+            }
+            else if (ch == '\r') {
+                if (i + 1 < stop && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Parses a section of the source.
+     *
+     * @param text the section text
+     * @return the section root node
+     */
+    protected abstract RootNode parseSection(String text);
+
+    /**
+     * Returns the text appended to a section to check where the parser stopped, the
+     * section ends at a restart point if the text is parsed as a new section.
+     *
+     * @return the sentinel text
+     */
+    protected String getSectionSentinel() {
+        return "CON";
+    }
+
+    /**
+     * Returns the offset where a new section starts with the given top-level node, or
+     * -1 if the parser can't restart at that node.
+     *
+     * @param root the parsed root node
+     * @param index the child node index
+     * @param text the parsed text
+     * @return the section start offset
+     */
+    protected int getSectionStart(RootNode root, int index, String text) {
+        Token token = root.getChild(index).getStartToken();
+        if (token == null || token.start == 0 || (text.charAt(token.start - 1) != '\n' && text.charAt(token.start - 1) != '\r')) {
+            return -1;
+        }
+        if (!SECTIONS.contains(token.getText().toUpperCase())) {
+            return -1;
+        }
+        return token.start;
+    }
+
+    /**
+     * Checks if the parsed text starts a new section, the parser state at the section
+     * start doesn't depend on the previous sections.
+     *
+     * @param root the parsed root node
+     * @param text the parsed text
+     * @return true if the text starts a new section
+     */
+    protected boolean isSectionStart(RootNode root, String text) {
+        if (root.getChildCount() == 0) {
+            return false;
+        }
+        for (Node node : root.getChilds()) {
+            if (node.getStartToken() == null) {
+                return false;
+            }
+        }
+        Token token = root.getChild(0).getStartToken();
+        return token.start == 0 && SECTIONS.contains(token.getText().toUpperCase());
+    }
+
+    /**
+     * Rebuilds the markers from the sections, reusing the markers of the sections
+     * not changed since the last call if the symbols they depend on are the same.
+     *
+     * @param keywordsVisitor the visitor that collects the symbols
+     * @param referencesVisitor the visitor that marks the symbol references
+     */
+    protected void refreshSectionTokens(SectionVisitor keywordsVisitor, SectionVisitor referencesVisitor) {
+        TokenMarkerSet result = new TokenMarkerSet();
+
+        try {
+            for (Section section : sections) {
+                if (section.commentTokens == null) {
+                    tokens = new TokenMarkerSet();
+                    for (Token token : section.comments) {
+                        markComment(token);
+                    }
+                    section.commentTokens = new ArrayList<>(tokens);
+                }
+                result.addAll(section.commentTokens);
+            }
+            result.addAll(excludedNodes);
+
+            keywordsVisitor.lastLabel = "";
+            symbolsOriginal = caseSensitive ? new HashMap<>() : new CaseInsensitiveMap<>();
+            for (Section section : sections) {
+                if (section.keywordTokens == null || section.keywordsGeneration != generation || !section.keywordsLabel.equals(keywordsVisitor.lastLabel)) {
+                    section.keywordsLabel = keywordsVisitor.lastLabel;
+                    tokens = new TokenMarkerSet();
+                    symbolsLog = new ArrayList<>();
+                    for (Node node : section.nodes) {
+                        node.accept(keywordsVisitor);
+                    }
+                    section.keywordTokens = new ArrayList<>(tokens);
+                    section.keywordSymbols = symbolsLog;
+                    section.keywordsGeneration = generation;
+                    section.keywordsExitLabel = keywordsVisitor.lastLabel;
+                    symbolsLog = null;
+                }
+                else {
+                    for (Entry<String, TokenId> entry : section.keywordSymbols) {
+                        symbols.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                keywordsVisitor.lastLabel = section.keywordsExitLabel;
+                result.addAll(section.keywordTokens);
+            }
+            for (Entry<String, TokenId> entry : symbolsOriginal.entrySet()) {
+                if (symbols.get(entry.getKey()) != entry.getValue()) {
+                    symbolsVersion++;
+                    break;
+                }
+            }
+            symbolsOriginal = null;
+
+            referencesVisitor.lastLabel = "";
+            locals.clear();
+            for (Section section : sections) {
+                if (section.referenceTokens == null || section.referencesGeneration != generation || section.referencesVersion != symbolsVersion
+                    || !section.referencesLabel.equals(referencesVisitor.lastLabel) || !section.referencesLocals.equals(locals)) {
+                    section.referencesLabel = referencesVisitor.lastLabel;
+                    section.referencesLocals = copyLocals();
+                    tokens = new TokenMarkerSet();
+                    for (Node node : section.nodes) {
+                        node.accept(referencesVisitor);
+                    }
+                    section.referenceTokens = new ArrayList<>(tokens);
+                    section.referencesGeneration = generation;
+                    section.referencesVersion = symbolsVersion;
+                    section.referencesExitLabel = referencesVisitor.lastLabel;
+                    section.referencesExitLocals = copyLocals();
+                }
+                else {
+                    locals.clear();
+                    locals.putAll(section.referencesExitLocals);
+                }
+                referencesVisitor.lastLabel = section.referencesExitLabel;
+                result.addAll(section.referenceTokens);
+            }
+
+        } finally {
+            tokens = result;
+            symbolsLog = null;
+            symbolsOriginal = null;
+        }
+    }
+
+    Map<String, TokenId> copyLocals() {
+        return caseSensitive ? new HashMap<>(locals) : new CaseInsensitiveMap<>(locals);
+    }
+
+    void recordSymbol(String key, TokenId value, TokenId old) {
+        if (symbolsLog != null) {
+            symbolsLog.add(new SimpleImmutableEntry<>(key, value));
+        }
+        if (symbolsOriginal != null && !symbolsOriginal.containsKey(key)) {
+            symbolsOriginal.put(key, old);
+        }
+    }
+
+    protected void markComment(Token token) {
+        tokens.add(new TokenMarker(token, TokenId.COMMENT));
+    }
+
+    /**
+     * Updates the markers of the compiler messages and of the excluded code.
+     *
+     * @param messages the compiler messages
+     * @param compiledRoot the tree that was compiled, with the exclude flags set by the compiler
+     */
+    public void refreshCompilerTokens(List<CompilerException> messages, RootNode compiledRoot) {
         TreeSet<TokenMarker> tokens = new TreeSet<TokenMarker>();
+        Set<String> previousPaths = new HashSet<>(excludedPaths);
 
         for (CompilerException message : messages) {
             if (message.hasChilds()) {
@@ -236,7 +771,7 @@ public abstract class SourceTokenMarker {
         excludedPaths.clear();
         excludedNodes.clear();
 
-        root.accept(new NodeVisitor() {
+        compiledRoot.accept(new NodeVisitor() {
 
             @Override
             public void visitDirective(DirectiveNode node) {
@@ -324,6 +859,11 @@ public abstract class SourceTokenMarker {
 
         });
 
+        if (!excludedPaths.equals(previousPaths)) {
+            generation++;
+        }
+        symbolsVersion++;
+
         compilerTokens = tokens;
     }
 
@@ -350,59 +890,21 @@ public abstract class SourceTokenMarker {
                 }
             }
         }
-        for (TokenMarker marker : tokens) {
-            if (offset >= marker.start && offset <= marker.stop) {
-                return marker;
-            }
-        }
-        return null;
+        return tokens.getIndex().getMarkerAt(offset);
     }
 
     public Set<TokenMarker> getLineTokens(int lineStart, int lineStop) {
         Set<TokenMarker> result = new TreeSet<>();
+        visitLineTokens(lineStart, lineStop, (start, stop, id) -> result.add(new TokenMarker(start, stop, id)));
+        return result;
+    }
 
-        if (tokens.size() != 0) {
-            TokenMarker firstMarker = tokens.floor(new TokenMarker(lineStart, lineStart, null));
-            if (firstMarker == null) {
-                firstMarker = tokens.first();
-            }
-            if (firstMarker.start <= lineStart && firstMarker.stop >= lineStop) {
-                result.add(new TokenMarker(lineStart, lineStop, firstMarker.getId()));
-                return result;
-            }
-
-            TokenMarker lastMarker = tokens.ceiling(new TokenMarker(lineStop, lineStop, null));
-            if (lastMarker == null) {
-                lastMarker = tokens.last();
-            }
-            for (TokenMarker entry : tokens.subSet(firstMarker, lastMarker)) {
-                int start = entry.getStart();
-                int stop = entry.getStop();
-                if (stop >= lineStart && start <= lineStop) {
-                    if (start < lineStart) {
-                        start = lineStart;
-                    }
-                    if (stop > lineStop) {
-                        stop = lineStop;
-                    }
-                    result.add(new TokenMarker(start, stop, entry.getId()));
-                    lineStart = stop + 1;
-                }
-            }
-            int start = lastMarker.getStart();
-            int stop = lastMarker.getStop();
-            if (stop >= lineStart && start <= lineStop) {
-                if (start < lineStart) {
-                    start = lineStart;
-                }
-                if (stop > lineStop) {
-                    stop = lineStop;
-                }
-                result.add(new TokenMarker(start, stop, lastMarker.getId()));
-            }
-        }
+    public void visitLineTokens(int lineStart, int lineStop, TokenMarkerIndex.Visitor visitor) {
+        tokens.getIndex().visitLineTokens(lineStart, lineStop, visitor);
+    }
 
-        return result;
+    public TokenMarkerIndex getTokensIndex() {
+        return tokens.getIndex();
     }
 
     public Token getTokenAt(int index) {
@@ -959,42 +1461,17 @@ public abstract class SourceTokenMarker {
                         return;
                     }
 
-                    Node objectRoot = getObjectTree(node.getType().getText());
+                    RootNode objectRoot = getObjectTree(node.getType().getText());
                     if (objectRoot != null) {
-                        objectRoot.accept(new NodeVisitor() {
-
-                            @Override
-                            public boolean visitFunction(FunctionNode node) {
-                                if (node.getIdentifier() != null) {
-                                    String text = node.getIdentifier().getText();
-                                    if (Strings.CI.startsWith(text, refName)) {
-                                        proposals.add(new ContentProposal(getMethodInsert(node), text, getMethodDocument(node)));
-                                    }
-                                    else if (Strings.CI.contains(text, refName)) {
-                                        secondary.add(new ContentProposal(getMethodInsert(node), text, getMethodDocument(node)));
-                                    }
-                                }
-                                return false;
+                        for (Node child : SymbolIndex.getInstance().getSymbols(objectRoot).getMethods()) {
+                            String text = getMethodName(child);
+                            if (Strings.CI.startsWith(text, refName)) {
+                                proposals.add(new ContentProposal(getMethodInsert(child), text, getMethodDocument(child)));
                             }
-
-                            @Override
-                            public boolean visitMethod(MethodNode node) {
-                                if (node.getType() == null || node.getName() == null) {
-                                    return false;
-                                }
-                                if ("PUB".equalsIgnoreCase(node.getType().getText())) {
-                                    String text = node.getName().getText();
-                                    if (Strings.CI.startsWith(text, refName)) {
-                                        proposals.add(new ContentProposal(getMethodInsert(node), text, getMethodDocument(node)));
-                                    }
-                                    else if (Strings.CI.contains(text, refName)) {
-                                        secondary.add(new ContentProposal(getMethodInsert(node), text, getMethodDocument(node)));
-                                    }
-                                }
-                                return false;
+                            else if (Strings.CI.contains(text, refName)) {
+                                secondary.add(new ContentProposal(getMethodInsert(child), text, getMethodDocument(child)));
                             }
-
-                        });
+                        }
                     }
                 }
 
@@ -1007,44 +1484,20 @@ public abstract class SourceTokenMarker {
                         return;
                     }
                     String fileName = objectNode.getFileName();
-                    Node objectRoot = getObjectTree(fileName);
+                    RootNode objectRoot = getObjectTree(fileName);
                     if (objectRoot == null) {
                         return;
                     }
-                    objectRoot.accept(new NodeVisitor() {
-
-                        @Override
-                        public boolean visitFunction(FunctionNode node) {
-                            if (node.getIdentifier() != null) {
-                                String text = node.getIdentifier().getText();
-                                if (Strings.CI.startsWith(text, refName)) {
-                                    proposals.add(new ContentProposal(getMethodInsert(node), text, ""));
-                                }
-                                else if (Strings.CI.contains(text, refName)) {
-                                    secondary.add(new ContentProposal(getMethodInsert(node), text, ""));
-                                }
-                            }
-                            return false;
+                    for (Node child : SymbolIndex.getInstance().getSymbols(objectRoot).getMethods()) {
+                        String text = getMethodName(child);
+                        String document = (child instanceof FunctionNode) ? "" : getMethodDocument(child);
+                        if (Strings.CI.startsWith(text, refName)) {
+                            proposals.add(new ContentProposal(getMethodInsert(child), text, document));
                         }
-
-                        @Override
-                        public boolean visitMethod(MethodNode node) {
-                            if (node.getType() == null || node.getName() == null) {
-                                return false;
-                            }
-                            if ("PUB".equalsIgnoreCase(node.getType().getText())) {
-                                String text = node.getName().getText();
-                                if (Strings.CI.startsWith(text, refName)) {
-                                    proposals.add(new ContentProposal(getMethodInsert(node), text, getMethodDocument(node)));
-                                }
-                                else if (Strings.CI.contains(text, refName)) {
-                                    secondary.add(new ContentProposal(getMethodInsert(node), text, getMethodDocument(node)));
-                                }
-                            }
-                            return false;
+                        else if (Strings.CI.contains(text, refName)) {
+                            secondary.add(new ContentProposal(getMethodInsert(child), text, document));
                         }
-
-                    });
+                    }
                 }
             });
 
@@ -1210,41 +1663,19 @@ public abstract class SourceTokenMarker {
                 if (node.getType() == null || node.getIdentifier() == null) {
                     return;
                 }
-                Node objectRoot = getObjectTree(node.getType().getText());
+                RootNode objectRoot = getObjectTree(node.getType().getText());
                 if (objectRoot != null) {
                     String name = node.getIdentifier().getText();
                     if (Strings.CI.contains(name, filterText)) {
                         proposals.add(new ContentProposal(name, name, ""));
                     }
                     if (dot != -1) {
-                        objectRoot.accept(new NodeVisitor() {
-
-                            @Override
-                            public boolean visitFunction(FunctionNode node) {
-                                if (node.getIdentifier() != null) {
-                                    String text = name + "." + node.getIdentifier().getText();
-                                    if (Strings.CI.contains(text, filterText)) {
-                                        proposals.add(new ContentProposal(getMethodInsert(node), text, getMethodDocument(node)));
-                                    }
-                                }
-                                return false;
-                            }
-
-                            @Override
-                            public boolean visitMethod(MethodNode node) {
-                                if (node.getType() == null || node.getName() == null) {
-                                    return false;
-                                }
-                                if ("PUB".equalsIgnoreCase(node.getType().getText())) {
-                                    String text = name + "." + node.getName().getText();
-                                    if (Strings.CI.contains(text, filterText)) {
-                                        proposals.add(new ContentProposal(getMethodInsert(node), text, getMethodDocument(node)));
-                                    }
-                                }
-                                return false;
+                        for (Node child : SymbolIndex.getInstance().getSymbols(objectRoot).getMethods()) {
+                            String text = name + "." + getMethodName(child);
+                            if (Strings.CI.contains(text, filterText)) {
+                                proposals.add(new ContentProposal(getMethodInsert(child), text, getMethodDocument(child)));
                             }
-
-                        });
+                        }
                     }
                 }
             }
@@ -1260,38 +1691,16 @@ public abstract class SourceTokenMarker {
                 }
                 if (dot != -1) {
                     String fileName = objectNode.getFileName();
-                    Node objectRoot = getObjectTree(fileName);
+                    RootNode objectRoot = getObjectTree(fileName);
                     if (objectRoot == null) {
                         return;
                     }
-                    objectRoot.accept(new NodeVisitor() {
-
-                        @Override
-                        public boolean visitFunction(FunctionNode node) {
-                            if (node.getIdentifier() != null) {
-                                String text = name + "." + node.getIdentifier().getText();
-                                if (Strings.CI.contains(text, filterText)) {
-                                    proposals.add(new ContentProposal(getMethodInsert(node), text, ""));
-                                }
-                            }
-                            return false;
-                        }
-
-                        @Override
-                        public boolean visitMethod(MethodNode node) {
-                            if (node.getType() == null || node.getName() == null) {
-                                return false;
-                            }
-                            if ("PUB".equalsIgnoreCase(node.getType().getText())) {
-                                String text = name + "." + node.getName().getText();
-                                if (Strings.CI.contains(text, filterText)) {
-                                    proposals.add(new ContentProposal(getMethodInsert(node), text, getMethodDocument(node)));
-                                }
-                            }
-                            return false;
+                    for (Node child : SymbolIndex.getInstance().getSymbols(objectRoot).getMethods()) {
+                        String text = name + "." + getMethodName(child);
+                        if (Strings.CI.contains(text, filterText)) {
+                            proposals.add(new ContentProposal(getMethodInsert(child), text, (child instanceof FunctionNode) ? "" : getMethodDocument(child)));
                         }
-
-                    });
+                    }
                 }
             }
 
@@ -1340,6 +1749,27 @@ public abstract class SourceTokenMarker {
         return sb.toString();
     }
 
+    String getMethodName(Node node) {
+        if (node instanceof FunctionNode function) {
+            return function.getIdentifier().getText();
+        }
+        return ((MethodNode) node).getName().getText();
+    }
+
+    String getMethodInsert(Node node) {
+        if (node instanceof FunctionNode function) {
+            return getMethodInsert(function);
+        }
+        return getMethodInsert((MethodNode) node);
+    }
+
+    String getMethodDocument(Node node) {
+        if (node instanceof FunctionNode function) {
+            return getMethodDocument(function);
+        }
+        return getMethodDocument((MethodNode) node);
+    }
+
     public List<IContentProposal> getTypeProposals(Node context, String filterText) {
         String text;
         List<IContentProposal> proposals = new ArrayList<>();
@@ -1387,23 +1817,16 @@ public abstract class SourceTokenMarker {
                     return;
                 }
                 String fileName = objectNode.getFileName();
-                Node objectRoot = getObjectTree(fileName);
+                RootNode objectRoot = getObjectTree(fileName);
                 if (objectRoot == null) {
                     return;
                 }
-                objectRoot.accept(new NodeVisitor() {
-
-                    @Override
-                    public void visitTypeDefinition(TypeDefinitionNode node) {
-                        if (node.getIdentifier() != null) {
-                            String text = objectNode.name.getText() + "." + node.getIdentifier().getText();
-                            if (Strings.CI.contains(text, filterText)) {
-                                objectProposals.add(new ContentProposal(node.getIdentifier().getText(), text, "<b>" + node.getText() + "</b>"));
-                            }
-                        }
+                for (TypeDefinitionNode node : SymbolIndex.getInstance().getSymbols(objectRoot).getTypes()) {
+                    String text = objectNode.name.getText() + "." + node.getIdentifier().getText();
+                    if (Strings.CI.contains(text, filterText)) {
+                        objectProposals.add(new ContentProposal(node.getIdentifier().getText(), text, "<b>" + node.getText() + "</b>"));
                     }
-
-                });
+                }
             }
 
         });
@@ -1472,44 +1895,33 @@ public abstract class SourceTokenMarker {
                             return;
                         }
 
-                        Node objectRoot = getObjectTree(include.getFileName());
+                        RootNode objectRoot = getObjectTree(include.getFileName());
                         if (objectRoot != null) {
-                            objectRoot.accept(new NodeVisitor() {
-
-                                @Override
-                                public void visitDirective(DirectiveNode node) {
-                                    if (node instanceof DirectiveNode.DefineNode define) {
-                                        if (define.getIdentifier() != null) {
-                                            String text = define.getIdentifier().getText();
-                                            if (Strings.CI.contains(text, filterText)) {
-                                                StringBuilder sb = new StringBuilder();
-                                                sb.append("<b><code>").append(getHtmlSafeString(node.getText())).append("</code></b>");
-                                                if (context != null) {
-                                                    appendValue(sb, define.getIdentifier().getText());
-                                                }
-                                                proposals.add(new ContentProposal(text, text, sb.toString()));
-                                            }
+                            for (Node child : SymbolIndex.getInstance().getSymbols(objectRoot).getConstants()) {
+                                if (child instanceof DirectiveNode.DefineNode define) {
+                                    String text = define.getIdentifier().getText();
+                                    if (Strings.CI.contains(text, filterText)) {
+                                        StringBuilder sb = new StringBuilder();
+                                        sb.append("<b><code>").append(getHtmlSafeString(child.getText())).append("</code></b>");
+                                        if (context != null) {
+                                            appendValue(sb, define.getIdentifier().getText());
                                         }
+                                        proposals.add(new ContentProposal(text, text, sb.toString()));
                                     }
                                 }
-
-                                @Override
-                                public void visitConstant(ConstantNode node) {
-                                    if (node.getIdentifier() != null) {
-                                        String text = node.getIdentifier().getText();
-                                        if (Strings.CI.contains(text, filterText)) {
-                                            StringBuilder sb = new StringBuilder();
-                                            sb.append("<b><code>").append(getHtmlSafeString(node.getText())).append("</code></b>");
-                                            if (context != null) {
-                                                String symbol = filterText.substring(0, dot + 1) + node.getIdentifier().getText();
-                                                appendValue(sb, symbol);
-                                            }
-                                            proposals.add(new ContentProposal(text, text, sb.toString()));
+                                else if (child instanceof ConstantNode constant) {
+                                    String text = constant.getIdentifier().getText();
+                                    if (Strings.CI.contains(text, filterText)) {
+                                        StringBuilder sb = new StringBuilder();
+                                        sb.append("<b><code>").append(getHtmlSafeString(child.getText())).append("</code></b>");
+                                        if (context != null) {
+                                            String symbol = filterText.substring(0, dot + 1) + constant.getIdentifier().getText();
+                                            appendValue(sb, symbol);
                                         }
+                                        proposals.add(new ContentProposal(text, text, sb.toString()));
                                     }
                                 }
-
-                            });
+                            }
                         }
                     }
                 }
@@ -1523,33 +1935,29 @@ public abstract class SourceTokenMarker {
                         return;
                     }
                     String fileName = objectNode.getFileName();
-                    Node objectRoot = getObjectTree(fileName);
+                    RootNode objectRoot = getObjectTree(fileName);
                     if (objectRoot == null) {
                         return;
                     }
-                    objectRoot.accept(new NodeVisitor() {
-
-                        @Override
-                        public void visitConstant(ConstantNode node) {
-                            if (node.getIdentifier() != null) {
-                                String text = node.getIdentifier().getText();
-                                if (Strings.CI.startsWith(text, refName) || Strings.CI.contains(text, refName)) {
-                                    StringBuilder sb = new StringBuilder();
-                                    sb.append("<b><code>").append(getHtmlSafeString(node.getText())).append("</code></b>");
-                                    if (context != null) {
-                                        appendValue(sb, filterText.substring(0, dot + 1) + node.getIdentifier().getText());
-                                    }
-                                    if (Strings.CI.startsWith(text, refName)) {
-                                        proposals.add(new ContentProposal(node.identifier.getText(), text, sb.toString()));
-                                    }
-                                    else {
-                                        secondary.add(new ContentProposal(node.identifier.getText(), text, sb.toString()));
-                                    }
-                                }
+                    for (Node child : SymbolIndex.getInstance().getSymbols(objectRoot).getConstants()) {
+                        if (!(child instanceof ConstantNode node)) {
+                            continue;
+                        }
+                        String text = node.getIdentifier().getText();
+                        if (Strings.CI.startsWith(text, refName) || Strings.CI.contains(text, refName)) {
+                            StringBuilder sb = new StringBuilder();
+                            sb.append("<b><code>").append(getHtmlSafeString(node.getText())).append("</code></b>");
+                            if (context != null) {
+                                appendValue(sb, filterText.substring(0, dot + 1) + node.getIdentifier().getText());
+                            }
+                            if (Strings.CI.startsWith(text, refName)) {
+                                proposals.add(new ContentProposal(node.identifier.getText(), text, sb.toString()));
+                            }
+                            else {
+                                secondary.add(new ContentProposal(node.identifier.getText(), text, sb.toString()));
                             }
                         }
-
-                    });
+                    }
                 }
             });
 
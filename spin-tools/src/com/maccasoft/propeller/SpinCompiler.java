@@ -11,7 +11,10 @@ package com.maccasoft.propeller;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
+import java.io.PrintWriter;
 import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -28,6 +31,11 @@ import org.apache.commons.cli.OptionGroup;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.maccasoft.propeller.SpinObject.ListingRange;
+import com.maccasoft.propeller.debug.DebugRecorder;
 import com.maccasoft.propeller.devices.ComPort;
 import com.maccasoft.propeller.devices.ComPortEvent;
 import com.maccasoft.propeller.devices.ComPortEventListener;
@@ -36,12 +44,12 @@ import com.maccasoft.propeller.devices.DeviceDescriptor;
 import com.maccasoft.propeller.devices.NetworkComPort;
 import com.maccasoft.propeller.devices.NetworkUtils;
 import com.maccasoft.propeller.devices.SerialComPort;
-import com.maccasoft.propeller.internal.FileUtils;
 import com.maccasoft.propeller.model.DirectiveNode;
 import com.maccasoft.propeller.model.Node;
+import com.maccasoft.propeller.model.ParsedSourceCache;
+import com.maccasoft.propeller.model.RootNode;
 import com.maccasoft.propeller.spin1.Spin1Compiler;
 import com.maccasoft.propeller.spin2.Spin2Compiler;
-import com.maccasoft.propeller.spinc.CParser;
 import com.maccasoft.propeller.spinc.Spin1CCompiler;
 import com.maccasoft.propeller.spinc.Spin2CCompiler;
 
@@ -55,72 +63,40 @@ public class SpinCompiler {
     static String ipAddressPattern = "(?:[0-9]{1,3}\\.){3}[0-9]{1,3}";
     static String macAddressPattern = "(?:[0-9A-Fa-f]{2}[:-]){5}(?:[0-9A-Fa-f]{2})";
 
+    static PrintStream out = System.out;
     static boolean quiet;
     static boolean filterUnusedMethodWarning = false;
 
     public static void main(String[] args) {
+        int exitCode = run(args);
+        if (exitCode != 0) {
+            System.exit(exitCode);
+        }
+    }
+
+    static int run(String[] args) {
         File binaryFile = null, listingFile = null;
         List<File> libraryPaths = new ArrayList<File>();
 
         try {
-            Options options = new Options();
-            options.addOption(Option.builder("L").desc("add a directory to the library path").hasArg().argName("path").build());
-            options.addOption(Option.builder("D").desc("add a define").hasArg().argName("define").build());
-
-            options.addOption(Option.builder("o").desc("output file name").hasArg().argName("file").build());
-
-            OptionGroup binaryOptions = new OptionGroup();
-            binaryOptions.addOption(new Option("b", false, "output binary file"));
-            binaryOptions.addOption(new Option("e", false, "output flash binary file (P2 only)"));
-            binaryOptions.addOption(new Option("c", false, "output only DAT sections"));
-            options.addOptionGroup(binaryOptions);
-            options.addOption(new Option("l", false, "output listing file"));
-            options.addOption(new Option("d", false, "enable debug (P2 only)"));
-            options.addOption(new Option("z", false, "compress binary (P2 only)"));
-
-            OptionGroup targetOptions = new OptionGroup();
-            targetOptions.addOption(new Option("p1", false, "compile for P1 target (C source only)"));
-            targetOptions.addOption(new Option("p2", false, "compile for P2 target (C source only)"));
-            options.addOptionGroup(targetOptions);
-
-            OptionGroup uploadOptions = new OptionGroup();
-            uploadOptions.addOption(new Option("r", false, "upload program to ram and run"));
-            uploadOptions.addOption(new Option("f", false, "upload program to flash/eeprom and run"));
-            options.addOptionGroup(uploadOptions);
-
-            options.addOption(new Option("u", false, "enable unused methods removal"));
-
-            options.addOption(new Option(null, "no-warn-unused-methods", false, "disable unused methods warning"));
-            options.addOption(new Option(null, "no-warn-unused-method-variables", false, "disable unused method variabless warning"));
-            options.addOption(new Option(null, "no-warn-unused-variables", false, "disable unused variabless warning"));
-
-            options.addOption(new Option("C", "x-case", false, "case-sensitive spin symbols"));
-
-            options.addOption(new Option("O", true, "optimizations"));
-            options.addOption(new Option("Ob", false, "faster byte constants (P1)"));
-            options.addOption(new Option("Of", false, "fold constants (P1)"));
-
-            options.addOption(Option.builder("p").desc("serial port").hasArg().argName("port").build());
-            OptionGroup terminalOptions = new OptionGroup();
-            terminalOptions.addOption(Option.builder("t").desc("enter terminal mode after upload (optional baud rate)").hasArg().argName("baud").optionalArg(true).build());
-            terminalOptions.addOption(Option.builder("T").desc("enter PST terminal mode after upload (optional baud rate)").hasArg().argName("baud").optionalArg(true).build());
-            options.addOptionGroup(terminalOptions);
-
-            OptionGroup resetOptions = new OptionGroup();
-            resetOptions.addOption(new Option("dtr", false, "use DTR for reset"));
-            resetOptions.addOption(new Option("rts", false, "use RTS for reset"));
-            resetOptions.addOption(new Option(null, "reset-control", true, "set reset control dtr-rts (default), dtr or rts"));
-            options.addOptionGroup(resetOptions);
-
-            options.addOption(new Option("W", false, "show all discovered wifi modules"));
-            options.addOption(new Option(null, "reset-pin", true, "set wifi module reset pin number"));
-
-            options.addOption("q", false, "quiet mode");
+            Options options = createOptions();
 
             CommandLine cmd = new DefaultParser().parse(options, args);
 
+            File socketFile = cmd.hasOption("socket") ? new File(cmd.getOptionValue("socket")) : CompilerServer.getDefaultSocketFile();
+            if (cmd.hasOption("server")) {
+                return CompilerServer.serve(socketFile.toPath());
+            }
+            if (cmd.hasOption("connect") && !cmd.hasOption('r') && !cmd.hasOption('f') && !cmd.hasOption('t') && !cmd.hasOption('T') && !cmd.hasOption('W')) {
+                try {
+                    return CompilerServer.forward(socketFile.toPath(), getServerArguments(cmd), out);
+                } catch (IOException e) {
+                    // Server not running, compile locally
+                }
+            }
+
             quiet = cmd.hasOption('q');
-            if (cmd.getArgList().size() != 1 && !cmd.hasOption("W")) {
+            if (cmd.getArgList().size() != 1 && !cmd.hasOption("W") && !cmd.hasOption("batch")) {
                 quiet = false;
             }
 
@@ -133,19 +109,23 @@ public class SpinCompiler {
                 println("");
                 Collection<DeviceDescriptor> list = NetworkUtils.getAvailableDevices();
                 for (DeviceDescriptor descr : list) {
-                    System.out.println(String.format("Name: '%s', IP: %s, MAC: %s", descr.name, descr.inetAddr.getHostAddress(), descr.mac_address));
+                    out.println(String.format("Name: '%s', IP: %s, MAC: %s", descr.name, descr.inetAddr.getHostAddress(), descr.mac_address));
                 }
                 if (cmd.getArgList().size() != 1) {
-                    System.exit(0);
+                    return 0;
                 }
             }
 
+            if (cmd.hasOption("batch")) {
+                return runBatch(cmd);
+            }
+
             if (cmd.getArgList().size() != 1) {
                 HelpFormatter help = new HelpFormatter();
                 help.setWidth(-1);
                 help.setOptionComparator(null);
-                help.printHelp("spinc [options] <file.spin | file.spin2 | file.c>", null, options, null, false);
-                System.exit(1);
+                help.printHelp(new PrintWriter(out, true), help.getWidth(), "spinc [options] <file.spin | file.spin2 | file.c>", null, options, help.getLeftPadding(), help.getDescPadding(), null, false);
+                return 1;
             }
 
             if (cmd.hasOption('L')) {
@@ -183,54 +163,7 @@ public class SpinCompiler {
 
             println("Compiling...");
 
-            String suffix = name.substring(name.lastIndexOf('.')).toLowerCase();
-
-            Compiler compiler = null;
-            if (".spin2".equals(suffix) || ".p2asm".equals(suffix)) {
-                compiler = new Spin2Compiler();
-            }
-            else if (".c".equals(suffix)) {
-                if (cmd.hasOption("p1")) {
-                    compiler = new Spin1CCompiler();
-                }
-                else if (cmd.hasOption("p2")) {
-                    compiler = new Spin2CCompiler();
-                }
-                else {
-                    String text = FileUtils.loadFromFile(fileToCompile);
-                    CParser parser = new CParser(text);
-                    for (Node node : parser.parse().getChilds()) {
-                        if (node instanceof DirectiveNode) {
-                            int index = 1;
-                            if (index < node.getTokenCount()) {
-                                if ("pragma".equals(node.getToken(index).getText())) {
-                                    index++;
-                                    if (index < node.getTokenCount()) {
-                                        if ("target".equals(node.getToken(index).getText())) {
-                                            index++;
-                                            if (index < node.getTokenCount()) {
-                                                if ("P1".equals(node.getToken(index).getText())) {
-                                                    compiler = new Spin1CCompiler();
-                                                }
-                                                else if ("P2".equals(node.getToken(index).getText())) {
-                                                    compiler = new Spin2CCompiler();
-                                                }
-                                            }
-                                            break;
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    }
-                    if (compiler == null) {
-                        compiler = new Spin2CCompiler();
-                    }
-                }
-            }
-            else {
-                compiler = new Spin1Compiler();
-            }
+            Compiler compiler = createCompiler(fileToCompile, cmd.hasOption("p1") ? "p1" : cmd.hasOption("p2") ? "p2" : null);
             compiler.setCaseSensitive(cmd.hasOption("C") || cmd.hasOption("x-case"));
             compiler.setSourceProvider(new Compiler.FileSourceProvider(libraryPaths.toArray(new File[libraryPaths.size()])));
             compiler.setDebugEnabled(cmd.hasOption('d'));
@@ -251,22 +184,10 @@ public class SpinCompiler {
             }
 
             if (cmd.hasOption('D')) {
-                Pattern p1 = Pattern.compile("([A-Za-z_][A-Za-z0-9_]+)=(.+)");
-                Pattern p2 = Pattern.compile("([A-Za-z_][A-Za-z0-9_]+)");
                 for (String s : cmd.getOptionValues('D')) {
-                    Matcher m = p1.matcher(s);
-                    if (m.matches()) {
-                        compiler.addDefine(m.group(1), m.group(2));
-                    }
-                    else {
-                        m = p2.matcher(s);
-                        if (m.matches()) {
-                            compiler.addDefine(m.group(1), "");
-                        }
-                        else {
-                            println("Invalid command line option: " + s);
-                            System.exit(1);
-                        }
+                    if (!addDefine(compiler, s)) {
+                        println("Invalid command line option: " + s);
+                        return 1;
                     }
                 }
             }
@@ -313,6 +234,14 @@ public class SpinCompiler {
                 os.close();
             }
 
+            if (cmd.hasOption("listing-ranges")) {
+                String listingName = listingFile.getPath();
+                File rangesFile = new File(listingName.substring(0, listingName.lastIndexOf('.')) + ".json");
+                FileOutputStream os = new FileOutputStream(rangesFile);
+                writeListingRanges(object.getListingRanges(), os);
+                os.close();
+            }
+
             print(compiler.getObjectTree().toString());
 
             for (CompilerException e : compiler.getMessages()) {
@@ -332,32 +261,12 @@ public class SpinCompiler {
                     String portName = cmd.getOptionValue("p");
                     if (portName != null) {
                         try {
-                            if (Pattern.matches(ipAddressPattern, portName)) {
-                                serialPort = new NetworkComPort(InetAddress.getByName(portName));
-                            }
-                            else if (Pattern.matches(macAddressPattern, portName)) {
-                                Collection<DeviceDescriptor> list = NetworkUtils.getAvailableDevices();
-                                for (DeviceDescriptor descr : list) {
-                                    if (descr.mac_address.equals(portName)) {
-                                        serialPort = new NetworkComPort(descr);
-                                        break;
-                                    }
-                                }
-                            }
-                            if (serialPort != null) {
-                                String resetPin = cmd.getOptionValue("reset-pin");
-                                if (resetPin != null) {
-                                    ((NetworkComPort) serialPort).setResetPin(resetPin);
-                                }
-                            }
+                            serialPort = createComPort(portName, cmd.getOptionValue("reset-pin"));
                         } catch (Exception e) {
                             println(e.getMessage());
-                            System.exit(1);
+                            return 1;
                         }
                     }
-                    if (serialPort == null) {
-                        serialPort = new SerialComPort(portName);
-                    }
                 }
 
                 ComPort.Control resetControl;
@@ -371,6 +280,10 @@ public class SpinCompiler {
                     resetControl = ComPort.Control.DtrRts;
                 }
 
+                if (cmd.hasOption("gang")) {
+                    return gangUpload(cmd, compiler, binaryData, resetControl);
+                }
+
                 AtomicBoolean error = new AtomicBoolean();
 
                 int flags = 0;
@@ -487,6 +400,22 @@ public class SpinCompiler {
 
                     boolean debugEnabled = compiler.isDebugEnabled();
 
+                    DebugRecorder recorder = null;
+                    if (cmd.hasOption("debug-log") && !pst) {
+                        File logFile = new File(cmd.getOptionValue("debug-log"));
+                        recorder = new DebugRecorder(new FileOutputStream(logFile));
+                        DebugRecorder shutdownRecorder = recorder;
+                        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                            try {
+                                shutdownRecorder.close();
+                            } catch (IOException e) {
+                                // Do nothing
+                            }
+                        }));
+                        println("Recording debug windows to " + logFile);
+                    }
+                    DebugRecorder debugRecorder = recorder;
+
                     println(String.format("Entering%s terminal mode. CTRL-C to exit.", pst ? " PST" : ""));
 
                     serialPort.setEventListener(new ComPortEventListener() {
@@ -494,6 +423,7 @@ public class SpinCompiler {
                         int state = 0;
                         int cmd, p0;
                         boolean pendingEndSession = false;
+                        final ConsoleDecoder decoder = new ConsoleDecoder();
 
                         @Override
                         public void serialEvent(ComPortEvent event) {
@@ -510,6 +440,9 @@ public class SpinCompiler {
                                             for (int i = 0; i < rx.length; i++) {
                                                 conWrite(rx[i]);
                                             }
+                                            if (debugRecorder != null) {
+                                                record(rx);
+                                            }
                                         }
                                     }
                                 } catch (Exception e) {
@@ -518,6 +451,18 @@ public class SpinCompiler {
                             }
                         }
 
+                        void record(byte[] rx) throws IOException {
+                            int i = 0;
+                            while (i < rx.length) {
+                                i += decoder.decode(rx, i, rx.length - i);
+                            }
+                            for (ConsoleDecoder.Line line : decoder.takeBatch().lines) {
+                                if (line.text != null && line.isCommand()) {
+                                    debugRecorder.process(line.getCommand());
+                                }
+                            }
+                        }
+
                         void conWrite(byte c) {
                             if (debugEnabled) {
                                 if (c == 0x1B) {
@@ -626,6 +571,11 @@ public class SpinCompiler {
                             serialPort.wait(100);
                         }
                     }
+
+                    if (debugRecorder != null) {
+                        debugRecorder.close();
+                        println(String.format("Recorded %d commands for %d windows.", debugRecorder.getCommandCount(), debugRecorder.getWindowCount()));
+                    }
                 }
 
                 if (serialPort != null) {
@@ -637,32 +587,398 @@ public class SpinCompiler {
             }
 
         } catch (ParseException | ComPortException e) {
-            System.out.println(e.getMessage());
+            out.println(e.getMessage());
         } catch (CompilerException e) {
             println(e);
         } catch (Exception e) {
-            e.printStackTrace();
+            e.printStackTrace(out);
         }
+
+        return 0;
+    }
+
+    static String[] getServerArguments(CommandLine cmd) {
+        List<String> list = new ArrayList<>();
+
+        for (Option option : cmd.getOptions()) {
+            String name = option.getOpt() != null ? option.getOpt() : option.getLongOpt();
+            if ("connect".equals(name) || "socket".equals(name) || "server".equals(name)) {
+                continue;
+            }
+            list.add(option.getOpt() != null ? "-" + name : "--" + name);
+
+            String[] values = option.getValues();
+            if (values != null) {
+                for (String value : values) {
+                    if ("L".equals(name) || "o".equals(name) || "batch".equals(name) || ("summary".equals(name) && !"-".equals(value))) {
+                        value = new File(value).getAbsolutePath();
+                    }
+                    list.add(value);
+                }
+            }
+        }
+
+        for (String arg : cmd.getArgList()) {
+            list.add(new File(arg).getAbsolutePath());
+        }
+
+        return list.toArray(new String[0]);
+    }
+
+    static Compiler createCompiler(File fileToCompile, String target) throws Exception {
+        String name = fileToCompile.getName();
+        String suffix = name.substring(name.lastIndexOf('.')).toLowerCase();
+
+        Compiler compiler = null;
+        if (".spin2".equals(suffix) || ".p2asm".equals(suffix)) {
+            compiler = new Spin2Compiler();
+        }
+        else if (".c".equals(suffix)) {
+            if ("p1".equalsIgnoreCase(target)) {
+                compiler = new Spin1CCompiler();
+            }
+            else if ("p2".equalsIgnoreCase(target)) {
+                compiler = new Spin2CCompiler();
+            }
+            else {
+                RootNode root = ParsedSourceCache.getInstance().getParsedSource(fileToCompile, ".c");
+                for (Node node : root.getChilds()) {
+                    if (node instanceof DirectiveNode) {
+                        int index = 1;
+                        if (index < node.getTokenCount()) {
+                            if ("pragma".equals(node.getToken(index).getText())) {
+                                index++;
+                                if (index < node.getTokenCount()) {
+                                    if ("target".equals(node.getToken(index).getText())) {
+                                        index++;
+                                        if (index < node.getTokenCount()) {
+                                            if ("P1".equals(node.getToken(index).getText())) {
+                                                compiler = new Spin1CCompiler();
+                                            }
+                                            else if ("P2".equals(node.getToken(index).getText())) {
+                                                compiler = new Spin2CCompiler();
+                                            }
+                                        }
+                                        break;
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+                if (compiler == null) {
+                    compiler = new Spin2CCompiler();
+                }
+            }
+        }
+        else {
+            compiler = new Spin1Compiler();
+        }
+
+        return compiler;
+    }
+
+    static Options createOptions() {
+        Options options = new Options();
+        options.addOption(Option.builder("L").desc("add a directory to the library path").hasArg().argName("path").build());
+        options.addOption(Option.builder("D").desc("add a define").hasArg().argName("define").build());
+
+        options.addOption(Option.builder("o").desc("output file name").hasArg().argName("file").build());
+
+        OptionGroup binaryOptions = new OptionGroup();
+        binaryOptions.addOption(new Option("b", false, "output binary file"));
+        binaryOptions.addOption(new Option("e", false, "output flash binary file (P2 only)"));
+        binaryOptions.addOption(new Option("c", false, "output only DAT sections"));
+        options.addOptionGroup(binaryOptions);
+        options.addOption(new Option("l", false, "output listing file"));
+        options.addOption(Option.builder().longOpt("listing-ranges").desc("output object and method address ranges to a json file next to the listing").build());
+        options.addOption(new Option("d", false, "enable debug (P2 only)"));
+        options.addOption(new Option("z", false, "compress binary (P2 only)"));
+
+        OptionGroup targetOptions = new OptionGroup();
+        targetOptions.addOption(new Option("p1", false, "compile for P1 target (C source only)"));
+        targetOptions.addOption(new Option("p2", false, "compile for P2 target (C source only)"));
+        options.addOptionGroup(targetOptions);
+
+        OptionGroup uploadOptions = new OptionGroup();
+        uploadOptions.addOption(new Option("r", false, "upload program to ram and run"));
+        uploadOptions.addOption(new Option("f", false, "upload program to flash/eeprom and run"));
+        options.addOptionGroup(uploadOptions);
+
+        options.addOption(new Option("u", false, "enable unused methods removal"));
+
+        options.addOption(new Option(null, "no-warn-unused-methods", false, "disable unused methods warning"));
+        options.addOption(new Option(null, "no-warn-unused-method-variables", false, "disable unused method variabless warning"));
+        options.addOption(new Option(null, "no-warn-unused-variables", false, "disable unused variabless warning"));
+
+        options.addOption(new Option("C", "x-case", false, "case-sensitive spin symbols"));
+
+        options.addOption(new Option("O", true, "optimizations"));
+        options.addOption(new Option("Ob", false, "faster byte constants (P1)"));
+        options.addOption(new Option("Of", false, "fold constants (P1)"));
+
+        options.addOption(Option.builder("p").desc("serial port").hasArg().argName("port").build());
+        options.addOption(Option.builder().longOpt("gang").desc("upload to a comma-separated list of ports in parallel, or all discovered ports").hasArg().argName("ports").build());
+        options.addOption(Option.builder().longOpt("retries").desc("number of upload retries for each gang port (default 1)").hasArg().argName("count").build());
+        OptionGroup terminalOptions = new OptionGroup();
+        terminalOptions.addOption(Option.builder("t").desc("enter terminal mode after upload (optional baud rate)").hasArg().argName("baud").optionalArg(true).build());
+        terminalOptions.addOption(Option.builder("T").desc("enter PST terminal mode after upload (optional baud rate)").hasArg().argName("baud").optionalArg(true).build());
+        options.addOptionGroup(terminalOptions);
+        options.addOption(Option.builder().longOpt("debug-log").desc("record the debug windows in terminal mode").hasArg().argName("file").build());
+
+        OptionGroup resetOptions = new OptionGroup();
+        resetOptions.addOption(new Option("dtr", false, "use DTR for reset"));
+        resetOptions.addOption(new Option("rts", false, "use RTS for reset"));
+        resetOptions.addOption(new Option(null, "reset-control", true, "set reset control dtr-rts (default), dtr or rts"));
+        options.addOptionGroup(resetOptions);
+
+        options.addOption(new Option("W", false, "show all discovered wifi modules"));
+        options.addOption(new Option(null, "reset-pin", true, "set wifi module reset pin number"));
+
+        options.addOption("q", false, "quiet mode");
+
+        options.addOption(Option.builder().longOpt("batch").desc("compile all jobs listed in a manifest file").hasArg().argName("manifest").build());
+        options.addOption(Option.builder("j").desc("number of concurrent batch jobs").hasArg().argName("threads").build());
+        options.addOption(Option.builder().longOpt("summary").desc("write the batch summary to a json file").hasArg().argName("file").build());
+
+        options.addOption(Option.builder().longOpt("server").desc("run as compile server").build());
+        options.addOption(Option.builder().longOpt("connect").desc("compile using a running compile server").build());
+        options.addOption(Option.builder().longOpt("socket").desc("compile server socket file").hasArg().argName("file").build());
+
+        return options;
+    }
+
+    static int runBatch(CommandLine cmd) throws Exception {
+        File manifestFile = new File(cmd.getOptionValue("batch"));
+        if (!manifestFile.exists()) {
+            throw new CompilerException("file " + manifestFile + " not found", (Object) null);
+        }
+
+        BatchCompiler batch = new BatchCompiler(BatchCompiler.readManifest(manifestFile), manifestFile.getAbsoluteFile().getParentFile());
+        if (cmd.hasOption('L')) {
+            for (String s : cmd.getOptionValues('L')) {
+                batch.addLibraryPath(new File(s));
+            }
+        }
+        if (cmd.hasOption('D')) {
+            for (String s : cmd.getOptionValues('D')) {
+                batch.addDefine(s);
+            }
+        }
+        if (cmd.hasOption('j')) {
+            batch.setThreads(Integer.parseInt(cmd.getOptionValue('j')));
+        }
+
+        String optimizations = cmd.hasOption("O") ? cmd.getOptionValue("O") : "";
+        batch.setCaseSensitive(cmd.hasOption("C") || cmd.hasOption("x-case"));
+        batch.setDebugEnabled(cmd.hasOption('d'));
+        batch.setCompress(cmd.hasOption('z'));
+        batch.setRemoveUnusedMethods(cmd.hasOption('u'));
+        batch.setFastByteConstants(cmd.hasOption("Ob") || optimizations.contains("b"));
+        batch.setFoldConstants(cmd.hasOption("Of") || optimizations.contains("f"));
+        batch.setWarnUnusedMethods(!cmd.hasOption("no-warn-unused-methods"));
+        batch.setWarnUnusedMethodVariables(!cmd.hasOption("no-warn-unused-method-variables"));
+        batch.setWarnUnusedVariables(!cmd.hasOption("no-warn-unused-variables"));
+
+        println("Compiling " + manifestFile.getName() + " using " + batch.getThreads() + " threads...");
+
+        BatchCompiler.Summary summary = batch.run();
+
+        for (BatchCompiler.JobResult result : summary.results) {
+            println(String.format("%s: %s, %d bytes, %d errors, %d warnings, %d ms", result.name, result.success ? "ok" : "failed", result.size, result.errors, result.warnings, result.totalTime));
+            for (String msg : result.messages) {
+                println("    " + msg);
+            }
+        }
+        println(String.format("%d jobs, %d failed, %d ms", summary.jobs, summary.failed, summary.totalTime));
+
+        if (cmd.hasOption("summary")) {
+            String summaryFile = cmd.getOptionValue("summary");
+            if ("-".equals(summaryFile)) {
+                BatchCompiler.writeSummary(summary, out);
+                out.flush();
+            }
+            else {
+                FileOutputStream os = new FileOutputStream(summaryFile);
+                try {
+                    BatchCompiler.writeSummary(summary, os);
+                } finally {
+                    os.close();
+                }
+            }
+        }
+
+        return summary.failed != 0 ? 1 : 0;
+    }
+
+    static boolean addDefine(Compiler compiler, String s) {
+        Matcher m = Pattern.compile("([A-Za-z_][A-Za-z0-9_]+)=(.+)").matcher(s);
+        if (m.matches()) {
+            compiler.addDefine(m.group(1), m.group(2));
+            return true;
+        }
+        m = Pattern.compile("([A-Za-z_][A-Za-z0-9_]+)").matcher(s);
+        if (m.matches()) {
+            compiler.addDefine(m.group(1), "");
+            return true;
+        }
+        return false;
+    }
+
+    static ComPort createComPort(String portName, String resetPin) throws Exception {
+        ComPort comPort = null;
+
+        if (Pattern.matches(ipAddressPattern, portName)) {
+            comPort = new NetworkComPort(InetAddress.getByName(portName));
+        }
+        else if (Pattern.matches(macAddressPattern, portName)) {
+            Collection<DeviceDescriptor> list = NetworkUtils.getAvailableDevices();
+            for (DeviceDescriptor descr : list) {
+                if (descr.mac_address.equals(portName)) {
+                    comPort = new NetworkComPort(descr);
+                    break;
+                }
+            }
+        }
+        if (comPort != null) {
+            if (resetPin != null) {
+                ((NetworkComPort) comPort).setResetPin(resetPin);
+            }
+        }
+        else {
+            comPort = new SerialComPort(portName);
+        }
+
+        return comPort;
+    }
+
+    static int gangUpload(CommandLine cmd, Compiler compiler, byte[] binaryData, ComPort.Control resetControl) throws Exception {
+        List<ComPort> ports = new ArrayList<>();
+
+        String value = cmd.getOptionValue("gang");
+        if ("all".equals(value)) {
+            PropellerLoader loader = (compiler instanceof Spin1Compiler) ? new Propeller1Loader(null, resetControl, false) : new Propeller2Loader(null, resetControl, false);
+            ports.addAll(loader.discoverAll());
+        }
+        else {
+            for (String portName : value.split(",")) {
+                portName = portName.trim();
+                if (!portName.isEmpty()) {
+                    ports.add(createComPort(portName, cmd.getOptionValue("reset-pin")));
+                }
+            }
+        }
+        if (ports.isEmpty()) {
+            println("No devices found");
+            return 1;
+        }
+
+        int flags;
+        if (compiler instanceof Spin1Compiler) {
+            flags = cmd.hasOption("f") ? Propeller1Loader.DOWNLOAD_RUN_EEPROM : Propeller1Loader.DOWNLOAD_RUN_BINARY;
+        }
+        else {
+            flags = cmd.hasOption("f") ? Propeller2Loader.DOWNLOAD_RUN_FLASH : Propeller2Loader.DOWNLOAD_RUN_RAM;
+        }
+
+        GangProgrammer programmer = new GangProgrammer() {
+
+            @Override
+            protected PropellerLoader createLoader(ComPort comPort) {
+                if (compiler instanceof Spin1Compiler) {
+                    return new Propeller1Loader(comPort, resetControl, false) {
+
+                        @Override
+                        protected void notifyProgress(int sent, int total) {
+                            uploadProgress(comPort, sent, total);
+                        }
+
+                    };
+                }
+                return new Propeller2Loader(comPort, resetControl, false) {
+
+                    @Override
+                    protected void notifyProgress(int sent, int total) {
+                        uploadProgress(comPort, sent, total);
+                    }
+
+                };
+            }
+
+            @Override
+            protected void uploadStarted(ComPort comPort, int attempt) {
+                if (attempt > 1) {
+                    println(String.format("%s: retry %d", comPort.getPortName(), attempt - 1));
+                }
+            }
+
+            @Override
+            protected void uploadProgress(ComPort comPort, int sent, int total) {
+                if (sent >= total) {
+                    println(String.format("%s: %d bytes sent", comPort.getPortName(), total));
+                }
+            }
+
+            @Override
+            protected void uploadFinished(Result result) {
+                if (result.success) {
+                    println(String.format("%s: OK (%d ms)", result.portName, result.elapsed));
+                }
+                else {
+                    println(String.format("%s: FAILED %s", result.portName, result.message));
+                }
+            }
+
+        };
+        if (cmd.hasOption("retries")) {
+            programmer.setRetries(Integer.parseInt(cmd.getOptionValue("retries")));
+        }
+
+        println(String.format("Uploading to %d devices...", ports.size()));
+
+        int programmed = 0;
+        List<GangProgrammer.Result> results = programmer.upload(ports, binaryData, flags);
+        for (GangProgrammer.Result result : results) {
+            if (result.success) {
+                programmed++;
+            }
+        }
+
+        println(String.format("%d of %d devices programmed", programmed, results.size()));
+        for (GangProgrammer.Result result : results) {
+            if (!result.success) {
+                println(String.format("  %s: %s (%d attempts)", result.portName, result.message, result.attempts));
+            }
+        }
+
+        return programmed == results.size() ? 0 : 1;
+    }
+
+    public static void writeListingRanges(List<ListingRange> ranges, OutputStream os) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.configure(SerializationFeature.INDENT_OUTPUT, true);
+        mapper.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        mapper.writeValue(os, ranges);
     }
 
     static void println(String obj) {
         if (!quiet) {
-            System.out.println(obj);
-            System.out.flush();
+            out.println(obj);
+            out.flush();
         }
     }
 
     static void print(String obj) {
         if (!quiet) {
-            System.out.print(obj);
-            System.out.flush();
+            out.print(obj);
+            out.flush();
         }
     }
 
     static void println(CompilerException obj) {
         if (!quiet) {
-            System.out.println(obj);
-            System.out.flush();
+            out.println(obj);
+            out.flush();
         }
     }
 
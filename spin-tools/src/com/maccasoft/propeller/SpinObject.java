@@ -19,6 +19,10 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
 public abstract class SpinObject {
 
     int size;
@@ -95,6 +99,24 @@ public abstract class SpinObject {
         }
     }
 
+    /*
+     * Marks the start of a method, the comment text is optional.
+     */
+    public static class MethodDataObject extends CommentDataObject {
+
+        final String name;
+
+        public MethodDataObject(String name, String text) {
+            super(text);
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+    }
+
     public static class ObjectDataObject extends DataObject {
 
         SpinObject object;
@@ -292,6 +314,30 @@ public abstract class SpinObject {
 
     }
 
+    @JsonInclude(Include.NON_NULL)
+    public static class ListingRange {
+
+        @JsonIgnore
+        public final SpinObject object;
+        public final String name;
+        public final String text;
+        public final int depth;
+        public final int address;
+        public final int size;
+        public final List<ListingRange> methods;
+
+        ListingRange(SpinObject object, String name, String text, int depth, int address, int size, List<ListingRange> methods) {
+            this.object = object;
+            this.name = name;
+            this.text = text;
+            this.depth = depth;
+            this.address = address;
+            this.size = size;
+            this.methods = methods;
+        }
+
+    }
+
     public SpinObject() {
 
     }
@@ -485,85 +531,184 @@ public abstract class SpinObject {
     }
 
     public int generateListing(int offset, PrintStream ps) {
+        ListingWriter writer = new ListingWriter(ps);
+        int address = generateListing(offset, writer);
+        writer.flush();
+        return address;
+    }
+
+    protected int generateListing(int offset, ListingWriter w) {
         int address = 0;
 
         for (DataObject obj : data) {
             if (obj instanceof ObjectDataObject) {
-                address += ((ObjectDataObject) obj).getObject().generateListing(address + offset, ps);
+                address += ((ObjectDataObject) obj).getObject().generateListing(address + offset, w);
             }
             else if (obj.bytes != null) {
                 if (obj instanceof PAsmDataObject) {
                     int cogAddr = ((PAsmDataObject) obj).addr;
                     boolean hubMode = ((PAsmDataObject) obj).hubMode;
 
-                    ps.print(String.format("%05X %05X ", address + offset, address));
-                    ps.print(hubMode ? String.format("%05X", cogAddr) : String.format("  %03X", cogAddr));
+                    printAddress(w, address + offset, address);
+                    printCogAddress(w, cogAddr, hubMode);
 
                     int i = 0;
                     while (i < obj.bytes.length) {
                         if (i > 0 && (i % 4) == 0) {
-                            ps.print("   ");
+                            w.spaces(3);
                             if (i == 4) {
                                 if (obj.text != null) {
-                                    ps.print(" " + obj.text);
+                                    w.print(' ').print(obj.text);
                                 }
                             }
-                            ps.println();
+                            w.println();
                             cogAddr += hubMode ? 4 : 1;
-                            ps.print(String.format("%05X %05X ", address + offset, address));
-                            ps.print(hubMode ? String.format("%05X", cogAddr) : String.format("  %03X", cogAddr));
+                            printAddress(w, address + offset, address);
+                            printCogAddress(w, cogAddr, hubMode);
                         }
-                        ps.print(String.format(" %02X", obj.bytes[i++]));
+                        w.print(' ').hex(obj.bytes[i++] & 0xFF, 2);
                         address++;
                     }
                     while (i < 5) {
-                        ps.print("   ");
+                        w.spaces(3);
                         i++;
                     }
                     if (i == 5) {
                         if (obj.text != null) {
-                            ps.print(" " + obj.text);
+                            w.print(' ').print(obj.text);
                         }
                     }
-                    ps.println();
+                    w.println();
                 }
                 else if (obj.bytes.length != 0) {
-                    ps.print(String.format("%05X %05X      ", address + offset, address));
+                    printAddress(w, address + offset, address);
+                    w.spaces(5);
 
                     int i = 0;
                     while (i < obj.bytes.length) {
                         if (i > 0 && (i % 5) == 0) {
                             if (i == 5) {
                                 if (obj.text != null) {
-                                    ps.print(" " + obj.text);
+                                    w.print(' ').print(obj.text);
                                 }
                             }
-                            ps.println();
-                            ps.print(String.format("%05X %05X      ", address + offset, address));
+                            w.println();
+                            printAddress(w, address + offset, address);
+                            w.spaces(5);
                         }
-                        ps.print(String.format(" %02X", obj.bytes[i++]));
+                        w.print(' ').hex(obj.bytes[i++] & 0xFF, 2);
                         address++;
                     }
                     while (i < 5) {
-                        ps.print("   ");
+                        w.spaces(3);
                         i++;
                     }
                     if (i == 5) {
                         if (obj.text != null) {
-                            ps.print(" " + obj.text);
+                            w.print(' ').print(obj.text);
                         }
                     }
-                    ps.println();
+                    w.println();
                 }
             }
             else if (obj.text != null) {
-                ps.println("' " + obj.text);
+                w.print("' ").print(obj.text);
+                w.println();
+            }
+        }
+
+        return address;
+    }
+
+    /**
+     * Returns the address of this object in the listing.
+     *
+     * @return the address
+     */
+    public int getListingOffset() {
+        return 0;
+    }
+
+    /**
+     * Returns the address ranges of this object and all linked objects, in listing order,
+     * at the addresses of the listing.
+     *
+     * @return the list of ranges
+     */
+    public List<ListingRange> getListingRanges() {
+        return getListingRanges(getListingOffset());
+    }
+
+    /**
+     * Returns the address ranges of this object and all linked objects, in listing order.
+     * Each object range lists the ranges of its methods, a method ends at the next method,
+     * the next linked object or the end of the object.
+     *
+     * @param offset the address of this object
+     * @return the list of ranges
+     */
+    public List<ListingRange> getListingRanges(int offset) {
+        List<ListingRange> list = new ArrayList<>();
+        collectListingRanges(offset, 0, list);
+        return list;
+    }
+
+    int collectListingRanges(int offset, int depth, List<ListingRange> list) {
+        String text = null;
+        for (DataObject obj : data) {
+            if (obj instanceof CommentDataObject && !(obj instanceof MethodDataObject)) {
+                text = obj.text;
+                break;
             }
         }
 
+        int index = list.size();
+        list.add(null);
+
+        List<ListingRange> methods = new ArrayList<>();
+        MethodDataObject method = null;
+        int methodAddress = 0;
+
+        int address = 0;
+        for (DataObject obj : data) {
+            if (obj instanceof MethodDataObject || obj instanceof ObjectDataObject) {
+                if (method != null) {
+                    methods.add(new ListingRange(this, method.name, method.text, depth, methodAddress + offset, address - methodAddress, null));
+                    method = null;
+                }
+            }
+            if (obj instanceof MethodDataObject) {
+                method = (MethodDataObject) obj;
+                methodAddress = address;
+            }
+            else if (obj instanceof ObjectDataObject) {
+                address += ((ObjectDataObject) obj).getObject().collectListingRanges(address + offset, depth + 1, list);
+            }
+            else if (obj.bytes != null) {
+                address += obj.bytes.length;
+            }
+        }
+        if (method != null) {
+            methods.add(new ListingRange(this, method.name, method.text, depth, methodAddress + offset, address - methodAddress, null));
+        }
+        list.set(index, new ListingRange(this, null, text, depth, offset, address, methods));
+
         return address;
     }
 
+    static void printAddress(ListingWriter w, int address, int objectAddress) {
+        w.hex(address, 5).print(' ').hex(objectAddress, 5).print(' ');
+    }
+
+    static void printCogAddress(ListingWriter w, int cogAddr, boolean hubMode) {
+        if (hubMode) {
+            w.hex(cogAddr, 5);
+        }
+        else {
+            w.spaces(2).hex(cogAddr, 3);
+        }
+    }
+
     public int setBytes(byte[] bytes, int index) {
         for (DataObject obj : data) {
             index = obj.setBytes(bytes, index);
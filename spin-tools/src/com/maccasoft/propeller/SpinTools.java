@@ -1801,6 +1801,34 @@ public class SpinTools {
         }
     }
 
+    private void handleReplayDebugLog(double speed) {
+        FileDialog dlg = new FileDialog(shell, SWT.OPEN);
+        dlg.setText("Replay Debug Log");
+        dlg.setFilterNames(new String[] {
+            "Debug Log Files",
+            "All Files"
+        });
+        dlg.setFilterExtensions(new String[] {
+            "*.dbglog",
+            "*.*"
+        });
+
+        String fileName = dlg.open();
+        if (fileName != null) {
+            try {
+                if (!consoleView.getVisible()) {
+                    consoleView.setVisible(true);
+                    consoleItem.setSelection(true);
+                    consoleToolItem.setSelection(true);
+                    centralSashForm.layout();
+                }
+                consoleView.replayDebugLog(new File(fileName), speed);
+            } catch (Exception e) {
+                MessageDialog.openError(shell, APP_TITLE, "Error reading debug log: " + e.getMessage());
+            }
+        }
+    }
+
     private void handleFileOpenFrom(String filterPath) {
         FileDialog dlg = new FileDialog(shell, SWT.OPEN);
         dlg.setText("Open Source File");
@@ -3067,6 +3095,25 @@ public class SpinTools {
             }
         });
 
+        item = new MenuItem(menu, SWT.CASCADE);
+        item.setText("Replay Debug Log");
+        Menu replayMenu = new Menu(parent.getParent(), SWT.DROP_DOWN);
+        item.setMenu(replayMenu);
+
+        for (double speed : new double[] {
+            1, 2, 4, 10, 0
+        }) {
+            item = new MenuItem(replayMenu, SWT.PUSH);
+            item.setText(speed == 0 ? "No Delay..." : String.format("Speed %dx...", (int) speed));
+            item.addListener(SWT.Selection, new Listener() {
+
+                @Override
+                public void handleEvent(Event e) {
+                    handleReplayDebugLog(speed);
+                }
+            });
+        }
+
         new MenuItem(menu, SWT.SEPARATOR);
 
         runMenuItem = new MenuItem(menu, SWT.CASCADE);
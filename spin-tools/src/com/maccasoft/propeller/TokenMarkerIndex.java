@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2021-26 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller;
+
+import java.util.Collection;
+
+import com.maccasoft.propeller.SourceTokenMarker.TokenId;
+import com.maccasoft.propeller.SourceTokenMarker.TokenMarker;
+
+/*
+ * Immutable copy of a sorted marker set packed into parallel arrays. Lookups are binary
+ * searches over the start offsets, maxStop holds the running maximum of the stop offsets
+ * so that markers spanning an offset can be found without scanning from the beginning.
+ */
+public class TokenMarkerIndex {
+
+    public interface Visitor {
+
+        void visit(int start, int stop, TokenId id);
+
+    }
+
+    public static final TokenMarkerIndex EMPTY = new TokenMarkerIndex(new TokenMarker[0]);
+
+    final TokenMarker[] markers;
+    final int[] start;
+    final int[] stop;
+    final int[] maxStop;
+    final TokenId[] id;
+
+    public TokenMarkerIndex(Collection<TokenMarker> c) {
+        this(c.toArray(new TokenMarker[c.size()]));
+    }
+
+    TokenMarkerIndex(TokenMarker[] markers) {
+        this.markers = markers;
+        this.start = new int[markers.length];
+        this.stop = new int[markers.length];
+        this.maxStop = new int[markers.length];
+        this.id = new TokenId[markers.length];
+
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < markers.length; i++) {
+            start[i] = markers[i].start;
+            stop[i] = markers[i].stop;
+            id[i] = markers[i].id;
+            max = Math.max(max, stop[i]);
+            maxStop[i] = max;
+        }
+    }
+
+    public int size() {
+        return markers.length;
+    }
+
+    public TokenMarker get(int index) {
+        return markers[index];
+    }
+
+    /*
+     * Returns the index of the last marker that sorts before or at (offset, offset), or -1.
+     */
+    int floor(int offset) {
+        int low = 0;
+        int high = markers.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (start[mid] < offset || (start[mid] == offset && stop[mid] <= offset)) {
+                low = mid + 1;
+            }
+            else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    /*
+     * Returns the index of the first marker that sorts at or after (offset, offset), or size().
+     */
+    int ceiling(int offset) {
+        int low = 0;
+        int high = markers.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (start[mid] > offset || (start[mid] == offset && stop[mid] >= offset)) {
+                high = mid - 1;
+            }
+            else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /*
+     * Visits the non-overlapping marker ranges of the given line, clipped to the line bounds,
+     * in ascending order. Markers are taken in the set order, a marker overlapping a range
+     * already visited is clipped to the remaining part.
+     */
+    public void visitLineTokens(int lineStart, int lineStop, Visitor visitor) {
+        if (markers.length == 0) {
+            return;
+        }
+
+        int first = floor(lineStart);
+        if (first < 0) {
+            first = 0;
+        }
+        if (start[first] <= lineStart && stop[first] >= lineStop) {
+            visitor.visit(lineStart, lineStop, id[first]);
+            return;
+        }
+
+        int last = ceiling(lineStop);
+        if (last >= markers.length) {
+            last = markers.length - 1;
+        }
+        for (int i = first; i <= last; i++) {
+            int start = this.start[i];
+            int stop = this.stop[i];
+            if (stop >= lineStart && start <= lineStop) {
+                if (start < lineStart) {
+                    start = lineStart;
+                }
+                if (stop > lineStop) {
+                    stop = lineStop;
+                }
+                visitor.visit(start, stop, id[i]);
+                lineStart = stop + 1;
+            }
+        }
+    }
+
+    /*
+     * Returns the first marker, in set order, that contains the given offset.
+     */
+    public TokenMarker getMarkerAt(int offset) {
+        int low = 0;
+        int high = markers.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (maxStop[mid] < offset) {
+                low = mid + 1;
+            }
+            else {
+                high = mid - 1;
+            }
+        }
+        for (int i = low; i < markers.length && start[i] <= offset; i++) {
+            if (stop[i] >= offset) {
+                return markers[i];
+            }
+        }
+        return null;
+    }
+
+    /*
+     * Compares this index with the index built before the markers were refreshed, without
+     * text changes, and returns the {start, stop} offsets range where the markers differ or
+     * null if they are the same.
+     */
+    public int[] getChangedRange(TokenMarkerIndex previous) {
+        return getChangedRange(previous, -1, 0, 0);
+    }
+
+    /*
+     * Compares this index with the index built before a text change and returns the
+     * {start, stop} offsets range, in the new text, where the markers differ. Markers that
+     * follow the changed text are compared after shifting them by the length difference.
+     */
+    public int[] getChangedRange(TokenMarkerIndex previous, int offset, int replaceCharCount, int newCharCount) {
+        int delta = newCharCount - replaceCharCount;
+        int oldStop = offset + replaceCharCount;
+
+        int i = 0;
+        int size = Math.min(markers.length, previous.markers.length);
+        while (i < size && (offset < 0 || stop[i] < offset && previous.stop[i] < offset) && equals(i, previous, i, 0)) {
+            i++;
+        }
+
+        int a = markers.length - 1;
+        int b = previous.markers.length - 1;
+        while (a >= i && b >= i && previous.start[b] >= oldStop && equals(a, previous, b, delta)) {
+            a--;
+            b--;
+        }
+
+        int from = offset >= 0 ? offset : Integer.MAX_VALUE;
+        int to = offset >= 0 ? offset + newCharCount : -1;
+        if (a >= i) {
+            from = Math.min(from, start[i]);
+            to = Math.max(to, maxStop[a]);
+        }
+        if (b >= i) {
+            from = Math.min(from, previous.start[i]);
+            int max = previous.maxStop[b];
+            to = Math.max(to, max >= oldStop ? max + delta : max);
+        }
+
+        if (from > to) {
+            return null;
+        }
+        return new int[] {
+            from, to
+        };
+    }
+
+    boolean equals(int index, TokenMarkerIndex other, int otherIndex, int delta) {
+        return start[index] == other.start[otherIndex] + delta && stop[index] == other.stop[otherIndex] + delta && id[index] == other.id[otherIndex];
+    }
+
+}
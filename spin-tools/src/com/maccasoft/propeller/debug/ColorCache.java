@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2021-26 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller.debug;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.Device;
+
+/*
+ * Colors of a debug window keyed by the packed 0xRRGGBB value. The cache holds up to
+ * maxSize colors, the least recently used color is removed when the limit is reached.
+ * Removed colors may still be referenced by the window so they are not disposed, all
+ * colors still in the cache are disposed when the window is closed.
+ */
+public class ColorCache {
+
+    public static final int DEFAULT_SIZE = 256;
+
+    final Device device;
+    final Map<Integer, Color> map;
+
+    public ColorCache(Device device) {
+        this(device, DEFAULT_SIZE);
+    }
+
+    public ColorCache(Device device, int maxSize) {
+        this.device = device;
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Color> eldest) {
+                return size() > maxSize;
+            }
+
+        };
+    }
+
+    public Color get(int rgb) {
+        rgb &= 0xFFFFFF;
+
+        Color color = map.get(rgb);
+        if (color == null) {
+            color = new Color(device, (rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+            map.put(rgb, color);
+        }
+
+        return color;
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public void dispose() {
+        for (Color color : map.values()) {
+            color.dispose();
+        }
+        map.clear();
+    }
+
+}
@@ -42,7 +42,8 @@ public class DebugBitmapWindow extends DebugWindow {
     int rateCount;
     boolean autoUpdate;
 
-    ImageData imageData;
+    Framebuffer frameBuffer;
+    int[] rowBuffer;
 
     ImageData canvasImageData;
     Image canvasImage;
@@ -61,6 +62,8 @@ public class DebugBitmapWindow extends DebugWindow {
 
         packMode = PackMode.NONE();
 
+        rowBuffer = new int[32];
+
         rate = -1;
         rateCount = 0;
         autoUpdate = true;
@@ -158,7 +161,7 @@ public class DebugBitmapWindow extends DebugWindow {
             }
         }
 
-        imageData = new ImageData(imageSize.x, imageSize.y, 24, new PaletteData(0xFF0000, 0x00FF00, 0x0000FF));
+        frameBuffer = new Framebuffer(imageSize.x, imageSize.y);
         canvasImageData = new ImageData(imageSize.x, imageSize.y, 24, new PaletteData(0xFF0000, 0x00FF00, 0x0000FF));
 
         canvas.addPaintListener(e -> {
@@ -238,21 +241,30 @@ public class DebugBitmapWindow extends DebugWindow {
         String cmd;
 
         while (iter.hasNext()) {
-            cmd = iter.next();
-
-            if (isNumber(cmd)) {
+            if (iter.hasNextNumeric()) {
                 try {
-                    pixel = stringToNumber(cmd);
+                    pixel = iter.nextNumeric();
                     packMode.newPack(pixel);
-                    for (int i = 0; i < packMode.size; i++) {
-                        color = translateColor(packMode.unpack(), colorMode);
-                        stepTrace(color);
+                    if ((traceMode & 7) == 0 && (rate == -1 || !autoUpdate) && x >= 0 && x + packMode.size < frameBuffer.width) {
+                        // Left to right trace, the whole pack fits in the current row
+                        for (int i = 0; i < packMode.size; i++) {
+                            rowBuffer[i] = translateColor(packMode.unpack(), colorMode);
+                        }
+                        frameBuffer.setRow(x, y, rowBuffer, 0, packMode.size);
+                        x += packMode.size;
+                    }
+                    else {
+                        for (int i = 0; i < packMode.size; i++) {
+                            color = translateColor(packMode.unpack(), colorMode);
+                            stepTrace(color);
+                        }
                     }
                 } catch (Exception e) {
                     // Do nothing
                 }
             }
             else {
+                cmd = iter.next();
                 switch (cmd.toUpperCase()) {
                     case "LUT1":
                     case "LUT2":
@@ -338,18 +350,12 @@ public class DebugBitmapWindow extends DebugWindow {
     }
 
     public void update() {
-        System.arraycopy(imageData.data, 0, canvasImageData.data, 0, canvasImageData.data.length);
+        frameBuffer.copyTo(canvasImageData.data, canvasImageData.bytesPerLine);
         super.update();
     }
 
     void clear() {
-        int color = translateColor(0, colorMode);
-
-        for (int y = 0; y < imageSize.y; y++) {
-            for (int x = 0; x < imageSize.x; x++) {
-                imageData.setPixel(x, y, color);
-            }
-        }
+        frameBuffer.fill(translateColor(0, colorMode));
 
         if (autoUpdate) {
             update();
@@ -357,23 +363,7 @@ public class DebugBitmapWindow extends DebugWindow {
     }
 
     void scroll(int xs, int ys) {
-        ImageData scrolledImageData = new ImageData(imageSize.x, imageSize.y, 24, new PaletteData(0xFF0000, 0x00FF00, 0x0000FF));
-        int color = translateColor(0, colorMode);
-
-        for (int y = 0; y < imageSize.y; y++) {
-            int sy = y + ys;
-            for (int x = 0; x < imageSize.x; x++) {
-                int sx = x + xs;
-                if (sy >= 0 && sy < imageSize.y && sx >= 0 && sx < imageSize.x) {
-                    scrolledImageData.setPixel(x, y, imageData.getPixel(sx, sy));
-                }
-                else {
-                    scrolledImageData.setPixel(x, y, color);
-                }
-            }
-        }
-
-        System.arraycopy(scrolledImageData.data, 0, imageData.data, 0, imageData.data.length);
+        frameBuffer.scroll(xs, ys, translateColor(0, colorMode));
 
         if (autoUpdate) {
             update();
@@ -459,169 +449,169 @@ public class DebugBitmapWindow extends DebugWindow {
         switch (traceMode) {
             case 0:
             case 0 | 8:
-                if (x >= imageData.width) {
+                if (x >= frameBuffer.width) {
                     x = 0;
                     if ((traceMode & 8) != 0) {
                         scrollDown();
                     }
-                    else if (++y >= imageData.height) {
+                    else if (++y >= frameBuffer.height) {
                         y = 0;
                     }
                     if (autoUpdate && rate == -1) {
-                        update();
+                        requestUpdate();
                     }
                 }
-                imageData.setPixel(x, y, color);
-                if (++x >= imageData.width) {
+                frameBuffer.setPixel(x, y, color);
+                if (++x >= frameBuffer.width) {
                     if (autoUpdate && rate == -1) {
-                        update();
+                        requestUpdate();
                     }
                 }
                 break;
             case 1:
             case 1 | 8:
                 if (x < 0) {
-                    x = imageData.width - 1;
+                    x = frameBuffer.width - 1;
                     if ((traceMode & 8) != 0) {
                         scrollDown();
                     }
-                    else if (++y >= imageData.height) {
+                    else if (++y >= frameBuffer.height) {
                         y = 0;
                     }
                     if (autoUpdate && rate == -1) {
-                        update();
+                        requestUpdate();
                     }
                 }
-                imageData.setPixel(x, y, color);
+                frameBuffer.setPixel(x, y, color);
                 if (--x < 0) {
                     if (autoUpdate && rate == -1) {
-                        update();
+                        requestUpdate();
                     }
                 }
                 break;
             case 2:
             case 2 | 8:
-                if (x >= imageData.width) {
+                if (x >= frameBuffer.width) {
                     x = 0;
                     if ((traceMode & 8) != 0) {
                         scrollUp();
                     }
                     else if (--y < 0) {
-                        y = imageData.height - 1;
+                        y = frameBuffer.height - 1;
                     }
                     if (autoUpdate && rate == -1) {
-                        update();
+                        requestUpdate();
                     }
                 }
-                imageData.setPixel(x, y, color);
-                if (++x >= imageData.width) {
+                frameBuffer.setPixel(x, y, color);
+                if (++x >= frameBuffer.width) {
                     if (autoUpdate && rate == -1) {
-                        update();
+                        requestUpdate();
                     }
                 }
                 break;
             case 3:
             case 3 | 8:
                 if (x < 0) {
-                    x = imageData.width - 1;
+                    x = frameBuffer.width - 1;
                     if ((traceMode & 8) != 0) {
                         scrollUp();
                     }
                     else if (--y < 0) {
-                        y = imageData.height - 1;
+                        y = frameBuffer.height - 1;
                     }
                     if (autoUpdate && rate == -1) {
-                        update();
+                        requestUpdate();
                     }
                 }
-                imageData.setPixel(x, y, color);
+                frameBuffer.setPixel(x, y, color);
                 if (--x < 0) {
                     if (autoUpdate && rate == -1) {
-                        update();
+                        requestUpdate();
                     }
                 }
                 break;
             case 4:
             case 4 | 8:
-                if (y >= imageData.height) {
+                if (y >= frameBuffer.height) {
                     y = 0;
                     if ((traceMode & 8) != 0) {
                         scrollRight();
                     }
-                    else if (++x >= imageData.width) {
+                    else if (++x >= frameBuffer.width) {
                         x = 0;
                     }
                     if (autoUpdate && rate == -1) {
-                        update();
+                        requestUpdate();
                     }
                 }
-                imageData.setPixel(x, y, color);
-                if (++y >= imageData.height) {
+                frameBuffer.setPixel(x, y, color);
+                if (++y >= frameBuffer.height) {
                     if (autoUpdate && rate == -1) {
-                        update();
+                        requestUpdate();
                     }
                 }
                 break;
             case 5:
             case 5 | 8:
                 if (y < 0) {
-                    y = imageData.height - 1;
+                    y = frameBuffer.height - 1;
                     if ((traceMode & 8) != 0) {
                         scrollRight();
                     }
-                    else if (++x >= imageData.width) {
+                    else if (++x >= frameBuffer.width) {
                         x = 0;
                     }
                     if (autoUpdate && rate == -1) {
-                        update();
+                        requestUpdate();
                     }
                 }
-                imageData.setPixel(x, y, color);
+                frameBuffer.setPixel(x, y, color);
                 if (--y < 0) {
                     if (autoUpdate && rate == -1) {
-                        update();
+                        requestUpdate();
                     }
                 }
                 break;
             case 6:
             case 6 | 8:
-                if (y >= imageData.height) {
+                if (y >= frameBuffer.height) {
                     y = 0;
                     if ((traceMode & 8) != 0) {
                         scrollLeft();
                     }
                     else if (--x < 0) {
-                        x = imageData.width - 1;
+                        x = frameBuffer.width - 1;
                     }
                     if (autoUpdate && rate == -1) {
-                        update();
+                        requestUpdate();
                     }
                 }
-                imageData.setPixel(x, y, color);
-                if (++y >= imageData.height) {
+                frameBuffer.setPixel(x, y, color);
+                if (++y >= frameBuffer.height) {
                     if (autoUpdate && rate == -1) {
-                        update();
+                        requestUpdate();
                     }
                 }
                 break;
             case 7:
             case 7 | 8:
                 if (y < 0) {
-                    y = imageData.height - 1;
+                    y = frameBuffer.height - 1;
                     if ((traceMode & 8) != 0) {
                         scrollLeft();
                     }
                     else if (--x < 0) {
-                        x = imageData.width - 1;
+                        x = frameBuffer.width - 1;
                     }
                     if (autoUpdate && rate == -1) {
-                        update();
+                        requestUpdate();
                     }
                 }
-                imageData.setPixel(x, y, color);
+                frameBuffer.setPixel(x, y, color);
                 if (--y < 0) {
                     if (autoUpdate && rate == -1) {
-                        update();
+                        requestUpdate();
                     }
                 }
                 break;
@@ -629,46 +619,26 @@ public class DebugBitmapWindow extends DebugWindow {
 
         if (autoUpdate && rate != -1) {
             if (rateCount++ >= rate) {
-                update();
+                requestUpdate();
                 rateCount = 0;
             }
         }
     }
 
     void scrollLeft() {
-        for (int x = 1; x < imageData.width; x++) {
-            for (int y = 0; y < imageData.height; y++) {
-                int pixel = imageData.getPixel(x, y);
-                imageData.setPixel(x - 1, y, pixel);
-            }
-        }
+        frameBuffer.shift(1, 0);
     }
 
     void scrollRight() {
-        for (int x = imageData.width - 1; x >= 1; x--) {
-            for (int y = 0; y < imageData.height; y++) {
-                int pixel = imageData.getPixel(x - 1, y);
-                imageData.setPixel(x, y, pixel);
-            }
-        }
+        frameBuffer.shift(-1, 0);
     }
 
     void scrollDown() {
-        for (int y = imageData.height - 1; y >= 1; y--) {
-            for (int x = 0; x < imageData.width; x++) {
-                int pixel = imageData.getPixel(x, y - 1);
-                imageData.setPixel(x, y, pixel);
-            }
-        }
+        frameBuffer.shift(0, -1);
     }
 
     void scrollUp() {
-        for (int y = 1; y < imageData.height; y++) {
-            for (int x = 0; x < imageData.width; x++) {
-                int pixel = imageData.getPixel(x, y);
-                imageData.setPixel(x, y - 1, pixel);
-            }
-        }
+        frameBuffer.shift(0, 1);
     }
 
     static String[] data = new String[] {
@@ -392,11 +392,9 @@ public class DebugFFTWindow extends DebugWindow {
         String cmd;
 
         if (iter.hasNext()) {
-            cmd = iter.next();
-
-            if (isNumber(cmd)) {
+            if (iter.hasNextNumeric()) {
                 try {
-                    packMode.newPack(stringToNumber(cmd));
+                    packMode.newPack(iter.nextNumeric());
                     for (int i = 0; i < packMode.size; i++) {
                         processSample(packMode.unpack());
                     }
@@ -404,10 +402,11 @@ public class DebugFFTWindow extends DebugWindow {
                     // Do nothing
                 }
             }
-            else if (isString(cmd)) {
-                channel(stringStrip(cmd), iter);
+            else if (iter.hasNextString()) {
+                channel(iter.nextString(), iter);
             }
             else {
+                cmd = iter.next();
                 switch (cmd.toUpperCase()) {
                     case "CLEAR":
                         break;
@@ -496,7 +495,7 @@ public class DebugFFTWindow extends DebugWindow {
                 return lutColors[p & 0b11111111];
             default:
                 color = mode.translateColor(p, colorTune);
-                return new Color(display, (color >> 16) & 0xFF, (color >> 8) & 0xFF, color & 0xFF);
+                return colorCache.get(color);
         }
     }
 
@@ -156,12 +156,11 @@ public class DebugLogicWindow extends DebugWindow {
         Color tempColor;
 
         while (iter.hasNext()) {
-            cmd = iter.next();
-
-            if (isString(cmd)) {
-                channel(stringStrip(cmd), iter);
+            if (iter.hasNextString()) {
+                channel(iter.nextString(), iter);
             }
             else {
+                cmd = iter.next();
                 switch (cmd.toUpperCase()) {
                     case "TITLE":
                         title(iter);
@@ -205,12 +204,10 @@ public class DebugLogicWindow extends DebugWindow {
                     case "COLOR":
                         tempColor = color(iter);
                         if (tempColor != null) {
-                            backColor.dispose();
                             backColor = tempColor;
                         }
                         tempColor = color(iter);
                         if (tempColor != null) {
-                            gridColor.dispose();
                             gridColor = tempColor;
                         }
                         break;
@@ -395,7 +392,7 @@ public class DebugLogicWindow extends DebugWindow {
 
     Color translateColor(int p, ColorMode mode) {
         int color = mode.translateColor(p, 6);
-        return new Color(display, (color >> 16) & 0xFF, (color >> 8) & 0xFF, color & 0xFF);
+        return colorCache.get(color);
     }
 
     @Override
@@ -449,11 +446,9 @@ public class DebugLogicWindow extends DebugWindow {
         String cmd;
 
         while (iter.hasNext()) {
-            cmd = iter.next();
-
-            if (isNumber(cmd)) {
+            if (iter.hasNextNumeric()) {
                 try {
-                    packMode.newPack(stringToNumber(cmd));
+                    packMode.newPack(iter.nextNumeric());
                     for (int i = 0; i < packMode.size; i++) {
                         processSample(packMode.unpack());
                     }
@@ -462,6 +457,7 @@ public class DebugLogicWindow extends DebugWindow {
                 }
             }
             else {
+                cmd = iter.next();
                 switch (cmd.toUpperCase()) {
                     case "TRIGGER":
                         armed = false;
@@ -547,7 +543,7 @@ public class DebugLogicWindow extends DebugWindow {
                 }
                 if (triggered && holdOffCount == 0) {
                     rateCount++;
-                    if (rateCount >= rate) {
+                    if (rateCount >= rate && isFrameDue()) {
                         update();
                         rateCount = 0;
                     }
@@ -558,7 +554,7 @@ public class DebugLogicWindow extends DebugWindow {
         else {
             rateCount++;
             if (rateCount >= rate) {
-                update();
+                requestUpdate();
                 rateCount = 0;
             }
         }
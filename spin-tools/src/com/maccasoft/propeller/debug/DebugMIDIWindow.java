@@ -265,7 +265,7 @@ public class DebugMIDIWindow extends DebugWindow {
 
     Color translateColor(int p, ColorMode mode) {
         int color = mode.translateColor(p, 0);
-        return new Color(display, (color >> 16) & 0xFF, (color >> 8) & 0xFF, color & 0xFF);
+        return colorCache.get(color);
     }
 
     @Override
@@ -274,11 +274,9 @@ public class DebugMIDIWindow extends DebugWindow {
         String cmd;
 
         while (iter.hasNext()) {
-            cmd = iter.next();
-
-            if (isNumber(cmd)) {
+            if (iter.hasNextNumeric()) {
                 try {
-                    val = stringToNumber(cmd) & 0xFF;
+                    val = iter.nextNumeric() & 0xFF;
                     if ((val & 0x80) != 0) {
                         state = 0;
                     }
@@ -315,6 +313,7 @@ public class DebugMIDIWindow extends DebugWindow {
                 }
             }
             else {
+                cmd = iter.next();
                 switch (cmd.toUpperCase()) {
                     case "CLEAR":
                         Arrays.fill(velocity, 0);
@@ -1182,6 +1182,7 @@ public class DebugPAsmWindow {
     boolean PCInCog, getHubCode, skipOn, disCog, hiddenPC;
 
     int[] buffDis = new int[DIS_LINES];
+    final P2Disassembler.Cache disassemblerCache = new P2Disassembler.Cache(COG_SIZE);
 
     byte[] buffFptr = new byte[PTR_BYTES];
     byte[] buffPtra = new byte[PTR_BYTES];
@@ -1287,75 +1288,73 @@ public class DebugPAsmWindow {
         //   Send requests/command to P2
         //  -----------------------------
 
-        // Send reg/lut block requests
-        j = 0;
-        for (i = 0; i < cogBlock.length; i++) {
-            j >>= 1;
-            if (cogBlock[i] != cogBlockOld[i]) {
-                j |= 0x80;
-                if (i < cogBlock.length / 2) {
-                    regMapUpdate = true;
+        synchronized (transmitter) {
+            // Send reg/lut block requests
+            j = 0;
+            for (i = 0; i < cogBlock.length; i++) {
+                j >>= 1;
+                if (cogBlock[i] != cogBlockOld[i]) {
+                    j |= 0x80;
+                    if (i < cogBlock.length / 2) {
+                        regMapUpdate = true;
+                    }
+                    else {
+                        lutMapUpdate = true;
+                    }
                 }
-                else {
-                    lutMapUpdate = true;
+                if ((i & 7) == 7) {
+                    transmitter.write(j);
                 }
             }
-            if ((i & 7) == 7) {
-                transmitter.write(j);
-            }
-        }
 
-        j = 0;
-        for (i = 0; i < ((hubBlock.length + 31) & ~31); i++) {
-            j >>= 1;
-            if (i < hubBlock.length && hubBlock[i] != hubBlockOld[i]) {
-                j |= 0x80;
-                hubMapUpdate = true;
-            }
-            if ((i & 7) == 7) {
-                transmitter.write(j);
+            j = 0;
+            for (i = 0; i < ((hubBlock.length + 31) & ~31); i++) {
+                j >>= 1;
+                if (i < hubBlock.length && hubBlock[i] != hubBlockOld[i]) {
+                    j |= 0x80;
+                    hubMapUpdate = true;
+                }
+                if ((i & 7) == 7) {
+                    transmitter.write(j);
+                }
             }
-        }
 
-        // Send hub read requests
-        if (getHubCode) {
-            transmitter.writeLong(((DIS_LINES << 2) << 20) | curDisAddr); // DisLines
-        }
-        else {
-            transmitter.writeLong(0x00000000);
-        }
-        transmitter.writeLong((buffFptr.length << 20) | ((FPTR - PTR_CENTER) & 0xFFFFF)); // FPTR
-        transmitter.writeLong((buffPtra.length << 20) | ((PTRA - PTR_CENTER) & 0xFFFFF)); // PTRA
-        transmitter.writeLong((buffPtrb.length << 20) | ((PTRB - PTR_CENTER) & 0xFFFFF)); // PTRB
-        transmitter.writeLong((buffHub.length << 20) | curHubAddr); // CurHubAddr
-
-        // Send COGBRK requests
-        transmitter.writeLong(requestCOGBRK);
-        requestCOGBRK = 0;
-
-        // Reset disassembly-scroll timer?
-        if (repeatMode || (stallBrk != STALL_CMD)) {
-            disScrollTimer = 0;
-        }
-        // Send STALL/BRK command
-        if (repeatMode) {
-            long t = System.currentTimeMillis();
-            if ((t - oldTickCount) < 50) {
-                transmitter.writeLong(STALL_CMD);
+            // Send hub read requests
+            if (getHubCode) {
+                transmitter.writeLong(((DIS_LINES << 2) << 20) | curDisAddr); // DisLines
+            }
+            else {
+                transmitter.writeLong(0x00000000);
+            }
+            transmitter.writeLong((buffFptr.length << 20) | ((FPTR - PTR_CENTER) & 0xFFFFF)); // FPTR
+            transmitter.writeLong((buffPtra.length << 20) | ((PTRA - PTR_CENTER) & 0xFFFFF)); // PTRA
+            transmitter.writeLong((buffPtrb.length << 20) | ((PTRB - PTR_CENTER) & 0xFFFFF)); // PTRB
+            transmitter.writeLong((buffHub.length << 20) | curHubAddr); // CurHubAddr
+
+            // Send COGBRK requests
+            transmitter.writeLong(requestCOGBRK);
+            requestCOGBRK = 0;
+
+            // Reset disassembly-scroll timer?
+            if (repeatMode || (stallBrk != STALL_CMD)) {
+                disScrollTimer = 0;
+            }
+            // Send STALL/BRK command
+            if (repeatMode) {
+                long t = System.currentTimeMillis();
+                if ((t - oldTickCount) < 50) {
+                    transmitter.writeLong(STALL_CMD);
+                }
+                else {
+                    transmitter.writeLong(breakValue);
+                    oldTickCount = t;
+                }
             }
             else {
-                transmitter.writeLong(breakValue);
-                oldTickCount = t;
+                transmitter.writeLong(stallBrk);
+                stallBrk = STALL_CMD;
             }
         }
-        else {
-            transmitter.writeLong(stallBrk);
-            stallBrk = STALL_CMD;
-        }
-
-        synchronized (transmitter) {
-            transmitter.notify();
-        }
 
         //  ----------------------------
         //   Receive final data from P2
@@ -1627,7 +1626,7 @@ public class DebugPAsmWindow {
                     s = "[ROM]        " + DebugROM[addr & 0x7];
                 }
                 else {
-                    s = P2Disassembler.disassemble(addr, inst);
+                    s = disassemblerCache.disassemble(addr, inst);
                 }
 
                 // Prepare to draw instruction
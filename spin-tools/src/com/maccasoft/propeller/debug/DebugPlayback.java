@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2021-26 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller.debug;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/*
+ * Reads a log written by DebugRecorder and rebuilds the backtick commands, optionally
+ * paced by the recorded timestamps.
+ */
+public class DebugPlayback {
+
+    public static class Entry {
+
+        public final long time;
+        public final String command;
+
+        Entry(long time, String command) {
+            this.time = time;
+            this.command = command;
+        }
+
+    }
+
+    final DataInputStream is;
+    final List<String> windows = new ArrayList<>();
+
+    long time;
+    volatile boolean stopped;
+
+    public DebugPlayback(InputStream is) throws IOException {
+        this.is = new DataInputStream(new BufferedInputStream(is));
+
+        byte[] magic = new byte[DebugRecorder.MAGIC.length];
+        this.is.readFully(magic);
+        if (!Arrays.equals(magic, DebugRecorder.MAGIC)) {
+            throw new IOException("not a debug log file");
+        }
+        int version = this.is.read();
+        if (version != DebugRecorder.VERSION) {
+            throw new IOException("unsupported debug log version " + version);
+        }
+    }
+
+    /*
+     * Returns the next command, with the time in microseconds since the start of the
+     * recording, or null at the end of the log.
+     */
+    public Entry next() throws IOException {
+        int type = is.read();
+        if (type == -1) {
+            return null;
+        }
+        time += readNumber();
+
+        switch (type) {
+            case DebugRecorder.WINDOW: {
+                int index = (int) readNumber();
+                String id = readString();
+                String command = readString();
+                while (windows.size() <= index) {
+                    windows.add(null);
+                }
+                windows.set(index, id);
+                return new Entry(time, "`" + command);
+            }
+            case DebugRecorder.DATA: {
+                StringBuilder sb = new StringBuilder("`");
+                int count = (int) readNumber();
+                for (int i = 0; i < count; i++) {
+                    if (i != 0) {
+                        sb.append(' ');
+                    }
+                    sb.append(getWindow((int) readNumber()));
+                }
+                String data = readString();
+                if (!data.isEmpty()) {
+                    sb.append(' ');
+                    sb.append(data);
+                }
+                return new Entry(time, sb.toString());
+            }
+        }
+
+        throw new IOException("invalid record type " + type);
+    }
+
+    String getWindow(int index) throws IOException {
+        if (index >= windows.size() || windows.get(index) == null) {
+            throw new IOException("undefined window " + index);
+        }
+        return windows.get(index);
+    }
+
+    /**
+     * Sends all commands to the handler, waiting between them for the recorded time
+     * divided by speed, or without waiting if speed is 0.
+     *
+     * @param handler the commands handler
+     * @param speed the playback speed multiplier
+     */
+    public void play(Consumer<String> handler, double speed) throws IOException, InterruptedException {
+        Entry entry;
+        long start = System.nanoTime();
+
+        while (!stopped && (entry = next()) != null) {
+            if (speed > 0) {
+                long delay = (long) (TimeUnit.MICROSECONDS.toNanos(entry.time) / speed) - (System.nanoTime() - start);
+                if (delay > 0) {
+                    TimeUnit.NANOSECONDS.sleep(delay);
+                }
+            }
+            handler.accept(entry.command);
+        }
+    }
+
+    public void stop() {
+        stopped = true;
+    }
+
+    public void close() throws IOException {
+        is.close();
+    }
+
+    long readNumber() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = is.read();
+            if (b == -1) {
+                throw new EOFException();
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("invalid number");
+    }
+
+    String readString() throws IOException {
+        byte[] b = new byte[(int) readNumber()];
+        is.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+}
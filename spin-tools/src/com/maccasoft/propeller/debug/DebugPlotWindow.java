@@ -24,7 +24,6 @@ import org.eclipse.swt.events.DisposeEvent;
 import org.eclipse.swt.events.DisposeListener;
 import org.eclipse.swt.events.PaintEvent;
 import org.eclipse.swt.events.PaintListener;
-import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.Font;
 import org.eclipse.swt.graphics.GC;
 import org.eclipse.swt.graphics.Image;
@@ -42,19 +41,21 @@ import com.maccasoft.propeller.internal.CircularBuffer;
 
 public class DebugPlotWindow extends DebugWindow {
 
+    static final int NO_COLOR = -1;
+
     int x;
     int y;
 
     Point dotSize;
 
-    Color color;
-    Color textColor;
-    Color backColor;
+    int color;
+    int textColor;
+    int backColor;
     int opacity;
 
     ColorMode colorMode;
     int colorTune;
-    Color[] lutColors;
+    int[] lutColors;
 
     int precise;
     int lineSize;
@@ -252,14 +253,14 @@ public class DebugPlotWindow extends DebugWindow {
 
         dotSize = new Point(1, 1);
 
-        color = new Color(255, 255, 255);
-        textColor = new Color(255, 255, 255);
-        backColor = new Color(0, 0, 0);
+        color = 0xFFFFFF;
+        textColor = 0xFFFFFF;
+        backColor = 0x000000;
         opacity = 255;
 
         colorMode = ColorMode.RGB24;
         colorTune = 0;
-        lutColors = new Color[256];
+        lutColors = new int[256];
 
         precise = 0;
         lineSize = 1;
@@ -281,7 +282,7 @@ public class DebugPlotWindow extends DebugWindow {
     @Override
     public void setup(KeywordIterator iter) {
         String cmd;
-        Color tempColor;
+        int tempColor;
 
         while (iter.hasNext()) {
             cmd = iter.next().toUpperCase();
@@ -335,8 +336,7 @@ public class DebugPlotWindow extends DebugWindow {
 
                 case "BACKCOLOR":
                     tempColor = color(iter);
-                    if (tempColor != null) {
-                        backColor.dispose();
+                    if (tempColor != NO_COLOR) {
                         backColor = tempColor;
                     }
                     break;
@@ -353,7 +353,7 @@ public class DebugPlotWindow extends DebugWindow {
         image = new Image(display, new ImageData(imageSize.x, imageSize.y, 24, new PaletteData(0xFF0000, 0x00FF00, 0x0000FF)));
 
         imageGc = new GC(image);
-        imageGc.setBackground(backColor);
+        imageGc.setBackground(colorCache.get(backColor));
         imageGc.fillRectangle(0, 0, imageSize.x, imageSize.y);
         imageGc.setAntialias(SWT.ON);
 
@@ -437,10 +437,10 @@ public class DebugPlotWindow extends DebugWindow {
                 String s = iter.next().toUpperCase();
                 switch (s) {
                     case "BLACK":
-                        lutColors[i] = new Color(0, 0, 0);
+                        lutColors[i] = 0x000000;
                         break;
                     case "WHITE":
-                        lutColors[i] = new Color(255, 255, 255);
+                        lutColors[i] = 0xFFFFFF;
                         break;
                     case "ORANGE":
                     case "BLUE":
@@ -474,7 +474,7 @@ public class DebugPlotWindow extends DebugWindow {
     @Override
     public void update(KeywordIterator iter) {
         String cmd;
-        Color tempColor;
+        int tempColor;
 
         synchronized (DebugPlotWindow.this) {
             imageGc.setAlpha(255);
@@ -510,8 +510,7 @@ public class DebugPlotWindow extends DebugWindow {
 
                     case "BACKCOLOR":
                         tempColor = color(iter);
-                        if (tempColor != null) {
-                            backColor.dispose();
+                        if (tempColor != NO_COLOR) {
                             backColor = tempColor;
                         }
                         break;
@@ -530,13 +529,11 @@ public class DebugPlotWindow extends DebugWindow {
                         // Fall-through
                     case "COLOR":
                         tempColor = color(iter);
-                        if (tempColor != null) {
+                        if (tempColor != NO_COLOR) {
                             if (iter.hasNext() && "TEXT".equalsIgnoreCase(iter.peekNext())) {
-                                textColor.dispose();
                                 textColor = tempColor;
                             }
                             else {
-                                color.dispose();
                                 color = tempColor;
                             }
                         }
@@ -593,7 +590,7 @@ public class DebugPlotWindow extends DebugWindow {
                         if (iter.hasNextNumber()) { // opacity
                             opacityOverride = iter.nextNumber() & 255;
                         }
-                        imageGc.setBackground(color);
+                        imageGc.setBackground(colorCache.get(color));
                         imageGc.setAlpha(opacityOverride);
                         imageGc.fillOval((x - sizeOverride / 2) >> precise, (y - sizeOverride / 2) >> precise, sizeOverride >> precise, sizeOverride >> precise);
                         break;
@@ -766,7 +763,7 @@ public class DebugPlotWindow extends DebugWindow {
                         break;
 
                     case "CLEAR":
-                        imageGc.setBackground(backColor);
+                        imageGc.setBackground(colorCache.get(backColor));
                         imageGc.fillRectangle(0, 0, imageSize.x, imageSize.y);
                         break;
 
@@ -881,7 +878,7 @@ public class DebugPlotWindow extends DebugWindow {
         }
     }
 
-    Color color(KeywordIterator iter) {
+    int color(KeywordIterator iter) {
         if (iter.hasNextNumber()) {
             return translateColor(iter.nextNumber(), colorMode);
         }
@@ -892,9 +889,9 @@ public class DebugPlotWindow extends DebugWindow {
             String s = iter.next().toUpperCase();
             switch (s) {
                 case "BLACK":
-                    return new Color(0, 0, 0);
+                    return 0x000000;
                 case "WHITE":
-                    return new Color(255, 255, 255);
+                    return 0xFFFFFF;
                 case "ORANGE":
                 case "BLUE":
                 case "GREEN":
@@ -913,7 +910,7 @@ public class DebugPlotWindow extends DebugWindow {
                     break;
             }
         }
-        return null;
+        return NO_COLOR;
     }
 
     Point polarToCartesian(int rhoX, int thetaY) {
@@ -923,9 +920,7 @@ public class DebugPlotWindow extends DebugWindow {
         return new Point((int) Math.round(xf * rhoX), (int) Math.round(yf * rhoX));
     }
 
-    Color translateColor(int p, ColorMode mode) {
-        int color;
-
+    int translateColor(int p, ColorMode mode) {
         switch (mode) {
             case LUT1:
                 return lutColors[p & 0b1];
@@ -936,50 +931,49 @@ public class DebugPlotWindow extends DebugWindow {
             case LUT8:
                 return lutColors[p & 0b11111111];
             default:
-                color = mode.translateColor(p, colorTune);
-                return new Color(display, (color >> 16) & 0xFF, (color >> 8) & 0xFF, color & 0xFF);
+                return mode.translateColor(p, colorTune);
         }
     }
 
-    void oval(GC gc, int width, int height, int lineSize, int opacity, Color color) {
+    void oval(GC gc, int width, int height, int lineSize, int opacity, int rgb) {
         gc.setAlpha(opacity);
         gc.setLineWidth(lineSize);
-        gc.setForeground(color);
+        gc.setForeground(colorCache.get(rgb));
 
         width -= lineSize * 2;
         height -= lineSize * 2;
 
         if (lineSize == 0) {
-            gc.setBackground(color);
+            gc.setBackground(colorCache.get(rgb));
             gc.fillOval(x - width / 2, y - height / 2, width, height);
         }
         gc.drawOval(x - width / 2, y - height / 2, width, height);
     }
 
-    void box(GC gc, int width, int height, int lineSize, int opacity, Color color) {
+    void box(GC gc, int width, int height, int lineSize, int opacity, int rgb) {
         gc.setAlpha(opacity);
         gc.setLineWidth(lineSize);
-        gc.setForeground(color);
+        gc.setForeground(colorCache.get(rgb));
         if (lineSize == 0) {
-            gc.setBackground(color);
+            gc.setBackground(colorCache.get(rgb));
             gc.fillRectangle(x - width / 2, y - height / 2, width, height);
         }
         gc.drawRectangle(x - width / 2, y - height / 2, width, height);
     }
 
-    void obox(GC gc, int width, int height, int radiusX, int radiusY, int lineSize, int opacity, Color color) {
+    void obox(GC gc, int width, int height, int radiusX, int radiusY, int lineSize, int opacity, int rgb) {
         gc.setAlpha(opacity);
         gc.setLineWidth(lineSize);
-        gc.setForeground(color);
+        gc.setForeground(colorCache.get(rgb));
         if (lineSize == 0) {
-            gc.setBackground(color);
+            gc.setBackground(colorCache.get(rgb));
             gc.fillRectangle(x - width / 2, y - height / 2, width, height);
         }
         gc.drawRoundRectangle(x - width / 2, y - height / 2, width, height, radiusX, radiusY);
     }
 
-    void line(GC gc, int dx, int dy, int lineSize, Color color) {
-        gc.setForeground(color);
+    void line(GC gc, int dx, int dy, int lineSize, int rgb) {
+        gc.setForeground(colorCache.get(rgb));
         gc.setLineWidth(lineSize >> precise);
 
         gc.setAlpha(opacity);
@@ -989,10 +983,10 @@ public class DebugPlotWindow extends DebugWindow {
         y = dy;
     }
 
-    void text(String str, int size, int style, int angle, Color color) {
+    void text(String str, int size, int style, int angle, int rgb) {
         int lineWidth = 0;
 
-        imageGc.setForeground(color);
+        imageGc.setForeground(colorCache.get(rgb));
 
         FontDescriptor fontDescriptor = defaultFontDescriptor;
 
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2021-26 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller.debug;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.collections4.map.CaseInsensitiveMap;
+
+/*
+ * Interprets the backtick debug commands without opening windows and records the command
+ * stream of each window to a compact binary log that can be replayed later.
+ *
+ * The log starts with the MAGIC bytes and the VERSION byte, followed by records made of
+ * the record type, the time elapsed since the previous record in microseconds and the
+ * record data. Numbers are unsigned variable length integers, strings are the UTF-8 byte
+ * count followed by the bytes.
+ *
+ *   WINDOW  index, id, command     a window is created with the given command
+ *   DATA    count, index..., data  data sent to one or more windows
+ */
+public class DebugRecorder {
+
+    public static final byte[] MAGIC = new byte[] {
+        'S', 'P', 'D', 'L'
+    };
+    public static final int VERSION = 1;
+
+    public static final int WINDOW = 1;
+    public static final int DATA = 2;
+
+    static final Set<String> WINDOW_TYPES = Set.of(
+        "LOGIC", "SCOPE", "SCOPE_XY", "FFT", "SPECTRO", "PLOT", "TERM", "BITMAP", "MIDI");
+
+    final DataOutputStream os;
+    final Map<String, Integer> windows = new CaseInsensitiveMap<>();
+
+    long lastTime;
+    long commands;
+
+    public DebugRecorder(OutputStream os) throws IOException {
+        this(os, System.nanoTime());
+    }
+
+    DebugRecorder(OutputStream os, long startTime) throws IOException {
+        this.os = new DataOutputStream(new BufferedOutputStream(os));
+        this.os.write(MAGIC);
+        this.os.write(VERSION);
+        this.lastTime = startTime;
+    }
+
+    /**
+     * Records a debug command.
+     *
+     * @param text the command text, starting with the backtick
+     * @return true if the command was recorded, false if it doesn't refer to a window
+     */
+    public synchronized boolean process(String text) throws IOException {
+        return process(text, System.nanoTime());
+    }
+
+    boolean process(String text, long time) throws IOException {
+        KeywordIterator iter = new KeywordIterator(text);
+        if (!iter.hasNext()) {
+            return false;
+        }
+
+        if (WINDOW_TYPES.contains(iter.peekNext().toUpperCase())) {
+            String type = iter.next();
+            if (!iter.hasNext()) {
+                return false;
+            }
+            String id = iter.next();
+
+            Integer index = windows.get(id);
+            if (index == null) {
+                index = windows.size();
+                windows.put(id, index);
+            }
+
+            writeHeader(WINDOW, time);
+            writeNumber(index);
+            writeString(id);
+            writeString(join(type + " " + id, iter));
+        }
+        else {
+            List<Integer> list = new ArrayList<>();
+            while (iter.hasNext()) {
+                Integer index = windows.get(iter.peekNext());
+                if (index == null) {
+                    break;
+                }
+                list.add(index);
+                iter.next();
+            }
+            if (list.isEmpty()) {
+                return false;
+            }
+
+            writeHeader(DATA, time);
+            writeNumber(list.size());
+            for (Integer index : list) {
+                writeNumber(index);
+            }
+            writeString(join(null, iter));
+        }
+
+        commands++;
+        return true;
+    }
+
+    static String join(String prefix, KeywordIterator iter) {
+        StringBuilder sb = new StringBuilder();
+        if (prefix != null) {
+            sb.append(prefix);
+        }
+        while (iter.hasNext()) {
+            if (!sb.isEmpty()) {
+                sb.append(' ');
+            }
+            sb.append(iter.next());
+        }
+        return sb.toString();
+    }
+
+    void writeHeader(int type, long time) throws IOException {
+        long elapsed = Math.max(0, (time - lastTime) / 1000L);
+        lastTime += elapsed * 1000L;
+        os.write(type);
+        writeNumber(elapsed);
+    }
+
+    void writeNumber(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            os.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        os.write((int) value);
+    }
+
+    void writeString(String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        writeNumber(b.length);
+        os.write(b);
+    }
+
+    public synchronized long getCommandCount() {
+        return commands;
+    }
+
+    public synchronized int getWindowCount() {
+        return windows.size();
+    }
+
+    public synchronized void flush() throws IOException {
+        os.flush();
+    }
+
+    public synchronized void close() throws IOException {
+        os.close();
+    }
+
+}
@@ -82,6 +82,7 @@ public class DebugScopeWindow extends DebugWindow {
         int legend;
         Color color;
 
+        SampleRange sampleRange;
         int[] sampleData;
 
         String legendMax;
@@ -89,6 +90,7 @@ public class DebugScopeWindow extends DebugWindow {
         String legendMin;
         int legendMinY;
         int[] linePoints;
+        int[] columnPoints;
 
         Channel(String name, int min, int max, boolean auto, int y_size, int y_base, int legend, Color color) {
             this.name = name;
@@ -113,7 +115,8 @@ public class DebugScopeWindow extends DebugWindow {
                 legendMinY = MARGIN_HEIGHT + charHeight + (imageSize.y - y_base);
             }
 
-            this.sampleData = new int[samples];
+            this.sampleRange = new SampleRange(samples);
+            this.sampleData = sampleRange.data;
             this.linePoints = new int[0];
         }
 
@@ -124,19 +127,9 @@ public class DebugScopeWindow extends DebugWindow {
             }
 
             if (auto) {
-                min = Integer.MAX_VALUE;
-                max = Integer.MIN_VALUE;
-                int ptr = firstSample;
-                for (int i = 0; i < sampleCount; i++) {
-                    int d = sampleData[ptr];
-                    if (d < min) {
-                        min = d;
-                    }
-                    if (d > max) {
-                        max = d;
-                    }
-                    ptr = (ptr + 1) % samples;
-                }
+                sampleRange.update(firstSample, sampleCount);
+                min = sampleRange.getMin();
+                max = sampleRange.getMax();
             }
 
             double sx = (double) imageSize.x / (double) samples;
@@ -150,6 +143,35 @@ public class DebugScopeWindow extends DebugWindow {
                 legendMinY = MARGIN_HEIGHT + charHeight + (imageSize.y - y_base);
             }
 
+            int baseY = MARGIN_HEIGHT + charHeight + (imageSize.y - y_base);
+
+            // More samples than pixels, draw the minimum and maximum of each pixel column
+            int columns = (int) Math.round(sampleCount * sx);
+            if (columns > 0 && sampleCount > columns) {
+                if (columnPoints == null || columnPoints.length != columns * 2) {
+                    columnPoints = new int[columns * 2];
+                }
+                int count = sampleRange.decimate(firstSample, sampleCount, columns, columnPoints) * 2;
+
+                int arraySize = count * 2;
+                if (linePoints.length != arraySize) {
+                    linePoints = new int[arraySize];
+                }
+
+                int idx = 0;
+                int offset = samples - sampleCount;
+                for (int i = 0; i < count; i++) {
+                    int pos = columnPoints[i];
+                    int ptr = firstSample + pos;
+                    if (ptr >= samples) {
+                        ptr -= samples;
+                    }
+                    linePoints[idx++] = MARGIN_WIDTH + (int) Math.round((offset + pos) * sx);
+                    linePoints[idx++] = baseY - (int) Math.round((sampleData[ptr] - min) * sy);
+                }
+                return;
+            }
+
             int arraySize = sampleCount * 2;
             if (linePoints.length != arraySize) {
                 linePoints = new int[arraySize];
@@ -160,8 +182,10 @@ public class DebugScopeWindow extends DebugWindow {
             double x = (samples - sampleCount) * sx;
             for (int i = 0; i < sampleCount; i++) {
                 linePoints[idx++] = MARGIN_WIDTH + (int) Math.round(x);
-                linePoints[idx++] = MARGIN_HEIGHT + charHeight + (imageSize.y - y_base) - (int) Math.round((sampleData[ptr] - min) * sy);
-                ptr = (ptr + 1) % samples;
+                linePoints[idx++] = baseY - (int) Math.round((sampleData[ptr] - min) * sy);
+                if (++ptr >= samples) {
+                    ptr = 0;
+                }
                 x += sx;
             }
         }
@@ -409,11 +433,9 @@ public class DebugScopeWindow extends DebugWindow {
         String cmd;
 
         while (iter.hasNext()) {
-            cmd = iter.next();
-
-            if (isNumber(cmd)) {
+            if (iter.hasNextNumeric()) {
                 try {
-                    sample = stringToNumber(cmd);
+                    sample = iter.nextNumeric();
                     packMode.newPack(sample);
                     for (int i = 0; i < packMode.size; i++) {
                         processSample(packMode.unpack());
@@ -422,11 +444,12 @@ public class DebugScopeWindow extends DebugWindow {
                     // Do nothing
                 }
             }
-            else if (isString(cmd)) {
-                channel(stringStrip(cmd), iter);
+            else if (iter.hasNextString()) {
+                channel(iter.nextString(), iter);
                 update();
             }
             else {
+                cmd = iter.next();
                 switch (cmd.toUpperCase()) {
                     case "TRIGGER":
                         triggerChannel = -1;
@@ -543,7 +566,7 @@ public class DebugScopeWindow extends DebugWindow {
     }
 
     void processSample(int sample) {
-        channelData[channelIndex].sampleData[sampleIndex] = sample;
+        channelData[channelIndex].sampleRange.set(sampleIndex, sample);
 
         channelIndex++;
         if (channelIndex >= channelData.length) {
@@ -593,7 +616,7 @@ public class DebugScopeWindow extends DebugWindow {
 
                     if (triggered && holdOffCount == 0) {
                         rateCount++;
-                        if (rateCount >= rate) {
+                        if (rateCount >= rate && isFrameDue()) {
                             update();
                             rateCount = 0;
                         }
@@ -604,7 +627,7 @@ public class DebugScopeWindow extends DebugWindow {
             else {
                 rateCount++;
                 if (rateCount >= rate) {
-                    update();
+                    requestUpdate();
                     rateCount = 0;
                 }
             }
@@ -627,7 +650,7 @@ public class DebugScopeWindow extends DebugWindow {
                 return lutColors[p & 0b11111111];
             default:
                 color = mode.translateColor(p, colorTune);
-                return new Color(display, (color >> 16) & 0xFF, (color >> 8) & 0xFF, color & 0xFF);
+                return colorCache.get(color);
         }
     }
 
@@ -9,8 +9,7 @@
 
 package com.maccasoft.propeller.debug;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.ArrayDeque;
 import java.util.function.Consumer;
 
 import org.eclipse.core.databinding.observable.Realm;
@@ -74,9 +73,10 @@ public class DebugScopeXYWindow extends DebugWindow {
     class Channel {
         String name;
         Color color;
-        List<Point> data = new ArrayList<>();
+        ArrayDeque<Point> data = new ArrayDeque<>();
 
         Point[] points;
+        int pointCount;
 
         Channel(String name, Color color) {
             this.name = name;
@@ -92,18 +92,30 @@ public class DebugScopeXYWindow extends DebugWindow {
 
             if (samples != 0) {
                 while (data.size() > samples) {
-                    data.remove(0);
+                    data.removeFirst();
                 }
             }
         }
 
         void update() {
-            points = data.toArray(points);
+            if (points.length < data.size()) {
+                points = new Point[data.size()];
+            }
+
+            // Dots falling on the same pixel as the previous one are drawn once
+            Point last = null;
+            pointCount = 0;
+            for (Point pt : data) {
+                if (last == null || pt.x != last.x || pt.y != last.y) {
+                    points[pointCount++] = pt;
+                }
+                last = pt;
+            }
         }
 
         void draw(GC gc) {
             gc.setBackground(color);
-            for (int i = 0; i < points.length; i++) {
+            for (int i = 0; i < pointCount; i++) {
                 gc.fillOval(points[i].x - dotSize / 2, points[i].y - dotSize / 2, dotSize + 1, dotSize + 1);
             }
         }
@@ -111,6 +123,7 @@ public class DebugScopeXYWindow extends DebugWindow {
         void clear() {
             data.clear();
             points = new Point[0];
+            pointCount = 0;
         }
 
     }
@@ -154,11 +167,11 @@ public class DebugScopeXYWindow extends DebugWindow {
         String cmd;
 
         while (iter.hasNext()) {
-            cmd = iter.next();
-            if (isString(cmd)) {
-                channel(stringStrip(cmd), iter);
+            if (iter.hasNextString()) {
+                channel(iter.nextString(), iter);
             }
             else {
+                cmd = iter.next();
                 switch (cmd.toUpperCase()) {
                     case "TITLE":
                         title(iter);
@@ -385,11 +398,9 @@ public class DebugScopeXYWindow extends DebugWindow {
         String cmd;
 
         while (iter.hasNext()) {
-            cmd = iter.next();
-
-            if (isNumber(cmd)) {
+            if (iter.hasNextNumeric()) {
                 try {
-                    packMode.newPack(stringToNumber(cmd));
+                    packMode.newPack(iter.nextNumeric());
                     for (int i = 0; i < packMode.size; i++) {
                         processSample(packMode.unpack());
                     }
@@ -398,6 +409,7 @@ public class DebugScopeXYWindow extends DebugWindow {
                 }
             }
             else {
+                cmd = iter.next();
                 switch (cmd.toUpperCase()) {
                     case "CLEAR":
                         for (int i = 0; i < channelData.length; i++) {
@@ -433,7 +445,7 @@ public class DebugScopeXYWindow extends DebugWindow {
             channelIndex++;
             if (channelIndex >= channelData.length) {
                 if (++rateCount >= rate) {
-                    update();
+                    requestUpdate();
                     rateCount = 0;
                 }
                 channelIndex = 0;
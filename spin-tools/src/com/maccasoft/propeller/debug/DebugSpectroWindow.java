@@ -309,11 +309,9 @@ public class DebugSpectroWindow extends DebugWindow {
         String cmd;
 
         while (iter.hasNext()) {
-            cmd = iter.next();
-
-            if (isNumber(cmd)) {
+            if (iter.hasNextNumeric()) {
                 try {
-                    pixel = stringToNumber(cmd);
+                    pixel = iter.nextNumeric();
                     packMode.newPack(pixel);
                     for (int i = 0; i < packMode.size; i++) {
                         processSample(packMode.unpack());
@@ -323,6 +321,7 @@ public class DebugSpectroWindow extends DebugWindow {
                 }
             }
             else {
+                cmd = iter.next();
                 switch (cmd.toUpperCase()) {
                     case "CLEAR":
                         color = colorMode.translateColor(0, colorTune);
@@ -252,16 +252,14 @@ public class DebugTermWindow extends DebugWindow {
                     }
                 }
 
-                cmd = iter.next();
-
-                if (isString(cmd)) {
-                    String s = stringStrip(cmd);
+                if (iter.hasNextString()) {
+                    String s = iter.nextString();
                     for (i = 0; i < s.length(); i++) {
                         drawChar(gc, s.charAt(i));
                     }
                 }
-                else if (isNumber(cmd)) {
-                    int c = stringToNumber(cmd);
+                else if (iter.hasNextNumeric()) {
+                    int c = iter.nextNumeric();
                     switch (c) {
                         case 0:
                             gc.setBackground(backColor);
@@ -329,6 +327,7 @@ public class DebugTermWindow extends DebugWindow {
                     }
                 }
                 else {
+                    cmd = iter.next();
                     switch (cmd.toUpperCase()) {
                         case "COLOR":
                             i = 0;
@@ -495,7 +494,7 @@ public class DebugTermWindow extends DebugWindow {
 
     Color translateColor(int p, ColorMode mode) {
         int color = mode.translateColor(p, 0);
-        return new Color(display, (color >> 16) & 0xFF, (color >> 8) & 0xFF, color & 0xFF);
+        return colorCache.get(color);
     }
 
     protected void update() {
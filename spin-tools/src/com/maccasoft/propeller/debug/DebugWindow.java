@@ -10,6 +10,7 @@
 package com.maccasoft.propeller.debug;
 
 import java.io.File;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.lang3.BitField;
@@ -72,6 +73,8 @@ public abstract class DebugWindow {
     public static final int MARGIN_WIDTH = 6;
     public static final int MARGIN_HEIGHT = 6;
 
+    public static final int DEFAULT_FRAME_RATE = 60;
+
     protected Display display;
     protected Shell shell;
 
@@ -79,9 +82,14 @@ public abstract class DebugWindow {
     protected AtomicBoolean pendingRedraw;
 
     protected Point imageSize;
+    protected ColorCache colorCache;
 
     protected final CircularBuffer transmitBuffer;
 
+    long frameInterval;
+    long lastFrameTime;
+    boolean pendingFrame;
+
     Point origin;
     int xDirection;
     int yDirection;
@@ -133,6 +141,18 @@ public abstract class DebugWindow {
         yDirection = 0;
 
         pendingRedraw = new AtomicBoolean(true);
+
+        setFrameRate(DEFAULT_FRAME_RATE);
+    }
+
+    /*
+     * Sets the maximum number of times per second the window contents are updated when
+     * data arrives, independently of the rate requested by the debug commands. A value
+     * of 0 disables the limit.
+     */
+    public void setFrameRate(int frameRate) {
+        frameInterval = frameRate > 0 ? TimeUnit.SECONDS.toNanos(1) / frameRate : 0;
+        lastFrameTime = System.nanoTime() - frameInterval;
     }
 
     public File getCurrentDirectory() {
@@ -157,6 +177,9 @@ public abstract class DebugWindow {
 
         shell = new Shell(display, SWT.CLOSE | SWT.MIN | SWT.TITLE);
         shell.setData(this);
+        shell.addDisposeListener(e -> colorCache.dispose());
+
+        colorCache = new ColorCache(display);
 
         FillLayout layout = new FillLayout();
         layout.marginWidth = layout.marginHeight = 0;
@@ -284,6 +307,31 @@ public abstract class DebugWindow {
                 }
             });
         }
+        lastFrameTime = System.nanoTime();
+    }
+
+    protected boolean isFrameDue() {
+        return System.nanoTime() - lastFrameTime >= frameInterval;
+    }
+
+    /*
+     * Updates the window now if the frame interval has elapsed, otherwise schedules a single
+     * update at the end of the interval, requests made in the meanwhile are merged with it.
+     */
+    protected void requestUpdate() {
+        if (isFrameDue()) {
+            update();
+        }
+        else if (!pendingFrame) {
+            pendingFrame = true;
+            long delay = lastFrameTime + frameInterval - System.nanoTime();
+            display.timerExec((int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(delay)), () -> {
+                pendingFrame = false;
+                if (!canvas.isDisposed()) {
+                    update();
+                }
+            });
+        }
     }
 
     protected void paint(GC gc) {
@@ -291,18 +339,16 @@ public abstract class DebugWindow {
     }
 
     protected void sendKeyPress() {
-        transmitBuffer.writeLong(keyPress);
         synchronized (transmitBuffer) {
-            transmitBuffer.notify();
+            transmitBuffer.writeLong(keyPress);
         }
         keyPress = 0;
     }
 
     protected void sendMouse() {
-        transmitBuffer.writeLong(mousePack);
-        transmitBuffer.writeLong(mousePixel);
         synchronized (transmitBuffer) {
-            transmitBuffer.notify();
+            transmitBuffer.writeLong(mousePack);
+            transmitBuffer.writeLong(mousePixel);
         }
         mousePack = mouseWheel.setValue(mousePack, 0);
     }
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2021-26 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller.debug;
+
+import java.util.Arrays;
+
+/*
+ * Bitmap of 0xRRGGBB pixels stored row by row in an int array. The rectangle changed
+ * since the last copy is tracked so only the changed rows are converted to the 24 bits
+ * image data uploaded to the display.
+ */
+public class Framebuffer {
+
+    final int width;
+    final int height;
+    final int[] pixels;
+
+    int dirtyX1, dirtyY1;
+    int dirtyX2, dirtyY2;
+
+    public Framebuffer(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.pixels = new int[width * height];
+        clearDirty();
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getPixel(int x, int y) {
+        return pixels[y * width + x];
+    }
+
+    public void setPixel(int x, int y, int rgb) {
+        pixels[y * width + x] = rgb;
+        addDirty(x, y, x, y);
+    }
+
+    /**
+     * Sets count pixels of row y starting at column x.
+     *
+     * @param x the first column
+     * @param y the row
+     * @param rgb the pixel values
+     * @param off the offset of the first value
+     * @param count the number of pixels
+     */
+    public void setRow(int x, int y, int[] rgb, int off, int count) {
+        System.arraycopy(rgb, off, pixels, y * width + x, count);
+        addDirty(x, y, x + count - 1, y);
+    }
+
+    public void fill(int rgb) {
+        Arrays.fill(pixels, rgb);
+        addDirty(0, 0, width - 1, height - 1);
+    }
+
+    public void fill(int x1, int y1, int x2, int y2, int rgb) {
+        x1 = Math.max(x1, 0);
+        y1 = Math.max(y1, 0);
+        x2 = Math.min(x2, width - 1);
+        y2 = Math.min(y2, height - 1);
+        if (x1 > x2 || y1 > y2) {
+            return;
+        }
+        for (int y = y1; y <= y2; y++) {
+            Arrays.fill(pixels, y * width + x1, y * width + x2 + 1, rgb);
+        }
+        addDirty(x1, y1, x2, y2);
+    }
+
+    /**
+     * Moves the contents so that each pixel takes the value of the pixel at (x + dx, y + dy),
+     * the pixels with a source outside of the bitmap are not changed.
+     *
+     * @param dx the horizontal offset of the source
+     * @param dy the vertical offset of the source
+     */
+    public void shift(int dx, int dy) {
+        if (dx == 0 && dy == 0) {
+            return;
+        }
+        int count = width - Math.abs(dx);
+        int rows = height - Math.abs(dy);
+        if (count <= 0 || rows <= 0) {
+            return;
+        }
+
+        int srcX = Math.max(dx, 0);
+        int dstX = Math.max(-dx, 0);
+        if (dy > 0) {
+            for (int y = 0; y < rows; y++) {
+                System.arraycopy(pixels, (y + dy) * width + srcX, pixels, y * width + dstX, count);
+            }
+        }
+        else {
+            for (int y = height - 1; y >= height - rows; y--) {
+                System.arraycopy(pixels, (y + dy) * width + srcX, pixels, y * width + dstX, count);
+            }
+        }
+
+        addDirty(0, 0, width - 1, height - 1);
+    }
+
+    /**
+     * Moves the contents like shift and fills the pixels left uncovered.
+     *
+     * @param dx the horizontal offset of the source
+     * @param dy the vertical offset of the source
+     * @param rgb the fill color
+     */
+    public void scroll(int dx, int dy, int rgb) {
+        shift(dx, dy);
+        if (dy > 0) {
+            fill(0, height - dy, width - 1, height - 1, rgb);
+        }
+        else if (dy < 0) {
+            fill(0, 0, width - 1, -dy - 1, rgb);
+        }
+        if (dx > 0) {
+            fill(width - dx, 0, width - 1, height - 1, rgb);
+        }
+        else if (dx < 0) {
+            fill(0, 0, -dx - 1, height - 1, rgb);
+        }
+    }
+
+    void addDirty(int x1, int y1, int x2, int y2) {
+        if (x1 < dirtyX1) {
+            dirtyX1 = x1;
+        }
+        if (y1 < dirtyY1) {
+            dirtyY1 = y1;
+        }
+        if (x2 > dirtyX2) {
+            dirtyX2 = x2;
+        }
+        if (y2 > dirtyY2) {
+            dirtyY2 = y2;
+        }
+    }
+
+    void clearDirty() {
+        dirtyX1 = dirtyY1 = Integer.MAX_VALUE;
+        dirtyX2 = dirtyY2 = Integer.MIN_VALUE;
+    }
+
+    public boolean isDirty() {
+        return dirtyX1 <= dirtyX2;
+    }
+
+    /**
+     * Converts the pixels changed since the last call to 24 bits red, green, blue bytes.
+     *
+     * @param data the image bytes
+     * @param bytesPerLine the number of bytes of each image row
+     * @return true if some pixels were copied
+     */
+    public boolean copyTo(byte[] data, int bytesPerLine) {
+        if (!isDirty()) {
+            return false;
+        }
+
+        for (int y = dirtyY1; y <= dirtyY2; y++) {
+            int src = y * width + dirtyX1;
+            int dst = y * bytesPerLine + dirtyX1 * 3;
+            for (int x = dirtyX1; x <= dirtyX2; x++) {
+                int rgb = pixels[src++];
+                data[dst++] = (byte) (rgb >> 16);
+                data[dst++] = (byte) (rgb >> 8);
+                data[dst++] = (byte) rgb;
+            }
+        }
+        clearDirty();
+
+        return true;
+    }
+
+}
@@ -10,17 +10,31 @@
 
 package com.maccasoft.propeller.debug;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.NoSuchElementException;
 
+/*
+ * Cursor over the tokens of a debug command. Tokens are kept as offsets into the
+ * command text, strings are created only when a token is requested as text and
+ * numbers are parsed in place.
+ */
 public class KeywordIterator {
 
-    final String[] ar;
+    final String s;
+    int[] start;
+    int[] stop;
+    int count;
     int index;
 
+    int parsedIndex = -1;
+    boolean parsedValid;
+    long parsedValue;
+
     public KeywordIterator(String s) {
-        int idx = 0, state = 0, start = 0;
-        List<String> list = new ArrayList<>();
+        int idx = 0, state = 0, begin = 0;
+
+        this.s = s;
+        this.start = new int[16];
+        this.stop = new int[16];
 
         if (idx < s.length() && s.charAt(idx) == '`') {
             idx++;
@@ -33,7 +47,7 @@ public class KeywordIterator {
                     if (ch == ',' || ch == ' ' || ch == '\t') {
                         break;
                     }
-                    start = idx;
+                    begin = idx;
                     if (ch == '\'') {
                         state = 2;
                         break;
@@ -42,14 +56,14 @@ public class KeywordIterator {
                     break;
                 case 1:
                     if (ch == ',' || ch == ' ' || ch == '\t') {
-                        list.add(s.substring(start, idx));
+                        add(begin, idx);
                         state = 0;
                         break;
                     }
                     break;
                 case 2:
                     if (ch == '\'') {
-                        list.add(s.substring(start, idx + 1));
+                        add(begin, idx + 1);
                         state = 0;
                         break;
                     }
@@ -58,74 +72,185 @@ public class KeywordIterator {
             idx++;
         }
         if (state != 0) {
-            list.add(s.substring(start, idx));
+            add(begin, idx);
         }
+    }
 
-        ar = list.toArray(new String[list.size()]);
+    void add(int from, int to) {
+        if (count >= start.length) {
+            int[] newStart = new int[start.length * 2];
+            System.arraycopy(start, 0, newStart, 0, count);
+            start = newStart;
+            int[] newStop = new int[stop.length * 2];
+            System.arraycopy(stop, 0, newStop, 0, count);
+            stop = newStop;
+        }
+        start[count] = from;
+        stop[count] = to;
+        count++;
     }
 
     public boolean hasNext() {
-        return index < ar.length;
+        return index < count;
     }
 
     public String next() {
-        return ar[index++];
+        String rc = peekNext();
+        index++;
+        return rc;
     }
 
     public String peekNext() {
-        return ar[index];
+        if (index >= count) {
+            throw new NoSuchElementException();
+        }
+        return s.substring(start[index], stop[index]);
     }
 
     public boolean hasNextString() {
-        if (index >= ar.length) {
+        if (index >= count) {
             return false;
         }
-        return ar[index].startsWith("'") && ar[index].endsWith("'");
+        return stop[index] - start[index] >= 2 && s.charAt(start[index]) == '\'' && s.charAt(stop[index] - 1) == '\'';
     }
 
     public String nextString() {
-        String s = ar[index++];
-        return s.substring(1, s.length() - 1);
+        if (index >= count) {
+            throw new NoSuchElementException();
+        }
+        String rc = s.substring(start[index] + 1, stop[index] - 1);
+        index++;
+        return rc;
     }
 
     public boolean hasNextNumber() {
-        try {
-            if (index < ar.length) {
-                getNextNumber();
-                return true;
-            }
-        } catch (Exception e) {
-            // Do nothing
+        if (index >= count) {
+            return false;
+        }
+        if (index != parsedIndex) {
+            parsedValid = parse(index, true);
+            parsedIndex = index;
         }
-        return false;
+        return parsedValid;
     }
 
+    /*
+     * Returns the next token as a number and advances the iterator, if the next token
+     * is not a number returns 0 and leaves the iterator on it.
+     */
     public int nextNumber() {
-        try {
-            int value = getNextNumber();
-            index++;
-            return value;
-        } catch (Exception e) {
+        if (!hasNextNumber()) {
             return 0;
         }
+        index++;
+        return (int) parsedValue;
+    }
+
+    /*
+     * Returns true if the next token starts like a number, with a digit, a sign, $ or %.
+     * The token may still be malformed, in that case nextNumeric throws an exception.
+     */
+    public boolean hasNextNumeric() {
+        if (index >= count) {
+            return false;
+        }
+        char ch = s.charAt(start[index]);
+        return ch == '$' || ch == '%' || ch == '-' || ch == '+' || Character.isDigit(ch);
     }
 
-    int getNextNumber() {
-        String s = ar[index].replace("_", "");
-        if (s.startsWith("$")) {
-            return (int) Long.parseLong(s.substring(1), 16);
+    /*
+     * Returns the next token as a number and advances the iterator, throws
+     * NumberFormatException if the token is not a valid number.
+     */
+    public int nextNumeric() {
+        if (index >= count) {
+            throw new NoSuchElementException();
         }
-        if (s.startsWith("%%")) {
-            return (int) Long.parseLong(s.substring(2), 4);
+        int i = index++;
+        parsedIndex = -1;
+        if (!parse(i, false)) {
+            throw new NumberFormatException("For input string: \"" + s.substring(start[i], stop[i]) + "\"");
         }
-        if (s.startsWith("%")) {
-            return (int) Long.parseLong(s.substring(1), 2);
+        return (int) parsedValue;
+    }
+
+    /*
+     * Parses the token at the given index as a decimal, $hexadecimal, %binary or %%quaternary
+     * number into parsedValue, underscores after the prefix are ignored, skipPrefix ignores
+     * also the underscores before and inside the prefix. Returns false if the token is not
+     * a valid 64 bit number.
+     */
+    boolean parse(int i, boolean skipPrefix) {
+        int idx = start[i];
+        int end = stop[i];
+        int radix = 10;
+
+        if (skipPrefix) {
+            idx = skipUnderscores(idx, end);
+        }
+        if (idx < end && s.charAt(idx) == '$') {
+            radix = 16;
+            idx++;
+        }
+        else if (idx < end && s.charAt(idx) == '%') {
+            radix = 2;
+            idx++;
+            int next = skipPrefix ? skipUnderscores(idx, end) : idx;
+            if (next < end && s.charAt(next) == '%') {
+                radix = 4;
+                idx = next + 1;
+            }
+        }
+
+        idx = skipUnderscores(idx, end);
+
+        boolean negative = false;
+        long limit = -Long.MAX_VALUE;
+        if (idx < end && (s.charAt(idx) == '-' || s.charAt(idx) == '+')) {
+            if (s.charAt(idx) == '-') {
+                negative = true;
+                limit = Long.MIN_VALUE;
+            }
+            idx++;
+        }
+
+        // Accumulates negatively like Long.parseLong to accept Long.MIN_VALUE
+        long multmin = limit / radix;
+        long result = 0;
+        boolean digits = false;
+        while (idx < end) {
+            char ch = s.charAt(idx++);
+            if (ch == '_') {
+                continue;
+            }
+            int digit = Character.digit(ch, radix);
+            if (digit < 0 || result < multmin) {
+                return false;
+            }
+            result *= radix;
+            if (result < limit + digit) {
+                return false;
+            }
+            result -= digit;
+            digits = true;
+        }
+        if (!digits) {
+            return false;
+        }
+
+        parsedValue = negative ? result : -result;
+        return true;
+    }
+
+    int skipUnderscores(int idx, int end) {
+        while (idx < end && s.charAt(idx) == '_') {
+            idx++;
         }
-        return (int) Long.parseLong(s, 10);
+        return idx;
     }
 
     public void skip() {
-        if (index < ar.length) {
+        if (index < count) {
             index++;
         }
     }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021-24 Marco Maccaferri and others.
+ * Copyright (c) 2021-26 Marco Maccaferri and others.
  * All rights reserved.
  *
  * This program and the accompanying materials are made available under
@@ -10,10 +10,19 @@
 
 package com.maccasoft.propeller.debug;
 
+import java.util.Arrays;
+
 import com.maccasoft.propeller.spin2.Spin2InstructionObject;
 
+/*
+ * Instructions are decoded with a table indexed by the opcode and CZ bits that holds the
+ * mnemonic and the operands format, irregular encodings are decoded by the switch in
+ * disassembleSpecial. Operands are written directly into the line buffer.
+ */
 public class P2Disassembler {
 
+    static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
     static final String[] conditions = new String[] {
         "_ret_        ",
         "if_nc_and_nz ",
@@ -66,606 +75,420 @@ public class P2Disassembler {
         "dira", "dirb", "outa", "outb", "ina", "inb"
     };
 
+    static final String[] jumpEvents = new String[] {
+        "jint    ", "jct1    ", "jct2    ", "jct3    ", "jse1    ", "jse2    ", "jse3    ", "jse4    ",
+        "jpat    ", "jfbw    ", "jxmt    ", "jxfi    ", "jxro    ", "jxrl    ", "jatn    ", "jqmt    ",
+        "jnint   ", "jnct1   ", "jnct2   ", "jnct3   ", "jnse1   ", "jnse2   ", "jnse3   ", "jnse4   ",
+        "jnpat   ", "jnfbw   ", "jnxmt   ", "jnxfi   ", "jnxro   ", "jnxrl   ", "jnatn   ", "jnqmt   ",
+    };
+
+    static final String[] events = new String[] {
+        "pollint ", "pollct1 ", "pollct2 ", "pollct3 ", "pollse1 ", "pollse2 ", "pollse3 ", "pollse4 ",
+        "pollpat ", "pollfbw ", "pollxmt ", "pollxfi ", "pollxro ", "pollxrl ", "pollatn ", "pollqmt ",
+        "waitint ", "waitct1 ", "waitct2 ", "waitct3 ", "waitse1 ", "waitse2 ", "waitse3 ", "waitse4 ",
+        "waitpat ", "waitfbw ", "waitxmt ", "waitxfi ", "waitxro ", "waitxrl ", "waitatn ",
+    };
+
+    static final String[] interrupts = new String[] {
+        "allowi  ", "stalli  ", "trgint1 ", "trgint2 ", "trgint3 ", "nixint1 ", "nixint2 ", "nixint3 ",
+    };
+
+    // Instructions with opcode 1101011, indexed by the S field
+    static final String[] group1101011 = new String[] {
+        "hubset  ", "cogid   ", null, "cogstop ", "locknew ", "lockret ", "locktry ", "lockrel ",
+        "??? xx1 ", "??? xx2 ", "??? xx3 ", "??? xx4 ", "??? xx5 ", "??? xx6 ", "qlog    ", "qexp    ",
+        "rfbyte  ", "rfword  ", "rflong  ", "rfvar   ", "rfvars  ", "wfbyte  ", "wfword  ", "wflong  ",
+        "getqx   ", "getqy   ", "getct   ", "getrnd  ", "setdacs ", "setxfrq ", "getxacc ", "waitx   ",
+        "setse1  ", "setse2  ", "setse3  ", "setse4  ", null, "setint1 ", "setint2 ", "setint3 ",
+        "setq    ", "setq2   ", "push    ", "pop     ", "jmp     ", null, null, null,
+        "jmprel  ", "skip    ", "skipf   ", "execf   ", "getptr  ", "cogbrk  ", "brk     ", "setluts ",
+        "setcy   ", "setci   ", "setcq   ", "setcfrq ", "setcmod ", "setpiv  ", "setpix  ", "cogatn  ",
+        null, null, null, null, null, null, null, null,
+        "outl    ", "outh    ", "outc    ", "outnc   ", "outz    ", "outnz   ", "outrnd  ", "outnot  ",
+        "fltl    ", "flth    ", "fltc    ", "fltnc   ", "fltz    ", "fltnz   ", "fltrnd  ", "fltnot  ",
+        "drvl    ", "drvh    ", "drvc    ", "drvnc   ", "drvz    ", "drvnz   ", "drvrnd  ", "drvnot  ",
+        "splitb  ", "mergeb  ", "splitw  ", "mergew  ", "seussf  ", "seussr  ", "rgbsqz  ", "rgbexp  ",
+        "xoro32  ", "rev     ", "rczr    ", "rczl    ", "wrc     ", "wrnc    ", "wrz     ", "wrnz    ",
+        "setscp  ", "getscp  ",
+    };
+
+    // Operands formats
+    static final byte SPECIAL = 0;
+    static final byte STANDARD = 1; // d, {#}s {wc/wz/wcz}
+    static final byte STANDARD_UNARY = 2; // d {, {#}s} {wc/wz/wcz}, s omitted if same as d
+    static final byte TEST_BIT = 3; // d, {#}s {wc/wz/wcz/andc/andz/orc/orz/xorc/xorz}
+    static final byte DST_SRC = 4; // $ddd, {#}$sss
+    static final byte DST_OPT_SRC = 5; // $ddd {, {#}$sss}, s omitted if #0
+    static final byte DST_OPT_SAME_SRC = 6; // $ddd {, {#}$sss}, s omitted if same as #d
+    static final byte DST_SRC_WZ = 7; // $ddd, {#}$sss {wz}
+    static final byte DST_SRC_WC = 8; // $ddd, {#}$sss {wc}
+    static final byte LIT_DST_SRC = 9; // {#}$ddd, {#}$sss
+    static final byte SRC_DST = 10; // {#}d, {#}s
+    static final byte PTR_READ = 11; // d, {#}s/p {wc/wz/wcz}
+    static final byte PTR_WRITE = 12; // {#}d, {#}s/p
+    static final byte JUMP = 13; // #{\}$aaaaa
+    static final byte POINTER_ADDRESS = 14; // pa/pb/ptra/ptrb, #$aaaaaaaa
+    static final byte AUGMENT = 15; // #$nnnnnnxx
+
+    static final String[] mnemonics = new String[512];
+    static final byte[] formats = new byte[512];
+
+    static {
+        define(0b0000000, STANDARD, "ror     ");
+        define(0b0000001, STANDARD, "rol     ");
+        define(0b0000010, STANDARD, "shr     ");
+        define(0b0000011, STANDARD, "shl     ");
+        define(0b0000100, STANDARD, "rcr     ");
+        define(0b0000101, STANDARD, "rcl     ");
+        define(0b0000110, STANDARD, "sar     ");
+        define(0b0000111, STANDARD, "sal     ");
+        define(0b0001000, STANDARD, "add     ");
+        define(0b0001001, STANDARD, "addx    ");
+        define(0b0001010, STANDARD, "adds    ");
+        define(0b0001011, STANDARD, "addsx   ");
+        define(0b0001100, STANDARD, "sub     ");
+        define(0b0001101, STANDARD, "subx    ");
+        define(0b0001110, STANDARD, "subs    ");
+        define(0b0001111, STANDARD, "subsx   ");
+
+        define(0b0010000, STANDARD, "cmp     ");
+        define(0b0010001, STANDARD, "cmpx    ");
+        define(0b0010010, STANDARD, "cmps    ");
+        define(0b0010011, STANDARD, "cmpsx   ");
+        define(0b0010100, STANDARD, "cmpr    ");
+        define(0b0010101, STANDARD, "cmpm    ");
+        define(0b0010110, STANDARD, "subr    ");
+        define(0b0010111, STANDARD, "cmpsub  ");
+        define(0b0011000, STANDARD, "fge     ");
+        define(0b0011001, STANDARD, "fle     ");
+        define(0b0011010, STANDARD, "fges    ");
+        define(0b0011011, STANDARD, "fles    ");
+        define(0b0011100, STANDARD, "sumc    ");
+        define(0b0011101, STANDARD, "sumnc   ");
+        define(0b0011110, STANDARD, "sumz    ");
+        define(0b0011111, STANDARD, "sumnz   ");
+
+        define(0b0100000, TEST_BIT, "bitl    ", "testb   ", "testb   ", "bitl    ");
+        define(0b0100001, TEST_BIT, "bith    ", "testbn  ", "testbn  ", "bith    ");
+        define(0b0100010, TEST_BIT, "bitc    ", "testb   ", "testb   ", "bitc    ");
+        define(0b0100011, TEST_BIT, "bitnc   ", "testbn  ", "testbn  ", "bitnc   ");
+        define(0b0100100, TEST_BIT, "bitz    ", "testb   ", "testb   ", "bitz    ");
+        define(0b0100101, TEST_BIT, "bitnz   ", "testbn  ", "testbn  ", "bitnz   ");
+        define(0b0100110, TEST_BIT, "bitrnd  ", "testb   ", "testb   ", "bitrnd  ");
+        define(0b0100111, TEST_BIT, "bitnot  ", "testbn  ", "testbn  ", "bitnot  ");
+
+        define(0b0101000, STANDARD, "and     ");
+        define(0b0101001, STANDARD, "andn    ");
+        define(0b0101010, STANDARD, "or      ");
+        define(0b0101011, STANDARD, "xor     ");
+        define(0b0101100, STANDARD, "muxc    ");
+        define(0b0101101, STANDARD, "muxnc   ");
+        define(0b0101110, STANDARD, "muxz    ");
+        define(0b0101111, STANDARD, "muxnz   ");
+
+        define(0b0110000, STANDARD, "mov     ");
+        define(0b0110001, STANDARD_UNARY, "not     ");
+        define(0b0110010, STANDARD_UNARY, "abs     ");
+        define(0b0110011, STANDARD_UNARY, "neg     ");
+        define(0b0110100, STANDARD_UNARY, "negc    ");
+        define(0b0110101, STANDARD_UNARY, "negnc   ");
+        define(0b0110110, STANDARD_UNARY, "negz    ");
+        define(0b0110111, STANDARD_UNARY, "negnz   ");
+        define(0b0111000, STANDARD, "incmod  ");
+        define(0b0111001, STANDARD, "decmod  ");
+        define(0b0111010, STANDARD, "zerox   ");
+        define(0b0111011, STANDARD, "signx   ");
+        define(0b0111100, STANDARD_UNARY, "encod   ");
+        define(0b0111101, STANDARD_UNARY, "ones    ");
+        define(0b0111110, STANDARD_UNARY, "test    ");
+        define(0b0111111, STANDARD, "testn   ");
+
+        define(0b1001010, 0b10, DST_OPT_SRC, "altsn   ");
+        define(0b1001010, 0b11, DST_OPT_SRC, "altgn   ");
+        define(0b1001011, DST_OPT_SRC, "altsb   ", "altgb   ", "altsw   ", "altgw   ");
+        define(0b1001100, DST_OPT_SRC, "altr    ", "altd    ", "alts    ", "altb    ");
+        define(0b1001101, 0b01, DST_SRC, "setr    ");
+        define(0b1001101, 0b10, DST_SRC, "setd    ");
+        define(0b1001101, 0b11, DST_SRC, "sets    ");
+        define(0b1001110, DST_OPT_SAME_SRC, "decod   ", "bmask   ", "crcbit  ", "crcnib  ");
+        define(0b1001111, DST_SRC, "muxnits ", "muxnibs ", "muxq    ", "movbyts ");
+
+        define(0b1010000, DST_SRC_WZ, "mul     ", "mul     ", "muls    ", "muls    ");
+        define(0b1010001, DST_SRC_WZ, "sca     ", "sca     ", "scas    ", "scas    ");
+        define(0b1010010, DST_SRC, "addpix  ", "mulpix  ", "blnpix  ", "mixpix  ");
+        define(0b1010011, DST_SRC, "addct1  ", "addct2  ", "addct3  ", "wmlong  ");
+        define(0b1010100, DST_SRC_WC, "rqpin   ", "rdpin   ", "rqpin   ", "rdpin   ");
+        define(0b1010101, PTR_READ, "rdlut   ");
+        define(0b1010110, PTR_READ, "rdbyte  ");
+        define(0b1010111, PTR_READ, "rdword  ");
+        define(0b1011000, PTR_READ, "rdlong  ");
+        define(0b1011011, DST_SRC, "djz     ", "djnz    ", "djf     ", "djnf    ");
+        define(0b1011100, DST_SRC, "ijz     ", "ijnz    ", "tjz     ", "tjnz    ");
+        define(0b1011101, DST_SRC, "tjf     ", "tjnf    ", "tjs     ", "tjns    ");
+        define(0b1011110, 0b00, DST_SRC, "tjv     ");
+        define(0b1011110, 0b10, SRC_DST, "<empty> ");
+        define(0b1011110, 0b11, SRC_DST, "<empty> ");
+        define(0b1011111, SRC_DST, "<empty> ", "<empty> ", "setpat  ", "setpat  ");
+
+        define(0b1100000, 0b00, LIT_DST_SRC, "wrpin   ");
+        define(0b1100000, 0b10, LIT_DST_SRC, "wxpin   ");
+        define(0b1100000, 0b11, LIT_DST_SRC, "wxpin   ");
+        define(0b1100001, 0b00, LIT_DST_SRC, "wypin   ");
+        define(0b1100001, 0b01, LIT_DST_SRC, "wypin   ");
+        define(0b1100001, 0b10, PTR_WRITE, "wrlut   ");
+        define(0b1100001, 0b11, PTR_WRITE, "wrlut   ");
+        define(0b1100010, PTR_WRITE, "wrbyte  ", "wrbyte  ", "wrword  ", "wrword  ");
+        define(0b1100011, 0b00, PTR_WRITE, "wrlong  ");
+        define(0b1100011, 0b01, PTR_WRITE, "wrlong  ");
+        define(0b1100011, 0b10, SRC_DST, "rdfast  ");
+        define(0b1100011, 0b11, SRC_DST, "rdfast  ");
+        define(0b1100100, LIT_DST_SRC, "wrfast  ", "wrfast  ", "fblock  ", "fblock  ");
+        define(0b1100110, SRC_DST, "xcont   ", "xcont   ", "rep     ", "rep     ");
+        define(0b1101000, SRC_DST, "qmul    ", "qmul    ", "qdiv    ", "qdiv    ");
+        define(0b1101001, SRC_DST, "qfrac   ", "qfrac   ", "qsqrt   ", "qsqrt   ");
+        define(0b1101010, SRC_DST, "qrotate ", "qrotate ", "qvector ", "qvector ");
+        define(0b1101100, JUMP, "jmp     ");
+        define(0b1101101, JUMP, "call    ");
+        define(0b1101110, JUMP, "calla   ");
+        define(0b1101111, JUMP, "callb   ");
+
+        for (int o = 0b1110000; o <= 0b1110011; o++) {
+            define(o, POINTER_ADDRESS, "calld   ");
+        }
+        for (int o = 0b1110100; o <= 0b1110111; o++) {
+            define(o, POINTER_ADDRESS, "loc     ");
+        }
+        for (int o = 0b1111000; o <= 0b1111011; o++) {
+            define(o, AUGMENT, "augs    #");
+        }
+        for (int o = 0b1111100; o <= 0b1111111; o++) {
+            define(o, AUGMENT, "augd    #");
+        }
+    }
+
+    static void define(int o, byte format, String mnemonic) {
+        define(o, format, mnemonic, mnemonic, mnemonic, mnemonic);
+    }
+
+    static void define(int o, byte format, String cz00, String cz01, String cz10, String cz11) {
+        define(o, 0b00, format, cz00);
+        define(o, 0b01, format, cz01);
+        define(o, 0b10, format, cz10);
+        define(o, 0b11, format, cz11);
+    }
+
+    static void define(int o, int cz, byte format, String mnemonic) {
+        mnemonics[(o << 2) | cz] = mnemonic;
+        formats[(o << 2) | cz] = format;
+    }
+
+    /*
+     * Caches the disassembled instructions by their value, so repeated disassembly of the
+     * same memory only decodes the changed instructions. Entries are direct-mapped, a
+     * colliding instruction replaces the previous one.
+     */
+    public static class Cache {
+
+        final int mask;
+        final int[] instructions;
+        final String[] lines;
+
+        /**
+         * Creates a new cache.
+         *
+         * @param size the number of entries, rounded up to a power of two
+         */
+        public Cache(int size) {
+            int capacity = Integer.highestOneBit(Math.max(size - 1, 1)) << 1;
+            this.mask = capacity - 1;
+            this.instructions = new int[capacity];
+            this.lines = new String[capacity];
+        }
+
+        public String disassemble(int addr, int ins) {
+            int index = (ins ^ (ins >>> 9) ^ (ins >>> 18)) & mask;
+            String line = lines[index];
+            if (line == null || instructions[index] != ins) {
+                line = P2Disassembler.disassemble(addr, ins);
+                instructions[index] = ins;
+                lines[index] = line;
+            }
+            return line;
+        }
+
+        public void clear() {
+            Arrays.fill(lines, null);
+        }
+
+    }
+
     P2Disassembler() {
 
     }
 
     public static String disassemble(int addr, int ins) {
-        StringBuilder sb;
+        StringBuilder sb = new StringBuilder(48);
 
         if (ins == 0) {
-            sb = new StringBuilder();
             sb.append(conditions[0b1111]);
             sb.append("nop");
             return sb.toString();
         }
 
-        sb = new StringBuilder();
-        sb.append(conditions[Spin2InstructionObject.e.getValue(ins) & 0b1111]);
+        sb.append(conditions[(ins >>> 28) & 0b1111]);
 
-        int cz = Spin2InstructionObject.cz.getValue(ins);
+        int op = (ins >>> 19) & 0x1FF;
+        int cz = op & 0b11;
+        int dst = (ins >>> 9) & 0x1FF;
+        int src = ins & 0x1FF;
+        boolean i = (ins & 0x40000) != 0;
 
-        int o = Spin2InstructionObject.o.getValue(ins);
-        switch (o) {
-            case 0b0000000:
-                standardInstruction(sb, "ror     ", ins);
-                break;
-            case 0b0000001:
-                standardInstruction(sb, "rol     ", ins);
-                break;
-            case 0b0000010:
-                standardInstruction(sb, "shr     ", ins);
-                break;
-            case 0b0000011:
-                standardInstruction(sb, "shl     ", ins);
-                break;
-            case 0b0000100:
-                standardInstruction(sb, "rcr     ", ins);
-                break;
-            case 0b0000101:
-                standardInstruction(sb, "rcl     ", ins);
-                break;
-            case 0b0000110:
-                standardInstruction(sb, "sar     ", ins);
-                break;
-            case 0b0000111:
-                standardInstruction(sb, "sal     ", ins);
-                break;
-            case 0b0001000:
-                standardInstruction(sb, "add     ", ins);
-                break;
-            case 0b0001001:
-                standardInstruction(sb, "addx    ", ins);
-                break;
-            case 0b0001010:
-                standardInstruction(sb, "adds    ", ins);
-                break;
-            case 0b0001011:
-                standardInstruction(sb, "addsx   ", ins);
+        String mnemonic = mnemonics[op];
+        switch (formats[op]) {
+            case STANDARD:
+                standardInstruction(sb, mnemonic, ins, false);
                 break;
-            case 0b0001100:
-                standardInstruction(sb, "sub     ", ins);
+            case STANDARD_UNARY:
+                standardInstruction(sb, mnemonic, ins, true);
                 break;
-            case 0b0001101:
-                standardInstruction(sb, "subx    ", ins);
+            case TEST_BIT:
+                altInstruction1(sb, mnemonic, ins);
                 break;
-            case 0b0001110:
-                standardInstruction(sb, "subs    ", ins);
-                break;
-            case 0b0001111:
-                standardInstruction(sb, "subsx   ", ins);
-                break;
-
-            case 0b0010000:
-                standardInstruction(sb, "cmp     ", ins);
-                break;
-            case 0b0010001:
-                standardInstruction(sb, "cmpx    ", ins);
-                break;
-            case 0b0010010:
-                standardInstruction(sb, "cmps    ", ins);
-                break;
-            case 0b0010011:
-                standardInstruction(sb, "cmpsx   ", ins);
-                break;
-            case 0b0010100:
-                standardInstruction(sb, "cmpr    ", ins);
-                break;
-            case 0b0010101:
-                standardInstruction(sb, "cmpm    ", ins);
-                break;
-            case 0b0010110:
-                standardInstruction(sb, "subr    ", ins);
-                break;
-            case 0b0010111:
-                standardInstruction(sb, "cmpsub  ", ins);
-                break;
-            case 0b0011000:
-                standardInstruction(sb, "fge     ", ins);
-                break;
-            case 0b0011001:
-                standardInstruction(sb, "fle     ", ins);
-                break;
-            case 0b0011010:
-                standardInstruction(sb, "fges    ", ins);
-                break;
-            case 0b0011011:
-                standardInstruction(sb, "fles    ", ins);
+            case DST_SRC:
+                sb.append(mnemonic);
+                hex(sb, dst, 3);
+                sb.append(", ");
+                immediate(sb, i, src);
                 break;
-            case 0b0011100:
-                standardInstruction(sb, "sumc    ", ins);
+            case DST_OPT_SRC:
+                sb.append(mnemonic);
+                hex(sb, dst, 3);
+                if (!i || src != 0) {
+                    sb.append(", ");
+                    immediate(sb, i, src);
+                }
                 break;
-            case 0b0011101:
-                standardInstruction(sb, "sumnc   ", ins);
+            case DST_OPT_SAME_SRC:
+                sb.append(mnemonic);
+                hex(sb, dst, 3);
+                if (!i || src != dst) {
+                    sb.append(", ");
+                    immediate(sb, i, src);
+                }
                 break;
-            case 0b0011110:
-                standardInstruction(sb, "sumz    ", ins);
+            case DST_SRC_WZ:
+                sb.append(mnemonic);
+                hex(sb, dst, 3);
+                sb.append(", ");
+                immediate(sb, i, src);
+                if ((cz & 0b01) != 0) {
+                    sb.append(" wz");
+                }
                 break;
-            case 0b0011111:
-                standardInstruction(sb, "sumnz   ", ins);
+            case DST_SRC_WC:
+                sb.append(mnemonic);
+                hex(sb, dst, 3);
+                sb.append(", ");
+                immediate(sb, i, src);
+                if ((cz & 0b10) != 0) {
+                    sb.append(" wc");
+                }
                 break;
-
-            case 0b0100000:
-                altInstruction1(sb, "testb   ", "bitl    ", ins);
+            case LIT_DST_SRC:
+                sb.append(mnemonic);
+                immediate(sb, (cz & 0b01) != 0, dst);
+                sb.append(", ");
+                immediate(sb, i, src);
                 break;
-            case 0b0100001:
-                altInstruction1(sb, "testbn  ", "bith    ", ins);
+            case SRC_DST:
+                srcDstOnly(sb, mnemonic, ins);
                 break;
-            case 0b0100010:
-                altInstruction1(sb, "testb   ", "bitc    ", ins);
+            case PTR_READ:
+                ptr(sb, mnemonic, ins, false);
+                sb.append(effect[cz]);
                 break;
-            case 0b0100011:
-                altInstruction1(sb, "testbn  ", "bitnc   ", ins);
+            case PTR_WRITE:
+                ptr(sb, mnemonic, ins, true);
                 break;
-            case 0b0100100:
-                altInstruction1(sb, "testb   ", "bitz    ", ins);
+            case JUMP:
+                jmpCall(sb, mnemonic, ins);
                 break;
-            case 0b0100101:
-                altInstruction1(sb, "testbn  ", "bitnz   ", ins);
+            case POINTER_ADDRESS:
+                sb.append(mnemonic);
+                sb.append(pointers[(op >> 2) & 0b11]);
+                sb.append(", #");
+                hex(sb, ins & 0xFFFFF, 8);
                 break;
-            case 0b0100110:
-                altInstruction1(sb, "testb   ", "bitrnd  ", ins);
+            case AUGMENT:
+                sb.append(mnemonic);
+                hex(sb, (ins << 9) >>> 8, 6);
+                sb.append("xx");
                 break;
-            case 0b0100111:
-                altInstruction1(sb, "testbn  ", "bitnot  ", ins);
+            default:
+                disassembleSpecial(sb, ins);
                 break;
+        }
 
-            case 0b0101000:
-                standardInstruction(sb, "and     ", ins);
-                break;
-            case 0b0101001:
-                standardInstruction(sb, "andn    ", ins);
-                break;
-            case 0b0101010:
-                standardInstruction(sb, "or      ", ins);
-                break;
-            case 0b0101011:
-                standardInstruction(sb, "xor     ", ins);
-                break;
-            case 0b0101100:
-                standardInstruction(sb, "muxc    ", ins);
-                break;
-            case 0b0101101:
-                standardInstruction(sb, "muxnc   ", ins);
-                break;
-            case 0b0101110:
-                standardInstruction(sb, "muxz    ", ins);
-                break;
-            case 0b0101111:
-                standardInstruction(sb, "muxnz   ", ins);
-                break;
+        return sb.toString();
+    }
 
-            case 0b0110000:
-                standardInstruction(sb, "mov     ", ins);
-                break;
-            case 0b0110001:
-                standardInstruction(sb, "not     ", ins, true);
-                break;
-            case 0b0110010:
-                standardInstruction(sb, "abs     ", ins, true);
-                break;
-            case 0b0110011:
-                standardInstruction(sb, "neg     ", ins, true);
-                break;
-            case 0b0110100:
-                standardInstruction(sb, "negc    ", ins, true);
-                break;
-            case 0b0110101:
-                standardInstruction(sb, "negnc   ", ins, true);
-                break;
-            case 0b0110110:
-                standardInstruction(sb, "negz    ", ins, true);
-                break;
-            case 0b0110111:
-                standardInstruction(sb, "negnz   ", ins, true);
-                break;
-            case 0b0111000:
-                standardInstruction(sb, "incmod  ", ins);
-                break;
-            case 0b0111001:
-                standardInstruction(sb, "decmod  ", ins);
-                break;
-            case 0b0111010:
-                standardInstruction(sb, "zerox   ", ins);
-                break;
-            case 0b0111011:
-                standardInstruction(sb, "signx   ", ins);
-                break;
-            case 0b0111100:
-                standardInstruction(sb, "encod   ", ins, true);
-                break;
-            case 0b0111101:
-                standardInstruction(sb, "ones    ", ins, true);
-                break;
-            case 0b0111110:
-                standardInstruction(sb, "test    ", ins, true);
-                break;
-            case 0b0111111:
-                standardInstruction(sb, "testn   ", ins);
-                break;
+    static void disassembleSpecial(StringBuilder sb, int ins) {
+        int o = Spin2InstructionObject.o.getValue(ins);
+        int cz = Spin2InstructionObject.cz.getValue(ins);
+        int d = Spin2InstructionObject.d.getValue(ins);
+        int s = Spin2InstructionObject.s.getValue(ins);
+        boolean i = Spin2InstructionObject.i.getValue(ins) == 1;
 
+        switch (o) {
             case 0b1000000:
             case 0b1000001:
                 sb.append("setnib  ");
-                if (Spin2InstructionObject.nnn.getValue(ins) == 0 && Spin2InstructionObject.d.getValue(ins) == 0) {
-                    if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                        sb.append("#");
-                    }
-                    sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                }
-                else {
-                    sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
-                    sb.append(", ");
-                    if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                        sb.append("#");
-                    }
-                    sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                    sb.append(", ");
-                    sb.append(String.format("#%d", Spin2InstructionObject.nnn.getValue(ins)));
-                }
+                setField(sb, ins, Spin2InstructionObject.nnn.getValue(ins));
                 break;
             case 0b1000010:
             case 0b1000011:
                 sb.append("getnib  ");
-                sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
-                if (Spin2InstructionObject.nnn.getValue(ins) != 0 || Spin2InstructionObject.s.getValue(ins) != 0) {
-                    sb.append(", ");
-                    if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                        sb.append("#");
-                    }
-                    sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                    sb.append(", ");
-                    sb.append(String.format("#%d", Spin2InstructionObject.nnn.getValue(ins)));
-                }
+                getField(sb, ins, Spin2InstructionObject.nnn.getValue(ins) != 0, Spin2InstructionObject.nnn.getValue(ins));
                 break;
             case 0b1000100:
             case 0b1000101:
                 sb.append("rolnib  ");
-                sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
-                if (Spin2InstructionObject.nnn.getValue(ins) != 0 || Spin2InstructionObject.s.getValue(ins) != 0) {
-                    sb.append(", ");
-                    if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                        sb.append("#");
-                    }
-                    sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                    sb.append(", ");
-                    sb.append(String.format("#%d", Spin2InstructionObject.nnn.getValue(ins)));
-                }
+                getField(sb, ins, Spin2InstructionObject.nnn.getValue(ins) != 0, Spin2InstructionObject.nnn.getValue(ins));
                 break;
             case 0b1000110:
                 sb.append("setbyte ");
-                if (Spin2InstructionObject.cz.getValue(ins) == 0 && Spin2InstructionObject.d.getValue(ins) == 0) {
-                    if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                        sb.append("#");
-                    }
-                    sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                }
-                else {
-                    sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
-                    sb.append(", ");
-                    if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                        sb.append("#");
-                    }
-                    sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                    sb.append(", ");
-                    sb.append(String.format("#%d", Spin2InstructionObject.cz.getValue(ins)));
-                }
+                setField(sb, ins, cz);
                 break;
             case 0b1000111:
                 sb.append("getbyte ");
-                sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
-                if (Spin2InstructionObject.cz.getValue(ins) != 0 || Spin2InstructionObject.s.getValue(ins) != 0) {
-                    sb.append(", ");
-                    if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                        sb.append("#");
-                    }
-                    sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                    sb.append(", ");
-                    sb.append(String.format("#%d", Spin2InstructionObject.cz.getValue(ins)));
-                }
+                getField(sb, ins, cz != 0, cz);
                 break;
             case 0b1001000:
                 sb.append("rolbyte ");
-                sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
-                if (Spin2InstructionObject.czi.getValue(ins) != 0b000 || Spin2InstructionObject.s.getValue(ins) != 0) {
-                    sb.append(", ");
-                    if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                        sb.append("#");
-                    }
-                    sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                    sb.append(", ");
-                    sb.append(String.format("#%d", Spin2InstructionObject.cz.getValue(ins)));
-                }
+                getField(sb, ins, Spin2InstructionObject.czi.getValue(ins) != 0b000, cz);
                 break;
             case 0b1001001:
                 if (Spin2InstructionObject.c.getValue(ins) == 0) {
                     sb.append("setword ");
-                    if (Spin2InstructionObject.z.getValue(ins) == 0 && Spin2InstructionObject.d.getValue(ins) == 0) {
-                        if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                            sb.append("#");
-                        }
-                        sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                    }
-                    else {
-                        sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
-                        sb.append(", ");
-                        if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                            sb.append("#");
-                        }
-                        sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                        sb.append(", ");
-                        sb.append(String.format("#%d", Spin2InstructionObject.z.getValue(ins)));
-                    }
+                    setField(sb, ins, Spin2InstructionObject.z.getValue(ins));
                 }
                 else {
                     sb.append("getword ");
-                    sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
-                    if (Spin2InstructionObject.czi.getValue(ins) != 0b100 || Spin2InstructionObject.s.getValue(ins) != 0) {
-                        sb.append(", ");
-                        if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                            sb.append("#");
-                        }
-                        sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                        sb.append(", ");
-                        sb.append(String.format("#%d", Spin2InstructionObject.z.getValue(ins)));
-                    }
+                    getField(sb, ins, Spin2InstructionObject.czi.getValue(ins) != 0b100, Spin2InstructionObject.z.getValue(ins));
                 }
                 break;
             case 0b1001010:
-                if (Spin2InstructionObject.c.getValue(ins) == 0) {
-                    sb.append("rolword ");
-                    sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
-                    if (Spin2InstructionObject.czi.getValue(ins) != 0b000 || Spin2InstructionObject.s.getValue(ins) != 0) {
-                        sb.append(", ");
-                        if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                            sb.append("#");
-                        }
-                        sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                        sb.append(", ");
-                        sb.append(String.format("#%d", Spin2InstructionObject.z.getValue(ins)));
-                    }
-                }
-                else {
-                    if (Spin2InstructionObject.cz.getValue(ins) == 0b10) {
-                        sb.append("altsn   ");
-                    }
-                    else if (Spin2InstructionObject.cz.getValue(ins) == 0b11) {
-                        sb.append("altgn   ");
-                    }
-                    sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
-                    if (Spin2InstructionObject.i.getValue(ins) != 1 || Spin2InstructionObject.s.getValue(ins) != 0) {
-                        sb.append(", ");
-                        if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                            sb.append("#");
-                        }
-                        sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                    }
-                }
-                break;
-            case 0b1001011:
-                if (Spin2InstructionObject.cz.getValue(ins) == 0b00) {
-                    sb.append("altsb   ");
-                }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b01) {
-                    sb.append("altgb   ");
-                }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b10) {
-                    sb.append("altsw   ");
-                }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b11) {
-                    sb.append("altgw   ");
-                }
-                sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
-                if (Spin2InstructionObject.i.getValue(ins) != 1 || Spin2InstructionObject.s.getValue(ins) != 0) {
-                    sb.append(", ");
-                    if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                        sb.append("#");
-                    }
-                    sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                }
-                break;
-            case 0b1001100:
-                if (Spin2InstructionObject.cz.getValue(ins) == 0b00) {
-                    sb.append("altr    ");
-                }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b01) {
-                    sb.append("altd    ");
-                }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b10) {
-                    sb.append("alts    ");
-                }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b11) {
-                    sb.append("altb    ");
-                }
-                sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
-                if (Spin2InstructionObject.i.getValue(ins) != 1 || Spin2InstructionObject.s.getValue(ins) != 0) {
-                    sb.append(", ");
-                    if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                        sb.append("#");
-                    }
-                    sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                }
+                sb.append("rolword ");
+                getField(sb, ins, Spin2InstructionObject.czi.getValue(ins) != 0b000, Spin2InstructionObject.z.getValue(ins));
                 break;
             case 0b1001101:
-                if (Spin2InstructionObject.cz.getValue(ins) == 0b00) {
-                    sb.append("alti    ");
-                    sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
-                    if (Spin2InstructionObject.i.getValue(ins) != 1 || Spin2InstructionObject.s.getValue(ins) != 0b101100100) {
-                        sb.append(", ");
-                        if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                            sb.append("#");
-                        }
-                        sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                    }
-                }
-                else {
-                    if (Spin2InstructionObject.cz.getValue(ins) == 0b01) {
-                        sb.append("setr    ");
-                    }
-                    else if (Spin2InstructionObject.cz.getValue(ins) == 0b10) {
-                        sb.append("setd    ");
-                    }
-                    else if (Spin2InstructionObject.cz.getValue(ins) == 0b11) {
-                        sb.append("sets    ");
-                    }
-                    sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
+                sb.append("alti    ");
+                hex(sb, d, 3);
+                if (!i || s != 0b101100100) {
                     sb.append(", ");
-                    if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                        sb.append("#");
-                    }
-                    sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
+                    immediate(sb, i, s);
                 }
                 break;
-            case 0b1001110:
-                if (Spin2InstructionObject.cz.getValue(ins) == 0b00) {
-                    sb.append("decod   ");
-                }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b01) {
-                    sb.append("bmask   ");
-                }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b10) {
-                    sb.append("crcbit  ");
-                }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b11) {
-                    sb.append("crcnib  ");
-                }
-                sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
-                if (Spin2InstructionObject.i.getValue(ins) != 1 || Spin2InstructionObject.s.getValue(ins) != Spin2InstructionObject.d.getValue(ins)) {
-                    sb.append(", ");
-                    if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                        sb.append("#");
-                    }
-                    sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                }
-                break;
-            case 0b1001111:
-                if (Spin2InstructionObject.cz.getValue(ins) == 0b00) {
-                    sb.append("muxnits ");
-                }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b01) {
-                    sb.append("muxnibs ");
-                }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b10) {
-                    sb.append("muxq    ");
-                }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b11) {
-                    sb.append("movbyts ");
-                }
-                sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
-                sb.append(", ");
-                if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                    sb.append("#");
-                }
-                sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                break;
-
-            case 0b1010000:
-                if (Spin2InstructionObject.c.getValue(ins) == 0) {
-                    sb.append("mul     ");
-                }
-                else {
-                    sb.append("muls    ");
-                }
-                sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
-                sb.append(", ");
-                if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                    sb.append("#");
-                }
-                sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                if (Spin2InstructionObject.z.getValue(ins) == 1) {
-                    sb.append(" wz");
-                }
-                break;
-            case 0b1010001:
-                if (Spin2InstructionObject.c.getValue(ins) == 0) {
-                    sb.append("sca     ");
-                }
-                else {
-                    sb.append("scas    ");
-                }
-                sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
-                sb.append(", ");
-                if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                    sb.append("#");
-                }
-                sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                if (Spin2InstructionObject.z.getValue(ins) == 1) {
-                    sb.append(" wz");
-                }
-                break;
-            case 0b1010010:
-                if (Spin2InstructionObject.cz.getValue(ins) == 0b00) {
-                    sb.append("addpix  ");
-                }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b01) {
-                    sb.append("mulpix  ");
-                }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b10) {
-                    sb.append("blnpix  ");
-                }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b11) {
-                    sb.append("mixpix  ");
-                }
-                sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
-                sb.append(", ");
-                if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                    sb.append("#");
-                }
-                sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                break;
-            case 0b1010011:
-                if (Spin2InstructionObject.cz.getValue(ins) == 0b00) {
-                    sb.append("addct1  ");
-                }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b01) {
-                    sb.append("addct2  ");
-                }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b10) {
-                    sb.append("addct3  ");
-                }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b11) {
-                    sb.append("wmlong  ");
-                }
-                sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
-                sb.append(", ");
-                if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                    sb.append("#");
-                }
-                sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                break;
-            case 0b1010100:
-                if (Spin2InstructionObject.z.getValue(ins) == 0) {
-                    sb.append("rqpin   ");
-                }
-                else {
-                    sb.append("rdpin   ");
-                }
-                sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
-                sb.append(", ");
-                if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                    sb.append("#");
-                }
-                sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                if (Spin2InstructionObject.c.getValue(ins) == 1) {
-                    sb.append(" wc");
-                }
-                break;
-            case 0b1010101:
-                ptr(sb, "rdlut   ", ins, false);
-                sb.append(effect[Spin2InstructionObject.cz.getValue(ins)]);
-                break;
-            case 0b1010110:
-                ptr(sb, "rdbyte  ", ins, false);
-                sb.append(effect[Spin2InstructionObject.cz.getValue(ins)]);
-                break;
-            case 0b1010111:
-                ptr(sb, "rdword  ", ins, false);
-                sb.append(effect[Spin2InstructionObject.cz.getValue(ins)]);
-                break;
-            case 0b1011000:
-                ptr(sb, "rdlong  ", ins, false);
-                sb.append(effect[Spin2InstructionObject.cz.getValue(ins)]);
-                break;
             case 0b1011001:
                 switch (ins & 0b111_111111111_111111111) {
                     case 0b110_111110000_111110001:
@@ -693,287 +516,31 @@ public class P2Disassembler {
                         sb.append("reti0   ");
                         break;
                     default:
-                        standardInstruction(sb, "calld   ", ins);
+                        standardInstruction(sb, "calld   ", ins, false);
                         break;
                 }
                 break;
             case 0b1011010:
                 sb.append(Spin2InstructionObject.c.getValue(ins) == 0 ? "callpa  " : "callpb  ");
                 if (Spin2InstructionObject.l.getValue(ins) == 1) {
-                    sb.append("#");
-                }
-                sb.append(register(Spin2InstructionObject.d.getValue(ins)));
-                sb.append(", ");
-                if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                    sb.append("#");
-                }
-                sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                break;
-            case 0b1011011:
-                if (Spin2InstructionObject.cz.getValue(ins) == 0b00) {
-                    sb.append("djz     ");
-                }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b01) {
-                    sb.append("djnz    ");
-                }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b10) {
-                    sb.append("djf     ");
-                }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b11) {
-                    sb.append("djnf    ");
-                }
-                sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
-                sb.append(", ");
-                if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                    sb.append("#");
-                }
-                sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                break;
-            case 0b1011100:
-                if (Spin2InstructionObject.cz.getValue(ins) == 0b00) {
-                    sb.append("ijz     ");
+                    sb.append('#');
                 }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b01) {
-                    sb.append("ijnz    ");
-                }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b10) {
-                    sb.append("tjz     ");
-                }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b11) {
-                    sb.append("tjnz    ");
-                }
-                sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
+                register(sb, d);
                 sb.append(", ");
-                if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                    sb.append("#");
-                }
-                sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                break;
-            case 0b1011101:
-                if (Spin2InstructionObject.cz.getValue(ins) == 0b00) {
-                    sb.append("tjf     ");
-                }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b01) {
-                    sb.append("tjnf    ");
-                }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b10) {
-                    sb.append("tjs     ");
-                }
-                else if (Spin2InstructionObject.cz.getValue(ins) == 0b11) {
-                    sb.append("tjns    ");
-                }
-                sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
-                sb.append(", ");
-                if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                    sb.append("#");
-                }
-                sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
+                immediate(sb, i, s);
                 break;
             case 0b1011110:
-                if (cz == 0b00) {
-                    sb.append("tjv     ");
-                    sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
-                    sb.append(", ");
-                    if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                        sb.append("#");
-                    }
-                    sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                }
-                else if (cz == 0b01) {
-                    switch (Spin2InstructionObject.d.getValue(ins)) {
-                        case 0b000000000:
-                            sb.append("jint    ");
-                            break;
-                        case 0b000000001:
-                            sb.append("jct1    ");
-                            break;
-                        case 0b000000010:
-                            sb.append("jct2    ");
-                            break;
-                        case 0b000000011:
-                            sb.append("jct3    ");
-                            break;
-                        case 0b000000100:
-                            sb.append("jse1    ");
-                            break;
-                        case 0b000000101:
-                            sb.append("jse2    ");
-                            break;
-                        case 0b000000110:
-                            sb.append("jse3    ");
-                            break;
-                        case 0b000000111:
-                            sb.append("jse4    ");
-                            break;
-                        case 0b000001000:
-                            sb.append("jpat    ");
-                            break;
-                        case 0b000001001:
-                            sb.append("jfbw    ");
-                            break;
-                        case 0b000001010:
-                            sb.append("jxmt    ");
-                            break;
-                        case 0b000001011:
-                            sb.append("jxfi    ");
-                            break;
-                        case 0b000001100:
-                            sb.append("jxro    ");
-                            break;
-                        case 0b000001101:
-                            sb.append("jxrl    ");
-                            break;
-                        case 0b000001110:
-                            sb.append("jatn    ");
-                            break;
-                        case 0b000001111:
-                            sb.append("jqmt    ");
-                            break;
-                        case 0b000010000:
-                            sb.append("jnint   ");
-                            break;
-                        case 0b000010001:
-                            sb.append("jnct1   ");
-                            break;
-                        case 0b000010010:
-                            sb.append("jnct2   ");
-                            break;
-                        case 0b000010011:
-                            sb.append("jnct3   ");
-                            break;
-                        case 0b000010100:
-                            sb.append("jnse1   ");
-                            break;
-                        case 0b000010101:
-                            sb.append("jnse2   ");
-                            break;
-                        case 0b000010110:
-                            sb.append("jnse3   ");
-                            break;
-                        case 0b000010111:
-                            sb.append("jnse4   ");
-                            break;
-                        case 0b000011000:
-                            sb.append("jnpat   ");
-                            break;
-                        case 0b000011001:
-                            sb.append("jnfbw   ");
-                            break;
-                        case 0b000011010:
-                            sb.append("jnxmt   ");
-                            break;
-                        case 0b000011011:
-                            sb.append("jnxfi   ");
-                            break;
-                        case 0b000011100:
-                            sb.append("jnxro   ");
-                            break;
-                        case 0b000011101:
-                            sb.append("jnxrl   ");
-                            break;
-                        case 0b000011110:
-                            sb.append("jnatn   ");
-                            break;
-                        case 0b000011111:
-                            sb.append("jnqmt   ");
-                            break;
-                    }
-                    if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                        sb.append("#");
-                    }
-                    sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                }
-                else if (Spin2InstructionObject.c.getValue(ins) == 1) {
-                    srcDstOnly(sb, "<empty> ", ins);
+                if (d < jumpEvents.length) {
+                    sb.append(jumpEvents[d]);
                 }
+                immediate(sb, i, s);
                 break;
-            case 0b1011111:
-                if (Spin2InstructionObject.c.getValue(ins) == 0) {
-                    srcDstOnly(sb, "<empty> ", ins);
-                }
-                else {
-                    srcDstOnly(sb, "setpat  ", ins);
-                }
-                break;
-
             case 0b1100000:
-                if (Spin2InstructionObject.cz.getValue(ins) == 0b01) {
-                    sb.append("akpin   ");
-                    if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                        sb.append("#");
-                    }
-                    sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                }
-                else {
-                    if (Spin2InstructionObject.c.getValue(ins) == 0) {
-                        sb.append("wrpin   ");
-                    }
-                    else {
-                        sb.append("wxpin   ");
-                    }
-                    if (Spin2InstructionObject.l.getValue(ins) == 1) {
-                        sb.append("#");
-                    }
-                    sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
-                    sb.append(", ");
-                    if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                        sb.append("#");
-                    }
-                    sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                }
-                break;
-            case 0b1100001:
-                if (Spin2InstructionObject.c.getValue(ins) == 0) {
-                    sb.append("wypin   ");
-                    if (Spin2InstructionObject.l.getValue(ins) == 1) {
-                        sb.append("#");
-                    }
-                    sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
-                    sb.append(", ");
-                    if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                        sb.append("#");
-                    }
-                    sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
-                }
-                else {
-                    ptr(sb, "wrlut   ", ins, true);
-                }
-                break;
-            case 0b1100010:
-                if (Spin2InstructionObject.c.getValue(ins) == 0) {
-                    ptr(sb, "wrbyte  ", ins, true);
-                }
-                else {
-                    ptr(sb, "wrword  ", ins, true);
-                }
-                break;
-            case 0b1100011:
-                if (Spin2InstructionObject.c.getValue(ins) == 0) {
-                    ptr(sb, "wrlong  ", ins, true);
-                }
-                else {
-                    srcDstOnly(sb, "rdfast  ", ins);
-                }
-                break;
-            case 0b1100100:
-                if (Spin2InstructionObject.c.getValue(ins) == 0) {
-                    sb.append("wrfast  ");
-                }
-                else {
-                    sb.append("fblock  ");
-                }
-                if (Spin2InstructionObject.l.getValue(ins) == 1) {
-                    sb.append("#");
-                }
-                sb.append(String.format("$%03X", Spin2InstructionObject.d.getValue(ins)));
-                sb.append(", ");
-                if (Spin2InstructionObject.i.getValue(ins) == 1) {
-                    sb.append("#");
-                }
-                sb.append(String.format("$%03X", Spin2InstructionObject.s.getValue(ins)));
+                sb.append("akpin   ");
+                immediate(sb, i, s);
                 break;
             case 0b1100101:
-                if (Spin2InstructionObject.czi.getValue(ins) == 0b011 && Spin2InstructionObject.d.getValue(ins) == 0 && Spin2InstructionObject.s.getValue(ins) == 0) {
+                if (Spin2InstructionObject.czi.getValue(ins) == 0b011 && d == 0 && s == 0) {
                     sb.append("xstop   ");
                 }
                 else {
@@ -985,105 +552,52 @@ public class P2Disassembler {
                     }
                 }
                 break;
-            case 0b1100110:
-                if (Spin2InstructionObject.c.getValue(ins) == 0) {
-                    srcDstOnly(sb, "xcont   ", ins);
-                }
-                else {
-                    srcDstOnly(sb, "rep     ", ins);
-                }
-                break;
             case 0b1100111:
                 srcDstOnly(sb, "coginit ", ins);
                 if (Spin2InstructionObject.c.getValue(ins) == 1) {
                     sb.append(" wc");
                 }
                 break;
-            case 0b1101000:
-                if (Spin2InstructionObject.c.getValue(ins) == 0) {
-                    srcDstOnly(sb, "qmul    ", ins);
-                }
-                else {
-                    srcDstOnly(sb, "qdiv    ", ins);
-                }
-                break;
-            case 0b1101001:
-                if (Spin2InstructionObject.c.getValue(ins) == 0) {
-                    srcDstOnly(sb, "qfrac   ", ins);
-                }
-                else {
-                    srcDstOnly(sb, "qsqrt   ", ins);
-                }
-                break;
-            case 0b1101010:
-                if (Spin2InstructionObject.c.getValue(ins) == 0) {
-                    srcDstOnly(sb, "qrotate ", ins);
-                }
-                else {
-                    srcDstOnly(sb, "qvector ", ins);
-                }
-                break;
             case 0b1101011:
                 group1101011(sb, ins);
                 break;
-            case 0b1101100:
-                jmpCall(sb, "jmp     ", ins);
-                break;
-            case 0b1101101:
-                jmpCall(sb, "call    ", ins);
-                break;
-            case 0b1101110:
-                jmpCall(sb, "calla   ", ins);
-                break;
-            case 0b1101111:
-                jmpCall(sb, "callb   ", ins);
-                break;
+        }
+    }
 
-            case 0b1110000:
-            case 0b1110001:
-            case 0b1110010:
-            case 0b1110011:
-                sb.append("calld   ");
-                sb.append(pointers[Spin2InstructionObject.o.getValue(ins) & 0b11]);
-                sb.append(", #");
-                sb.append(String.format("$%08X", Spin2InstructionObject.a.getValue(ins)));
-                break;
-            case 0b1110100:
-            case 0b1110101:
-            case 0b1110110:
-            case 0b1110111:
-                sb.append("loc     ");
-                sb.append(pointers[Spin2InstructionObject.o.getValue(ins) & 0b11]);
-                sb.append(", #");
-                sb.append(String.format("$%08X", Spin2InstructionObject.a.getValue(ins)));
-                break;
-            case 0b1111000:
-            case 0b1111001:
-            case 0b1111010:
-            case 0b1111011:
-                sb.append("augs    #");
-                sb.append(String.format("$%08X", Spin2InstructionObject.x.getValue(ins) << 9).substring(0, 7));
-                sb.append("xx");
-                break;
-            case 0b1111100:
-            case 0b1111101:
-            case 0b1111110:
-            case 0b1111111:
-                sb.append("augd    #");
-                sb.append(String.format("$%08X", Spin2InstructionObject.x.getValue(ins) << 9).substring(0, 7));
-                sb.append("xx");
-                break;
+    static void setField(StringBuilder sb, int ins, int n) {
+        int d = Spin2InstructionObject.d.getValue(ins);
+        boolean i = Spin2InstructionObject.i.getValue(ins) == 1;
+
+        if (n == 0 && d == 0) {
+            immediate(sb, i, Spin2InstructionObject.s.getValue(ins));
         }
+        else {
+            hex(sb, d, 3);
+            sb.append(", ");
+            immediate(sb, i, Spin2InstructionObject.s.getValue(ins));
+            sb.append(", #");
+            sb.append(n);
+        }
+    }
 
-        return sb.toString();
+    static void getField(StringBuilder sb, int ins, boolean hasIndex, int n) {
+        int s = Spin2InstructionObject.s.getValue(ins);
+
+        hex(sb, Spin2InstructionObject.d.getValue(ins), 3);
+        if (hasIndex || s != 0) {
+            sb.append(", ");
+            immediate(sb, Spin2InstructionObject.i.getValue(ins) == 1, s);
+            sb.append(", #");
+            sb.append(n);
+        }
     }
 
     static void ptr(StringBuilder sb, String mnemonic, int ins, boolean immd) {
         sb.append(mnemonic);
         if (immd && Spin2InstructionObject.l.getValue(ins) == 1) {
-            sb.append("#");
+            sb.append('#');
         }
-        sb.append(register(Spin2InstructionObject.d.getValue(ins)));
+        register(sb, Spin2InstructionObject.d.getValue(ins));
         sb.append(", ");
 
         int s = Spin2InstructionObject.s.getValue(ins);
@@ -1098,36 +612,36 @@ public class P2Disassembler {
                     sb.append(ofs < 0 ? "--" : "++");
                 }
                 if (ofs != 0 && ofs != -1 && ofs != 1) {
-                    sb.append(String.format("[%d]", Math.abs(ofs)));
+                    sb.append('[');
+                    sb.append(Math.abs(ofs));
+                    sb.append(']');
                 }
             }
             else {
                 sb.append((s & 0b010000000) == 0 ? "ptra" : "ptrb");
                 if ((s & 0x3F) != 0) {
-                    sb.append(String.format("[%d]", ((s & 0x3F) << 26) >> 26));
+                    sb.append('[');
+                    sb.append(((s & 0x3F) << 26) >> 26);
+                    sb.append(']');
                 }
             }
         }
         else {
-            sb.append(register(s));
+            register(sb, s);
         }
     }
 
     static void srcDstOnly(StringBuilder sb, String mnemonic, int ins) {
         sb.append(mnemonic);
         if (Spin2InstructionObject.l.getValue(ins) == 1) {
-            sb.append("#");
+            sb.append('#');
         }
-        sb.append(register(Spin2InstructionObject.d.getValue(ins)));
+        register(sb, Spin2InstructionObject.d.getValue(ins));
         sb.append(", ");
         if (Spin2InstructionObject.i.getValue(ins) == 1) {
-            sb.append("#");
+            sb.append('#');
         }
-        sb.append(register(Spin2InstructionObject.s.getValue(ins)));
-    }
-
-    static void standardInstruction(StringBuilder sb, String mnemonic, int ins) {
-        standardInstruction(sb, mnemonic, ins, false);
+        register(sb, Spin2InstructionObject.s.getValue(ins));
     }
 
     static void standardInstruction(StringBuilder sb, String mnemonic, int ins, boolean canOmitSrc) {
@@ -1137,34 +651,33 @@ public class P2Disassembler {
         int src = Spin2InstructionObject.s.getValue(ins);
 
         sb.append(mnemonic);
-        sb.append(register(dst));
+        register(sb, dst);
 
         if (!canOmitSrc || src != dst || i) {
             sb.append(", ");
             if (i) {
-                sb.append("#");
+                sb.append('#');
             }
-            sb.append(register(src));
+            register(sb, src);
         }
 
         sb.append(effect[cz]);
     }
 
-    static void altInstruction1(StringBuilder sb, String mnemonic1, String mnemonic2, int ins) {
+    static void altInstruction1(StringBuilder sb, String mnemonic, int ins) {
         boolean i = Spin2InstructionObject.i.getValue(ins) == 1;
-        int cz = Spin2InstructionObject.cz.getValue(ins);
         int dst = Spin2InstructionObject.d.getValue(ins);
         int src = Spin2InstructionObject.s.getValue(ins);
 
-        sb.append((cz == 0b00 || cz == 0b11) ? mnemonic2 : mnemonic1);
+        sb.append(mnemonic);
 
-        sb.append(register(dst));
+        register(sb, dst);
 
         sb.append(", ");
         if (i) {
-            sb.append("#");
+            sb.append('#');
         }
-        sb.append(register(src));
+        register(sb, src);
 
         String swc = " wc";
         String swz = " wz";
@@ -1202,354 +715,50 @@ public class P2Disassembler {
     static void jmpCall(StringBuilder sb, String mnemonic, int ins) {
         sb.append(mnemonic);
 
-        sb.append("#");
+        sb.append('#');
         if (Spin2InstructionObject.r.getValue(ins) == 0) {
-            sb.append("\\");
+            sb.append('\\');
         }
-        sb.append(String.format("$%05X", Spin2InstructionObject.a.getValue(ins)));
+        hex(sb, Spin2InstructionObject.a.getValue(ins), 5);
     }
 
     static void group1101011(StringBuilder sb, int ins) {
         boolean i = Spin2InstructionObject.i.getValue(ins) == 1;
         int dst = Spin2InstructionObject.d.getValue(ins);
         int cz = Spin2InstructionObject.cz.getValue(ins);
+        int s = Spin2InstructionObject.s.getValue(ins);
 
-        switch (Spin2InstructionObject.s.getValue(ins)) {
-            case 0b000000000:
-                sb.append("hubset  ");
-                break;
-            case 0b000000001:
-                sb.append("cogid   ");
-                break;
-            case 0b000000011:
-                sb.append("cogstop ");
-                break;
-            case 0b000000100:
-                sb.append("locknew ");
-                break;
-            case 0b000000101:
-                sb.append("lockret ");
-                break;
-            case 0b000000110:
-                sb.append("locktry ");
-                break;
-            case 0b000000111:
-                sb.append("lockrel ");
-                break;
-
-            case 0b000001000:
-                sb.append("??? xx1 ");
-                break;
-            case 0b000001001:
-                sb.append("??? xx2 ");
-                break;
-            case 0b000001010:
-                sb.append("??? xx3 ");
-                break;
-            case 0b000001011:
-                sb.append("??? xx4 ");
-                break;
-            case 0b000001100:
-                sb.append("??? xx5 ");
-                break;
-            case 0b000001101:
-                sb.append("??? xx6 ");
-                break;
-            case 0b000001110:
-                sb.append("qlog    ");
-                break;
-            case 0b000001111:
-                sb.append("qexp    ");
-                break;
-
-            case 0b000010000:
-                sb.append("rfbyte  ");
-                break;
-            case 0b000010001:
-                sb.append("rfword  ");
-                break;
-            case 0b000010010:
-                sb.append("rflong  ");
-                break;
-            case 0b000010011:
-                sb.append("rfvar   ");
-                break;
-            case 0b000010100:
-                sb.append("rfvars  ");
-                break;
-            case 0b000010101:
-                sb.append("wfbyte  ");
-                break;
-            case 0b000010110:
-                sb.append("wfword  ");
-                break;
-            case 0b000010111:
-                sb.append("wflong  ");
-                break;
-
-            case 0b000011000:
-                sb.append("getqx   ");
-                break;
-            case 0b000011001:
-                sb.append("getqy   ");
-                break;
-            case 0b000011010:
-                sb.append("getct   ");
-                break;
-            case 0b000011011:
-                sb.append("getrnd  ");
-                break;
-            case 0b000011100:
-                sb.append("setdacs ");
-                break;
-            case 0b000011101:
-                sb.append("setxfrq ");
-                break;
-            case 0b000011110:
-                sb.append("getxacc ");
-                break;
-            case 0b000011111:
-                sb.append("waitx   ");
-                break;
-
-            case 0b000100000:
-                sb.append("setse1  ");
-                break;
-            case 0b000100001:
-                sb.append("setse2  ");
-                break;
-            case 0b000100010:
-                sb.append("setse3  ");
-                break;
-            case 0b000100011:
-                sb.append("setse4  ");
-                break;
-
+        switch (s) {
             case 0b000100100:
-                if (Spin2InstructionObject.i.getValue(ins) == 0 && dst <= 0b000011110) {
-                    switch (dst) {
-                        case 0b000000000:
-                            sb.append("pollint ");
-                            break;
-                        case 0b000000001:
-                            sb.append("pollct1 ");
-                            break;
-                        case 0b000000010:
-                            sb.append("pollct2 ");
-                            break;
-                        case 0b000000011:
-                            sb.append("pollct3 ");
-                            break;
-                        case 0b000000100:
-                            sb.append("pollse1 ");
-                            break;
-                        case 0b000000101:
-                            sb.append("pollse2 ");
-                            break;
-                        case 0b000000110:
-                            sb.append("pollse3 ");
-                            break;
-                        case 0b000000111:
-                            sb.append("pollse4 ");
-                            break;
-                        case 0b000001000:
-                            sb.append("pollpat ");
-                            break;
-                        case 0b000001001:
-                            sb.append("pollfbw ");
-                            break;
-                        case 0b000001010:
-                            sb.append("pollxmt ");
-                            break;
-                        case 0b000001011:
-                            sb.append("pollxfi ");
-                            break;
-                        case 0b000001100:
-                            sb.append("pollxro ");
-                            break;
-                        case 0b000001101:
-                            sb.append("pollxrl ");
-                            break;
-                        case 0b000001110:
-                            sb.append("pollatn ");
-                            break;
-                        case 0b000001111:
-                            sb.append("pollqmt ");
-                            break;
-                        case 0b000010000:
-                            sb.append("waitint ");
-                            break;
-                        case 0b000010001:
-                            sb.append("waitct1 ");
-                            break;
-                        case 0b000010010:
-                            sb.append("waitct2 ");
-                            break;
-                        case 0b000010011:
-                            sb.append("waitct3 ");
-                            break;
-                        case 0b000010100:
-                            sb.append("waitse1 ");
-                            break;
-                        case 0b000010101:
-                            sb.append("waitse2 ");
-                            break;
-                        case 0b000010110:
-                            sb.append("waitse3 ");
-                            break;
-                        case 0b000010111:
-                            sb.append("waitse4 ");
-                            break;
-                        case 0b000011000:
-                            sb.append("waitpat ");
-                            break;
-                        case 0b000011001:
-                            sb.append("waitfbw ");
-                            break;
-                        case 0b000011010:
-                            sb.append("waitxmt ");
-                            break;
-                        case 0b000011011:
-                            sb.append("waitxfi ");
-                            break;
-                        case 0b000011100:
-                            sb.append("waitxro ");
-                            break;
-                        case 0b000011101:
-                            sb.append("waitxrl ");
-                            break;
-                        case 0b000011110:
-                            sb.append("waitatn ");
-                            break;
-                        default:
-                            sb.append("??? x13 ");
-                            break;
-                    }
+                if (!i && dst < events.length) {
+                    sb.append(events[dst]);
                     sb.append(effect[cz]);
                     return;
                 }
                 if (Spin2InstructionObject.czi.getValue(ins) == 0b000) {
-                    switch (dst) {
-                        case 0b000100000:
-                            sb.append("allowi  ");
-                            return;
-                        case 0b000100001:
-                            sb.append("stalli  ");
-                            return;
-                        case 0b000100010:
-                            sb.append("trgint1 ");
-                            return;
-                        case 0b000100011:
-                            sb.append("trgint2 ");
-                            return;
-                        case 0b000100100:
-                            sb.append("trgint3 ");
-                            return;
-                        case 0b000100101:
-                            sb.append("nixint1 ");
-                            return;
-                        case 0b000100110:
-                            sb.append("nixint2 ");
-                            return;
-                        case 0b000100111:
-                            sb.append("nixint3 ");
-                            return;
+                    if (dst >= 0b000100000 && dst <= 0b000100111) {
+                        sb.append(interrupts[dst - 0b000100000]);
+                        return;
                     }
                 }
                 sb.append("??? x12 ");
                 return;
-            case 0b000100101:
-                sb.append("setint1 ");
-                break;
-            case 0b000100110:
-                sb.append("setint2 ");
-                break;
-            case 0b000100111:
-                sb.append("setint3 ");
-                break;
-
-            case 0b000101000:
-                sb.append("setq    ");
-                break;
-            case 0b000101001:
-                sb.append("setq2   ");
-                break;
-            case 0b000101010:
-                sb.append("push    ");
-                break;
-            case 0b000101011:
-                sb.append("pop     ");
-                break;
-            case 0b000101100:
-                sb.append("jmp     ");
-                break;
             case 0b000101101:
-                sb.append(Spin2InstructionObject.i.getValue(ins) == 0 ? "call    " : "ret     ");
-                sb.append(register(dst));
+                sb.append(!i ? "call    " : "ret     ");
+                register(sb, dst);
                 sb.append(effect[cz]);
                 return;
             case 0b000101110:
-                sb.append(Spin2InstructionObject.i.getValue(ins) == 0 ? "calla   " : "reta    ");
-                sb.append(register(dst));
+                sb.append(!i ? "calla   " : "reta    ");
+                register(sb, dst);
                 sb.append(effect[cz]);
                 return;
             case 0b000101111:
-                sb.append(Spin2InstructionObject.i.getValue(ins) == 0 ? "callb   " : "retb    ");
-                sb.append(register(dst));
+                sb.append(!i ? "callb   " : "retb    ");
+                register(sb, dst);
                 sb.append(effect[cz]);
                 return;
 
-            case 0b000110000:
-                sb.append("jmprel  ");
-                break;
-            case 0b000110001:
-                sb.append("skip    ");
-                break;
-            case 0b000110010:
-                sb.append("skipf   ");
-                break;
-            case 0b000110011:
-                sb.append("execf   ");
-                break;
-
-            case 0b000110100:
-                sb.append("getptr  ");
-                break;
-            case 0b000110101:
-                sb.append("cogbrk  ");
-                break;
-            case 0b000110110:
-                sb.append("brk     ");
-                break;
-            case 0b000110111:
-                sb.append("setluts ");
-                break;
-
-            case 0b000111000:
-                sb.append("setcy   ");
-                break;
-            case 0b000111001:
-                sb.append("setci   ");
-                break;
-            case 0b000111010:
-                sb.append("setcq   ");
-                break;
-            case 0b000111011:
-                sb.append("setcfrq ");
-                break;
-            case 0b000111100:
-                sb.append("setcmod ");
-                break;
-            case 0b000111101:
-                sb.append("setpiv  ");
-                break;
-            case 0b000111110:
-                sb.append("setpix  ");
-                break;
-            case 0b000111111:
-                sb.append("cogatn  ");
-                break;
-
             case 0b001000000:
                 altInstruction2(sb, "testp   ", "dirl    ", ins);
                 return;
@@ -1575,127 +784,6 @@ public class P2Disassembler {
                 altInstruction2(sb, "testpn  ", "dirnot  ", ins);
                 return;
 
-            case 0b001001000:
-                sb.append("outl    ");
-                break;
-            case 0b001001001:
-                sb.append("outh    ");
-                break;
-            case 0b001001010:
-                sb.append("outc    ");
-                break;
-            case 0b001001011:
-                sb.append("outnc   ");
-                break;
-            case 0b001001100:
-                sb.append("outz    ");
-                break;
-            case 0b001001101:
-                sb.append("outnz   ");
-                break;
-            case 0b001001110:
-                sb.append("outrnd  ");
-                break;
-            case 0b001001111:
-                sb.append("outnot  ");
-                break;
-
-            case 0b001010000:
-                sb.append("fltl    ");
-                break;
-            case 0b001010001:
-                sb.append("flth    ");
-                break;
-            case 0b001010010:
-                sb.append("fltc    ");
-                break;
-            case 0b001010011:
-                sb.append("fltnc   ");
-                break;
-            case 0b001010100:
-                sb.append("fltz    ");
-                break;
-            case 0b001010101:
-                sb.append("fltnz   ");
-                break;
-            case 0b001010110:
-                sb.append("fltrnd  ");
-                break;
-            case 0b001010111:
-                sb.append("fltnot  ");
-                break;
-
-            case 0b001011000:
-                sb.append("drvl    ");
-                break;
-            case 0b001011001:
-                sb.append("drvh    ");
-                break;
-            case 0b001011010:
-                sb.append("drvc    ");
-                break;
-            case 0b001011011:
-                sb.append("drvnc   ");
-                break;
-            case 0b001011100:
-                sb.append("drvz    ");
-                break;
-            case 0b001011101:
-                sb.append("drvnz   ");
-                break;
-            case 0b001011110:
-                sb.append("drvrnd  ");
-                break;
-            case 0b001011111:
-                sb.append("drvnot  ");
-                break;
-
-            case 0b001100000:
-                sb.append("splitb  ");
-                break;
-            case 0b001100001:
-                sb.append("mergeb  ");
-                break;
-            case 0b001100010:
-                sb.append("splitw  ");
-                break;
-            case 0b001100011:
-                sb.append("mergew  ");
-                break;
-            case 0b001100100:
-                sb.append("seussf  ");
-                break;
-            case 0b001100101:
-                sb.append("seussr  ");
-                break;
-            case 0b001100110:
-                sb.append("rgbsqz  ");
-                break;
-            case 0b001100111:
-                sb.append("rgbexp  ");
-                break;
-
-            case 0b001101000:
-                sb.append("xoro32  ");
-                break;
-            case 0b001101001:
-                sb.append("rev     ");
-                break;
-            case 0b001101010:
-                sb.append("rczr    ");
-                break;
-            case 0b001101011:
-                sb.append("rczl    ");
-                break;
-            case 0b001101100:
-                sb.append("wrc     ");
-                break;
-            case 0b001101101:
-                sb.append("wrnc    ");
-                break;
-            case 0b001101110:
-                sb.append("wrz     ");
-                break;
             case 0b001101111:
                 if (i) {
                     if (cz == 0b10) {
@@ -1715,25 +803,16 @@ public class P2Disassembler {
                     sb.append(effect[cz]);
                     return;
                 }
-                sb.append("wrnz    ");
-                break;
-
-            case 0b001110000:
-                sb.append("setscp  ");
-                break;
-            case 0b001110001:
-                sb.append("getscp  ");
-                break;
-
-            default:
-                sb.append("???     ");
                 break;
         }
 
+        String mnemonic = s < group1101011.length ? group1101011[s] : null;
+        sb.append(mnemonic != null ? mnemonic : "???     ");
+
         if (i) {
-            sb.append("#");
+            sb.append('#');
         }
-        sb.append(register(dst));
+        register(sb, dst);
         sb.append(effect[cz]);
     }
 
@@ -1745,9 +824,9 @@ public class P2Disassembler {
         sb.append((cz == 0b00 || cz == 0b11) ? mnemonic2 : mnemonic1);
 
         if (i) {
-            sb.append("#");
+            sb.append('#');
         }
-        sb.append(register(dst));
+        register(sb, dst);
 
         String swc = " wc";
         String swz = " wz";
@@ -1780,11 +859,27 @@ public class P2Disassembler {
         }
     }
 
-    static String register(int a) {
+    static void immediate(StringBuilder sb, boolean immediate, int value) {
+        if (immediate) {
+            sb.append('#');
+        }
+        hex(sb, value, 3);
+    }
+
+    static void register(StringBuilder sb, int a) {
         if (a >= 0x1F0 && a <= 0x1FF) {
-            return sfr[a - 0x1F0];
+            sb.append(sfr[a - 0x1F0]);
+        }
+        else {
+            hex(sb, a, 3);
+        }
+    }
+
+    static void hex(StringBuilder sb, int value, int digits) {
+        sb.append('$');
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            sb.append(HEX[(value >>> shift) & 0xF]);
         }
-        return String.format("$%03X", a);
     }
 
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2021-26 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller.debug;
+
+/*
+ * Ring of samples with the minimum and maximum values kept for blocks of BLOCK_SIZE
+ * samples, so the range of the samples in the window can be computed without visiting
+ * all of them. Samples are expected to be written in sequence, a block written out of
+ * sequence is scanned sample by sample.
+ */
+public class SampleRange {
+
+    static final int BLOCK_SIZE = 64;
+
+    final int[] data;
+
+    final int[] blockMin;
+    final int[] blockMax;
+    final int[] blockCount;
+
+    int min;
+    int max;
+
+    public SampleRange(int size) {
+        int blocks = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+
+        data = new int[size];
+        blockMin = new int[blocks];
+        blockMax = new int[blocks];
+        blockCount = new int[blocks];
+    }
+
+    public int size() {
+        return data.length;
+    }
+
+    public int get(int index) {
+        return data[index];
+    }
+
+    public void set(int index, int value) {
+        data[index] = value;
+
+        int block = index / BLOCK_SIZE;
+        int offset = index % BLOCK_SIZE;
+        if (offset == 0) {
+            blockMin[block] = blockMax[block] = value;
+            blockCount[block] = 1;
+        }
+        else if (blockCount[block] == offset) {
+            if (value < blockMin[block]) {
+                blockMin[block] = value;
+            }
+            if (value > blockMax[block]) {
+                blockMax[block] = value;
+            }
+            blockCount[block]++;
+        }
+        else {
+            blockCount[block] = -1;
+        }
+    }
+
+    /**
+     * Computes the range of count samples starting at first, wrapping around the end of
+     * the ring. The result is read with getMin() and getMax().
+     *
+     * @param first the index of the first sample
+     * @param count the number of samples
+     */
+    public void update(int first, int count) {
+        min = Integer.MAX_VALUE;
+        max = Integer.MIN_VALUE;
+
+        int ptr = first;
+        while (count > 0) {
+            int block = ptr / BLOCK_SIZE;
+            int offset = ptr % BLOCK_SIZE;
+            int n = Math.min(count, Math.min(BLOCK_SIZE - offset, data.length - ptr));
+
+            if (offset == 0 && n == blockCount[block]) {
+                if (blockMin[block] < min) {
+                    min = blockMin[block];
+                }
+                if (blockMax[block] > max) {
+                    max = blockMax[block];
+                }
+            }
+            else {
+                for (int i = ptr; i < ptr + n; i++) {
+                    int d = data[i];
+                    if (d < min) {
+                        min = d;
+                    }
+                    if (d > max) {
+                        max = d;
+                    }
+                }
+            }
+
+            count -= n;
+            ptr += n;
+            if (ptr >= data.length) {
+                ptr = 0;
+            }
+        }
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * Reduces count samples starting at first to the minimum and maximum values of each
+     * of the given number of columns, samples are assigned to the columns in proportion.
+     *
+     * @param first the index of the first sample
+     * @param count the number of samples
+     * @param columns the number of columns
+     * @param points receives, for each column, the position relative to first of the extreme
+     *            value that comes first and of the one that comes last, must hold columns * 2
+     *            elements
+     * @return the number of columns filled
+     */
+    public int decimate(int first, int count, int columns, int[] points) {
+        int idx = 0;
+        int ptr = first;
+
+        int column = 0;
+        int next = (int) ((long) (column + 1) * count / columns);
+        int minValue = 0, maxValue = 0;
+        int minPos = 0, maxPos = 0;
+
+        for (int i = 0; i < count; i++) {
+            int d = data[ptr];
+            if (i == 0 || d < minValue) {
+                minValue = d;
+                minPos = i;
+            }
+            if (i == 0 || d > maxValue) {
+                maxValue = d;
+                maxPos = i;
+            }
+
+            if (i + 1 == next) {
+                points[idx++] = Math.min(minPos, maxPos);
+                points[idx++] = Math.max(minPos, maxPos);
+                column++;
+                next = (int) ((long) (column + 1) * count / columns);
+                if (i + 1 < count) {
+                    minValue = maxValue = data[ptr + 1 >= data.length ? 0 : ptr + 1];
+                    minPos = maxPos = i + 1;
+                }
+            }
+
+            if (++ptr >= data.length) {
+                ptr = 0;
+            }
+        }
+
+        return idx / 2;
+    }
+
+}
@@ -11,10 +11,8 @@
 package com.maccasoft.propeller.devices;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.net.InetAddress;
-import java.net.Socket;
+import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.UnknownHostException;
@@ -24,10 +22,13 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpRequest.BodyPublishers;
 import java.net.http.HttpRequest.Builder;
 import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
 import java.time.Duration;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.UnaryOperator;
+import java.util.concurrent.TimeUnit;
 
 public class NetworkComPort extends ComPort {
 
@@ -38,59 +39,78 @@ public class NetworkComPort extends ComPort {
     public static final int CONNECT_TIMEOUT = 3000;
     public static final int RESPONSE_TIMEOUT = 3000;
 
+    public static final int RECEIVE_BUFFER_SIZE = 65536;
+
     String name;
     InetAddress inetAddr;
+    int port = TELNET_PORT;
     String mac_address;
     String resetPin;
 
     HttpClient client;
 
-    Socket socket;
-    OutputStream os;
-    InputStream is;
+    SocketChannel channel;
+    Selector readSelector;
+    Selector writeSelector;
+    SelectionKey readKey;
 
-    AtomicReference<EventThread> eventThread = new AtomicReference<>();
+    final ByteBuffer receiveBuffer = ByteBuffer.allocate(RECEIVE_BUFFER_SIZE);
 
-    class EventThread extends Thread {
+    volatile ComPortEventListener eventListener;
 
-        final ComPortEventListener eventListener;
-        private boolean threadTerminated = false;
+    /*
+     * Moves the received data from the socket to the receive buffer as soon as it is
+     * available and notifies the listener. When the buffer is full the socket is not
+     * read until some data is consumed, letting the TCP flow control slow down the sender.
+     */
+    class ReceiveThread extends Thread {
 
-        AtomicBoolean eventNotified = new AtomicBoolean();
+        final SocketChannel channel;
+        final Selector selector;
 
-        public EventThread(ComPortEventListener eventListener) {
-            this.eventListener = eventListener;
+        ReceiveThread(SocketChannel channel, Selector selector) {
+            super("Network port " + inetAddr.getHostAddress());
+            this.channel = channel;
+            this.selector = selector;
+            setDaemon(true);
         }
 
         @Override
         public void run() {
+            try {
+                while (channel.isOpen()) {
+                    selector.select();
+                    if (!channel.isOpen()) {
+                        break;
+                    }
+                    selector.selectedKeys().clear();
 
-            while (!threadTerminated) {
-                try {
-                    try {
-                        if (socket != null && socket.isConnected() && !eventNotified.get()) {
-                            if (is.available() > 0) {
-                                eventNotified.set(true);
-                                eventListener.serialEvent(new ComPortEvent(NetworkComPort.this, true, false, false));
-                            }
+                    int count;
+                    synchronized (receiveBuffer) {
+                        count = channel.read(receiveBuffer);
+                        if (!receiveBuffer.hasRemaining()) {
+                            readKey.interestOps(0);
                         }
-                    } catch (IOException e) {
-                        // Do nothing
+                        receiveBuffer.notifyAll();
+                    }
+                    if (count < 0) {
+                        channel.close();
+                        break;
+                    }
+
+                    ComPortEventListener listener = eventListener;
+                    if (listener != null && count > 0) {
+                        listener.serialEvent(new ComPortEvent(NetworkComPort.this, true, false, false));
                     }
-                    Thread.sleep(10);
-                } catch (InterruptedException e) {
-                    // Do nothing
                 }
+            } catch (ClosedSelectorException | IOException e) {
+                // Port closed
+            }
+            synchronized (receiveBuffer) {
+                receiveBuffer.notifyAll();
             }
         }
 
-        public void clearEventNotified() {
-            eventNotified.set(false);
-        }
-
-        public void terminateThread() {
-            threadTerminated = true;
-        }
     }
 
     public NetworkComPort(DeviceDescriptor descriptor) {
@@ -105,6 +125,12 @@ public class NetworkComPort extends ComPort {
         this.inetAddr = inetAddr;
     }
 
+    public NetworkComPort(InetAddress inetAddr, int port) {
+        this.name = "";
+        this.inetAddr = inetAddr;
+        this.port = port;
+    }
+
     public NetworkComPort(String name, String inetAddr, String mac_address, String resetPin) {
         this.name = name;
         try {
@@ -178,12 +204,16 @@ public class NetworkComPort extends ComPort {
         this.resetPin = resetPin;
     }
 
+    public int getPort() {
+        return port;
+    }
+
     @Override
     public boolean isOpened() {
-        if (socket == null) {
+        if (channel == null) {
             return false;
         }
-        return !socket.isClosed();
+        return channel.isOpen();
     }
 
     @Override
@@ -194,11 +224,24 @@ public class NetworkComPort extends ComPort {
                 .connectTimeout(Duration.ofMillis(CONNECT_TIMEOUT)) //
                 .build();
 
-            socket = new Socket(inetAddr, TELNET_PORT);
-            os = socket.getOutputStream();
-            is = socket.getInputStream();
+            channel = SocketChannel.open();
+            channel.socket().connect(new InetSocketAddress(inetAddr, port), CONNECT_TIMEOUT);
+            channel.socket().setTcpNoDelay(true);
+            channel.configureBlocking(false);
+
+            synchronized (receiveBuffer) {
+                receiveBuffer.clear();
+            }
+
+            readSelector = Selector.open();
+            writeSelector = Selector.open();
+            readKey = channel.register(readSelector, SelectionKey.OP_READ);
+            channel.register(writeSelector, SelectionKey.OP_WRITE);
+
+            new ReceiveThread(channel, readSelector).start();
         } catch (IOException e) {
             e.printStackTrace();
+            closePort();
             throw new ComPortException(e.getMessage(), e);
         }
         return true;
@@ -220,13 +263,23 @@ public class NetworkComPort extends ComPort {
 
     @Override
     public void closePort() {
+        eventListener = null;
         try {
-            removeEventListener();
-            socket.close();
+            if (channel != null) {
+                channel.close();
+            }
+            if (readSelector != null) {
+                readSelector.close();
+            }
+            if (writeSelector != null) {
+                writeSelector.close();
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
-        socket = null;
+        channel = null;
+        readSelector = null;
+        writeSelector = null;
     }
 
     @Override
@@ -245,8 +298,9 @@ public class NetworkComPort extends ComPort {
 
             Thread.sleep(delay);
 
-            if (is.available() > 0) {
-                is.readAllBytes();
+            synchronized (receiveBuffer) {
+                receiveBuffer.clear();
+                resumeReceive();
             }
         } catch (URISyntaxException | IOException | InterruptedException e) {
             // Do nothing
@@ -256,110 +310,121 @@ public class NetworkComPort extends ComPort {
 
     @Override
     public int readByteWithTimeout(int timeout) throws ComPortException {
-        while (timeout > 0) {
+        synchronized (receiveBuffer) {
+            if (!waitAvailable(1, timeout)) {
+                return -1;
+            }
+            receiveBuffer.flip();
+            int result = receiveBuffer.get() & 0xFF;
+            receiveBuffer.compact();
+            resumeReceive();
+            return result;
+        }
+    }
+
+    /*
+     * Waits until the receive buffer holds at least count bytes or the timeout, in
+     * milliseconds, elapsed. Must be called with the buffer lock held.
+     */
+    boolean waitAvailable(int count, long timeout) throws ComPortException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        while (receiveBuffer.position() < count) {
+            if (channel == null || !channel.isOpen()) {
+                throw new ComPortException("Port not opened");
+            }
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return false;
+            }
             try {
-                int len = is.available();
-                if (len > 0) {
-                    return is.read();
-                }
-                Thread.sleep(1);
-            } catch (Exception e) {
-                e.printStackTrace();
-                // Do nothing
+                receiveBuffer.wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
             }
-            timeout--;
         }
-        return -1;
+        return true;
+    }
+
+    /*
+     * Restarts reading from the socket if it was stopped because the receive buffer was
+     * full. Must be called with the buffer lock held.
+     */
+    void resumeReceive() {
+        SelectionKey key = readKey;
+        if (key != null && key.isValid() && key.interestOps() == 0 && receiveBuffer.hasRemaining()) {
+            key.interestOps(SelectionKey.OP_READ);
+            key.selector().wakeup();
+        }
+    }
+
+    public int available() {
+        synchronized (receiveBuffer) {
+            return receiveBuffer.position();
+        }
+    }
+
+    /**
+     * Reads the received bytes into the given buffer, without waiting.
+     *
+     * @param buffer the destination buffer
+     * @param offset the offset in the buffer
+     * @param length the maximum number of bytes to read
+     * @return the number of bytes read
+     */
+    public int readBytes(byte[] buffer, int offset, int length) {
+        synchronized (receiveBuffer) {
+            receiveBuffer.flip();
+            int count = Math.min(length, receiveBuffer.remaining());
+            receiveBuffer.get(buffer, offset, count);
+            receiveBuffer.compact();
+            resumeReceive();
+            return count;
+        }
     }
 
     @Override
     public boolean writeInt(int singleInt) throws ComPortException {
-        try {
-            os.write(singleInt);
-        } catch (IOException e) {
-            e.printStackTrace();
-            throw new ComPortException(e.getMessage(), e);
-        }
-        return true;
+        return writeBytes(new byte[] {
+            (byte) singleInt
+        }, 0, 1);
     }
 
     @Override
     public boolean writeByte(byte singleByte) throws ComPortException {
-        try {
-            os.write(singleByte);
-        } catch (IOException e) {
-            e.printStackTrace();
-            throw new ComPortException(e.getMessage(), e);
-        }
-        return true;
+        return writeBytes(new byte[] {
+            singleByte
+        }, 0, 1);
     }
 
     @Override
     public boolean writeBytes(byte[] buffer) throws ComPortException {
-        try {
-            os.write(buffer);
-            os.flush();
-        } catch (IOException e) {
-            e.printStackTrace();
-            throw new ComPortException(e.getMessage(), e);
-        }
-        return true;
+        return writeBytes(buffer, 0, buffer.length);
     }
 
     @Override
     public byte[] readBytes() throws ComPortException {
-        try {
-            int len = is.available();
-            if (len == 0) {
+        synchronized (receiveBuffer) {
+            if (receiveBuffer.position() == 0) {
                 return null;
             }
-            byte[] rx = new byte[len];
-            is.read(rx);
-            eventThread.getAndUpdate(new UnaryOperator<NetworkComPort.EventThread>() {
-
-                @Override
-                public EventThread apply(EventThread t) {
-                    if (t != null) {
-                        t.clearEventNotified();
-                    }
-                    return t;
-                }
-            });
+            byte[] rx = new byte[receiveBuffer.position()];
+            readBytes(rx, 0, rx.length);
             return rx;
-        } catch (IOException e) {
-            e.printStackTrace();
-            throw new ComPortException(e.getMessage(), e);
         }
     }
 
     @Override
     public void setEventListener(ComPortEventListener listener) throws ComPortException {
-        eventThread.getAndUpdate(new UnaryOperator<NetworkComPort.EventThread>() {
-
-            @Override
-            public EventThread apply(EventThread t) {
-                if (t != null) {
-                    t.terminateThread();
-                }
-                t = new EventThread(listener);
-                t.start();
-                return t;
-            }
-        });
+        eventListener = listener;
+        if (available() != 0) {
+            listener.serialEvent(new ComPortEvent(this, true, false, false));
+        }
     }
 
     @Override
     public void removeEventListener() throws ComPortException {
-        eventThread.getAndUpdate(new UnaryOperator<NetworkComPort.EventThread>() {
-
-            @Override
-            public EventThread apply(EventThread t) {
-                if (t != null) {
-                    t.terminateThread();
-                }
-                return null;
-            }
-        });
+        eventListener = null;
     }
 
     @Override
@@ -397,31 +462,38 @@ public class NetworkComPort extends ComPort {
     }
 
     public int readLong(int timeout) throws ComPortException, InterruptedException {
-        byte[] rx = new byte[4];
-        try {
-            if (is.available() < 4) {
-                long now = System.currentTimeMillis();
-                do {
-                    if ((System.currentTimeMillis() - now) > timeout) {
-                        throw new InterruptedException();
-                    }
-                    Thread.sleep(1);
-                } while (is.available() < 4);
+        synchronized (receiveBuffer) {
+            if (!waitAvailable(4, timeout)) {
+                throw new InterruptedException();
             }
-            is.read(rx);
-            return (rx[0] & 0xFF) | ((rx[1] & 0xFF) << 8) | ((rx[2] & 0xFF) << 16) | ((rx[3] & 0xFF) << 24);
-        } catch (IOException e) {
-            e.printStackTrace();
-            throw new ComPortException(e.getMessage(), e);
+            receiveBuffer.flip();
+            int result = (receiveBuffer.get() & 0xFF) | ((receiveBuffer.get() & 0xFF) << 8) | ((receiveBuffer.get() & 0xFF) << 16) | ((receiveBuffer.get() & 0xFF) << 24);
+            receiveBuffer.compact();
+            resumeReceive();
+            return result;
         }
     }
 
     @Override
     public boolean writeBytes(byte[] buffer, int ofs, int len) throws ComPortException {
+        SocketChannel channel = this.channel;
+        Selector selector = this.writeSelector;
+        if (channel == null || selector == null) {
+            throw new ComPortException("Port not opened");
+        }
         try {
-            os.write(buffer, ofs, len);
-            os.flush();
-        } catch (IOException e) {
+            ByteBuffer src = ByteBuffer.wrap(buffer, ofs, len);
+            synchronized (selector) {
+                while (src.hasRemaining()) {
+                    if (channel.write(src) == 0) {
+                        if (selector.select(RESPONSE_TIMEOUT) == 0) {
+                            throw new IOException("Write timeout");
+                        }
+                        selector.selectedKeys().clear();
+                    }
+                }
+            }
+        } catch (ClosedSelectorException | IOException e) {
             e.printStackTrace();
             throw new ComPortException(e.getMessage(), e);
         }
@@ -156,19 +156,15 @@ public class SerialComPort extends ComPort {
         }
     }
 
+    @Override
     public boolean writeBytes(byte[] buffer, int offs, int count) throws ComPortException {
-        try {
-            while (count > 0) {
-                boolean rc = serialPort.writeByte(buffer[offs++]);
-                if (!rc) {
-                    throw new ComPortException("Port name - " + serialPort.getPortName() + "; Method name - writeInt; Exception type - Can't write.");
-                }
-                --count;
-            }
-        } catch (SerialPortException e) {
-            throw new ComPortException(e.getExceptionType(), e);
+        if (offs != 0 || count != buffer.length) {
+            // The native write takes a whole array, copy the range to write it with a single call
+            byte[] b = new byte[count];
+            System.arraycopy(buffer, offs, b, 0, count);
+            buffer = b;
         }
-        return true;
+        return writeBytes(buffer);
     }
 
     @Override
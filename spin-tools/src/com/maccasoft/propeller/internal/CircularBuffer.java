@@ -12,22 +12,40 @@ package com.maccasoft.propeller.internal;
 
 import java.io.IOException;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
+/*
+ * Single producer, single consumer ring buffer. The producer only moves head and the
+ * consumer only moves tail, so the two sides don't need locks, callers with more than
+ * one producer or consumer thread must serialize them. Writes never overwrite unread
+ * data, bytes that don't fit are dropped and counted. Blocking reads park the consumer
+ * thread until the producer writes enough bytes or the timeout elapses.
+ */
 public class CircularBuffer {
 
     static final int TIMEOUT = 500;
 
-    int head;
-    int tail;
-    byte[] buffer;
+    final byte[] buffer;
+
+    volatile int head;
+    volatile int tail;
+    volatile long overflow;
+
+    volatile Thread readWaiter;
+    volatile Thread writeWaiter;
 
     public CircularBuffer(int size) {
         head = tail = 0;
         buffer = new byte[size];
     }
 
+    /*
+     * Discards the unread data, must not be called while the consumer is reading.
+     */
     public void flush() {
-        head = tail = 0;
+        tail = head;
+        wakeUp(writeWaiter);
     }
 
     public int read(byte[] b) throws IOException {
@@ -35,100 +53,261 @@ public class CircularBuffer {
     }
 
     public int read(byte[] b, int off, int len) throws IOException {
+        int n = peek(b, off, len);
+        if (n != 0) {
+            int t = tail + n;
+            tail = t >= buffer.length ? t - buffer.length : t;
+            wakeUp(writeWaiter);
+        }
+        return n;
+    }
+
+    /*
+     * Copies up to len bytes without removing them from the buffer.
+     */
+    public int peek(byte[] b, int off, int len) {
         Objects.checkFromIndexSize(off, len, b.length);
 
-        int i = off;
-        while (len > 0 && head != tail) {
-            b[i++] = buffer[tail++];
-            if (tail >= buffer.length) {
-                tail = 0;
-            }
-            len--;
+        int t = tail;
+        int n = Math.min(len, available(head, t));
+        if (n != 0) {
+            int first = Math.min(n, buffer.length - t);
+            System.arraycopy(buffer, t, b, off, first);
+            System.arraycopy(buffer, 0, b, off + first, n - first);
         }
 
-        return i - off;
+        return n;
+    }
+
+    public int skip(int n) {
+        int t = tail;
+        n = Math.min(n, available(head, t));
+        if (n > 0) {
+            t += n;
+            tail = t >= buffer.length ? t - buffer.length : t;
+            wakeUp(writeWaiter);
+        }
+        return n;
+    }
+
+    /*
+     * Returns the number of bytes that can be written without overwriting unread data.
+     */
+    public int free() {
+        return buffer.length - 1 - available();
     }
 
     public int available() {
-        int rc = head - tail;
+        return available(head, tail);
+    }
+
+    int available(int h, int t) {
+        int rc = h - t;
         if (rc < 0) {
             rc += buffer.length;
         }
         return rc;
     }
 
+    /*
+     * Returns the number of bytes dropped because the buffer was full.
+     */
+    public long getOverflow() {
+        return overflow;
+    }
+
     public void write(int b) {
-        buffer[head++] = (byte) b;
-        if (head >= buffer.length) {
-            head = 0;
+        int h = head;
+        if (available(h, tail) >= buffer.length - 1) {
+            overflow++;
+            return;
         }
+        buffer[h++] = (byte) b;
+        head = h >= buffer.length ? 0 : h;
+        wakeUp(readWaiter);
     }
 
     public void write(byte[] b) throws IOException {
         write(b, 0, b.length);
     }
 
-    public void write(byte[] b, int off, int len) {
-        while (len > 0) {
-            buffer[head++] = b[off++];
-            if (head >= buffer.length) {
-                head = 0;
+    /**
+     * Writes the bytes that fit in the buffer without waiting, the remaining bytes are dropped
+     * and added to the overflow count.
+     *
+     * @param b the bytes
+     * @param off the start offset
+     * @param len the number of bytes
+     * @return the number of bytes written
+     */
+    public int write(byte[] b, int off, int len) {
+        Objects.checkFromIndexSize(off, len, b.length);
+
+        int n = put(b, off, len);
+        if (n < len) {
+            overflow += len - n;
+        }
+        return n;
+    }
+
+    /**
+     * Writes the bytes waiting up to timeout milliseconds for the consumer to make room,
+     * the timeout restarts each time some bytes are written. Bytes not written before the
+     * timeout elapses are dropped and added to the overflow count.
+     *
+     * @param b the bytes
+     * @param off the start offset
+     * @param len the number of bytes
+     * @param timeout the maximum time to wait, in milliseconds
+     * @return the number of bytes written
+     */
+    public int write(byte[] b, int off, int len, long timeout) throws InterruptedException {
+        Objects.checkFromIndexSize(off, len, b.length);
+
+        int count = 0;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+
+        writeWaiter = Thread.currentThread();
+        try {
+            while (count < len) {
+                int n = put(b, off + count, len - count);
+                if (n != 0) {
+                    count += n;
+                    deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+                    continue;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                LockSupport.parkNanos(this, remaining);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            writeWaiter = null;
+            if (count < len) {
+                overflow += len - count;
             }
-            len--;
         }
+
+        return count;
     }
 
-    public void writeWord(int b) {
-        write(b & 0xFF);
-        write((b >> 8) & 0xFF);
+    int put(byte[] b, int off, int len) {
+        int h = head;
+        int n = Math.min(len, buffer.length - 1 - available(h, tail));
+        if (n != 0) {
+            int first = Math.min(n, buffer.length - h);
+            System.arraycopy(b, off, buffer, h, first);
+            System.arraycopy(b, off + first, buffer, 0, n - first);
+            h += n;
+            head = h >= buffer.length ? h - buffer.length : h;
+            wakeUp(readWaiter);
+        }
+        return n;
     }
 
-    public void writeLong(int b) {
-        write(b & 0xFF);
-        write((b >> 8) & 0xFF);
-        write((b >> 16) & 0xFF);
-        write((b >> 24) & 0xFF);
+    /**
+     * Writes a word, or drops it entirely if the buffer doesn't have room for both bytes, so
+     * the consumer never reads a partial value.
+     *
+     * @param b the value
+     * @return true if the word was written
+     */
+    public boolean writeWord(int b) {
+        return writeValue(new byte[] {
+            (byte) b,
+            (byte) (b >> 8)
+        });
     }
 
-    public int read() throws IOException, InterruptedException {
-        if (head == tail) {
-            long now = System.currentTimeMillis();
-            do {
-                if ((System.currentTimeMillis() - now) > TIMEOUT) {
+    /**
+     * Writes a long, or drops it entirely if the buffer doesn't have room for all bytes, so
+     * the consumer never reads a partial value.
+     *
+     * @param b the value
+     * @return true if the long was written
+     */
+    public boolean writeLong(int b) {
+        return writeValue(new byte[] {
+            (byte) b,
+            (byte) (b >> 8),
+            (byte) (b >> 16),
+            (byte) (b >> 24)
+        });
+    }
+
+    boolean writeValue(byte[] b) {
+        if (free() < b.length) {
+            overflow += b.length;
+            return false;
+        }
+        put(b, 0, b.length);
+        return true;
+    }
+
+    /**
+     * Waits until at least count bytes are available.
+     *
+     * @param count the number of bytes
+     * @param timeout the maximum time to wait, in milliseconds
+     * @return true if the bytes are available, false if the timeout elapsed
+     */
+    public boolean waitAvailable(int count, long timeout) throws InterruptedException {
+        if (available() >= count) {
+            return true;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+
+        readWaiter = Thread.currentThread();
+        try {
+            while (available() < count) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                LockSupport.parkNanos(this, remaining);
+                if (Thread.interrupted()) {
                     throw new InterruptedException();
                 }
-                Thread.sleep(1);
-            } while (head == tail);
+            }
+        } finally {
+            readWaiter = null;
         }
-        int rc = buffer[tail++] & 0xFF;
-        if (tail >= buffer.length) {
-            tail = 0;
+
+        return true;
+    }
+
+    void wakeUp(Thread thread) {
+        if (thread != null) {
+            LockSupport.unpark(thread);
         }
+    }
+
+    public int read() throws IOException, InterruptedException {
+        if (!waitAvailable(1, TIMEOUT)) {
+            throw new InterruptedException();
+        }
+        int t = tail;
+        int rc = buffer[t++] & 0xFF;
+        tail = t >= buffer.length ? 0 : t;
+        wakeUp(writeWaiter);
         return rc;
     }
 
     public int readWord() throws IOException, InterruptedException {
-        if (available() < 2) {
-            long now = System.currentTimeMillis();
-            do {
-                if ((System.currentTimeMillis() - now) > TIMEOUT) {
-                    throw new InterruptedException();
-                }
-                Thread.sleep(1);
-            } while (available() < 2);
+        if (!waitAvailable(2, TIMEOUT)) {
+            throw new InterruptedException();
         }
         return read() | (read() << 8);
     }
 
     public int readLong() throws IOException, InterruptedException {
-        if (available() < 4) {
-            long now = System.currentTimeMillis();
-            do {
-                if ((System.currentTimeMillis() - now) > TIMEOUT) {
-                    throw new InterruptedException();
-                }
-                Thread.sleep(1);
-            } while (available() < 4);
+        if (!waitAvailable(4, TIMEOUT)) {
+            throw new InterruptedException();
         }
         return read() | (read() << 8) | (read() << 16) | (read() << 24);
     }
@@ -16,7 +16,7 @@ import java.util.List;
 
 public class Node {
 
-    final Node parent;
+    Node parent;
     final List<Token> tokens = new ArrayList<Token>();
     final List<Node> childs = new ArrayList<Node>();
 
@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2021-26 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller.model;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.maccasoft.propeller.internal.FileUtils;
+
+/*
+ * Parsed sources are shared between compilers and token markers, keyed by the
+ * source content. The compilers update the exclude flag of the nodes while
+ * evaluating conditional directives, so they must checkout a private instance
+ * to avoid interferences with concurrent compiles that use different defines.
+ * The first instance is returned to the readers and never checked out.
+ */
+public class ParsedSourceCache {
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    static final ParsedSourceCache instance = new ParsedSourceCache(DEFAULT_CAPACITY);
+
+    public static ParsedSourceCache getInstance() {
+        return instance;
+    }
+
+    static class Key {
+
+        final String suffix;
+        final String text;
+
+        Key(String suffix, String text) {
+            this.suffix = suffix;
+            this.text = text;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(suffix, text);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return Objects.equals(suffix, other.suffix) && Objects.equals(text, other.text);
+        }
+
+    }
+
+    static class Entry {
+
+        final Key key;
+        final List<RootNode> roots = new ArrayList<>();
+        SymbolIndex.Symbols symbols;
+
+        Entry(Key key) {
+            this.key = key;
+        }
+
+    }
+
+    static class FileStatus {
+
+        final long lastModified;
+        final long length;
+        final Key key;
+
+        FileStatus(long lastModified, long length, Key key) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.key = key;
+        }
+
+    }
+
+    final int capacity;
+    final LinkedHashMap<Key, Entry> entries;
+    final Map<File, FileStatus> files = new HashMap<>();
+    final Map<RootNode, Entry> nodes = new IdentityHashMap<>();
+    final Map<RootNode, Object> owners = new IdentityHashMap<>();
+
+    int hits;
+    int misses;
+
+    public ParsedSourceCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the parsed source of the given file, reading it from disk only if
+     * the last modified time or size differ from the cached copy.
+     */
+    public RootNode getParsedSource(File file, String suffix) throws Exception {
+        File key = file.getAbsoluteFile();
+
+        synchronized (this) {
+            FileStatus status = files.get(key);
+            if (status != null && status.lastModified == key.lastModified() && status.length == key.length()) {
+                Entry entry = entries.get(status.key);
+                if (entry != null) {
+                    hits++;
+                    return entry.roots.get(0);
+                }
+            }
+        }
+
+        long lastModified = key.lastModified();
+        long length = key.length();
+        String text = FileUtils.loadFromFile(key);
+
+        return getParsedSource(key, suffix, text, lastModified, length);
+    }
+
+    /**
+     * Returns the parsed source of the given file content, usually an unsaved
+     * editor buffer.
+     */
+    public RootNode getParsedSource(File file, String suffix, String text) {
+        return getParsedSource(file.getAbsoluteFile(), suffix, text, 0, -1);
+    }
+
+    RootNode getParsedSource(File file, String suffix, String text, long lastModified, long length) {
+        Key key = new Key(suffix.toLowerCase(), text);
+
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits++;
+                updateFileStatus(file, new FileStatus(lastModified, length, key));
+                return entry.roots.get(0);
+            }
+            misses++;
+        }
+
+        RootNode root = Parser.parse(key.suffix, text);
+        if (root == null) {
+            return null;
+        }
+
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry(key);
+                entries.put(key, entry);
+            }
+            entry.roots.add(root);
+            nodes.put(root, entry);
+            updateFileStatus(file, new FileStatus(lastModified, length, key));
+            trimToCapacity();
+            return entry.roots.get(0);
+        }
+    }
+
+    void updateFileStatus(File file, FileStatus status) {
+        FileStatus oldStatus = files.put(file, status);
+        if (oldStatus == null || oldStatus.key.equals(status.key)) {
+            return;
+        }
+        for (FileStatus other : files.values()) {
+            if (other.key.equals(oldStatus.key)) {
+                return;
+            }
+        }
+        remove(entries.remove(oldStatus.key));
+    }
+
+    void trimToCapacity() {
+        Iterator<Entry> iter = entries.values().iterator();
+        while (entries.size() > capacity && iter.hasNext()) {
+            Entry entry = iter.next();
+            iter.remove();
+            remove(entry);
+        }
+    }
+
+    void remove(Entry entry) {
+        if (entry == null) {
+            return;
+        }
+        for (RootNode root : entry.roots) {
+            nodes.remove(root);
+            owners.remove(root);
+        }
+        files.values().removeIf(status -> status.key.equals(entry.key));
+    }
+
+    /**
+     * Returns an instance of the parsed source that is not in use by other owners
+     * nor shared with the readers, parsing a new copy if needed. Roots not managed
+     * by this cache are returned unchanged.
+     */
+    public RootNode checkout(RootNode root, Object owner) {
+        Entry entry;
+
+        synchronized (this) {
+            entry = nodes.get(root);
+            if (entry == null) {
+                return root;
+            }
+            for (int i = 1; i < entry.roots.size(); i++) {
+                RootNode node = entry.roots.get(i);
+                Object current = owners.get(node);
+                if (current == null || current == owner) {
+                    owners.put(node, owner);
+                    return node;
+                }
+            }
+        }
+
+        RootNode node = Parser.parse(entry.key.suffix, entry.key.text);
+
+        synchronized (this) {
+            if (entries.get(entry.key) == entry) {
+                entry.roots.add(node);
+                nodes.put(node, entry);
+                owners.put(node, owner);
+            }
+        }
+
+        return node;
+    }
+
+    /**
+     * Returns the symbols declared by a parsed source, collected once for the instance
+     * returned to the readers and dropped with the cache entry. The symbols of roots
+     * not managed by this cache or checked out are collected on each call.
+     */
+    public SymbolIndex.Symbols getSymbols(RootNode root) {
+        synchronized (this) {
+            Entry entry = nodes.get(root);
+            if (entry != null && entry.roots.get(0) == root && entry.symbols != null) {
+                return entry.symbols;
+            }
+        }
+
+        SymbolIndex.Symbols symbols = new SymbolIndex.Symbols(root);
+
+        synchronized (this) {
+            Entry entry = nodes.get(root);
+            if (entry != null && entry.roots.get(0) == root) {
+                if (entry.symbols == null) {
+                    entry.symbols = symbols;
+                }
+                return entry.symbols;
+            }
+        }
+
+        return symbols;
+    }
+
+    public synchronized boolean isSameSource(RootNode root, RootNode other) {
+        if (root == other) {
+            return true;
+        }
+        Entry entry = nodes.get(root);
+        return entry != null && entry == nodes.get(other);
+    }
+
+    public synchronized void release(Object owner) {
+        owners.values().removeIf(current -> current == owner);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        files.clear();
+        nodes.clear();
+        owners.clear();
+    }
+
+}
@@ -22,6 +22,11 @@ public class RootNode extends Node {
 
     }
 
+    public void adoptChild(Node node) {
+        node.parent = this;
+        childs.add(node);
+    }
+
     public void addComment(Token token) {
         comments.add(token);
     }
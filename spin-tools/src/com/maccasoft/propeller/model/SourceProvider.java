@@ -35,10 +35,20 @@ public abstract class SourceProvider {
             String fileName = file.getName();
             if (fileName.indexOf('.') != -1) {
                 String suffix = fileName.substring(fileName.lastIndexOf('.')).toLowerCase();
-                String source = getSource(file);
-                if (source != null) {
-                    return Parser.parse(suffix, source);
-                }
+                return ParsedSourceCache.getInstance().getParsedSource(file, suffix);
+            }
+        } catch (Exception e) {
+            // Do nothing
+        }
+        return null;
+    }
+
+    public RootNode getParsedSource(File file, String source) {
+        try {
+            String fileName = file.getName();
+            if (fileName.indexOf('.') != -1) {
+                String suffix = fileName.substring(fileName.lastIndexOf('.')).toLowerCase();
+                return ParsedSourceCache.getInstance().getParsedSource(file, suffix, source);
             }
         } catch (Exception e) {
             // Do nothing
@@ -57,4 +67,12 @@ public abstract class SourceProvider {
 
     public abstract File getFile(String name);
 
+    /**
+     * Resolves a file like getFile but without recording it as a dependency,
+     * used to look ahead of the compiler.
+     */
+    public File findFile(String name) {
+        return getFile(name);
+    }
+
 }
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2021-26 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller.model;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Symbols declared by parsed sources and the files of the library folders, shared by
+ * all editors for code assist. The symbols reference the nodes of the tree, so they are
+ * kept by ParsedSourceCache with the tree and evicted with it. Folder listings are
+ * refreshed when the folder is modified or invalidated.
+ */
+public class SymbolIndex {
+
+    static final SymbolIndex instance = new SymbolIndex();
+
+    public static SymbolIndex getInstance() {
+        return instance;
+    }
+
+    public static class Symbols {
+
+        final List<Node> methods = new ArrayList<>();
+        final List<Node> constants = new ArrayList<>();
+        final List<TypeDefinitionNode> types = new ArrayList<>();
+
+        Symbols(RootNode root) {
+            root.accept(new NodeVisitor() {
+
+                @Override
+                public boolean visitMethod(MethodNode node) {
+                    if (node.getType() != null && node.getName() != null) {
+                        if ("PUB".equalsIgnoreCase(node.getType().getText())) {
+                            methods.add(node);
+                        }
+                    }
+                    return false;
+                }
+
+                @Override
+                public boolean visitFunction(FunctionNode node) {
+                    if (node.getIdentifier() != null) {
+                        methods.add(node);
+                    }
+                    return false;
+                }
+
+            });
+            root.accept(new NodeVisitor() {
+
+                @Override
+                public void visitDirective(DirectiveNode node) {
+                    if (node instanceof DirectiveNode.DefineNode define) {
+                        if (define.getIdentifier() != null) {
+                            constants.add(node);
+                        }
+                    }
+                }
+
+                @Override
+                public void visitConstant(ConstantNode node) {
+                    if (node.getIdentifier() != null) {
+                        constants.add(node);
+                    }
+                }
+
+                @Override
+                public void visitTypeDefinition(TypeDefinitionNode node) {
+                    if (node.getIdentifier() != null) {
+                        types.add(node);
+                    }
+                }
+
+            });
+        }
+
+        /**
+         * Returns the public methods and functions, in source order.
+         *
+         * @return the list of MethodNode and FunctionNode
+         */
+        public List<Node> getMethods() {
+            return Collections.unmodifiableList(methods);
+        }
+
+        /**
+         * Returns the constants and defines, in source order.
+         *
+         * @return the list of ConstantNode and DirectiveNode.DefineNode
+         */
+        public List<Node> getConstants() {
+            return Collections.unmodifiableList(constants);
+        }
+
+        public List<TypeDefinitionNode> getTypes() {
+            return Collections.unmodifiableList(types);
+        }
+
+    }
+
+    static class Folder {
+
+        final long lastModified;
+        final File[] files;
+
+        Folder(long lastModified, File[] files) {
+            this.lastModified = lastModified;
+            this.files = files;
+        }
+
+    }
+
+    final ParsedSourceCache parsedSourceCache;
+    final Map<File, Folder> folders = new HashMap<>();
+
+    public SymbolIndex() {
+        this(ParsedSourceCache.getInstance());
+    }
+
+    public SymbolIndex(ParsedSourceCache parsedSourceCache) {
+        this.parsedSourceCache = parsedSourceCache;
+    }
+
+    public Symbols getSymbols(RootNode root) {
+        return parsedSourceCache.getSymbols(root);
+    }
+
+    /**
+     * Returns the files of a folder, listing the folder only if it was modified since the
+     * last call or invalidated.
+     *
+     * @param folder the folder
+     * @return the files, or null if the folder can't be read
+     */
+    public File[] getFiles(File folder) {
+        File key = folder.getAbsoluteFile();
+        long lastModified = key.lastModified();
+
+        synchronized (this) {
+            Folder entry = folders.get(key);
+            if (entry != null && entry.lastModified == lastModified) {
+                return entry.files;
+            }
+        }
+
+        File[] files = key.listFiles();
+        if (files != null) {
+            synchronized (this) {
+                folders.put(key, new Folder(lastModified, files));
+            }
+        }
+
+        return files;
+    }
+
+    /**
+     * Notifies that a file was created, changed or deleted.
+     *
+     * @param file the file or folder
+     */
+    public synchronized void invalidate(File file) {
+        File key = file.getAbsoluteFile();
+        folders.remove(key);
+        if (key.getParentFile() != null) {
+            folders.remove(key.getParentFile());
+        }
+    }
+
+    public synchronized void clear() {
+        folders.clear();
+    }
+
+}
@@ -90,6 +90,13 @@ public class Token {
         return stream;
     }
 
+    public void relocate(TokenStream stream, int offset, int lines) {
+        this.stream = stream;
+        this.start += offset;
+        this.stop += offset;
+        this.line += lines;
+    }
+
     public boolean isAdjacent(Token token) {
         return (stop + 1) == token.start;
     }
@@ -13,6 +13,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -26,6 +27,8 @@ import com.maccasoft.propeller.SpinObject.LongDataObject;
 import com.maccasoft.propeller.SpinObject.WordDataObject;
 import com.maccasoft.propeller.expressions.Context;
 import com.maccasoft.propeller.expressions.Expression;
+import com.maccasoft.propeller.model.NodeVisitor;
+import com.maccasoft.propeller.model.ObjectNode;
 import com.maccasoft.propeller.model.RootNode;
 import com.maccasoft.propeller.model.Token;
 import com.maccasoft.propeller.model.TokenStream;
@@ -93,8 +96,7 @@ public class Spin1Compiler extends Compiler {
         if (text == null) {
             throw new FileNotFoundException();
         }
-        Spin1Parser parser = new Spin1Parser(text);
-        Spin1Object object = compile(file, parser.parse());
+        Spin1Object object = compile(file, getParsedSource(file, ".spin", text));
 
         if (hasErrors()) {
             throw new CompilerException(messages);
@@ -105,7 +107,13 @@ public class Spin1Compiler extends Compiler {
 
     @Override
     public Spin1Object compile(File rootFile, RootNode root) {
-        Spin1Object obj = compileObject(rootFile, root);
+        Spin1Object obj;
+        try {
+            preloadObjects(root);
+            obj = compileObject(rootFile, root);
+        } finally {
+            releaseParsedSources();
+        }
 
         Spin1Object object = new Spin1Object();
         object.setClkFreq(obj.getClkFreq());
@@ -283,6 +291,24 @@ public class Spin1Compiler extends Compiler {
         return null;
     }
 
+    @Override
+    protected void collectObjectFiles(RootNode root, Collection<File> files) {
+        root.accept(new NodeVisitor() {
+
+            @Override
+            public void visitObject(ObjectNode node) {
+                String fileName = node.getFileName();
+                if (fileName != null) {
+                    File file = findFile(fileName, ".spin");
+                    if (file != null) {
+                        files.add(file);
+                    }
+                }
+            }
+
+        });
+    }
+
     protected byte[] getBinaryFile(String fileName) {
         return getResource(fileName);
     }
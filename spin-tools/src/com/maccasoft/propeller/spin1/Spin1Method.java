@@ -15,6 +15,7 @@ import java.util.List;
 
 import org.apache.commons.lang3.BitField;
 
+import com.maccasoft.propeller.SpinObject.MethodDataObject;
 import com.maccasoft.propeller.expressions.Context;
 import com.maccasoft.propeller.expressions.Expression;
 import com.maccasoft.propeller.expressions.LocalVariable;
@@ -214,9 +215,7 @@ public class Spin1Method {
     }
 
     public void writeTo(Spin1Object obj) {
-        if (comment != null) {
-            obj.writeComment(comment);
-        }
+        obj.write(new MethodDataObject(label, comment));
 
         for (Spin1MethodLine line : lines) {
             line.writeTo(obj);
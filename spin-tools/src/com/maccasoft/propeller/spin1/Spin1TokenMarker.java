@@ -212,29 +212,27 @@ public class Spin1TokenMarker extends SourceTokenMarker {
 
     @Override
     public void refreshTokens(String text) {
-        Spin1Parser subject = new Spin1Parser(text);
-        root = subject.parse();
-
-        tokens.clear();
-        for (Token token : root.getComments()) {
-            tokens.add(new TokenMarker(token, TokenId.COMMENT));
-        }
-        tokens.addAll(excludedNodes);
+        root = parseSections(text);
 
         collectLinkedObjects = false;
 
-        collectKeywords(root);
-        updateReferences(root);
+        refreshSectionTokens(collectKeywordsVisitor, updateReferencesVisitor);
     }
 
     @Override
-    public void refreshCompilerTokens(List<CompilerException> messages) {
+    protected RootNode parseSection(String text) {
+        Spin1Parser subject = new Spin1Parser(text);
+        return subject.parse();
+    }
+
+    @Override
+    public void refreshCompilerTokens(List<CompilerException> messages, RootNode compiledRoot) {
         tokens.clear();
         symbols.clear();
         externals.clear();
         cache.clear();
 
-        super.refreshCompilerTokens(messages);
+        super.refreshCompilerTokens(messages, compiledRoot);
 
         for (Token token : root.getComments()) {
             tokens.add(new TokenMarker(token, TokenId.COMMENT));
@@ -246,9 +244,7 @@ public class Spin1TokenMarker extends SourceTokenMarker {
         updateReferences(root);
     }
 
-    NodeVisitor collectKeywordsVisitor = new NodeVisitor() {
-
-        String lastLabel = "";
+    SectionVisitor collectKeywordsVisitor = new SectionVisitor() {
 
         @Override
         public void visitDirective(DirectiveNode node) {
@@ -467,9 +463,7 @@ public class Spin1TokenMarker extends SourceTokenMarker {
         root.accept(collectKeywordsVisitor);
     }
 
-    NodeVisitor updateReferencesVisitor = new NodeVisitor() {
-
-        String lastLabel = "";
+    SectionVisitor updateReferencesVisitor = new SectionVisitor() {
 
         @Override
         public void visitDirective(DirectiveNode node) {
@@ -12,6 +12,7 @@ package com.maccasoft.propeller.spin2;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -27,6 +28,8 @@ import com.maccasoft.propeller.SpinObject.WordDataObject;
 import com.maccasoft.propeller.expressions.Context;
 import com.maccasoft.propeller.expressions.Expression;
 import com.maccasoft.propeller.expressions.Method;
+import com.maccasoft.propeller.model.NodeVisitor;
+import com.maccasoft.propeller.model.ObjectNode;
 import com.maccasoft.propeller.model.RootNode;
 import com.maccasoft.propeller.model.Token;
 import com.maccasoft.propeller.model.TokenStream;
@@ -49,6 +52,7 @@ public class Spin2Compiler extends Compiler {
 
     boolean compress;
     Spin2ObjectCompiler objectCompiler;
+    Spin2ObjectCache objectCache;
 
     public Spin2Compiler() {
 
@@ -71,6 +75,14 @@ public class Spin2Compiler extends Compiler {
         this.compress = compress;
     }
 
+    public Spin2ObjectCache getObjectCache() {
+        return objectCache;
+    }
+
+    public void setObjectCache(Spin2ObjectCache objectCache) {
+        this.objectCache = objectCache;
+    }
+
     @Override
     public void addDefine(String identifier, String value) {
         Token token;
@@ -89,8 +101,7 @@ public class Spin2Compiler extends Compiler {
         if (text == null) {
             throw new FileNotFoundException();
         }
-        Spin2Parser parser = new Spin2Parser(text);
-        Spin2Object object = compile(file, parser.parse());
+        Spin2Object object = compile(file, getParsedSource(file, ".spin2", text));
 
         if (hasErrors()) {
             throw new CompilerException(messages);
@@ -101,7 +112,13 @@ public class Spin2Compiler extends Compiler {
 
     @Override
     public Spin2Object compile(File rootFile, RootNode root) {
-        Spin2Object obj = compileObject(rootFile, root);
+        Spin2Object obj;
+        try {
+            preloadObjects(root);
+            obj = compileObject(rootFile, root);
+        } finally {
+            releaseParsedSources();
+        }
 
         if (interpreter != null) {
             obj.setInterpreter(interpreter);
@@ -120,7 +137,14 @@ public class Spin2Compiler extends Compiler {
 
     protected Spin2Object compileObject(File rootFile, RootNode root) {
         objectCompiler = new Spin2ObjectCompiler(this, rootFile);
-        objectCompiler.compileStep1(root);
+        if (objectCache != null) {
+            objectCache.begin(this);
+            objectCompiler.compileStep1(root);
+            objectCache.end(this);
+        }
+        else {
+            objectCompiler.compileStep1(root);
+        }
 
         objectCompiler.compileStep2(true);
         for (ObjectInfo info : childObjects) {
@@ -140,9 +164,12 @@ public class Spin2Compiler extends Compiler {
         object.getObject(0).setText("Object \"" + rootFile.getName() + "\" header (var size " + object.getVarSize() + ")");
         memoryOffset += object.getSize();
 
+        if (objectCache != null) {
+            objectCache.beginGenerate(this);
+        }
         for (ObjectInfo info : childObjects) {
             info.offset = object.getSize();
-            SpinObject linkedObject = info.compiler.generateObject(memoryOffset);
+            SpinObject linkedObject = objectCache != null ? objectCache.generateObject(info.compiler, memoryOffset) : info.compiler.generateObject(memoryOffset);
             linkedObject.getObject(0).setText("Object \"" + info.file.getName() + "\" header (var size " + linkedObject.getVarSize() + ")");
             object.writeObject(linkedObject);
             memoryOffset += linkedObject.getSize();
@@ -214,6 +241,9 @@ public class Spin2Compiler extends Compiler {
     }
 
     public void addDebugStatement(DebugDataObject statement) {
+        if (objectCache != null) {
+            objectCache.addDebugStatement(statement);
+        }
         if (!debugStatements.contains(statement)) {
             debugStatements.add(statement);
         }
@@ -256,6 +286,29 @@ public class Spin2Compiler extends Compiler {
 
     @Override
     public ObjectInfo getObjectInfo(ObjectCompiler parent, File file, Map<String, Expression> parameters) throws Exception {
+        if (objectCache == null) {
+            return createObjectInfo(parent, file, parameters);
+        }
+
+        if (parent == objectCompiler) {
+            ObjectInfo info = objectCache.getObjectInfo(this, parent, file, parameters);
+            if (info != null) {
+                return info;
+            }
+        }
+
+        ObjectInfo info = null;
+        objectCache.enterObject();
+        try {
+            info = createObjectInfo(parent, file, parameters);
+        } finally {
+            objectCache.exitObject(info);
+        }
+
+        return info;
+    }
+
+    ObjectInfo createObjectInfo(ObjectCompiler parent, File file, Map<String, Expression> parameters) throws Exception {
         RootNode objectRoot = getParsedSource(file);
 
         ObjectCompiler objectCompiler;
@@ -265,6 +318,9 @@ public class Spin2Compiler extends Compiler {
         else {
             objectCompiler = new Spin2ObjectCompiler(this, parent, file, parameters);
         }
+        if (objectCache != null) {
+            objectCache.addCompiler(objectCompiler);
+        }
 
         while (parent != null) {
             if (file.equals(parent.getFile())) {
@@ -282,6 +338,9 @@ public class Spin2Compiler extends Compiler {
             info = childObjects.remove(index);
         }
         childObjects.add(info);
+        if (objectCache != null) {
+            objectCache.addRegistration(info);
+        }
         objectCompiler.compileStep1(objectRoot);
 
         return info;
@@ -299,6 +358,9 @@ public class Spin2Compiler extends Compiler {
                 else {
                     objectCompiler = new Spin2ObjectCompiler(this, objectFile);
                 }
+                if (objectCache != null) {
+                    objectCache.addCompiler(objectCompiler);
+                }
                 ObjectInfo info = new ObjectInfo(objectFile, objectCompiler, parameters);
                 int index = childObjects.indexOf(info);
                 if (index != -1) {
@@ -311,8 +373,48 @@ public class Spin2Compiler extends Compiler {
         return null;
     }
 
+    @Override
+    public File getFile(String name, String... extensions) {
+        File file = super.getFile(name, extensions);
+        if (objectCache != null) {
+            objectCache.addFile(name, extensions, file);
+        }
+        return file;
+    }
+
+    @Override
+    public RootNode getParsedSource(File file) {
+        RootNode root = super.getParsedSource(file);
+        if (objectCache != null) {
+            objectCache.addSource(file, root);
+        }
+        return root;
+    }
+
+    @Override
+    protected void collectObjectFiles(RootNode root, Collection<File> files) {
+        root.accept(new NodeVisitor() {
+
+            @Override
+            public void visitObject(ObjectNode node) {
+                String fileName = node.getFileName();
+                if (fileName != null) {
+                    File file = findFile(fileName, ".spin2");
+                    if (file != null) {
+                        files.add(file);
+                    }
+                }
+            }
+
+        });
+    }
+
     protected byte[] getBinaryFile(String fileName) {
-        return getResource(fileName);
+        byte[] data = getResource(fileName);
+        if (objectCache != null) {
+            objectCache.addResource(fileName, data);
+        }
+        return data;
     }
 
     protected void logMessage(CompilerException message) {
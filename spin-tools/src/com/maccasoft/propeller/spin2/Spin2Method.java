@@ -16,6 +16,7 @@ import java.util.List;
 import org.apache.commons.collections4.iterators.ReverseListIterator;
 import org.apache.commons.lang3.BitField;
 
+import com.maccasoft.propeller.SpinObject.MethodDataObject;
 import com.maccasoft.propeller.expressions.Context;
 import com.maccasoft.propeller.expressions.LocalVariable;
 import com.maccasoft.propeller.spin2.bytecode.Constant;
@@ -207,9 +208,7 @@ public class Spin2Method {
     }
 
     public void writeTo(Spin2Object obj, boolean debug) {
-        if (comment != null) {
-            obj.writeComment(comment);
-        }
+        obj.write(new MethodDataObject(label, comment));
 
         obj.writeBytes(Constant.wrVar(getLocalVariableLongs()), "(stack size)");
 
@@ -293,13 +293,14 @@ public class Spin2Object extends SpinObject {
         return binaryImage;
     }
 
+    @Override
+    public int getListingOffset() {
+        return interpreter != null ? interpreter.getPBase() : 0;
+    }
+
     @Override
     public void generateListing(PrintStream ps) {
-        int offset = 0;
-        if (interpreter != null) {
-            offset = interpreter.getPBase();
-        }
-        generateListing(offset, ps);
+        generateListing(getListingOffset(), ps);
         if (debugData != null) {
             int size = debugger != null ? debugger.getSize() : 0;
             debugData.generateListing(size, ps);
@@ -0,0 +1,434 @@
+/*
+ * Copyright (c) 2021-26 Marco Maccaferri and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License v1.0 which accompanies this
+ * distribution, and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+
+package com.maccasoft.propeller.spin2;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import com.maccasoft.propeller.Compiler.ObjectInfo;
+import com.maccasoft.propeller.CompilerException;
+import com.maccasoft.propeller.ObjectCompiler;
+import com.maccasoft.propeller.SpinObject;
+import com.maccasoft.propeller.expressions.Expression;
+import com.maccasoft.propeller.model.ParsedSourceCache;
+import com.maccasoft.propeller.model.RootNode;
+import com.maccasoft.propeller.model.Token;
+import com.maccasoft.propeller.spin2.Spin2Debug.DebugDataObject;
+
+/*
+ * Keeps the child objects of the last compile so that a new compile of the same
+ * top object can reuse them without running step 1 again. Each object declared by
+ * the top object is recorded with the files it depends on, the objects it registered
+ * and the debug statements it added; if none of them changed the recorded objects
+ * are linked to the new compiler and only step 2 and the object generation are
+ * repeated. The generated objects are reused too if the memory offset and the
+ * methods left after the unused methods removal didn't change.
+ *
+ * A cache instance must not be used by concurrent compiles.
+ */
+public class Spin2ObjectCache {
+
+    static class Request {
+
+        File file;
+        Map<String, Object> parameters;
+        Map<String, List<String>> definitions;
+
+        ObjectCompiler compiler;
+        ObjectInfo info;
+
+        List<ObjectCompiler> compilers = new ArrayList<>();
+        List<ObjectInfo> registered = new ArrayList<>();
+        List<DebugDataObject> debugStatements = new ArrayList<>();
+
+        Map<File, RootNode> sources = new HashMap<>();
+        Map<List<String>, File> files = new HashMap<>();
+        Map<String, byte[]> resources = new HashMap<>();
+
+        boolean reusable = true;
+
+        Request(File file, Map<String, Object> parameters, Map<String, List<String>> definitions) {
+            this.file = file;
+            this.parameters = parameters;
+            this.definitions = definitions;
+        }
+
+    }
+
+    static class State {
+
+        List<CompilerException> messages;
+        List<Spin2Method> methods;
+        Map<Spin2Method, List<Spin2Method>> calls = new IdentityHashMap<>();
+        Map<Spin2Method, List<Spin2Method>> calledBy = new IdentityHashMap<>();
+
+        int memoryOffset;
+        SpinObject object;
+        List<Spin2Method> generatedMethods;
+        List<CompilerException> generatedMessages;
+
+    }
+
+    List<Object> options;
+    List<Request> requests = new ArrayList<>();
+    Map<ObjectCompiler, State> states = new IdentityHashMap<>();
+    Map<Spin2Method, Integer> owners = new IdentityHashMap<>();
+
+    List<Request> newRequests;
+    Request current;
+    int depth;
+    boolean replay;
+    boolean reuseGeneratedObjects;
+
+    int hits;
+    int misses;
+
+    public Spin2ObjectCache() {
+
+    }
+
+    public int getHits() {
+        return hits;
+    }
+
+    public int getMisses() {
+        return misses;
+    }
+
+    public void clear() {
+        options = null;
+        requests.clear();
+        states.clear();
+        owners.clear();
+    }
+
+    void begin(Spin2Compiler compiler) {
+        List<Object> newOptions = getOptions(compiler);
+        if (!newOptions.equals(options)) {
+            clear();
+            options = newOptions;
+        }
+        newRequests = new ArrayList<>();
+        current = null;
+        depth = 0;
+        replay = true;
+    }
+
+    ObjectInfo getObjectInfo(Spin2Compiler compiler, ObjectCompiler parent, File file, Map<String, Expression> parameters) {
+        int index = newRequests.size();
+        Map<String, Object> parameterValues = getParameterValues(parameters);
+        Map<String, List<String>> definitions = getDefinitions(parent.getScope().getDefinitions());
+
+        if (replay && index < requests.size()) {
+            Request request = requests.get(index);
+            if (request.reusable && parameterValues != null && request.file.equals(file) && request.parameters.equals(parameterValues) && request.definitions.equals(definitions)) {
+                if (isValid(compiler, request)) {
+                    replay(compiler, parent, request, index);
+                    newRequests.add(request);
+                    hits++;
+                    return request.info;
+                }
+            }
+        }
+
+        replay = false;
+        misses++;
+
+        current = new Request(file, parameterValues, definitions);
+        current.reusable = parameterValues != null;
+        return null;
+    }
+
+    boolean isValid(Spin2Compiler compiler, Request request) {
+        for (Entry<List<String>, File> entry : request.files.entrySet()) {
+            List<String> key = entry.getKey();
+            File file = compiler.getFile(key.get(0), key.subList(1, key.size()).toArray(new String[0]));
+            if (!Objects.equals(file, entry.getValue())) {
+                return false;
+            }
+        }
+        for (Entry<File, RootNode> entry : request.sources.entrySet()) {
+            RootNode root = compiler.getParsedSource(entry.getKey());
+            if (root == null || !ParsedSourceCache.getInstance().isSameSource(entry.getValue(), root)) {
+                return false;
+            }
+        }
+        for (Entry<String, byte[]> entry : request.resources.entrySet()) {
+            if (!Arrays.equals(compiler.getBinaryFile(entry.getKey()), entry.getValue())) {
+                return false;
+            }
+        }
+        for (ObjectCompiler objectCompiler : request.compilers) {
+            if (!(objectCompiler instanceof Spin2ObjectCompiler)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void replay(Spin2Compiler compiler, ObjectCompiler parent, Request request, int index) {
+        for (ObjectCompiler objectCompiler : request.compilers) {
+            ((Spin2ObjectCompiler) objectCompiler).compiler = compiler;
+        }
+        request.compiler.setParent(parent);
+
+        for (ObjectInfo info : request.registered) {
+            int i = compiler.childObjects.indexOf(info);
+            if (i != -1) {
+                compiler.childObjects.remove(i);
+            }
+            compiler.childObjects.add(info);
+            restore(info.compiler, index);
+        }
+
+        for (DebugDataObject statement : request.debugStatements) {
+            compiler.addDebugStatement(statement);
+        }
+    }
+
+    void restore(ObjectCompiler objectCompiler, int index) {
+        State state = states.get(objectCompiler);
+        if (state == null) {
+            return;
+        }
+
+        Spin2ObjectCompiler spinCompiler = (Spin2ObjectCompiler) objectCompiler;
+        spinCompiler.setMessages(state.messages);
+        spinCompiler.methods.clear();
+        spinCompiler.methods.addAll(state.methods);
+
+        for (Spin2Method method : state.methods) {
+            restore(method.calls, state.calls.get(method), index);
+            restore(method.calledBy, state.calledBy.get(method), index);
+        }
+    }
+
+    void restore(List<Spin2Method> list, List<Spin2Method> snapshot, int index) {
+        list.clear();
+        for (Spin2Method method : snapshot) {
+            Integer owner = owners.get(method);
+            if (owner != null && owner <= index) {
+                list.add(method);
+            }
+        }
+    }
+
+    void addCompiler(ObjectCompiler objectCompiler) {
+        if (current != null) {
+            if (depth == 1) {
+                current.compiler = objectCompiler;
+            }
+            current.compilers.add(objectCompiler);
+        }
+    }
+
+    void addRegistration(ObjectInfo info) {
+        if (current != null) {
+            current.registered.add(info);
+        }
+    }
+
+    void addDebugStatement(DebugDataObject statement) {
+        if (current != null) {
+            current.debugStatements.add(statement);
+        }
+    }
+
+    void addSource(File file, RootNode root) {
+        if (current != null) {
+            current.sources.put(file, root);
+        }
+    }
+
+    void addFile(String name, String[] extensions, File file) {
+        if (current != null) {
+            List<String> key = new ArrayList<>();
+            key.add(name);
+            key.addAll(Arrays.asList(extensions));
+            current.files.put(key, file);
+        }
+    }
+
+    void addResource(String name, byte[] data) {
+        if (current != null) {
+            current.resources.put(name, data);
+        }
+    }
+
+    void enterObject() {
+        if (current != null) {
+            depth++;
+        }
+    }
+
+    void exitObject(ObjectInfo info) {
+        if (current == null) {
+            return;
+        }
+        if (--depth == 0) {
+            current.info = info;
+            if (info != null && current.compiler != null) {
+                newRequests.add(current);
+            }
+            current = null;
+        }
+    }
+
+    void end(Spin2Compiler compiler) {
+        Map<ObjectCompiler, State> oldStates = states;
+
+        requests = newRequests;
+        states = new IdentityHashMap<>();
+        owners = new IdentityHashMap<>();
+        newRequests = null;
+        current = null;
+
+        for (ObjectInfo info : compiler.childObjects) {
+            if (info.compiler.hasErrors()) {
+                requests = new ArrayList<>();
+                return;
+            }
+        }
+
+        for (int index = 0; index < requests.size(); index++) {
+            for (ObjectCompiler objectCompiler : requests.get(index).compilers) {
+                if (objectCompiler instanceof Spin2ObjectCompiler) {
+                    for (Spin2Method method : ((Spin2ObjectCompiler) objectCompiler).methods) {
+                        if (!owners.containsKey(method)) {
+                            owners.put(method, index);
+                        }
+                    }
+                }
+            }
+        }
+
+        for (Request request : requests) {
+            for (ObjectInfo info : request.registered) {
+                if (!(info.compiler instanceof Spin2ObjectCompiler) || states.containsKey(info.compiler)) {
+                    continue;
+                }
+                Spin2ObjectCompiler objectCompiler = (Spin2ObjectCompiler) info.compiler;
+
+                State state = new State();
+                state.messages = new ArrayList<>(objectCompiler.getMessages());
+                state.methods = new ArrayList<>(objectCompiler.methods);
+                for (Spin2Method method : objectCompiler.methods) {
+                    state.calls.put(method, getOwnedMethods(method.calls));
+                    state.calledBy.put(method, getOwnedMethods(method.calledBy));
+                }
+
+                State oldState = oldStates.get(objectCompiler);
+                if (oldState != null) {
+                    state.memoryOffset = oldState.memoryOffset;
+                    state.object = oldState.object;
+                    state.generatedMethods = oldState.generatedMethods;
+                    state.generatedMessages = oldState.generatedMessages;
+                }
+
+                states.put(objectCompiler, state);
+            }
+        }
+    }
+
+    List<Spin2Method> getOwnedMethods(List<Spin2Method> list) {
+        List<Spin2Method> result = new ArrayList<>();
+        for (Spin2Method method : list) {
+            if (owners.containsKey(method)) {
+                result.add(method);
+            }
+        }
+        return result;
+    }
+
+    void beginGenerate(Spin2Compiler compiler) {
+        reuseGeneratedObjects = !compiler.isDebugEnabled();
+        for (ObjectInfo info : compiler.childObjects) {
+            State state = states.get(info.compiler);
+            if (state == null || state.generatedMethods == null || !state.generatedMethods.equals(((Spin2ObjectCompiler) info.compiler).methods)) {
+                reuseGeneratedObjects = false;
+                break;
+            }
+        }
+    }
+
+    SpinObject generateObject(ObjectCompiler objectCompiler, int memoryOffset) {
+        State state = states.get(objectCompiler);
+
+        if (state != null && reuseGeneratedObjects && state.object != null && state.memoryOffset == memoryOffset) {
+            for (CompilerException message : state.generatedMessages) {
+                objectCompiler.getMessages().add(message);
+            }
+            return state.object;
+        }
+
+        int messagesCount = objectCompiler.getMessages().size();
+        SpinObject object = objectCompiler.generateObject(memoryOffset);
+
+        if (state != null) {
+            List<CompilerException> messages = objectCompiler.getMessages();
+            state.memoryOffset = memoryOffset;
+            state.object = object;
+            state.generatedMethods = new ArrayList<>(((Spin2ObjectCompiler) objectCompiler).methods);
+            state.generatedMessages = new ArrayList<>(messages.subList(messagesCount, messages.size()));
+        }
+
+        return object;
+    }
+
+    List<Object> getOptions(Spin2Compiler compiler) {
+        List<Object> list = new ArrayList<>();
+        list.add(compiler.isCaseSensitive());
+        list.add(compiler.isDebugEnabled());
+        list.add(compiler.removeUnusedMethods());
+        list.add(compiler.warnUnusedMethods());
+        list.add(compiler.warnUnusedMethodVariables());
+        list.add(compiler.warnUnusedVariables());
+        list.add(compiler.warnRemovedUnusedMethods());
+        list.add(getDefinitions(compiler.getDefines()));
+        return list;
+    }
+
+    static Map<String, Object> getParameterValues(Map<String, Expression> parameters) {
+        Map<String, Object> result = new TreeMap<>();
+        for (Entry<String, Expression> entry : parameters.entrySet()) {
+            try {
+                Expression expression = entry.getValue();
+                if (!expression.isConstant()) {
+                    return null;
+                }
+                result.put(entry.getKey(), expression.getNumber());
+            } catch (Exception e) {
+                return null;
+            }
+        }
+        return result;
+    }
+
+    static Map<String, List<String>> getDefinitions(Map<String, List<Token>> definitions) {
+        Map<String, List<String>> result = new TreeMap<>();
+        for (Entry<String, List<Token>> entry : definitions.entrySet()) {
+            List<String> list = new ArrayList<>();
+            for (Token token : entry.getValue()) {
+                list.add(token.getText());
+            }
+            result.put(entry.getKey(), list);
+        }
+        return result;
+    }
+
+}
@@ -698,44 +698,41 @@ public class Spin2TokenMarker extends SourceTokenMarker {
 
     @Override
     public void refreshTokens(String text) {
-        Spin2Parser subject = new Spin2Parser(text);
-        root = subject.parse();
-
-        tokens.clear();
-        for (Token token : root.getComments()) {
-            if (token.type == Token.NEXT_LINE) {
-                tokens.add(new TokenMarker(token.start, token.start + 2, TokenId.OPERATOR));
-                tokens.add(new TokenMarker(token.start + 3, token.stop, TokenId.COMMENT));
-            }
-            else {
-                tokens.add(new TokenMarker(token, TokenId.COMMENT));
-            }
-        }
-        tokens.addAll(excludedNodes);
+        root = parseSections(text);
 
         collectLinkedObjects = false;
 
-        collectKeywords(root);
-        updateReferences(root);
+        refreshSectionTokens(collectKeywordsVisitor, updateReferencesVisitor);
+    }
+
+    @Override
+    protected RootNode parseSection(String text) {
+        Spin2Parser subject = new Spin2Parser(text);
+        return subject.parse();
+    }
+
+    @Override
+    protected void markComment(Token token) {
+        if (token.type == Token.NEXT_LINE) {
+            tokens.add(new TokenMarker(token.start, token.start + 2, TokenId.OPERATOR));
+            tokens.add(new TokenMarker(token.start + 3, token.stop, TokenId.COMMENT));
+        }
+        else {
+            tokens.add(new TokenMarker(token, TokenId.COMMENT));
+        }
     }
 
     @Override
-    public void refreshCompilerTokens(List<CompilerException> messages) {
+    public void refreshCompilerTokens(List<CompilerException> messages, RootNode compiledRoot) {
         tokens.clear();
         symbols.clear();
         externals.clear();
         cache.clear();
 
-        super.refreshCompilerTokens(messages);
+        super.refreshCompilerTokens(messages, compiledRoot);
 
         for (Token token : root.getComments()) {
-            if (token.type == Token.NEXT_LINE) {
-                tokens.add(new TokenMarker(token.start, token.start + 2, TokenId.OPERATOR));
-                tokens.add(new TokenMarker(token.start + 3, token.stop, TokenId.COMMENT));
-            }
-            else {
-                tokens.add(new TokenMarker(token, TokenId.COMMENT));
-            }
+            markComment(token);
         }
 
         collectLinkedObjects = true;
@@ -744,9 +741,7 @@ public class Spin2TokenMarker extends SourceTokenMarker {
         updateReferences(root);
     }
 
-    NodeVisitor collectKeywordsVisitor = new NodeVisitor() {
-
-        String lastLabel = "";
+    SectionVisitor collectKeywordsVisitor = new SectionVisitor() {
 
         @Override
         public void visitDirective(DirectiveNode node) {
@@ -991,9 +986,7 @@ public class Spin2TokenMarker extends SourceTokenMarker {
         root.accept(collectKeywordsVisitor);
     }
 
-    NodeVisitor updateReferencesVisitor = new NodeVisitor() {
-
-        String lastLabel = "";
+    SectionVisitor updateReferencesVisitor = new SectionVisitor() {
 
         @Override
         public void visitDirective(DirectiveNode node) {
@@ -10,38 +10,113 @@
 
 package com.maccasoft.propeller.spin2;
 
+import java.util.Arrays;
+
 import com.maccasoft.propeller.model.Token;
 import com.maccasoft.propeller.model.TokenStream;
 import com.maccasoft.propeller.spin2.bytecode.MathOp;
 
+/*
+ * Scans the source on demand into primitive arrays, one entry per token. Token objects
+ * are created only when returned by nextToken or peekNext, and keyword, number and operator
+ * texts are interned so repeated identifiers share the same string.
+ */
 public class Spin2TokenStream extends TokenStream {
 
     public static class Spin2TokenStreamPosition extends Position {
 
+        int cursor;
         int backtickState;
         int backtickNestedParens;
 
         public Spin2TokenStreamPosition(TokenStream stream) {
             super(stream);
 
+            cursor = ((Spin2TokenStream) stream).cursor;
             backtickState = ((Spin2TokenStream) stream).backtickState;
             backtickNestedParens = ((Spin2TokenStream) stream).backtickNestedParens;
         }
 
+        @Override
         public void restore(TokenStream stream) {
-            super.restore(stream);
-
             if (stream instanceof Spin2TokenStream) {
+                ((Spin2TokenStream) stream).cursor = cursor;
                 ((Spin2TokenStream) stream).backtickState = backtickState;
                 ((Spin2TokenStream) stream).backtickNestedParens = backtickNestedParens;
             }
+            else {
+                super.restore(stream);
+            }
         }
 
     }
 
+    static final byte IDENTIFIER_START = 0x01;
+    static final byte IDENTIFIER_PART = 0x02;
+    static final byte DIGIT = 0x04;
+    static final byte HEX_DIGIT = 0x08;
+
+    static final byte[] CHAR_CLASS = new byte[128];
+    static {
+        for (char ch = '0'; ch <= '9'; ch++) {
+            CHAR_CLASS[ch] = IDENTIFIER_PART | DIGIT | HEX_DIGIT;
+        }
+        for (char ch = 'A'; ch <= 'Z'; ch++) {
+            CHAR_CLASS[ch] = IDENTIFIER_START | IDENTIFIER_PART;
+            CHAR_CLASS[ch + ('a' - 'A')] = IDENTIFIER_START | IDENTIFIER_PART;
+        }
+        for (char ch = 'A'; ch <= 'F'; ch++) {
+            CHAR_CLASS[ch] |= HEX_DIGIT;
+            CHAR_CLASS[ch + ('a' - 'A')] |= HEX_DIGIT;
+        }
+        CHAR_CLASS['_'] = IDENTIFIER_START | IDENTIFIER_PART | HEX_DIGIT;
+    }
+
+    static boolean isIdentifierStart(char ch) {
+        if (ch < 128) {
+            return (CHAR_CLASS[ch] & IDENTIFIER_START) != 0;
+        }
+        ch = Character.toUpperCase(ch);
+        return ch >= 'A' && ch <= 'Z';
+    }
+
+    static boolean isIdentifierPart(char ch) {
+        if (ch < 128) {
+            return (CHAR_CLASS[ch] & IDENTIFIER_PART) != 0;
+        }
+        ch = Character.toUpperCase(ch);
+        return ch >= 'A' && ch <= 'Z';
+    }
+
+    static boolean isHexDigit(char ch) {
+        return ch < 128 && (CHAR_CLASS[ch] & HEX_DIGIT) != 0;
+    }
+
     int backtickState;
     int backtickNestedParens;
 
+    int cursor;
+    int count;
+    boolean eof;
+
+    int[] types;
+    int[] starts;
+    int[] stops;
+    int[] lines;
+    int[] columns;
+    int[] states;
+    int[] nameIds;
+
+    String[] names;
+    int[] nameTable;
+    int nameCount;
+
+    int scanState;
+    int scanNestedParens;
+
+    int tokenIndex = -1;
+    Token token;
+
     Token eofToken;
 
     public Spin2TokenStream(String text) {
@@ -49,25 +124,158 @@ public class Spin2TokenStream extends TokenStream {
         backtickState = 0;
         backtickNestedParens = 0;
         eofToken = new Token(this, text.length() - 1, Token.EOF);
+
+        int capacity = Math.max(16, text.length() / 4);
+        types = new int[capacity];
+        starts = new int[capacity];
+        stops = new int[capacity];
+        lines = new int[capacity];
+        columns = new int[capacity];
+        states = new int[capacity];
+        nameIds = new int[capacity];
+
+        names = new String[64];
+        nameTable = new int[128];
     }
 
     @Override
     public Token nextToken() {
-        if (backtickState == 1) {
-            return parseBacktickString();
+        if (cursor >= count && !scan()) {
+            backtickState = scanState;
+            backtickNestedParens = scanNestedParens;
+            return eofToken;
+        }
+        backtickState = states[cursor] & 3;
+        backtickNestedParens = states[cursor] >>> 2;
+        return getToken(cursor++);
+    }
+
+    @Override
+    public Token peekNext() {
+        if (cursor >= count && !scan()) {
+            return eofToken;
         }
-        if (backtickState == 2) {
-            return parseBacktickKeyword();
+        return getToken(cursor);
+    }
+
+    @Override
+    public void reset() {
+        cursor = 0;
+        backtickState = 0;
+        backtickNestedParens = 0;
+    }
+
+    @Override
+    public Position mark() {
+        return new Spin2TokenStreamPosition(this);
+    }
+
+    Token getToken(int i) {
+        if (i != tokenIndex) {
+            if (nameIds[i] != -1) {
+                token = new Token(this, starts[i], lines[i], columns[i], types[i], names[nameIds[i]]);
+            }
+            else {
+                token = new Token(this, starts[i], lines[i], columns[i], types[i]);
+                token.stop = stops[i];
+            }
+            tokenIndex = i;
+        }
+        return token;
+    }
+
+    boolean scan() {
+        if (eof) {
+            return false;
         }
-        if (backtickState == 3) {
-            return parseBacktickNext();
+        int n = count;
+        if (scanState == 1) {
+            parseBacktickString();
         }
-        return parseNext();
+        else if (scanState == 2) {
+            parseBacktickKeyword();
+        }
+        else if (scanState == 3) {
+            parseBacktickNext();
+        }
+        else {
+            parseNext();
+        }
+        if (count == n) {
+            eof = true;
+            return false;
+        }
+        return true;
+    }
+
+    void add(int type, int start, int line, int column) {
+        add(type, start, index - 1, line, column);
     }
 
-    Token parseNext() {
+    void add(int type, int start, int stop, int line, int column) {
+        if (count == types.length) {
+            int capacity = count * 2;
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            stops = Arrays.copyOf(stops, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            columns = Arrays.copyOf(columns, capacity);
+            states = Arrays.copyOf(states, capacity);
+            nameIds = Arrays.copyOf(nameIds, capacity);
+        }
+        types[count] = type;
+        starts[count] = start;
+        stops[count] = stop;
+        lines[count] = line;
+        columns[count] = column;
+        states[count] = scanState | (scanNestedParens << 2);
+        nameIds[count] = (type == Token.KEYWORD || type == Token.OPERATOR || type == Token.NUMBER) && stop >= start ? intern(start, stop) : -1;
+        count++;
+    }
+
+    int intern(int start, int stop) {
+        int length = stop - start + 1;
+
+        int hash = 0;
+        for (int i = start; i <= stop; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+
+        int mask = nameTable.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (nameTable[slot] != 0) {
+            String s = names[nameTable[slot] - 1];
+            if (s.length() == length && text.regionMatches(start, s, 0, length)) {
+                return nameTable[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (nameCount == names.length) {
+            names = Arrays.copyOf(names, nameCount * 2);
+        }
+        names[nameCount++] = text.substring(start, stop + 1);
+        nameTable[slot] = nameCount;
+
+        if (nameCount * 2 > nameTable.length) {
+            nameTable = new int[nameTable.length * 2];
+            mask = nameTable.length - 1;
+            for (int i = 0; i < nameCount; i++) {
+                hash = names[i].hashCode();
+                slot = (hash ^ (hash >>> 16)) & mask;
+                while (nameTable[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                nameTable[slot] = i + 1;
+            }
+        }
+
+        return nameCount - 1;
+    }
+
+    void parseNext() {
         while (index < text.length()) {
-            char ch = Character.toUpperCase(text.charAt(index));
+            char ch = text.charAt(index);
             if (ch == ' ') {
                 index++;
                 column++;
@@ -87,7 +295,8 @@ public class Spin2TokenStream extends TokenStream {
                 column = 0;
                 line++;
 
-                return new Token(this, startIndex, startLine, startColumn, Token.NL);
+                add(Token.NL, startIndex, startIndex, startLine, startColumn);
+                return;
             }
             else if (ch == '\n') {
                 int startIndex = index++;
@@ -97,53 +306,57 @@ public class Spin2TokenStream extends TokenStream {
                 column = 0;
                 line++;
 
-                return new Token(this, startIndex, startLine, startColumn, Token.NL);
+                add(Token.NL, startIndex, startIndex, startLine, startColumn);
+                return;
             }
             else if (ch == '\'') {
-                return parseComment();
+                parseComment();
+                return;
             }
             else if (ch == '{') {
-                return parseBlockComment();
+                parseBlockComment();
+                return;
             }
             else if (ch == '"') {
-                return parseString();
+                parseString();
+                return;
             }
             else if (ch == '$') {
                 if (index + 1 < text.length() && text.charAt(index + 1) == '$') {
-                    Token token = new Token(this, index, line, column, Token.KEYWORD, text.substring(index, index + 2));
+                    int startIndex = index;
+                    int startColumn = column;
                     index += 2;
                     column += 2;
-                    return token;
+                    add(Token.KEYWORD, startIndex, line, startColumn);
+                    return;
                 }
-                return parseHexNumber();
+                parseHexNumber();
+                return;
             }
             else if (ch == '%') {
-                return parseBinQuadNumber();
+                parseBinQuadNumber();
+                return;
             }
-            else if ((ch >= '0' && ch <= '9')) {
-                return parseNumber();
+            else if (ch >= '0' && ch <= '9') {
+                parseNumber();
+                return;
             }
-            else if ((ch >= 'A' && ch <= 'Z') || ch == '_') {
-                return parseKeyword();
+            else if (isIdentifierStart(ch)) {
+                parseKeyword();
+                return;
             }
             else if (ch == '`') {
-                return parseBacktickString();
+                parseBacktickString();
+                return;
             }
             else {
-                /*if (ch == '.' && index + 1 < text.length()) {
-                    char ch1 = Character.toUpperCase(text.charAt(index + 1));
-                    if ((ch1 >= 'A' && ch1 <= 'Z') || ch1 == '_') {
-                        return parseKeyword();
-                    }
-                }*/
-                return parseOperator();
+                parseOperator();
+                return;
             }
         }
-
-        return eofToken;
     }
 
-    Token parseComment() {
+    void parseComment() {
         int startIndex = index++;
         int startColumn = column++;
 
@@ -156,10 +369,10 @@ public class Spin2TokenStream extends TokenStream {
             column++;
         }
 
-        return new Token(this, startIndex, line, startColumn, Token.COMMENT, text.substring(startIndex, index));
+        add(Token.COMMENT, startIndex, line, startColumn);
     }
 
-    Token parseBlockComment() {
+    void parseBlockComment() {
         int startIndex = index++;
         int startLine = line;
         int startColumn = column++;
@@ -187,10 +400,10 @@ public class Spin2TokenStream extends TokenStream {
             }
         }
 
-        return new Token(this, startIndex, startLine, startColumn, Token.BLOCK_COMMENT, text.substring(startIndex, index));
+        add(Token.BLOCK_COMMENT, startIndex, startLine, startColumn);
     }
 
-    Token parseString() {
+    void parseString() {
         int startIndex = index++;
         int startColumn = column++;
 
@@ -206,10 +419,10 @@ public class Spin2TokenStream extends TokenStream {
             }
         }
 
-        return new Token(this, startIndex, line, startColumn, Token.STRING, text.substring(startIndex, index));
+        add(Token.STRING, startIndex, line, startColumn);
     }
 
-    Token parseNumber() {
+    void parseNumber() {
         int startIndex = index;
         int startColumn = column;
 
@@ -217,7 +430,7 @@ public class Spin2TokenStream extends TokenStream {
         column++;
 
         while (index < text.length()) {
-            char ch = Character.toUpperCase(text.charAt(index));
+            char ch = text.charAt(index);
             if (ch == '.') {
                 if (index + 1 < text.length()) {
                     char ch1 = text.charAt(index + 1);
@@ -226,7 +439,7 @@ public class Spin2TokenStream extends TokenStream {
                     }
                 }
             }
-            else if (ch == 'E') {
+            else if (ch == 'E' || ch == 'e') {
                 if (index + 1 < text.length()) {
                     if (text.charAt(index + 1) == '+' || text.charAt(index + 1) == '-') {
                         index++;
@@ -241,57 +454,51 @@ public class Spin2TokenStream extends TokenStream {
             column++;
         }
 
-        return new Token(this, startIndex, line, startColumn, Token.NUMBER, text.substring(startIndex, index));
+        add(Token.NUMBER, startIndex, line, startColumn);
     }
 
-    Token parseHexNumber() {
+    void parseHexNumber() {
         int startIndex = index;
         int startColumn = column;
-        char ch = text.charAt(index);
 
         index++;
         column++;
 
-        while (index < text.length()) {
-            ch = Character.toUpperCase(text.charAt(index));
-            if (!((ch >= '0' && ch <= '9') || (ch >= 'A' && ch <= 'F') || ch == '_')) {
-                break;
-            }
+        while (index < text.length() && isHexDigit(text.charAt(index))) {
             index++;
             column++;
         }
 
-        return new Token(this, startIndex, line, startColumn, Token.NUMBER, text.substring(startIndex, index));
+        add(Token.NUMBER, startIndex, line, startColumn);
     }
 
-    Token parseBinQuadNumber() {
+    void parseBinQuadNumber() {
         int startIndex = index;
         int startColumn = column;
-        char ch = text.charAt(index);
+        char ch;
 
         index++;
         column++;
 
-        if (ch == '%' && index < text.length()) {
-            if (text.charAt(index) == '%') {
-                index++;
-                column++;
+        if (index < text.length() && text.charAt(index) == '%') {
+            index++;
+            column++;
 
-                while (index < text.length()) {
-                    ch = Character.toUpperCase(text.charAt(index));
-                    if (!((ch >= '0' && ch <= '3') || ch == '_')) {
-                        break;
-                    }
-                    index++;
-                    column++;
+            while (index < text.length()) {
+                ch = text.charAt(index);
+                if (!((ch >= '0' && ch <= '3') || ch == '_')) {
+                    break;
                 }
-
-                return new Token(this, startIndex, line, startColumn, Token.NUMBER, text.substring(startIndex, index));
+                index++;
+                column++;
             }
+
+            add(Token.NUMBER, startIndex, line, startColumn);
+            return;
         }
 
         while (index < text.length()) {
-            ch = Character.toUpperCase(text.charAt(index));
+            ch = text.charAt(index);
             if (!((ch >= '0' && ch <= '1') || ch == '_')) {
                 break;
             }
@@ -299,41 +506,40 @@ public class Spin2TokenStream extends TokenStream {
             column++;
         }
 
-        return new Token(this, startIndex, line, startColumn, Token.NUMBER, text.substring(startIndex, index));
+        add(Token.NUMBER, startIndex, line, startColumn);
     }
 
-    Token parseKeyword() {
+    void parseKeyword() {
         int startIndex = index++;
         int startColumn = column++;
 
         while (index < text.length()) {
-            char ch = Character.toUpperCase(text.charAt(index));
-            if (ch == '.' && index + 1 < text.length()) {
-                ch = Character.toUpperCase(text.charAt(index + 1));
-                if (!((ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9') || ch == '_')) {
+            char ch = text.charAt(index);
+            if (ch == '.') {
+                if (index + 1 >= text.length() || !isIdentifierPart(text.charAt(index + 1))) {
                     break;
                 }
             }
-            else if (!((ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9') || ch == '_')) {
+            else if (!isIdentifierPart(ch)) {
                 break;
             }
             index++;
             column++;
         }
 
-        String s = text.substring(startIndex, index);
         if (index < text.length() && text.charAt(index) == '=') {
-            if (MathOp.isAssignMathOp(s + "=")) {
+            if (MathOp.isAssignMathOp(text.substring(startIndex, index + 1))) {
                 index++;
                 column++;
-                return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+                add(Token.OPERATOR, startIndex, line, startColumn);
+                return;
             }
         }
 
-        return new Token(this, startIndex, line, startColumn, 0, text.substring(startIndex, index));
+        add(Token.KEYWORD, startIndex, line, startColumn);
     }
 
-    Token parseOperator() {
+    void parseOperator() {
         int startIndex = index;
         int startColumn = column;
 
@@ -349,46 +555,55 @@ public class Spin2TokenStream extends TokenStream {
                 index++;
                 column++;
             }
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '[' && ((ch1 == '+' && ch2 == '+') || (ch1 == '-' && ch2 == '-')) && ch3 == ']') {
             index += 4;
             column += 4;
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '+' && ch1 == '>' && ch2 == '=') {
             index += 3;
             column += 3;
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '<' && ch1 == '=' && ch2 == '>') {
             index += 3;
             column += 3;
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == ':' && ch1 == '=' && ch2 == ':') {
             index += 3;
             column += 3;
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '.' && ch1 == '.' && ch2 == '.') {
-            return skipToNextLine();
+            skipToNextLine();
+            return;
         }
 
         if (ch0 == '+' && ch1 == '+') {
             index += 2;
             column += 2;
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '-' && ch1 == '-') {
             index += 2;
             column += 2;
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '?' && ch1 == '?') {
             index += 2;
             column += 2;
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
 
         if (ch0 == '!' && ch1 == '!') {
@@ -398,18 +613,21 @@ public class Spin2TokenStream extends TokenStream {
                 index++;
                 column++;
             }
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '~' && ch1 == '~') {
             index += 2;
             column += 2;
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
 
         if (ch0 == '^' && ch1 == '@') {
             index += 2;
             column += 2;
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '@' && ch1 == '@') {
             index += 2;
@@ -418,18 +636,21 @@ public class Spin2TokenStream extends TokenStream {
                 index++;
                 column++;
             }
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '@' && ch1 == '\\') {
             index += 2;
             column += 2;
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
 
         if (ch0 == '-' && ch1 == '.') {
             index += 2;
             column += 2;
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '>' && ch1 == '>') {
             index += 2;
@@ -438,7 +659,8 @@ public class Spin2TokenStream extends TokenStream {
                 index++;
                 column++;
             }
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '<' && ch1 == '<') {
             index += 2;
@@ -447,17 +669,20 @@ public class Spin2TokenStream extends TokenStream {
                 index++;
                 column++;
             }
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '*' && ch1 == '.') {
             index += 2;
             column += 2;
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '/' && ch1 == '.') {
             index += 2;
             column += 2;
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '+' && ch1 == '/') {
             index += 2;
@@ -466,7 +691,8 @@ public class Spin2TokenStream extends TokenStream {
                 index++;
                 column++;
             }
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '/' && ch1 == '/') {
             index += 2;
@@ -475,12 +701,14 @@ public class Spin2TokenStream extends TokenStream {
                 index++;
                 column++;
             }
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '+' && ch1 == '.') {
             index += 2;
             column += 2;
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '#' && ch1 == '>') {
             index += 2;
@@ -489,7 +717,8 @@ public class Spin2TokenStream extends TokenStream {
                 index++;
                 column++;
             }
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '<' && ch1 == '#') {
             index += 2;
@@ -498,7 +727,8 @@ public class Spin2TokenStream extends TokenStream {
                 index++;
                 column++;
             }
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '+' && ch1 == '<') {
             index += 2;
@@ -507,12 +737,14 @@ public class Spin2TokenStream extends TokenStream {
                 index++;
                 column++;
             }
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '<' && ch1 == '.') {
             index += 2;
             column += 2;
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '<' && ch1 == '=') {
             index += 2;
@@ -521,7 +753,8 @@ public class Spin2TokenStream extends TokenStream {
                 index++;
                 column++;
             }
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '=' && ch1 == '=') {
             index += 2;
@@ -530,7 +763,8 @@ public class Spin2TokenStream extends TokenStream {
                 index++;
                 column++;
             }
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '<' && ch1 == '>') {
             index += 2;
@@ -539,7 +773,8 @@ public class Spin2TokenStream extends TokenStream {
                 index++;
                 column++;
             }
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '>' && ch1 == '=') {
             index += 2;
@@ -548,17 +783,20 @@ public class Spin2TokenStream extends TokenStream {
                 index++;
                 column++;
             }
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '+' && ch1 == '>') {
             index += 2;
             column += 2;
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '>' && ch1 == '.') {
             index += 2;
             column += 2;
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '&' && ch1 == '&') {
             index += 2;
@@ -567,7 +805,8 @@ public class Spin2TokenStream extends TokenStream {
                 index++;
                 column++;
             }
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '^' && ch1 == '^') {
             index += 2;
@@ -576,7 +815,8 @@ public class Spin2TokenStream extends TokenStream {
                 index++;
                 column++;
             }
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '|' && ch1 == '|') {
             index += 2;
@@ -585,22 +825,26 @@ public class Spin2TokenStream extends TokenStream {
                 index++;
                 column++;
             }
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == ':' && ch1 == '=') {
             index += 2;
             column += 2;
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '.' && ch1 == '.') {
             index += 2;
             column += 2;
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
         if (ch0 == '#' && ch1 == '#') {
             index += 2;
             column += 2;
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
 
         if (ch0 == '!' || ch0 == '&' || ch0 == '^' || ch0 == '|' || ch0 == '*' || ch0 == '/' || ch0 == '+' || ch0 == '-') {
@@ -610,16 +854,17 @@ public class Spin2TokenStream extends TokenStream {
                 index++;
                 column++;
             }
-            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+            add(Token.OPERATOR, startIndex, line, startColumn);
+            return;
         }
 
         index++;
         column++;
 
-        return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+        add(Token.OPERATOR, startIndex, line, startColumn);
     }
 
-    Token skipToNextLine() {
+    void skipToNextLine() {
         int startIndex = index++;
         int startLine = line;
         int startColumn = column++;
@@ -662,10 +907,10 @@ public class Spin2TokenStream extends TokenStream {
             }
         }
 
-        return new Token(this, startIndex, startLine, startColumn, Token.NEXT_LINE, text.substring(startIndex, index));
+        add(Token.NEXT_LINE, startIndex, startLine, startColumn);
     }
 
-    Token parseBacktickString() {
+    void parseBacktickString() {
         char ch;
         int nested = 0;
         int startIndex = index;
@@ -675,7 +920,7 @@ public class Spin2TokenStream extends TokenStream {
             index++;
             column++;
         }
-        backtickState = 1;
+        scanState = 1;
 
         while (index < text.length()) {
             ch = text.charAt(index);
@@ -687,8 +932,9 @@ public class Spin2TokenStream extends TokenStream {
                 break;
             }
             else if (ch == '`') {
-                backtickState = 2;
-                return new Token(this, startIndex, line, startColumn, Token.STRING, text.substring(startIndex, index));
+                scanState = 2;
+                add(Token.STRING, startIndex, line, startColumn);
+                return;
             }
             else {
                 if (ch == '(') {
@@ -699,8 +945,9 @@ public class Spin2TokenStream extends TokenStream {
                         if (index == startIndex) {
                             index++;
                             column++;
-                            backtickState = 0;
-                            return new Token(this, startIndex, line, startColumn, Token.OPERATOR, text.substring(startIndex, index));
+                            scanState = 0;
+                            add(Token.OPERATOR, startIndex, line, startColumn);
+                            return;
                         }
                         break;
                     }
@@ -711,12 +958,12 @@ public class Spin2TokenStream extends TokenStream {
             }
         }
 
-        backtickState = 0;
+        scanState = 0;
 
-        return new Token(this, startIndex, line, startColumn, Token.STRING, text.substring(startIndex, index));
+        add(Token.STRING, startIndex, line, startColumn);
     }
 
-    Token parseBacktickKeyword() {
+    void parseBacktickKeyword() {
         char ch;
         int startIndex = index;
         int startColumn = column;
@@ -736,31 +983,28 @@ public class Spin2TokenStream extends TokenStream {
             if (index < text.length()) {
                 ch = text.charAt(index);
                 if (ch == '(') {
-                    backtickState = 3;
-                    return new Token(this, startIndex, line, startColumn, 0, text.substring(startIndex, index));
+                    scanState = 3;
+                    add(Token.KEYWORD, startIndex, line, startColumn);
+                    return;
                 }
             }
         }
 
-        while (index < text.length()) {
-            ch = Character.toUpperCase(text.charAt(index));
-            if (!((ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9') || ch == '_')) {
-                break;
-            }
+        while (index < text.length() && isIdentifierPart(text.charAt(index))) {
             index++;
             column++;
         }
 
-        backtickState = 3;
+        scanState = 3;
 
-        return new Token(this, startIndex, line, startColumn, 0, text.substring(startIndex, index));
+        add(Token.KEYWORD, startIndex, line, startColumn);
     }
 
-    Token parseBacktickNext() {
+    void parseBacktickNext() {
         char ch;
 
         while (index < text.length()) {
-            ch = Character.toUpperCase(text.charAt(index));
+            ch = text.charAt(index);
             if (ch == '\r') {
                 int startIndex = index++;
                 int startColumn = column;
@@ -772,10 +1016,11 @@ public class Spin2TokenStream extends TokenStream {
                 column = 0;
                 line++;
 
-                backtickState = 0;
-                backtickNestedParens = 0;
+                scanState = 0;
+                scanNestedParens = 0;
 
-                return new Token(this, startIndex, startLine, startColumn, Token.NL);
+                add(Token.NL, startIndex, startIndex, startLine, startColumn);
+                return;
             }
             if (ch == '\n') {
                 int startIndex = index++;
@@ -785,10 +1030,11 @@ public class Spin2TokenStream extends TokenStream {
                 column = 0;
                 line++;
 
-                backtickState = 0;
-                backtickNestedParens = 0;
+                scanState = 0;
+                scanNestedParens = 0;
 
-                return new Token(this, startIndex, startLine, startColumn, Token.NL);
+                add(Token.NL, startIndex, startIndex, startLine, startColumn);
+                return;
             }
             if (ch == ' ') {
                 index++;
@@ -799,45 +1045,45 @@ public class Spin2TokenStream extends TokenStream {
                 column = ((column + 7) & 7) - 1;
             }
             else if (ch == '{') {
-                return parseBlockComment();
+                parseBlockComment();
+                return;
             }
             else if (ch == '"') {
-                return parseString();
+                parseString();
+                return;
             }
             else if (ch == '$') {
-                return parseHexNumber();
+                parseHexNumber();
+                return;
             }
             else if (ch == '%') {
-                return parseBinQuadNumber();
+                parseBinQuadNumber();
+                return;
             }
             else if (ch >= '0' && ch <= '9') {
-                return parseNumber();
+                parseNumber();
+                return;
             }
-            else if ((ch >= 'A' && ch <= 'Z') || ch == '_') {
-                return parseKeyword();
+            else if (isIdentifierStart(ch)) {
+                parseKeyword();
+                return;
             }
             else {
                 if (ch == '(') {
-                    backtickNestedParens++;
+                    scanNestedParens++;
                 }
                 if (ch == ')') {
-                    if (backtickNestedParens > 0) {
-                        backtickNestedParens--;
+                    if (scanNestedParens > 0) {
+                        scanNestedParens--;
                     }
-                    if (backtickNestedParens == 0) {
-                        backtickState = 1;
+                    if (scanNestedParens == 0) {
+                        scanState = 1;
                     }
                 }
-                return parseOperator();
+                parseOperator();
+                return;
             }
         }
-
-        return eofToken;
-    }
-
-    @Override
-    public Position mark() {
-        return new Spin2TokenStreamPosition(this);
     }
 
 }
@@ -31,6 +31,7 @@ import com.maccasoft.propeller.model.MethodNode;
 import com.maccasoft.propeller.model.Node;
 import com.maccasoft.propeller.model.NodeVisitor;
 import com.maccasoft.propeller.model.ObjectNode;
+import com.maccasoft.propeller.model.RootNode;
 import com.maccasoft.propeller.model.SourceProvider;
 import com.maccasoft.propeller.model.StatementNode;
 import com.maccasoft.propeller.model.Token;
@@ -806,8 +807,7 @@ public class CTokenMarker extends SourceTokenMarker {
 
     @Override
     public void refreshTokens(String text) {
-        CParser subject = new CParser(text);
-        root = subject.parse();
+        root = parseSections(text);
 
         tokens.clear();
         for (Token token : root.getComments()) {
@@ -827,7 +827,65 @@ public class CTokenMarker extends SourceTokenMarker {
     }
 
     @Override
-    public void refreshCompilerTokens(List<CompilerException> messages) {
+    protected RootNode parseSection(String text) {
+        CParser subject = new CParser(text);
+        return subject.parse();
+    }
+
+    @Override
+    protected String getSectionSentinel() {
+        return "#";
+    }
+
+    /*
+     * The parser can restart at a line after a function or a preprocessor directive,
+     * if there are no block comments in between that would document the next function.
+     */
+    @Override
+    protected int getSectionStart(RootNode root, int index, String text) {
+        if (index == 0) {
+            return -1;
+        }
+        Node previous = root.getChild(index - 1);
+        if (!(previous instanceof FunctionNode) && !(previous instanceof DirectiveNode)) {
+            return -1;
+        }
+
+        Token token = root.getChild(index).getStartToken();
+        if (token == null) {
+            return -1;
+        }
+        int start = token.start;
+        while (start > 0 && (text.charAt(start - 1) == ' ' || text.charAt(start - 1) == '\t')) {
+            start--;
+        }
+        if (start == 0 || (text.charAt(start - 1) != '\n' && text.charAt(start - 1) != '\r')) {
+            return -1;
+        }
+
+        int stop = getLastStopIndex(previous);
+        if (stop < 0 || stop >= start || text.substring(stop + 1, start).contains("/*")) {
+            return -1;
+        }
+
+        return start;
+    }
+
+    int getLastStopIndex(Node node) {
+        int stop = node.getStopIndex();
+        for (Node child : node.getChilds()) {
+            stop = Math.max(stop, getLastStopIndex(child));
+        }
+        return stop;
+    }
+
+    @Override
+    protected boolean isSectionStart(RootNode root, String text) {
+        return true;
+    }
+
+    @Override
+    public void refreshCompilerTokens(List<CompilerException> messages, RootNode compiledRoot) {
         tokens.clear();
         symbols.clear();
         externals.clear();
@@ -850,7 +908,7 @@ public class CTokenMarker extends SourceTokenMarker {
             updateSpin2References(root, tokens);
         }
 
-        super.refreshCompilerTokens(messages);
+        super.refreshCompilerTokens(messages, compiledRoot);
     }
 
     NodeVisitor collectKeywordsVisitor = new NodeVisitor() {
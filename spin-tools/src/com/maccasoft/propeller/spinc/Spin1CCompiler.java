@@ -11,6 +11,7 @@ package com.maccasoft.propeller.spinc;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.Collection;
 import java.util.Map;
 
 import com.maccasoft.propeller.CompilerException;
@@ -19,7 +20,10 @@ import com.maccasoft.propeller.SpinObject;
 import com.maccasoft.propeller.SpinObject.LinkDataObject;
 import com.maccasoft.propeller.expressions.Context;
 import com.maccasoft.propeller.expressions.Expression;
+import com.maccasoft.propeller.model.DirectiveNode;
+import com.maccasoft.propeller.model.NodeVisitor;
 import com.maccasoft.propeller.model.RootNode;
+import com.maccasoft.propeller.model.VariableNode;
 import com.maccasoft.propeller.spin1.Spin1Compiler;
 import com.maccasoft.propeller.spin1.Spin1Object;
 import com.maccasoft.propeller.spin1.Spin1ObjectCompiler;
@@ -42,8 +46,7 @@ public class Spin1CCompiler extends Spin1Compiler {
         if (text == null) {
             throw new FileNotFoundException();
         }
-        CParser parser = new CParser(text);
-        Spin1Object object = compile(file, parser.parse());
+        Spin1Object object = compile(file, getParsedSource(file, ".c", text));
 
         if (hasErrors()) {
             throw new CompilerException(getMessages());
@@ -168,4 +171,44 @@ public class Spin1CCompiler extends Spin1Compiler {
         return info;
     }
 
+    @Override
+    protected void collectObjectFiles(RootNode root, Collection<File> files) {
+        super.collectObjectFiles(root, files);
+
+        root.accept(new NodeVisitor() {
+
+            @Override
+            public void visitDirective(DirectiveNode node) {
+                if (node instanceof DirectiveNode.IncludeNode) {
+                    String fileName = ((DirectiveNode.IncludeNode) node).getFileName();
+                    if (fileName != null) {
+                        addFile(fileName);
+                    }
+                }
+            }
+
+            @Override
+            public void visitVariable(VariableNode node) {
+                if (node.getParent() instanceof RootNode && node.getTokenCount() > 1) {
+                    int index = 0;
+                    if ("struct".equals(node.getToken(index).getText())) {
+                        index++;
+                    }
+                    String type = node.getToken(index).getText();
+                    if (!type.matches("(int|long|float|short|word|byte|void|char|unsigned|signed|const|static)")) {
+                        addFile(type);
+                    }
+                }
+            }
+
+            void addFile(String name) {
+                File file = findFile(name, ".c", ".spin");
+                if (file != null) {
+                    files.add(file);
+                }
+            }
+
+        });
+    }
+
 }